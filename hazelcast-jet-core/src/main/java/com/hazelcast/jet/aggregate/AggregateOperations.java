@@ -53,6 +53,9 @@ import java.util.stream.Collectors;
 import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
 import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
 import static com.hazelcast.jet.function.FunctionEx.identity;
+import static com.hazelcast.jet.impl.aggregate.LongArithmeticFn.ADD_EXACT;
+import static com.hazelcast.jet.impl.aggregate.LongArithmeticFn.SUBTRACT_ALLOWING_OVERFLOW;
+import static com.hazelcast.jet.impl.aggregate.LongArithmeticFn.SUBTRACT_EXACT;
 import static com.hazelcast.jet.impl.util.Util.checkSerializable;
 
 /**
@@ -74,8 +77,8 @@ public final class AggregateOperations {
         return AggregateOperation
                 .withCreate(LongAccumulator::new)
                 .andAccumulate((LongAccumulator a, T item) -> a.add(1))
-                .andCombine(LongAccumulator::add)
-                .andDeduct(LongAccumulator::subtractAllowingOverflow)
+                .andCombine(ADD_EXACT)
+                .andDeduct(SUBTRACT_ALLOWING_OVERFLOW)
                 .andExportFinish(LongAccumulator::get);
     }
 
@@ -93,8 +96,8 @@ public final class AggregateOperations {
         return AggregateOperation
                 .withCreate(LongAccumulator::new)
                 .andAccumulate((LongAccumulator a, T item) -> a.add(getLongValueFn.applyAsLong(item)))
-                .andCombine(LongAccumulator::add)
-                .andDeduct(LongAccumulator::subtract)
+                .andCombine(ADD_EXACT)
+                .andDeduct(SUBTRACT_EXACT)
                 .andExportFinish(LongAccumulator::get);
     }
 
@@ -271,14 +274,8 @@ public final class AggregateOperations {
                     a.set1(a.get1() + 1);
                     a.set2(Math.addExact(a.get2(), getLongValueFn.applyAsLong(i)));
                 })
-                .andCombine((a1, a2) -> {
-                    a1.set1(Math.addExact(a1.get1(), a2.get1()));
-                    a1.set2(Math.addExact(a1.get2(), a2.get2()));
-                })
-                .andDeduct((a1, a2) -> {
-                    a1.set1(Math.subtractExact(a1.get1(), a2.get1()));
-                    a1.set2(Math.subtractExact(a1.get2(), a2.get2()));
-                })
+                .andCombine(ADD_EXACT)
+                .andDeduct(SUBTRACT_EXACT)
                 .andExportFinish(a -> (double) a.get2() / a.get1());
     }
 
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.config;
+
+/**
+ * Defines what a cooperative worker thread does when none of its tasklets
+ * made progress. This is a trade-off between the CPU usage when the traffic
+ * is low and the latency with which the thread reacts to new items.
+ *
+ * @see InstanceConfig#setCooperativeIdleStrategy
+ */
+public enum CooperativeIdleStrategy {
+
+    /**
+     * The thread parks for an increasing time, starting with the {@code
+     * jet.minimum.idle.microseconds} property and up to 1 millisecond. Uses
+     * little CPU when idle, but a new item can wait up to the park time before
+     * it's processed.
+     * <p>
+     * This is the default.
+     */
+    BACKOFF,
+
+    /**
+     * The thread never parks. Provides the lowest latency, but each
+     * cooperative thread uses a full CPU core even if there's no traffic.
+     */
+    BUSY_SPIN,
+
+    /**
+     * The thread adapts to the traffic: it keeps track of how long its idle
+     * periods usually last. If they are short, it spins and yields through
+     * them for a low latency; if they are long, it parks right away to save
+     * CPU. The time spent spinning and parked is available in the {@code
+     * idleSpinNanos} and {@code idleParkNanos} metrics of each cooperative
+     * worker.
+     */
+    ADAPTIVE
+}
@@ -20,6 +20,7 @@ import com.hazelcast.jet.core.Edge;
 
 import java.io.Serializable;
 
+import static com.hazelcast.util.Preconditions.checkNotNegative;
 import static com.hazelcast.util.Preconditions.checkPositive;
 
 /**
@@ -44,9 +45,18 @@ public class EdgeConfig implements Serializable {
      */
     public static final int DEFAULT_PACKET_SIZE_LIMIT = 1 << 14;
 
+    /**
+     * The default {@link #setCompressionThreshold(int) compression threshold}.
+     */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1 << 10;
+
     private int queueSize = DEFAULT_QUEUE_SIZE;
     private int receiveWindowMultiplier = DEFAULT_RECEIVE_WINDOW_MULTIPLIER;
     private int packetSizeLimit = DEFAULT_PACKET_SIZE_LIMIT;
+    private boolean compressionEnabled;
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private long maxWatermarkSkew;
+    private boolean watermarkSkewThrottlingEnabled;
 
     /**
      * Sets the capacity of processor-to-processor concurrent queues. The value
@@ -146,4 +156,108 @@ public class EdgeConfig implements Serializable {
     public int getPacketSizeLimit() {
         return packetSizeLimit;
     }
+
+    /**
+     * Enables compression of the network packets of a distributed edge. The
+     * packets are compressed using the LZ4 algorithm, which trades some
+     * compression ratio for speed. Enable it if the network between the
+     * members is the bottleneck and the items compress well, for example
+     * when they contain text. Packets that compress poorly are sent
+     * uncompressed.
+     * <p>
+     * Compression is disabled by default. This setting has no effect on a
+     * non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setCompressionEnabled(boolean) compression}
+     * of network packets is enabled.
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Sets the minimum size of the data in a network packet, in bytes, to
+     * compress it, if {@link #setCompressionEnabled(boolean) compression} is
+     * enabled. Smaller packets are sent uncompressed because the saving
+     * wouldn't make up for the CPU cost.
+     * <p>
+     * The default value is {@value #DEFAULT_COMPRESSION_THRESHOLD}.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setCompressionThreshold(int compressionThreshold) {
+        checkNotNegative(compressionThreshold, "compressionThreshold should not be a negative number");
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setCompressionThreshold(int) compression threshold},
+     * in bytes.
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Sets the maximum difference between the watermarks of the upstream
+     * processors the edge tries to maintain. When a processor's watermark is
+     * further ahead of the lowest watermark, its items are received only if
+     * the processors that are behind have no items. This way, the downstream
+     * processor catches up on the lagging processors first and the windows
+     * that are waiting for their watermark have to buffer less data.
+     * <p>
+     * Idle and completed upstream processors don't hold back the others. The
+     * difference is measured in the units of the watermark, typically in
+     * milliseconds.
+     * <p>
+     * The default value is 0, which means the watermark skew isn't managed.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setMaxWatermarkSkew(long maxWatermarkSkew) {
+        checkNotNegative(maxWatermarkSkew, "maxWatermarkSkew should not be a negative number");
+        this.maxWatermarkSkew = maxWatermarkSkew;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setMaxWatermarkSkew(long) maximum watermark skew}.
+     */
+    public long getMaxWatermarkSkew() {
+        return maxWatermarkSkew;
+    }
+
+    /**
+     * Enables throttling of the upstream processors that are ahead of the
+     * lowest watermark by more than the {@link #setMaxWatermarkSkew(long)
+     * maximum watermark skew}: their items aren't received at all until the
+     * lagging processors catch up, so that the skew stays bounded. The
+     * throttled processors are eventually blocked by backpressure.
+     * <p>
+     * Throttling is disabled by default. It has no effect if the maximum
+     * watermark skew isn't set.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setWatermarkSkewThrottlingEnabled(boolean watermarkSkewThrottlingEnabled) {
+        this.watermarkSkewThrottlingEnabled = watermarkSkewThrottlingEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the {@link #setWatermarkSkewThrottlingEnabled(boolean)
+     * throttling} of the processors that are ahead is enabled.
+     */
+    public boolean isWatermarkSkewThrottlingEnabled() {
+        return watermarkSkewThrottlingEnabled;
+    }
 }
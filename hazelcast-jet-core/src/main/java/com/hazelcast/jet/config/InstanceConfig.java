@@ -20,10 +20,13 @@ import com.hazelcast.config.MapConfig;
 import com.hazelcast.jet.Job;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static com.hazelcast.util.Preconditions.checkBackupCount;
+import static com.hazelcast.util.Preconditions.checkNotNull;
 import static com.hazelcast.util.Preconditions.checkNotNegative;
 import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.StringUtil.isNullOrEmptyAfterTrim;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -48,6 +51,8 @@ public class InstanceConfig {
     private int backupCount = DEFAULT_BACKUP_COUNT;
     private long scaleUpDelayMillis = SCALE_UP_DELAY_MILLIS_DEFAULT;
     private boolean losslessRestartEnabled;
+    private CooperativeIdleStrategy cooperativeIdleStrategy = CooperativeIdleStrategy.BACKOFF;
+    private String cooperativeThreadCpuAffinity;
 
     /**
      * Sets the number of threads each cluster member will use to execute Jet
@@ -68,6 +73,58 @@ public class InstanceConfig {
         return cooperativeThreadCount;
     }
 
+    /**
+     * Sets what the cooperative threads do when none of their tasklets made
+     * progress, see {@link CooperativeIdleStrategy}. The default is {@link
+     * CooperativeIdleStrategy#BACKOFF BACKOFF}.
+     */
+    @Nonnull
+    public InstanceConfig setCooperativeIdleStrategy(@Nonnull CooperativeIdleStrategy strategy) {
+        checkNotNull(strategy, "cooperativeIdleStrategy");
+        this.cooperativeIdleStrategy = strategy;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setCooperativeIdleStrategy idle strategy} of the
+     * cooperative threads.
+     */
+    @Nonnull
+    public CooperativeIdleStrategy getCooperativeIdleStrategy() {
+        return cooperativeIdleStrategy;
+    }
+
+    /**
+     * Sets the CPUs to pin the cooperative threads to, in the format of
+     * {@code taskset -c}, for example {@code "0-7,16-23"}. The i-th
+     * cooperative thread is pinned to the i-th CPU in the list; if there are
+     * more threads than CPUs, the list is reused from the start.
+     * <p>
+     * When the CPUs belong to more than one NUMA node, Jet also places the
+     * tasklets so that the tasklets of the processors with the same local
+     * index, which are connected by one-to-one and isolated edges, run on the
+     * same node. This placement isn't used when the tasklet rebalancing is
+     * enabled.
+     * <p>
+     * Supported only on Linux with the {@code taskset} utility installed; on
+     * other systems a warning is logged and the threads aren't pinned. The
+     * default is {@code null}, the threads aren't pinned.
+     */
+    @Nonnull
+    public InstanceConfig setCooperativeThreadCpuAffinity(@Nullable String cpuList) {
+        this.cooperativeThreadCpuAffinity = isNullOrEmptyAfterTrim(cpuList) ? null : cpuList.trim();
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setCooperativeThreadCpuAffinity CPUs} to pin the
+     * cooperative threads to, or {@code null}, if they aren't pinned.
+     */
+    @Nullable
+    public String getCooperativeThreadCpuAffinity() {
+        return cooperativeThreadCpuAffinity;
+    }
+
     /**
      * While executing a Jet job there is the issue of regulating the rate
      * at which one member of the cluster sends data to another member. The
@@ -143,6 +143,10 @@ public final class JetConfigXmlGenerator {
            .node("queue-size", defaultEdge.getQueueSize())
            .node("packet-size-limit", defaultEdge.getPacketSizeLimit())
            .node("receive-window-multiplier", defaultEdge.getReceiveWindowMultiplier())
+           .node("compression-enabled", defaultEdge.isCompressionEnabled())
+           .node("compression-threshold", defaultEdge.getCompressionThreshold())
+           .node("max-watermark-skew", defaultEdge.getMaxWatermarkSkew())
+           .node("watermark-skew-throttling-enabled", defaultEdge.isWatermarkSkewThrottlingEnabled())
            .close();
 
     }
@@ -154,6 +158,8 @@ public final class JetConfigXmlGenerator {
            .node("backup-count", instance.getBackupCount())
            .node("scale-up-delay-millis", instance.getScaleUpDelayMillis())
            .node("lossless-restart-enabled", instance.isLosslessRestartEnabled())
+           .node("cooperative-idle-strategy", instance.getCooperativeIdleStrategy())
+           .nodeIfContents("cooperative-thread-cpu-affinity", instance.getCooperativeThreadCpuAffinity())
            .close();
 
     }
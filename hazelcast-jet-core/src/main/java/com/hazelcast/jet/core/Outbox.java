@@ -18,6 +18,7 @@ package com.hazelcast.jet.core;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Data sink for a {@link Processor}. The outbox consists of individual
@@ -126,4 +127,27 @@ public interface Outbox {
      * javadoc.
      */
     boolean hasUnfinishedItem();
+
+    /**
+     * Returns an item previously offered to the bucket with the given
+     * ordinal which the downstream processor no longer uses, or {@code
+     * null}, if there's no such item. The processor can mutate and offer
+     * the item again instead of allocating a new one. The returned item can
+     * come from any processor of this vertex on this member, therefore it
+     * can be of any type the processors offer to the bucket.
+     * <p>
+     * Items are available only if the downstream processors declare that
+     * they don't {@linkplain Processor#retainsInputItems() retain input
+     * items}. Items must not be reused in other ways: once offered, an item
+     * must not be mutated unless it's returned by this method again.
+     * <p>
+     * Outbox is not thread safe, see {@link Outbox Thread safety} in class
+     * javadoc.
+     * <p>
+     * The default implementation returns {@code null}.
+     */
+    @Nullable
+    default Object reusableItem(int ordinal) {
+        return null;
+    }
 }
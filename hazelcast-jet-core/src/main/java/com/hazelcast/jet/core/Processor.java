@@ -78,6 +78,27 @@ public interface Processor {
         return true;
     }
 
+    /**
+     * Tells whether this processor keeps a reference to an item it took from
+     * the inbox after the {@link #process(int, Inbox) process()} call
+     * returns. Emitting the item to the outbox, putting it into a collection
+     * or into an accumulator also count as keeping the reference.
+     * <p>
+     * If all processors of a vertex return {@code false}, the items they
+     * processed can be reused by the upstream processors on the same member
+     * through {@link Outbox#reusableItem(int)}. The items are reused only on
+     * local edges that aren't broadcast and only if the upstream vertex has
+     * no other outbound edge.
+     * <p>
+     * All processor instances of a vertex must return the same value and a
+     * single processor instance must always return the same value.
+     * <p>
+     * The default implementation returns {@code true}.
+     */
+    default boolean retainsInputItems() {
+        return true;
+    }
+
     /**
      * Initializes this processor with the outbox that the processing methods
      * must use to deposit their output items. This method will be called
@@ -429,9 +429,37 @@ public final class Processors {
             long earlyResultsPeriod,
             @Nonnull AggregateOperation<A, ? extends R> aggrOp,
             @Nonnull KeyedWindowResultFunction<? super K, ? super R, ? extends OUT> mapToOutputFn
+    ) {
+        return aggregateByKeyAndWindowP(keyFns, timestampFns, timestampKind, singletonList(winPolicy),
+                earlyResultsPeriod, aggrOp, mapToOutputFn, true);
+    }
+
+    /**
+     * Returns a supplier of processors for a vertex that aggregates events
+     * into several sliding windows in a single stage, see {@link
+     * #aggregateToSlidingWindowP(List, List, TimestampKind,
+     * SlidingWindowPolicy, long, AggregateOperation,
+     * KeyedWindowResultFunction) aggregateToSlidingWindowP()} for a single
+     * window.
+     * <p>
+     * The vertex accumulates the items only once, into frames whose size is
+     * the greatest common divisor of the sliding steps of the windows. It
+     * computes the results of all the windows from these shared frames. The
+     * frame offsets of the windows must be congruent modulo the frame size
+     * and the aggregate operation must have the {@code combine} primitive.
+     */
+    @Nonnull
+    public static <K, A, R, OUT> SupplierEx<Processor> aggregateToSlidingWindowP(
+            @Nonnull List<FunctionEx<?, ? extends K>> keyFns,
+            @Nonnull List<ToLongFunctionEx<?>> timestampFns,
+            @Nonnull TimestampKind timestampKind,
+            @Nonnull List<SlidingWindowPolicy> winPolicies,
+            long earlyResultsPeriod,
+            @Nonnull AggregateOperation<A, ? extends R> aggrOp,
+            @Nonnull KeyedWindowResultFunction<? super K, ? super R, ? extends OUT> mapToOutputFn
     ) {
         return aggregateByKeyAndWindowP(
-                keyFns, timestampFns, timestampKind, winPolicy, earlyResultsPeriod, aggrOp, mapToOutputFn, true);
+                keyFns, timestampFns, timestampKind, winPolicies, earlyResultsPeriod, aggrOp, mapToOutputFn, true);
     }
 
     /**
@@ -478,7 +506,7 @@ public final class Processors {
                 keyFns,
                 timestampFns,
                 timestampKind,
-                winPolicy.toTumblingByFrame(),
+                singletonList(winPolicy.toTumblingByFrame()),
                 0L,
                 aggrOp.withIdentityFinish(),
                 KeyedWindowResult::new,
@@ -525,6 +553,24 @@ public final class Processors {
             @Nonnull SlidingWindowPolicy winPolicy,
             @Nonnull AggregateOperation<A, ? extends R> aggrOp,
             @Nonnull KeyedWindowResultFunction<? super K, ? super R, ? extends OUT> mapToOutputFn
+    ) {
+        return combineToSlidingWindowP(singletonList(winPolicy), aggrOp, mapToOutputFn);
+    }
+
+    /**
+     * Returns a supplier of processors for the second-stage vertex in a
+     * two-stage aggregation into several sliding windows, see {@link
+     * #combineToSlidingWindowP(SlidingWindowPolicy, AggregateOperation,
+     * KeyedWindowResultFunction) combineToSlidingWindowP()} for a single
+     * window. The first-stage vertex must be {@link #accumulateByFrameP
+     * accumulateByFrame()} with a tumbling window whose size is the greatest
+     * common divisor of the sliding steps of the windows.
+     */
+    @Nonnull
+    public static <K, A, R, OUT> SupplierEx<Processor> combineToSlidingWindowP(
+            @Nonnull List<SlidingWindowPolicy> winPolicies,
+            @Nonnull AggregateOperation<A, ? extends R> aggrOp,
+            @Nonnull KeyedWindowResultFunction<? super K, ? super R, ? extends OUT> mapToOutputFn
     ) {
         FunctionEx<KeyedWindowResult<K, A>, K> keyFn = KeyedWindowResult::key;
         ToLongFunctionEx<KeyedWindowResult<K, A>> timestampFn = KeyedWindowResult::end;
@@ -532,7 +578,7 @@ public final class Processors {
                 singletonList(keyFn),
                 singletonList(timestampFn),
                 TimestampKind.FRAME,
-                winPolicy,
+                winPolicies,
                 0L,
                 aggrOp.withCombiningAccumulateFn(KeyedWindowResult<Object, A>::result),
                 mapToOutputFn,
@@ -549,7 +595,7 @@ public final class Processors {
      * @param timestampFns function that extracts the timestamp from the input item
      * @param timestampKind the kind of timestamp extracted by {@code timestampFns}: either the
      *                      event timestamp or the frame timestamp
-     * @param winPolicy definition of the window to compute
+     * @param winPolicies definitions of the windows to compute
      * @param earlyResultsPeriod the period (milliseconds) at which to emit the preliminary results of
      *                           windows before the watermark has advanced past them. Zero means "don't
      *                           emit early results"
@@ -565,18 +611,19 @@ public final class Processors {
             @Nonnull List<FunctionEx<?, ? extends K>> keyFns,
             @Nonnull List<ToLongFunctionEx<?>> timestampFns,
             @Nonnull TimestampKind timestampKind,
-            @Nonnull SlidingWindowPolicy winPolicy,
+            @Nonnull List<SlidingWindowPolicy> winPolicies,
             long earlyResultsPeriod,
             @Nonnull AggregateOperation<A, ? extends R> aggrOp,
             @Nonnull KeyedWindowResultFunction<? super K, ? super R, ? extends OUT> mapToOutputFn,
             boolean isLastStage
     ) {
+        SlidingWindowPolicy framePolicy = SlidingWindowP.framePolicy(winPolicies);
         return () -> new SlidingWindowP<>(
                 keyFns,
                 timestampFns.stream()
-                            .map(f -> toFrameTimestampFn(f, timestampKind, winPolicy))
+                            .map(f -> toFrameTimestampFn(f, timestampKind, framePolicy))
                             .collect(toList()),
-                winPolicy,
+                winPolicies,
                 earlyResultsPeriod,
                 aggrOp,
                 mapToOutputFn,
@@ -969,6 +1016,11 @@ public final class Processors {
             this.outbox = outbox;
         }
 
+        @Override
+        public boolean retainsInputItems() {
+            return false;
+        }
+
         @Override
         public void process(int ordinal, @Nonnull Inbox inbox) {
             inbox.drain(ConsumerEx.noop());
@@ -0,0 +1,600 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+import static com.hazelcast.nio.IOUtil.closeResource;
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Dedicated TCP connections between the members, used for the packets of
+ * distributed edges instead of the member connections, where the packets
+ * compete with the operations and the other Hazelcast traffic.
+ * <p>
+ * Each member listens on its member port plus a configured offset. A
+ * member connects to another member when it first sends to it and uses the
+ * connection only in that direction. A frame is the length of its content
+ * followed by the content. The first frame on a connection is a one-time
+ * token, each next frame is a packet.
+ * <p>
+ * The connecting member gets the token from the member it connects to over
+ * their member connection, see {@link #issueToken}. The token identifies the
+ * connecting member, the accepting member closes a connection without a
+ * valid token, as well as a connection with a frame larger than the
+ * maximum packet size. The data plane doesn't encrypt the traffic,
+ * therefore it must not be used when the member connections are secured.
+ * <p>
+ * The channels are non-blocking and served by a fixed number of I/O
+ * threads, each with its own selector. A connection is assigned to an I/O
+ * thread when created, therefore the packets on it are received in the
+ * order they were written.
+ */
+public class DataPlane {
+
+    /**
+     * The largest supported maximum packet size, such that the frame with
+     * its length fits into a byte array.
+     */
+    public static final int MAX_PACKET_SIZE_LIMIT = Integer.MAX_VALUE - INT_SIZE_IN_BYTES;
+
+    static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final long TOKEN_VALIDITY_MILLIS = 3 * CONNECT_TIMEOUT_MILLIS;
+    private static final int HANDSHAKE_LENGTH = 2 * LONG_SIZE_IN_BYTES;
+    private static final long CONNECT_CHECK_INTERVAL_MILLIS = 100;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+    @Probe(name = "dataPlanePacketsOut")
+    private final AtomicLong packetsOut = new AtomicLong();
+    @Probe(name = "dataPlaneBytesOut")
+    private final AtomicLong bytesOut = new AtomicLong();
+    @Probe(name = "dataPlaneWriteCalls")
+    private final AtomicLong writeCalls = new AtomicLong();
+    @Probe(name = "dataPlanePacketsIn")
+    private final AtomicLong packetsIn = new AtomicLong();
+    @Probe(name = "dataPlaneBytesIn")
+    private final AtomicLong bytesIn = new AtomicLong();
+    @Probe(name = "dataPlaneRejectedConnections")
+    private final AtomicLong rejectedConnections = new AtomicLong();
+
+    private final Address thisAddress;
+    private final int portOffset;
+    private final int maxPacketSize;
+    private final Function<Address, CompletableFuture<UUID>> tokenRequester;
+    private final Predicate<Address> memberChecker;
+    private final BiConsumer<Address, byte[]> packetHandler;
+    private final ILogger logger;
+    private final ServerSocketChannel serverChannel;
+    private final Thread acceptorThread;
+    private final IoThread[] ioThreads;
+    private final AtomicInteger nextIoThread = new AtomicInteger();
+    private final ConcurrentMap<Address, CompletableFuture<DataPlaneConnection>> connections =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, PendingToken> pendingTokens = new ConcurrentHashMap<>();
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param thisAddress the member address of this member
+     * @param portOffset the offset of the data-plane port from the member port
+     * @param ioThreadCount the number of I/O threads
+     * @param maxPacketSize the maximum size of a packet in bytes
+     * @param threadNamePrefix the prefix of the names of the threads
+     * @param tokenRequester requests a token from the given member over the
+     *                       member connection, the member gets it from
+     *                       {@link #issueToken}
+     * @param memberChecker tells if the given address is the address of a
+     *                      current member
+     * @param packetHandler the handler of the received packets, called on
+     *                      the I/O threads with the sender's member address
+     */
+    public DataPlane(
+            @Nonnull Address thisAddress, int portOffset, int ioThreadCount, int maxPacketSize,
+            @Nonnull String threadNamePrefix, @Nonnull Function<Address, CompletableFuture<UUID>> tokenRequester,
+            @Nonnull Predicate<Address> memberChecker, @Nonnull BiConsumer<Address, byte[]> packetHandler,
+            @Nonnull ILogger logger
+    ) throws IOException {
+        checkTrue(maxPacketSize > 0 && maxPacketSize <= MAX_PACKET_SIZE_LIMIT,
+                "maxPacketSize must be between 1 and " + MAX_PACKET_SIZE_LIMIT + ", but is " + maxPacketSize);
+        this.thisAddress = thisAddress;
+        this.portOffset = portOffset;
+        this.maxPacketSize = maxPacketSize;
+        this.tokenRequester = tokenRequester;
+        this.memberChecker = memberChecker;
+        this.packetHandler = packetHandler;
+        this.logger = logger;
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.bind(new InetSocketAddress(thisAddress.getInetAddress(), thisAddress.getPort() + portOffset));
+            this.ioThreads = new IoThread[ioThreadCount];
+            for (int i = 0; i < ioThreadCount; i++) {
+                ioThreads[i] = new IoThread(threadNamePrefix + ".io.thread-" + i);
+            }
+        } catch (IOException e) {
+            closeResource(serverChannel);
+            throw e;
+        }
+        this.acceptorThread = new Thread(this::acceptLoop, threadNamePrefix + ".acceptor");
+    }
+
+    public void start() {
+        for (IoThread ioThread : ioThreads) {
+            ioThread.start();
+        }
+        acceptorThread.start();
+        logger.info("Data plane listening on " + serverChannel.socket().getLocalSocketAddress());
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        closeResource(serverChannel);
+        for (CompletableFuture<DataPlaneConnection> future : connections.values()) {
+            future.thenAccept(connection -> connection.close(null));
+        }
+        for (IoThread ioThread : ioThreads) {
+            ioThread.selector.wakeup();
+        }
+        try {
+            acceptorThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            for (IoThread ioThread : ioThreads) {
+                ioThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // the connects not started by the I/O threads before they stopped
+        for (CompletableFuture<DataPlaneConnection> future : connections.values()) {
+            future.completeExceptionally(new IOException("Data plane is shut down"));
+        }
+    }
+
+    /**
+     * Returns the connection to the given member, connecting to it if there
+     * isn't an open connection yet. Doesn't block, the connection is
+     * established by an I/O thread. The returned future fails if it can't
+     * get a token from the member or if it can't connect in {@value
+     * #CONNECT_TIMEOUT_MILLIS} milliseconds.
+     */
+    @Nonnull
+    public CompletableFuture<DataPlaneConnection> connectionAsync(@Nonnull Address member) {
+        CompletableFuture<DataPlaneConnection> future = connections.get(member);
+        if (isUsable(future)) {
+            return future;
+        }
+        synchronized (connections) {
+            future = connections.get(member);
+            if (!isUsable(future)) {
+                future = connect(member);
+                connections.put(member, future);
+            }
+            return future;
+        }
+    }
+
+    private static boolean isUsable(CompletableFuture<DataPlaneConnection> future) {
+        if (future == null || future.isCompletedExceptionally()) {
+            return false;
+        }
+        DataPlaneConnection connection = future.getNow(null);
+        return connection == null || !connection.isClosed();
+    }
+
+    /**
+     * Closes the connections to and from the given member, if there are
+     * any. The senders writing to it will fail. Called when the member
+     * leaves the cluster.
+     */
+    public void closeConnections(@Nonnull Address member) {
+        CompletableFuture<DataPlaneConnection> future = connections.remove(member);
+        if (future != null) {
+            future.thenAccept(connection -> connection.close(null));
+        }
+        pendingTokens.values().removeIf(token -> token.member.equals(member));
+        for (IoThread ioThread : ioThreads) {
+            ioThread.execute(() -> ioThread.closeInbound(member));
+        }
+    }
+
+    /**
+     * Issues a one-time token that the given member will send when
+     * connecting to this member. It's valid for {@value
+     * #TOKEN_VALIDITY_MILLIS} milliseconds.
+     *
+     * @param member the address of the member, as authenticated by its
+     *               member connection
+     */
+    @Nonnull
+    public UUID issueToken(@Nonnull Address member) {
+        long now = System.nanoTime();
+        pendingTokens.values().removeIf(token -> token.isExpired(now));
+        UUID token = UUID.randomUUID();
+        pendingTokens.put(token, new PendingToken(member, now + MILLISECONDS.toNanos(TOKEN_VALIDITY_MILLIS)));
+        return token;
+    }
+
+    private CompletableFuture<DataPlaneConnection> connect(Address member) {
+        CompletableFuture<DataPlaneConnection> future = new CompletableFuture<>();
+        if (shutdown) {
+            future.completeExceptionally(new IOException("Data plane is shut down"));
+            return future;
+        }
+        tokenRequester.apply(member).whenComplete((token, e) -> {
+            if (e != null) {
+                future.completeExceptionally(new IOException("Failed to get a data-plane token from " + member, e));
+                return;
+            }
+            IoThread ioThread = nextIoThread();
+            ioThread.execute(() -> ioThread.connect(member, token, future));
+        });
+        return future;
+    }
+
+    private static ByteBuffer handshake(UUID token) {
+        ByteBuffer buf = ByteBuffer.allocate(INT_SIZE_IN_BYTES + HANDSHAKE_LENGTH);
+        buf.putInt(HANDSHAKE_LENGTH)
+           .putLong(token.getMostSignificantBits())
+           .putLong(token.getLeastSignificantBits())
+           .flip();
+        return buf;
+    }
+
+    private void acceptLoop() {
+        while (!shutdown) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                IoThread ioThread = nextIoThread();
+                ioThread.execute(() -> ioThread.registerInbound(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!shutdown) {
+                    logger.warning("Failed to accept a data-plane connection", e);
+                }
+            }
+        }
+    }
+
+    private IoThread nextIoThread() {
+        return ioThreads[Math.floorMod(nextIoThread.getAndIncrement(), ioThreads.length)];
+    }
+
+    void onWrite(long bytes) {
+        writeCalls.incrementAndGet();
+        bytesOut.addAndGet(bytes);
+    }
+
+    void onPacketsOut(int count) {
+        if (count > 0) {
+            packetsOut.addAndGet(count);
+        }
+    }
+
+    void onConnectionClosed(DataPlaneConnection connection, Throwable cause) {
+        connections.remove(connection.getEndPoint(), connection.connectFuture());
+        if (cause != null && !shutdown) {
+            logger.warning("Data-plane connection to " + connection.getEndPoint() + " failed: " + cause, cause);
+        }
+    }
+
+    Address thisAddress() {
+        return thisAddress;
+    }
+
+    int maxPacketSize() {
+        return maxPacketSize;
+    }
+
+    public long getPacketsOut() {
+        return packetsOut.get();
+    }
+
+    public long getPacketsIn() {
+        return packetsIn.get();
+    }
+
+    /**
+     * Returns the number of write calls on the channels. Each call writes
+     * up to {@value DataPlaneConnection#MAX_GATHERED_PACKETS} packets.
+     */
+    public long getWriteCalls() {
+        return writeCalls.get();
+    }
+
+    /**
+     * Returns the number of the inbound connections closed because of an
+     * invalid token or frame length.
+     */
+    public long getRejectedConnections() {
+        return rejectedConnections.get();
+    }
+
+    private static final class PendingToken {
+        final Address member;
+        final long expiryNanos;
+
+        PendingToken(Address member, long expiryNanos) {
+            this.member = member;
+            this.expiryNanos = expiryNanos;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiryNanos > 0;
+        }
+    }
+
+    /**
+     * Thrown when an inbound connection violates the protocol.
+     */
+    private static final class RejectedConnectionException extends IOException {
+        RejectedConnectionException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The receiving side of a connection.
+     */
+    private final class InboundChannel {
+        private final SocketChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        // the address of the connecting member, null until the token is received
+        private Address sender;
+
+        InboundChannel(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new ClosedChannelException();
+            }
+            bytesIn.addAndGet(read);
+            buffer.flip();
+            while (buffer.remaining() >= INT_SIZE_IN_BYTES) {
+                int length = buffer.getInt(buffer.position());
+                checkFrameLength(length);
+                if (buffer.remaining() < INT_SIZE_IN_BYTES + length) {
+                    ensureCapacity(INT_SIZE_IN_BYTES + length);
+                    return;
+                }
+                buffer.position(buffer.position() + INT_SIZE_IN_BYTES);
+                byte[] frame = new byte[length];
+                buffer.get(frame);
+                if (sender == null) {
+                    sender = authenticate(frame);
+                } else {
+                    packetsIn.incrementAndGet();
+                    handlePacket(frame);
+                }
+            }
+            buffer.compact();
+        }
+
+        private void checkFrameLength(int length) throws IOException {
+            if (sender == null && length != HANDSHAKE_LENGTH) {
+                throw new RejectedConnectionException("Invalid data-plane handshake length: " + length);
+            }
+            if (length < 0 || length > maxPacketSize) {
+                throw new RejectedConnectionException("Invalid data-plane frame length: " + length
+                        + ", the maximum is " + maxPacketSize);
+            }
+        }
+
+        private Address authenticate(byte[] frame) throws IOException {
+            ByteBuffer buf = ByteBuffer.wrap(frame);
+            PendingToken token = pendingTokens.remove(new UUID(buf.getLong(), buf.getLong()));
+            if (token == null || token.isExpired(System.nanoTime()) || !memberChecker.test(token.member)) {
+                throw new RejectedConnectionException("Invalid data-plane token");
+            }
+            return token.member;
+        }
+
+        private void handlePacket(byte[] packet) {
+            try {
+                packetHandler.accept(sender, packet);
+            } catch (Exception e) {
+                // the same as a failure of a packet handler on a member connection
+                logger.warning("Failed to handle a data-plane packet from " + sender, e);
+            }
+        }
+
+        /**
+         * Compacts the buffer, making it larger if it can't hold the frame.
+         */
+        private void ensureCapacity(int frameSize) {
+            if (frameSize <= buffer.capacity()) {
+                buffer.compact();
+                return;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(frameSize);
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        @Override
+        public String toString() {
+            return sender != null ? sender.toString() : String.valueOf(channel.socket().getRemoteSocketAddress());
+        }
+    }
+
+    private final class IoThread extends Thread implements Executor {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // the outbound connections that are connecting, only accessed by this thread
+        private final List<DataPlaneConnection> connecting = new ArrayList<>();
+
+        IoThread(String name) throws IOException {
+            super(name);
+            this.selector = Selector.open();
+        }
+
+        @Override
+        public void execute(@Nonnull Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void registerInbound(SocketChannel channel) {
+            try {
+                channel.register(selector, SelectionKey.OP_READ, new InboundChannel(channel));
+            } catch (IOException e) {
+                logger.warning("Failed to register a data-plane connection", e);
+                closeResource(channel);
+            }
+        }
+
+        void connect(Address member, UUID token, CompletableFuture<DataPlaneConnection> future) {
+            SocketChannel channel = null;
+            try {
+                InetSocketAddress address = new InetSocketAddress(member.getInetAddress(), member.getPort() + portOffset);
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                DataPlaneConnection connection =
+                        new DataPlaneConnection(member, channel, this, DataPlane.this, handshake(token), future);
+                connecting.add(connection);
+                connection.connect(selector, address,
+                        System.nanoTime() + MILLISECONDS.toNanos(CONNECT_TIMEOUT_MILLIS));
+            } catch (IOException e) {
+                closeResource(channel);
+                future.completeExceptionally(e);
+            }
+        }
+
+        void closeInbound(Address member) {
+            for (SelectionKey key : selector.keys()) {
+                Object attachment = key.attachment();
+                if (attachment instanceof InboundChannel && member.equals(((InboundChannel) attachment).sender)) {
+                    key.cancel();
+                    closeResource(key.channel());
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    if (connecting.isEmpty()) {
+                        selector.select();
+                    } else {
+                        selector.select(CONNECT_CHECK_INTERVAL_MILLIS);
+                    }
+                    for (Runnable task; (task = tasks.poll()) != null; ) {
+                        task.run();
+                    }
+                    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        handleKey(key);
+                    }
+                    checkConnectDeadlines();
+                }
+            } catch (Throwable e) {
+                logger.severe("Data-plane I/O thread failed", e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof DataPlaneConnection) {
+                        ((DataPlaneConnection) key.attachment()).close(null);
+                    } else {
+                        closeResource(key.channel());
+                    }
+                }
+                closeResource(selector);
+            }
+        }
+
+        private void checkConnectDeadlines() {
+            long now = System.nanoTime();
+            for (Iterator<DataPlaneConnection> it = connecting.iterator(); it.hasNext(); ) {
+                DataPlaneConnection connection = it.next();
+                if (!connection.isConnecting()) {
+                    it.remove();
+                } else if (now - connection.connectDeadlineNanos() >= 0) {
+                    it.remove();
+                    connection.close(new SocketTimeoutException("Connecting the data plane to "
+                            + connection.getEndPoint() + " timed out after " + CONNECT_TIMEOUT_MILLIS + " ms"));
+                }
+            }
+        }
+
+        private void handleKey(SelectionKey key) {
+            Object attachment = key.attachment();
+            if (attachment instanceof DataPlaneConnection) {
+                DataPlaneConnection connection = (DataPlaneConnection) attachment;
+                if (key.isValid() && key.isConnectable()) {
+                    connection.finishConnect();
+                } else if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+                return;
+            }
+            InboundChannel inbound = (InboundChannel) attachment;
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    inbound.read();
+                }
+            } catch (IOException e) {
+                if (e instanceof RejectedConnectionException) {
+                    rejectedConnections.incrementAndGet();
+                    logger.warning("Closing the data-plane connection from " + inbound + ": " + e.getMessage());
+                } else if (!(e instanceof ClosedChannelException) && !shutdown) {
+                    logger.warning("Data-plane connection from " + inbound + " failed: " + e, e);
+                }
+                key.cancel();
+                closeResource(inbound.channel);
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.nio.Address;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hazelcast.jet.impl.util.JetProperties.JET_DATA_PLANE_MAX_PACKET_BYTES;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.IOUtil.closeResource;
+
+/**
+ * An outbound connection of the {@link DataPlane}. Any thread can {@link
+ * #write} packets to it, the I/O thread the connection is assigned to
+ * writes them to the channel. It takes up to {@value #MAX_GATHERED_PACKETS}
+ * queued packets at a time and writes them in a single gathering write.
+ * <p>
+ * The I/O thread also connects the channel. It writes the handshake first
+ * and then completes the {@linkplain DataPlane#connectionAsync connect
+ * future}, the packets are written only after that.
+ */
+public final class DataPlaneConnection {
+
+    static final int MAX_GATHERED_PACKETS = 64;
+
+    private final Address endpoint;
+    private final SocketChannel channel;
+    private final Executor ioThread;
+    private final DataPlane dataPlane;
+    private final CompletableFuture<DataPlaneConnection> connectFuture;
+    private final Queue<byte[]> writeQueue = new ConcurrentLinkedQueue<>();
+    // true from the time the flush is submitted to the I/O thread until the write queue is drained
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // the following fields are only accessed by the I/O thread
+    private final ByteBuffer[] lengthBuffers = new ByteBuffer[MAX_GATHERED_PACKETS];
+    // the length and payload of each packet being written, from gatherPos to gatherLimit
+    private final ByteBuffer[] gather = new ByteBuffer[2 * MAX_GATHERED_PACKETS];
+    private int gatherPos;
+    private int gatherLimit;
+    private SelectionKey key;
+    private ByteBuffer handshake;
+    private boolean connected;
+    private long connectDeadlineNanos;
+
+    private volatile boolean closed;
+
+    DataPlaneConnection(Address endpoint, SocketChannel channel, Executor ioThread, DataPlane dataPlane,
+                        ByteBuffer handshake, CompletableFuture<DataPlaneConnection> connectFuture) {
+        this.endpoint = endpoint;
+        this.channel = channel;
+        this.ioThread = ioThread;
+        this.dataPlane = dataPlane;
+        this.handshake = handshake;
+        this.connectFuture = connectFuture;
+        Arrays.setAll(lengthBuffers, i -> ByteBuffer.allocate(INT_SIZE_IN_BYTES));
+    }
+
+    /**
+     * Queues the packet for writing. Returns {@code false}, if the
+     * connection is closed.
+     *
+     * @throws JetException if the packet is larger than the {@linkplain
+     *      com.hazelcast.jet.impl.util.JetProperties#JET_DATA_PLANE_MAX_PACKET_BYTES
+     *      maximum packet size}
+     */
+    public boolean write(byte[] packet) {
+        if (packet.length > dataPlane.maxPacketSize()) {
+            throw new JetException("The packet to " + endpoint + " has " + packet.length + " bytes, more than "
+                    + dataPlane.maxPacketSize() + " bytes allowed by " + JET_DATA_PLANE_MAX_PACKET_BYTES.getName());
+        }
+        writeQueue.add(packet);
+        if (closed) {
+            return false;
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            ioThread.execute(this::flush);
+        }
+        return true;
+    }
+
+    public Address getEndPoint() {
+        return endpoint;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    CompletableFuture<DataPlaneConnection> connectFuture() {
+        return connectFuture;
+    }
+
+    // called on the I/O thread
+    boolean isConnecting() {
+        return !connected && !closed;
+    }
+
+    // called on the I/O thread
+    long connectDeadlineNanos() {
+        return connectDeadlineNanos;
+    }
+
+    /**
+     * Registers the channel and starts connecting it. Called on the I/O
+     * thread, before any flush.
+     */
+    void connect(Selector selector, InetSocketAddress address, long deadlineNanos) {
+        connectDeadlineNanos = deadlineNanos;
+        try {
+            key = channel.register(selector, 0, this);
+            if (channel.connect(address)) {
+                onConnected();
+            } else {
+                key.interestOps(SelectionKey.OP_CONNECT);
+            }
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    /**
+     * Finishes connecting the channel when the selector reports it
+     * connectable. Called on the I/O thread.
+     */
+    void finishConnect() {
+        try {
+            if (channel.finishConnect()) {
+                onConnected();
+            }
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void onConnected() {
+        connected = true;
+        key.interestOps(0);
+        // the handshake is written before the first packet
+        gather[0] = handshake;
+        gatherPos = 0;
+        gatherLimit = 1;
+        handshake = null;
+        connectFuture.complete(this);
+        flush();
+    }
+
+    /**
+     * Writes the queued packets until the queue is empty or the socket
+     * buffer is full. In the latter case it lets the selector call it again
+     * when the channel is writable. Called on the I/O thread.
+     */
+    void flush() {
+        // a flush scheduled before the channel is connected is done when it's connected
+        if (closed || !connected) {
+            return;
+        }
+        try {
+            while (true) {
+                if (!writeGathered()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (gatherNext() == 0) {
+                    key.interestOps(0);
+                    scheduled.set(false);
+                    // a packet could have been added after the queue was found empty, but before the flag was reset
+                    if (writeQueue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    /**
+     * Writes the gathered buffers, returns {@code false} if the socket
+     * buffer is full before all of them were written.
+     */
+    private boolean writeGathered() throws IOException {
+        while (gatherPos < gatherLimit) {
+            long written = channel.write(gather, gatherPos, gatherLimit - gatherPos);
+            dataPlane.onWrite(written);
+            while (gatherPos < gatherLimit && !gather[gatherPos].hasRemaining()) {
+                gatherPos++;
+            }
+            if (written == 0 && gatherPos < gatherLimit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes up to {@link #MAX_GATHERED_PACKETS} packets from the queue and
+     * prepares their buffers. Returns the number of packets.
+     */
+    private int gatherNext() {
+        // don't retain the written packets
+        Arrays.fill(gather, 0, gatherLimit, null);
+        gatherPos = 0;
+        gatherLimit = 0;
+        int count = 0;
+        for (byte[] packet; count < MAX_GATHERED_PACKETS && (packet = writeQueue.poll()) != null; count++) {
+            ByteBuffer length = lengthBuffers[count];
+            length.clear();
+            length.putInt(packet.length).flip();
+            gather[gatherLimit++] = length;
+            gather[gatherLimit++] = ByteBuffer.wrap(packet);
+        }
+        dataPlane.onPacketsOut(count);
+        return count;
+    }
+
+    void close(Throwable cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeResource(channel);
+        writeQueue.clear();
+        connectFuture.completeExceptionally(cause != null ? cause : new ClosedChannelException());
+        dataPlane.onConnectionClosed(this, cause);
+    }
+
+    @Override
+    public String toString() {
+        return "DataPlaneConnection{endpoint=" + endpoint + ", closed=" + closed + '}';
+    }
+}
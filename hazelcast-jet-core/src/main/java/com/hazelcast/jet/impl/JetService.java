@@ -17,20 +17,28 @@
 package com.hazelcast.jet.impl;
 
 import com.hazelcast.client.impl.ClientEngineImpl;
+import com.hazelcast.config.AdvancedNetworkConfig;
 import com.hazelcast.config.Config;
+import com.hazelcast.config.EndpointConfig;
+import com.hazelcast.config.SSLConfig;
+import com.hazelcast.config.SymmetricEncryptionConfig;
 import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.instance.EndpointQualifier;
 import com.hazelcast.instance.HazelcastInstanceImpl;
 import com.hazelcast.instance.Node;
 import com.hazelcast.internal.partition.InternalPartitionService;
+import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.JetInstance;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.JobNotFoundException;
+import com.hazelcast.jet.impl.execution.ConveyorMemoryBudget;
 import com.hazelcast.jet.impl.execution.TaskletExecutionService;
+import com.hazelcast.jet.impl.operation.IssueDataPlaneTokenOperation;
 import com.hazelcast.jet.impl.operation.NotifyMemberShutdownOperation;
 import com.hazelcast.jet.impl.util.ExceptionUtil;
-import com.hazelcast.jet.impl.util.JetProperties;
 import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
 import com.hazelcast.nio.Packet;
 import com.hazelcast.spi.LiveOperations;
 import com.hazelcast.spi.LiveOperationsTracker;
@@ -43,14 +51,20 @@ import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 import com.hazelcast.spi.properties.HazelcastProperties;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.Properties;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_CONVEYOR_SLOT_BUDGET;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_DATA_PLANE_IO_THREAD_COUNT;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_DATA_PLANE_MAX_PACKET_BYTES;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_DATA_PLANE_PORT_OFFSET;
 import static com.hazelcast.jet.impl.util.JetProperties.JET_SHUTDOWNHOOK_ENABLED;
 import static com.hazelcast.jet.impl.util.Util.memoizeConcurrent;
 import static com.hazelcast.spi.properties.GroupProperty.SHUTDOWNHOOK_POLICY;
@@ -82,6 +96,8 @@ public class JetService
     private JobRepository jobRepository;
     private JobCoordinationService jobCoordinationService;
     private JobExecutionService jobExecutionService;
+    private ConveyorMemoryBudget conveyorMemoryBudget;
+    private DataPlane dataPlane;
 
     private final AtomicInteger numConcurrentAsyncOps = new AtomicInteger();
 
@@ -101,13 +117,27 @@ public class JetService
         this.sharedMigrationWatcher = new MigrationWatcher(engine.getHazelcastInstance());
         jetInstance = new JetInstanceImpl((HazelcastInstanceImpl) engine.getHazelcastInstance(), config);
         HazelcastProperties jetProperties = new HazelcastProperties(config.getProperties());
-        taskletExecutionService = new TaskletExecutionService(nodeEngine,
-                config.getInstanceConfig().getCooperativeThreadCount(),
-                jetProperties.getNanos(JetProperties.JET_MINIMUM_IDLE_MICROSECONDS));
+        taskletExecutionService = new TaskletExecutionService(nodeEngine, config.getInstanceConfig(), jetProperties);
+        long conveyorSlotBudget = jetProperties.getLong(JET_CONVEYOR_SLOT_BUDGET);
+        if (conveyorSlotBudget > 0) {
+            conveyorMemoryBudget = new ConveyorMemoryBudget(conveyorSlotBudget);
+            nodeEngine.getMetricsRegistry().newProbeBuilder()
+                      .withTag("module", "jet")
+                      .scanAndRegister(conveyorMemoryBudget);
+        }
         jobRepository = new JobRepository(jetInstance);
         jobExecutionService = new JobExecutionService(nodeEngine, taskletExecutionService, jobRepository);
         jobCoordinationService = createJobCoordinationService();
         networking = new Networking(engine, jobExecutionService, config.getInstanceConfig().getFlowControlPeriodMs());
+        int dataPlanePortOffset = jetProperties.getInteger(JET_DATA_PLANE_PORT_OFFSET);
+        String dataPlaneUnsupportedReason = dataPlaneUnsupportedReason(engine.getConfig());
+        if (dataPlanePortOffset > 0 && dataPlaneUnsupportedReason != null) {
+            logger.warning("The data plane is disabled because " + dataPlaneUnsupportedReason
+                    + ", distributed edges use the member connections");
+        } else if (dataPlanePortOffset > 0) {
+            dataPlane = startDataPlane(dataPlanePortOffset, jetProperties.getInteger(JET_DATA_PLANE_IO_THREAD_COUNT),
+                    jetProperties.getInteger(JET_DATA_PLANE_MAX_PACKET_BYTES));
+        }
 
         ClientEngineImpl clientEngine = engine.getService(ClientEngineImpl.SERVICE_NAME);
         ExceptionUtil.registerJetExceptions(clientEngine.getClientExceptions());
@@ -121,6 +151,73 @@ public class JetService
                 + config.getInstanceConfig().getCooperativeThreadCount());
     }
 
+    /**
+     * Returns why the {@link DataPlane} can't be used with the given config,
+     * or {@code null} if it can. It doesn't encrypt the traffic and its
+     * connections are authenticated only by the member connections,
+     * therefore it can't be used if they are secured.
+     */
+    @Nullable
+    static String dataPlaneUnsupportedReason(Config config) {
+        if (config.getSecurityConfig().isEnabled()) {
+            return "security is enabled";
+        }
+        AdvancedNetworkConfig advancedNetworkConfig = config.getAdvancedNetworkConfig();
+        SSLConfig sslConfig;
+        SymmetricEncryptionConfig encryptionConfig;
+        if (advancedNetworkConfig.isEnabled()) {
+            EndpointConfig memberEndpoint = advancedNetworkConfig.getEndpointConfigs().get(EndpointQualifier.MEMBER);
+            sslConfig = memberEndpoint != null ? memberEndpoint.getSSLConfig() : null;
+            encryptionConfig = memberEndpoint != null ? memberEndpoint.getSymmetricEncryptionConfig() : null;
+        } else {
+            sslConfig = config.getNetworkConfig().getSSLConfig();
+            encryptionConfig = config.getNetworkConfig().getSymmetricEncryptionConfig();
+        }
+        if (sslConfig != null && sslConfig.isEnabled()) {
+            return "TLS is enabled for the member connections";
+        }
+        if (encryptionConfig != null && encryptionConfig.isEnabled()) {
+            return "symmetric encryption is enabled for the member connections";
+        }
+        return null;
+    }
+
+    private DataPlane startDataPlane(int portOffset, int ioThreadCount, int maxPacketSize) {
+        String threadNamePrefix = "hz." + nodeEngine.getHazelcastInstance().getName() + ".jet.data-plane";
+        DataPlane result;
+        try {
+            result = new DataPlane(nodeEngine.getThisAddress(), portOffset, ioThreadCount, maxPacketSize,
+                    threadNamePrefix, this::requestDataPlaneToken,
+                    address -> nodeEngine.getClusterService().getMember(address) != null,
+                    networking::handleStreamPacket, nodeEngine.getLogger(DataPlane.class));
+        } catch (IOException e) {
+            throw new JetException("Failed to start the data plane on port offset " + portOffset, e);
+        }
+        result.start();
+        nodeEngine.getMetricsRegistry().newProbeBuilder()
+                  .withTag("module", "jet")
+                  .scanAndRegister(result);
+        return result;
+    }
+
+    private CompletableFuture<UUID> requestDataPlaneToken(Address member) {
+        CompletableFuture<UUID> future = new CompletableFuture<>();
+        nodeEngine.getOperationService()
+                  .<String>invokeOnTarget(JetService.SERVICE_NAME, new IssueDataPlaneTokenOperation(), member)
+                  .andThen(new ExecutionCallback<String>() {
+                      @Override
+                      public void onResponse(String token) {
+                          future.complete(UUID.fromString(token));
+                      }
+
+                      @Override
+                      public void onFailure(Throwable t) {
+                          future.completeExceptionally(t);
+                      }
+                  });
+        return future;
+    }
+
     static JetConfig findJetServiceConfig(Config hzConfig) {
         return (JetConfig) hzConfig.getServicesConfig().getServiceConfig(SERVICE_NAME).getConfigObject();
     }
@@ -170,6 +267,9 @@ public class JetService
         taskletExecutionService.shutdown();
         taskletExecutionService.awaitWorkerTermination();
         networking.shutdown();
+        if (dataPlane != null) {
+            dataPlane.shutdown();
+        }
     }
 
     @Override
@@ -214,6 +314,24 @@ public class JetService
         return jobExecutionService;
     }
 
+    /**
+     * Returns the budget of the adaptive queues of local edges, or {@code
+     * null}, if the queues aren't adaptive.
+     */
+    @Nullable
+    public ConveyorMemoryBudget getConveyorMemoryBudget() {
+        return conveyorMemoryBudget;
+    }
+
+    /**
+     * Returns the dedicated connections for the packets of distributed
+     * edges, or {@code null}, if they are disabled.
+     */
+    @Nullable
+    public DataPlane getDataPlane() {
+        return dataPlane;
+    }
+
     /**
      * Returns the job config or fails with {@link JobNotFoundException}
      * if the requested job is not found.
@@ -247,6 +365,9 @@ public class JetService
     @Override
     public void memberRemoved(MembershipServiceEvent event) {
         jobExecutionService.onMemberRemoved(event.getMember().getAddress());
+        if (dataPlane != null) {
+            dataPlane.closeConnections(event.getMember().getAddress());
+        }
         jobCoordinationService.onMemberRemoved(event.getMember().getUuid());
     }
 
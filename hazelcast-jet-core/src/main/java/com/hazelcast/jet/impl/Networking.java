@@ -16,10 +16,12 @@
 
 package com.hazelcast.jet.impl;
 
+import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.jet.impl.execution.ExecutionContext;
 import com.hazelcast.jet.impl.execution.SenderTasklet;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.nio.Connection;
@@ -28,6 +30,7 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ScheduledFuture;
@@ -39,22 +42,34 @@ import static com.hazelcast.jet.impl.util.Util.getMemberConnection;
 import static com.hazelcast.jet.impl.util.Util.getRemoteMembers;
 import static com.hazelcast.jet.Util.idToString;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
 import static com.hazelcast.nio.Packet.FLAG_JET_FLOW_CONTROL;
 import static com.hazelcast.nio.Packet.FLAG_URGENT;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class Networking {
+
+    /**
+     * The size of the header of a stream packet: execution ID, destination
+     * vertex ID and destination ordinal.
+     */
+    public static final int STREAM_PACKET_HEADER_SIZE = LONG_SIZE_IN_BYTES + 2 * INT_SIZE_IN_BYTES;
+
     private static final byte[] EMPTY_BYTES = new byte[0];
 
     private final NodeEngineImpl nodeEngine;
     private final ILogger logger;
     private final JobExecutionService jobExecutionService;
     private final ScheduledFuture<?> flowControlSender;
+    private final boolean bigEndian;
 
     Networking(NodeEngine nodeEngine, JobExecutionService jobExecutionService, int flowControlPeriodMs) {
         this.nodeEngine = (NodeEngineImpl) nodeEngine;
         this.logger = nodeEngine.getLogger(getClass());
         this.jobExecutionService = jobExecutionService;
+        this.bigEndian = ((InternalSerializationService) nodeEngine.getSerializationService()).getByteOrder()
+                == ByteOrder.BIG_ENDIAN;
         this.flowControlSender = nodeEngine.getExecutionService().scheduleWithRepetition(
                 this::broadcastFlowControlPacket, 0, flowControlPeriodMs, MILLISECONDS);
     }
@@ -65,19 +80,25 @@ public class Networking {
 
     void handle(Packet packet) throws IOException {
         if (!packet.isFlagRaised(FLAG_JET_FLOW_CONTROL)) {
-            handleStreamPacket(packet);
+            handleStreamPacket(packet.getConn().getEndPoint(), packet.toByteArray());
             return;
         }
         handleFlowControlPacket(packet.getConn().getEndPoint(), packet.toByteArray());
     }
 
-    private void handleStreamPacket(Packet packet) throws IOException {
-        BufferObjectDataInput in = createObjectDataInput(nodeEngine, packet.toByteArray());
-        long executionId = in.readLong();
-        int vertexId = in.readInt();
-        int ordinal = in.readInt();
+    /**
+     * Passes a packet of a distributed edge to its receiver tasklet. Called
+     * for the packets received over the member connections and over the
+     * {@link DataPlane}.
+     */
+    void handleStreamPacket(Address sender, byte[] payload) {
+        // read the header directly, the receiver tasklet deserializes the rest
+        // using its own reused input
+        long executionId = Bits.readLong(payload, 0, bigEndian);
+        int vertexId = Bits.readInt(payload, LONG_SIZE_IN_BYTES, bigEndian);
+        int ordinal = Bits.readInt(payload, LONG_SIZE_IN_BYTES + INT_SIZE_IN_BYTES, bigEndian);
         ExecutionContext executionContext = jobExecutionService.getExecutionContext(executionId);
-        executionContext.handlePacket(vertexId, ordinal, packet.getConn().getEndPoint(), in);
+        executionContext.handlePacket(vertexId, ordinal, sender, payload);
     }
 
     public static byte[] createStreamPacketHeader(NodeEngine nodeEngine, long executionId,
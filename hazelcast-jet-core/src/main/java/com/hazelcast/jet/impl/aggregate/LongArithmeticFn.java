@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.aggregate;
+
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.LongLongAccumulator;
+import com.hazelcast.jet.function.BiConsumerEx;
+
+/**
+ * The combine and deduct functions of the built-in aggregate operations
+ * whose accumulator is a {@link LongAccumulator} or a {@link
+ * LongLongAccumulator}. The function applies the same arithmetic to each
+ * of the accumulator's values.
+ * <p>
+ * We want to be able to do instanceof check on it so that the aggregating
+ * processors which keep the accumulators as {@code long[]} arrays can
+ * apply the arithmetic to the arrays directly. Being an enum, it also
+ * keeps its identity after deserialization.
+ */
+public enum LongArithmeticFn implements BiConsumerEx<Object, Object> {
+
+    /**
+     * Adds the values, throws {@code ArithmeticException} on overflow.
+     */
+    ADD_EXACT {
+        @Override
+        public long apply(long value, long other) {
+            return Math.addExact(value, other);
+        }
+    },
+
+    /**
+     * Subtracts the values, throws {@code ArithmeticException} on overflow.
+     */
+    SUBTRACT_EXACT {
+        @Override
+        public long apply(long value, long other) {
+            return Math.subtractExact(value, other);
+        }
+    },
+
+    /**
+     * Subtracts the values without checking for overflow.
+     */
+    SUBTRACT_ALLOWING_OVERFLOW {
+        @Override
+        public long apply(long value, long other) {
+            return value - other;
+        }
+    };
+
+    /**
+     * Applies the arithmetic to a value of the target accumulator and the
+     * corresponding value of the other one.
+     */
+    public abstract long apply(long value, long other);
+
+    @Override
+    public void acceptEx(Object acc, Object otherAcc) {
+        if (acc instanceof LongAccumulator) {
+            LongAccumulator a1 = (LongAccumulator) acc;
+            a1.set(apply(a1.get(), ((LongAccumulator) otherAcc).get()));
+        } else {
+            LongLongAccumulator a1 = (LongLongAccumulator) acc;
+            LongLongAccumulator a2 = (LongLongAccumulator) otherAcc;
+            a1.set1(apply(a1.get1(), a2.get1()));
+            a1.set2(apply(a1.get2(), a2.get2()));
+        }
+    }
+}
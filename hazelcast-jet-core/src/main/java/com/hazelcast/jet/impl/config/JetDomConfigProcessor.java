@@ -19,6 +19,7 @@ package com.hazelcast.jet.impl.config;
 import com.hazelcast.config.AbstractDomConfigProcessor;
 import com.hazelcast.config.InvalidConfigurationException;
 import com.hazelcast.core.HazelcastException;
+import com.hazelcast.jet.config.CooperativeIdleStrategy;
 import com.hazelcast.jet.config.EdgeConfig;
 import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.config.JetConfig;
@@ -38,6 +39,7 @@ import static com.hazelcast.jet.impl.config.JetConfigSections.INSTANCE;
 import static com.hazelcast.jet.impl.config.JetConfigSections.METRICS;
 import static com.hazelcast.jet.impl.config.JetConfigSections.PROPERTIES;
 import static com.hazelcast.jet.impl.config.JetConfigSections.canOccurMultipleTimes;
+import static com.hazelcast.util.StringUtil.upperCaseInternal;
 
 public class JetDomConfigProcessor extends AbstractDomConfigProcessor {
 
@@ -111,6 +113,14 @@ public class JetDomConfigProcessor extends AbstractDomConfigProcessor {
                 case "lossless-restart-enabled":
                     instanceConfig.setLosslessRestartEnabled(getBooleanValue(getTextContent(node)));
                     break;
+                case "cooperative-idle-strategy":
+                    instanceConfig.setCooperativeIdleStrategy(
+                            CooperativeIdleStrategy.valueOf(upperCaseInternal(getTextContent(node)))
+                    );
+                    break;
+                case "cooperative-thread-cpu-affinity":
+                    instanceConfig.setCooperativeThreadCpuAffinity(getTextContent(node));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized element: " + name);
             }
@@ -137,6 +147,20 @@ public class JetDomConfigProcessor extends AbstractDomConfigProcessor {
                             getIntegerValue("receive-window-multiplier", getTextContent(child))
                     );
                     break;
+                case "compression-enabled":
+                    edgeConfig.setCompressionEnabled(getBooleanValue(getTextContent(child)));
+                    break;
+                case "compression-threshold":
+                    edgeConfig.setCompressionThreshold(
+                            getIntegerValue("compression-threshold", getTextContent(child))
+                    );
+                    break;
+                case "max-watermark-skew":
+                    edgeConfig.setMaxWatermarkSkew(getLongValue("max-watermark-skew", getTextContent(child)));
+                    break;
+                case "watermark-skew-throttling-enabled":
+                    edgeConfig.setWatermarkSkewThrottlingEnabled(getBooleanValue(getTextContent(child)));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized element: " + name);
             }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.util.concurrent.IdleStrategy;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * An {@link IdleStrategy} which adapts to the observed length of the idle
+ * periods. An idle period starts with {@code idle(1)} and ends when the
+ * caller made progress, that is with the next {@code idle(1)}. Since the
+ * worker makes progress when a new item arrives, the length of the idle
+ * periods reflects the inter-arrival time of the items.
+ * <p>
+ * The strategy keeps an exponentially weighted moving average of the
+ * period length. If it's short, the strategy spins for up to twice the
+ * average, then yields for the same time and then parks with an exponential
+ * backoff. If it's long, it parks right away. Every {@value
+ * #EXPLORE_PERIOD}th period it spins for the maximum time regardless of the
+ * average: the length of a period that ended while parked includes the
+ * park time, so without this the strategy would never return to spinning
+ * after the traffic increases.
+ * <p>
+ * The instance is stateful, each thread must use its own instance.
+ */
+class AdaptiveIdleStrategy implements IdleStrategy {
+
+    static final long MAX_SPIN_NS = MICROSECONDS.toNanos(50);
+
+    private static final int EWMA_SHIFT = 3;
+    private static final int EXPLORE_PERIOD = 16;
+    private static final int MAX_PARK_SHIFT = 20;
+
+    @Probe
+    private final AtomicLong idleSpinNanos = new AtomicLong();
+    @Probe
+    private final AtomicLong idleParkNanos = new AtomicLong();
+    @Probe
+    private final AtomicLong expectedIdleNanos = new AtomicLong();
+
+    private final long minParkNs;
+    private final long maxParkNs;
+
+    private long periodStart;
+    private long lastReturn;
+    private long periodCount;
+    private int parkCount;
+    private boolean lastParked;
+
+    AdaptiveIdleStrategy(long minParkNs, long maxParkNs) {
+        this.minParkNs = Math.max(1, minParkNs);
+        this.maxParkNs = Math.max(this.minParkNs, maxParkNs);
+    }
+
+    @Override
+    public boolean idle(long n) {
+        long now = System.nanoTime();
+        if (n == 1) {
+            startPeriod(now);
+        } else if (!lastParked) {
+            // the worker iterated through its tasklets since the last call, that's spinning too
+            lazyAdd(idleSpinNanos, now - lastReturn);
+        }
+
+        long spinBudget = spinBudget();
+        long idleSoFar = now - periodStart;
+        long parkNs = 0;
+        // in the spin phase we return right away, the worker will call its tasklets again
+        if (idleSoFar >= 2 * spinBudget) {
+            parkNs = Math.min(maxParkNs, minParkNs << Math.min(parkCount++, MAX_PARK_SHIFT));
+            LockSupport.parkNanos(parkNs);
+        } else if (idleSoFar >= spinBudget) {
+            Thread.yield();
+        }
+        lastParked = parkNs > 0;
+        lastReturn = System.nanoTime();
+        lazyAdd(lastParked ? idleParkNanos : idleSpinNanos, lastReturn - now);
+        return parkNs == maxParkNs;
+    }
+
+    private void startPeriod(long now) {
+        if (periodStart != 0) {
+            long lastPeriod = lastReturn - periodStart;
+            long estimate = expectedIdleNanos.get();
+            expectedIdleNanos.lazySet(estimate + ((lastPeriod - estimate) >> EWMA_SHIFT));
+        }
+        periodStart = now;
+        parkCount = 0;
+        lastParked = false;
+        periodCount++;
+    }
+
+    private long spinBudget() {
+        if (periodCount % EXPLORE_PERIOD == 0) {
+            return MAX_SPIN_NS;
+        }
+        long expected = expectedIdleNanos.get();
+        return expected <= MAX_SPIN_NS ? Math.min(2 * expected, MAX_SPIN_NS) : 0;
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.QueuedPipe;
+import com.hazelcast.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.hazelcast.util.Preconditions.checkNotNull;
+import static com.hazelcast.util.QuickMath.nextPowerOfTwo;
+
+/**
+ * A single-producer, single-consumer queue that starts with a small array
+ * and resizes it according to the observed occupancy, up to the maximum
+ * capacity.
+ * <p>
+ * The queue grows when the producer finds the array full. It shrinks when
+ * the occupancy sampled by the producer stayed below a quarter of the
+ * capacity for a whole sampling window. A queue that goes idle keeps its
+ * current array. Resizing doesn't copy the items: the producer continues
+ * in a new array, links it from the last slot of the old one and puts a
+ * marker to the slot where the consumer has to follow the link.
+ * <p>
+ * The slots beyond the initial capacity are taken from a member-wide
+ * {@link ConveyorMemoryBudget}; if the budget is exhausted, the queue
+ * doesn't grow and the producer sees it as full. The slots are returned to
+ * the budget when the queue shrinks and when it's {@link #release()
+ * released}.
+ */
+public final class AdaptiveOneToOneQueue<E> extends AbstractQueue<E> implements QueuedPipe<E> {
+
+    /** The producer samples the occupancy every this many offers. */
+    static final int SAMPLE_INTERVAL = 64;
+    /** The queue shrinks if the occupancy was low in this many samples. */
+    static final int SAMPLES_PER_WINDOW = 32;
+
+    private static final Object JUMP = new Object();
+    private static final int SHRINK_OCCUPANCY_DIVISOR = 4;
+
+    private final int minCapacity;
+    private final int maxCapacity;
+    private final ConveyorMemoryBudget budget;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    // accessed only by the producer
+    private AtomicReferenceArray<Object> producerBuffer;
+    private int producerMask;
+    private long producerPosition;
+    private long consumerIndexCache;
+    private int offersUntilSample = SAMPLE_INTERVAL;
+    private int samplesUntilWindowEnd = SAMPLES_PER_WINDOW;
+    private long peakSize;
+    private boolean shrinkPending;
+
+    // accessed only by the consumer
+    private AtomicReferenceArray<Object> consumerBuffer;
+    private int consumerMask;
+    private long consumerPosition;
+
+    // read by other threads
+    private volatile AtomicReferenceArray<Object> consumerBufferForIterators;
+    private volatile int currentCapacity;
+    private volatile boolean released;
+
+    /**
+     * @param initialCapacity the initial capacity, rounded up to the next
+     *                        power of two; it's also the minimum capacity
+     * @param maxCapacity the maximum capacity, rounded up to the next power
+     *                    of two
+     */
+    public AdaptiveOneToOneQueue(int initialCapacity, int maxCapacity, @Nonnull ConveyorMemoryBudget budget) {
+        this.maxCapacity = nextPowerOfTwo(maxCapacity);
+        this.minCapacity = Math.min(nextPowerOfTwo(Math.max(2, initialCapacity)), this.maxCapacity);
+        this.budget = budget;
+        producerBuffer = new AtomicReferenceArray<>(minCapacity + 1);
+        producerMask = minCapacity - 1;
+        consumerBuffer = producerBuffer;
+        consumerMask = producerMask;
+        consumerBufferForIterators = consumerBuffer;
+        currentCapacity = minCapacity;
+        budget.reserve(minCapacity);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        checkNotNull(e, "Null is not an allowed element");
+        final long index = producerPosition;
+        final int capacity = producerMask + 1;
+        sampleOccupancy(index, capacity);
+        long size = index - consumerIndexCache;
+        if (size >= capacity - 1) {
+            consumerIndexCache = consumerIndex.get();
+            size = index - consumerIndexCache;
+        }
+        if (size >= capacity) {
+            return false;
+        }
+        if (size < capacity - 1 && shrinkPending && size < capacity / SHRINK_OCCUPANCY_DIVISOR) {
+            shrinkPending = false;
+            budget.release(capacity / 2);
+            switchBuffer(index, e, capacity / 2);
+        } else if (size == capacity - 1 && capacity < maxCapacity && !released && budget.tryReserve(capacity)) {
+            // the last free slot holds the marker of a new, larger array
+            switchBuffer(index, e, capacity * 2);
+        } else {
+            write(index, e);
+        }
+        return true;
+    }
+
+    private void sampleOccupancy(long index, int capacity) {
+        if (--offersUntilSample > 0) {
+            return;
+        }
+        offersUntilSample = SAMPLE_INTERVAL;
+        consumerIndexCache = consumerIndex.get();
+        peakSize = Math.max(peakSize, index - consumerIndexCache);
+        if (--samplesUntilWindowEnd == 0) {
+            samplesUntilWindowEnd = SAMPLES_PER_WINDOW;
+            shrinkPending = capacity > minCapacity && peakSize < capacity / SHRINK_OCCUPANCY_DIVISOR;
+            peakSize = 0;
+        }
+    }
+
+    private void write(long index, E e) {
+        producerBuffer.lazySet(offset(index, producerMask), e);
+        producerPosition = index + 1;
+        producerIndex.lazySet(index + 1);
+    }
+
+    private void switchBuffer(long index, E e, int newCapacity) {
+        final AtomicReferenceArray<Object> oldBuffer = producerBuffer;
+        final AtomicReferenceArray<Object> newBuffer = new AtomicReferenceArray<>(newCapacity + 1);
+        final int newMask = newCapacity - 1;
+        newBuffer.lazySet(offset(index, newMask), e);
+        oldBuffer.lazySet(oldBuffer.length() - 1, newBuffer);
+        // the consumer reads the link and the item only after seeing the marker
+        oldBuffer.lazySet(offset(index, producerMask), JUMP);
+        producerBuffer = newBuffer;
+        producerMask = newMask;
+        currentCapacity = newCapacity;
+        producerPosition = index + 1;
+        producerIndex.lazySet(index + 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final long index = consumerPosition;
+        int offset = offset(index, consumerMask);
+        Object e = consumerBuffer.get(offset);
+        if (e == null) {
+            return null;
+        }
+        if (e == JUMP) {
+            offset = followJump(index);
+            e = consumerBuffer.get(offset);
+        }
+        consumerBuffer.lazySet(offset, null);
+        consumerPosition = index + 1;
+        consumerIndex.lazySet(index + 1);
+        return (E) e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final long index = consumerPosition;
+        Object e = consumerBuffer.get(offset(index, consumerMask));
+        if (e == JUMP) {
+            e = consumerBuffer.get(followJump(index));
+        }
+        return (E) e;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drain(Predicate<? super E> itemHandler) {
+        long index = consumerPosition;
+        final long startIndex = index;
+        for (;;) {
+            int offset = offset(index, consumerMask);
+            Object e = consumerBuffer.get(offset);
+            if (e == null) {
+                break;
+            }
+            if (e == JUMP) {
+                offset = followJump(index);
+                e = consumerBuffer.get(offset);
+            }
+            consumerBuffer.lazySet(offset, null);
+            index++;
+            consumerPosition = index;
+            consumerIndex.lazySet(index);
+            if (!itemHandler.test((E) e)) {
+                break;
+            }
+        }
+        return (int) (index - startIndex);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> target, int limit) {
+        long index = consumerPosition;
+        int count = 0;
+        for (; count < limit; count++) {
+            int offset = offset(index, consumerMask);
+            Object e = consumerBuffer.get(offset);
+            if (e == null) {
+                break;
+            }
+            if (e == JUMP) {
+                offset = followJump(index);
+                e = consumerBuffer.get(offset);
+            }
+            // the producer doesn't reuse the slot until we publish the new index
+            consumerBuffer.lazySet(offset, null);
+            target.add((E) e);
+            index++;
+        }
+        consumerPosition = index;
+        consumerIndex.lazySet(index);
+        return count;
+    }
+
+    /**
+     * Switches the consumer to the next array and returns the offset of the
+     * given index in it.
+     */
+    @SuppressWarnings("unchecked")
+    private int followJump(long index) {
+        consumerBuffer = (AtomicReferenceArray<Object>) consumerBuffer.get(consumerBuffer.length() - 1);
+        consumerMask = consumerBuffer.length() - 2;
+        consumerBufferForIterators = consumerBuffer;
+        return offset(index, consumerMask);
+    }
+
+    /**
+     * Returns the slots of this queue to the budget. Must be called after
+     * the producer is done.
+     */
+    public void release() {
+        if (!released) {
+            released = true;
+            budget.release(currentCapacity);
+        }
+    }
+
+    /**
+     * Returns the capacity of the current array of the producer.
+     */
+    public int currentCapacity() {
+        return currentCapacity;
+    }
+
+    @Override
+    public int size() {
+        // read the consumer index first so that the result isn't negative
+        long consumed = consumerIndex.get();
+        return (int) Math.min(producerIndex.get() - consumed, maxCapacity);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public long addedCount() {
+        return producerIndex.get();
+    }
+
+    @Override
+    public long removedCount() {
+        return consumerIndex.get();
+    }
+
+    /**
+     * Returns the maximum capacity of the queue.
+     */
+    @Override
+    public int capacity() {
+        return maxCapacity;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return maxCapacity - size();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the items in the queue,
+     * starting at the consumer's current array. It can be used from any
+     * thread. It doesn't return the items the producer added after it was
+     * created and stops early if the consumer overtakes it. It doesn't
+     * support {@code remove()}.
+     */
+    @Nonnull @Override
+    public Iterator<E> iterator() {
+        return new WeakIterator();
+    }
+
+    private static int offset(long index, int mask) {
+        return (int) (index & mask);
+    }
+
+    private final class WeakIterator implements Iterator<E> {
+        // read the array before the index: an older array is followed through the jump markers
+        private AtomicReferenceArray<Object> buffer = consumerBufferForIterators;
+        private long index = consumerIndex.get();
+        private final long endIndex = producerIndex.get();
+        private Object next;
+
+        WeakIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            E result = (E) next;
+            index++;
+            advance();
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            if (index >= endIndex) {
+                return;
+            }
+            Object e = buffer.get(offset(index, buffer.length() - 2));
+            if (e == JUMP) {
+                buffer = (AtomicReferenceArray<Object>) buffer.get(buffer.length() - 1);
+                e = buffer.get(offset(index, buffer.length() - 2));
+            }
+            // null means the consumer has overtaken us
+            next = e;
+        }
+    }
+}
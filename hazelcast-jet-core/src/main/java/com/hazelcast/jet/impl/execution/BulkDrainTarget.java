@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.util.function.Predicate;
+
+/**
+ * A destination of {@link InboundEdgeStream#drainTo} which can also take a
+ * run of data items at once. A stream that supports it passes the runs of
+ * data items between the {@link BroadcastItem}s to {@link #addAll} and the
+ * {@code BroadcastItem}s to {@link #test}, in the order they were received.
+ * Other streams pass all the items to {@code test()}.
+ */
+public interface BulkDrainTarget extends Predicate<Object> {
+
+    /**
+     * Adds the items {@code items[from]} to {@code items[to - 1]}. Unlike
+     * {@link #test}, it always takes all of them. The array is reused after
+     * the call returns.
+     */
+    void addAll(Object[] items, int from, int to);
+}
@@ -22,14 +22,18 @@ import com.hazelcast.internal.util.concurrent.QueuedPipe;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.jet.impl.util.SkewReductionPolicy;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.util.function.Predicate;
 
+import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.function.ToIntFunction;
 
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.NO_NEW_WM;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
@@ -39,6 +43,13 @@ import static com.hazelcast.jet.impl.util.Util.toLocalTime;
  * {@link InboundEdgeStream} implemented in terms of a {@link ConcurrentConveyor}.
  * The conveyor has as many 1-to-1 concurrent queues as there are upstream tasklets
  * contributing to it.
+ * <p>
+ * If the stream has a {@link SkewReductionPolicy}, the queues are drained in
+ * the order of their watermarks, the least advanced first, and the policy
+ * decides which queues that are too far ahead are skipped.
+ * <p>
+ * If the destination is a {@link BulkDrainTarget}, the data items are
+ * collected into runs and passed to it in bulk.
  */
 public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
 
@@ -49,6 +60,8 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     private final ItemDetector itemDetector = new ItemDetector();
 
     private final WatermarkCoalescer watermarkCoalescer;
+    private final SkewReductionPolicy skewPolicy;
+    private final ItemPool itemPool;
     private final BitSet receivedBarriers; // indicates if current snapshot is received on the queue
     private final ILogger logger;
 
@@ -68,7 +81,21 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
      */
     public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
                                        boolean waitForAllBarriers, String debugName) {
+        this(conveyor, ordinal, priority, waitForAllBarriers, null, null, debugName);
+    }
+
+    /**
+     * @param skewPolicy the policy to reduce the skew of the watermarks of
+     *          the queues, or {@code null} to drain the queues in a fixed order
+     * @param itemPool the pool to which the processed items are returned, or
+     *          {@code null} if they aren't reused
+     */
+    public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
+                                       boolean waitForAllBarriers, @Nullable SkewReductionPolicy skewPolicy,
+                                       @Nullable ItemPool itemPool, String debugName) {
         this.conveyor = conveyor;
+        this.skewPolicy = skewPolicy;
+        this.itemPool = itemPool;
         this.ordinal = ordinal;
         this.priority = priority;
         this.waitForAllBarriers = waitForAllBarriers;
@@ -91,10 +118,16 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         return priority;
     }
 
+    @Override
+    public ItemPool itemPool() {
+        return itemPool;
+    }
+
     @Override
     public ProgressState drainTo(Predicate<Object> dest) {
         tracker.reset();
-        for (int queueIndex = 0; queueIndex < conveyor.queueCount(); queueIndex++) {
+        for (int drainIndex = 0; drainIndex < conveyor.queueCount(); drainIndex++) {
+            final int queueIndex = skewPolicy == null ? drainIndex : skewPolicy.toQueueIndex(drainIndex);
             final QueuedPipe<Object> q = conveyor.queue(queueIndex);
             if (q == null) {
                 continue;
@@ -105,6 +138,13 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 continue;
             }
 
+            // skip queues too far ahead, but not while waiting for a barrier, which they could be holding back
+            if (skewPolicy != null && currentBarrier == null
+                    && skewPolicy.shouldStopDraining(queueIndex, tracker.isMadeProgress())) {
+                tracker.notDone();
+                continue;
+            }
+
             ProgressState result = drainQueue(q, dest);
             tracker.mergeWith(result);
 
@@ -112,6 +152,9 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                 conveyor.removeQueue(queueIndex);
                 receivedBarriers.clear(queueIndex);
                 numActiveQueues--;
+                if (skewPolicy != null) {
+                    skewPolicy.queueDone(queueIndex);
+                }
                 long wmTimestamp = watermarkCoalescer.queueDone(queueIndex);
                 if (maybeEmitWm(wmTimestamp, dest)) {
                     if (logger.isFinestEnabled()) {
@@ -128,13 +171,21 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
                             + ", coalescedWm=" + toLocalTime(watermarkCoalescer.coalescedWm())
                             + ", topObservedWm=" + toLocalTime(topObservedWm()));
                 }
+                boolean reordered = skewPolicy != null && observeSkewWm(queueIndex, wmTimestamp);
                 if (forwarded) {
                     return MADE_PROGRESS;
                 }
+                if (reordered) {
+                    // the drain order of the remaining queues changed, continue in the next call
+                    break;
+                }
             } else if (itemDetector.item instanceof SnapshotBarrier) {
                 observeBarrier(queueIndex, (SnapshotBarrier) itemDetector.item);
             } else if (result.isMadeProgress()) {
                 watermarkCoalescer.observeEvent(queueIndex);
+                if (skewPolicy != null) {
+                    skewPolicy.observeEvent(queueIndex);
+                }
             }
 
             if (numActiveQueues == 0) {
@@ -165,6 +216,18 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         return tracker.toProgressState();
     }
 
+    /**
+     * Passes the watermark to the {@link #skewPolicy}, returns {@code true}
+     * if it changed the drain order.
+     */
+    private boolean observeSkewWm(int queueIndex, long wmTimestamp) {
+        if (wmTimestamp == IDLE_MESSAGE.timestamp()) {
+            skewPolicy.observeIdle(queueIndex);
+            return false;
+        }
+        return skewPolicy.observeWm(queueIndex, wmTimestamp);
+    }
+
     private boolean maybeEmitWm(long timestamp, Predicate<Object> dest) {
         if (timestamp != NO_NEW_WM) {
             boolean res = dest.test(new Watermark(timestamp));
@@ -189,7 +252,9 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
 
         int drainedCount = queue.drain(itemDetector);
 
+        itemDetector.flushRun();
         itemDetector.dest = null;
+        itemDetector.bulkDest = null;
         return ProgressState.valueOf(drainedCount > 0, itemDetector.item == DONE_ITEM);
     }
 
@@ -213,13 +278,24 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
      * Drains a concurrent conveyor's queue while watching for {@link Watermark}s
      * and {@link SnapshotBarrier}s.
      * When encountering either of them it prevents draining more items.
+     * <p>
+     * If the destination is a {@link BulkDrainTarget}, it collects the data
+     * items into a run, which it passes on when it's full, before any other
+     * item and in {@link #flushRun()}.
      */
     private static final class ItemDetector implements Predicate<Object> {
+        private static final int RUN_CAPACITY = 256;
+
         Predicate<Object> dest;
+        BulkDrainTarget bulkDest; // the dest if it's a BulkDrainTarget, otherwise null
         BroadcastItem item;
 
+        private Object[] run;
+        private int runSize;
+
         void reset(Predicate<Object> newDest) {
             dest = newDest;
+            bulkDest = newDest instanceof BulkDrainTarget ? (BulkDrainTarget) newDest : null;
             item = null;
         }
 
@@ -227,10 +303,35 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
         public boolean test(Object o) {
             if (o instanceof Watermark || o instanceof SnapshotBarrier || o == DONE_ITEM) {
                 assert item == null : "Received multiple special items without a call to reset(): " + item;
+                flushRun();
                 item = (BroadcastItem) o;
                 return false;
             }
-            return dest.test(o);
+            if (bulkDest == null) {
+                return dest.test(o);
+            }
+            if (o instanceof BroadcastItem) {
+                flushRun();
+                return dest.test(o);
+            }
+            if (run == null) {
+                run = new Object[RUN_CAPACITY];
+            }
+            run[runSize++] = o;
+            if (runSize == run.length) {
+                flushRun();
+            }
+            return true;
+        }
+
+        void flushRun() {
+            if (runSize == 0) {
+                return;
+            }
+            bulkDest.addAll(run, 0, runSize);
+            // don't keep the items reachable
+            Arrays.fill(run, 0, runSize, null);
+            runSize = 0;
         }
     }
 
@@ -19,16 +19,27 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
 import com.hazelcast.jet.impl.util.ProgressState;
 
+import javax.annotation.Nullable;
+
 public class ConveyorCollector implements OutboundCollector {
 
     private final ConcurrentConveyor<Object> conveyor;
     private final int queueIndex;
     private final int[] partitions;
+    private final TaskletWaker consumerWaker;
 
-    public ConveyorCollector(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions) {
+    /**
+     * @param consumerWaker the waker of the tasklet draining the conveyor,
+     *                      notified after each added item. Can be null.
+     */
+    public ConveyorCollector(
+            ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions,
+            @Nullable TaskletWaker consumerWaker
+    ) {
         this.conveyor = conveyor;
         this.queueIndex = queueIndex;
         this.partitions = partitions;
+        this.consumerWaker = consumerWaker;
     }
 
     @Override
@@ -47,7 +58,13 @@ public class ConveyorCollector implements OutboundCollector {
     }
 
     protected ProgressState offerToConveyor(Object item) {
-        return conveyor.offer(queueIndex, item) ? ProgressState.DONE : ProgressState.NO_PROGRESS;
+        if (!conveyor.offer(queueIndex, item)) {
+            return ProgressState.NO_PROGRESS;
+        }
+        if (consumerWaker != null) {
+            consumerWaker.wakeUp();
+        }
+        return ProgressState.DONE;
     }
 }
 
@@ -20,10 +20,15 @@ import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 
+import javax.annotation.Nullable;
+
 public class ConveyorCollectorWithPartition extends ConveyorCollector {
 
-    public ConveyorCollectorWithPartition(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions) {
-        super(conveyor, queueIndex, partitions);
+    public ConveyorCollectorWithPartition(
+            ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions,
+            @Nullable TaskletWaker consumerWaker
+    ) {
+        super(conveyor, queueIndex, partitions, consumerWaker);
     }
 
     @Override
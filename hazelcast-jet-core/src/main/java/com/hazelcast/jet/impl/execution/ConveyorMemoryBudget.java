@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.metrics.Probe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the total number of slots in the {@link AdaptiveOneToOneQueue}s
+ * of all jobs running on a member. A queue always gets its initial
+ * capacity, but it only grows beyond it if the budget allows.
+ */
+public final class ConveyorMemoryBudget {
+
+    @Probe(name = "conveyorSlotsMax")
+    private final long maxSlots;
+    @Probe(name = "conveyorSlotsUsed")
+    private final AtomicLong usedSlots = new AtomicLong();
+
+    public ConveyorMemoryBudget(long maxSlots) {
+        this.maxSlots = maxSlots;
+    }
+
+    /**
+     * Reserves the given number of slots, even if it exceeds the budget.
+     */
+    void reserve(int slots) {
+        usedSlots.addAndGet(slots);
+    }
+
+    /**
+     * Reserves the given number of slots, if it doesn't exceed the budget.
+     *
+     * @return whether the slots were reserved
+     */
+    boolean tryReserve(int slots) {
+        for (long used; (used = usedSlots.get()) + slots <= maxSlots; ) {
+            if (usedSlots.compareAndSet(used, used + slots)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void release(int slots) {
+        usedSlots.addAndGet(-slots);
+    }
+
+    public long usedSlots() {
+        return usedSlots.get();
+    }
+}
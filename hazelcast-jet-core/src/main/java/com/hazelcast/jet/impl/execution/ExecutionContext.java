@@ -29,7 +29,6 @@ import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResul
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
-import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 
@@ -71,6 +70,7 @@ public class ExecutionContext {
     private List<Processor> processors = emptyList();
 
     private List<Tasklet> tasklets = emptyList();
+    private List<AdaptiveOneToOneQueue<Object>> adaptiveQueues = emptyList();
 
     // future which is completed only after all tasklets are completed and contains execution result
     private volatile CompletableFuture<Void> executionFuture;
@@ -112,6 +112,7 @@ public class ExecutionContext {
         receiverMap = unmodifiableMap(plan.getReceiverMap());
         senderMap = unmodifiableMap(plan.getSenderMap());
         tasklets = plan.getTasklets();
+        adaptiveQueues = plan.getAdaptiveQueues();
         return this;
     }
 
@@ -177,6 +178,7 @@ public class ExecutionContext {
         MetricsRegistry metricsRegistry = ((NodeEngineImpl) nodeEngine).getMetricsRegistry();
         processors.forEach(metricsRegistry::deregister);
         tasklets.forEach(metricsRegistry::deregister);
+        adaptiveQueues.forEach(AdaptiveOneToOneQueue::release);
     }
 
     /**
@@ -219,11 +221,11 @@ public class ExecutionContext {
         }
     }
 
-    public void handlePacket(int vertexId, int ordinal, Address sender, BufferObjectDataInput in) {
+    public void handlePacket(int vertexId, int ordinal, Address sender, byte[] payload) {
         receiverMap.get(vertexId)
                    .get(ordinal)
                    .get(sender)
-                   .receiveStreamPacket(in);
+                   .receiveStreamPacket(payload);
     }
 
     public boolean hasParticipant(Address member) {
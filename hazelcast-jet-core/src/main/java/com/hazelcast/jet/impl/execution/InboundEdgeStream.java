@@ -19,6 +19,8 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.util.function.Predicate;
 
+import javax.annotation.Nullable;
+
 /**
  * The inbound side of a data stream corresponding to a single DAG edge identified by its ordinal. In the
  * {@code ProcessorTasklet} it corresponds to the target of an edge; in {@code SenderTasklet} it corresponds to the
@@ -65,4 +67,14 @@ public interface InboundEdgeStream {
      * Returns the last coalesced WM that was forwarded from the edge.
      */
     long coalescedWm();
+
+    /**
+     * Returns the pool to which the items taken from this stream are
+     * returned after the processor processed them, or {@code null} if the
+     * items aren't reused.
+     */
+    @Nullable
+    default ItemPool itemPool() {
+        return null;
+    }
 }
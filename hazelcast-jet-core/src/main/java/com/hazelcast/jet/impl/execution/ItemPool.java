@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.core.Outbox;
+import com.hazelcast.jet.core.Processor;
+
+import java.util.Arrays;
+
+/**
+ * The items of a local edge which the downstream processors no longer use,
+ * see {@link Processor#retainsInputItems()}. The downstream processors
+ * return the items they took from the inbox after each {@code process()}
+ * call, the upstream processors take them for {@link
+ * Outbox#reusableItem(int)}. All processors of the edge on the member share
+ * the pool, therefore both sides transfer the items in batches to amortize
+ * the synchronization. The items returned to a full pool are dropped.
+ */
+public class ItemPool {
+
+    /**
+     * The number of items an upstream processor takes from the pool at once.
+     */
+    static final int TAKE_BATCH_SIZE = 64;
+
+    private final Object[] items;
+    private int size;
+
+    public ItemPool(int capacity) {
+        items = new Object[capacity];
+    }
+
+    /**
+     * Moves up to {@code dest.length} items from the pool to the beginning of
+     * the array. Returns the number of moved items.
+     */
+    public synchronized int take(Object[] dest) {
+        int count = Math.min(size, dest.length);
+        size -= count;
+        System.arraycopy(items, size, dest, 0, count);
+        Arrays.fill(items, size, size + count, null);
+        return count;
+    }
+
+    /**
+     * Adds the first {@code count} items of the array to the pool, as many as
+     * fit, and clears them from the array.
+     */
+    public void recycle(Object[] src, int count) {
+        synchronized (this) {
+            int added = Math.min(count, items.length - size);
+            System.arraycopy(src, 0, items, size, added);
+            size += added;
+        }
+        Arrays.fill(src, 0, count, null);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
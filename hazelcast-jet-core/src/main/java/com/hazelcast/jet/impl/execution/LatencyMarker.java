@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Special item injected by source processors at a fixed interval to measure
+ * how long the items spend in the queues and network buffers between the
+ * processors. It travels along the edges like other items, but it's never
+ * passed to the processors: each processor tasklet records the latencies
+ * and forwards the marker with a new emit time.
+ * <p>
+ * The times are in nanoseconds since the epoch, derived from {@code
+ * System.nanoTime()} anchored to the wall clock when the class was loaded.
+ * The latencies measured across members therefore include the clock skew
+ * between the members.
+ */
+public final class LatencyMarker implements BroadcastItem {
+
+    private static final long ANCHOR_EPOCH_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private static final long ANCHOR_NANOS = System.nanoTime();
+
+    private final long sourceTime;
+    private final long emitTime;
+
+    /**
+     * @param sourceTime the time when the source injected the marker
+     * @param emitTime the time when the last processor emitted the marker
+     */
+    public LatencyMarker(long sourceTime, long emitTime) {
+        this.sourceTime = sourceTime;
+        this.emitTime = emitTime;
+    }
+
+    /**
+     * Returns the current time in the units used by the markers.
+     */
+    public static long now() {
+        return ANCHOR_EPOCH_NANOS + (System.nanoTime() - ANCHOR_NANOS);
+    }
+
+    public long sourceTime() {
+        return sourceTime;
+    }
+
+    public long emitTime() {
+        return emitTime;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyMarker{sourceTime=" + sourceTime + ", emitTime=" + emitTime + '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        LatencyMarker that = (LatencyMarker) o;
+        return sourceTime == that.sourceTime && emitTime == that.emitTime;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(sourceTime) * 31 + Long.hashCode(emitTime);
+    }
+}
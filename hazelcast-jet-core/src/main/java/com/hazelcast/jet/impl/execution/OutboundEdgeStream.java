@@ -16,6 +16,8 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import javax.annotation.Nullable;
+
 /**
  * The outbound side of a data stream corresponding to the origin of a single DAG edge identified by its ordinal.
  * A thin wrapper around an {@link OutboundCollector}
@@ -24,10 +26,20 @@ public class OutboundEdgeStream {
 
     private final int ordinal;
     private final OutboundCollector collector;
+    private final ItemPool itemPool;
 
     public OutboundEdgeStream(int ordinal, OutboundCollector collector) {
+        this(ordinal, collector, null);
+    }
+
+    /**
+     * @param itemPool the pool of the items the downstream processors no
+     *          longer use, or {@code null} if the items aren't reused
+     */
+    public OutboundEdgeStream(int ordinal, OutboundCollector collector, @Nullable ItemPool itemPool) {
         this.ordinal = ordinal;
         this.collector = collector;
+        this.itemPool = itemPool;
     }
 
     int ordinal() {
@@ -38,6 +50,11 @@ public class OutboundEdgeStream {
         return collector;
     }
 
+    @Nullable
+    ItemPool itemPool() {
+        return itemPool;
+    }
+
     @Override
     public String toString() {
         return "OutboundEdgeStream(ordinal=" + ordinal + ')';
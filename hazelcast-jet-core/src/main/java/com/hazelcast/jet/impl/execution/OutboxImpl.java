@@ -27,6 +27,7 @@ import javax.annotation.Nonnull;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.IntStream;
@@ -48,6 +49,8 @@ public class OutboxImpl implements OutboxInternal {
     private final int[] allEdgesAndSnapshot;
     private final int[] snapshotEdge;
     private final BitSet broadcastTracker;
+    private final BitSet latencyMarkerTracker;
+    private LatencyMarker unfinishedLatencyMarker;
     private Entry<Data, Data> pendingSnapshotEntry;
     private int numRemainingInBatch;
 
@@ -57,6 +60,11 @@ public class OutboxImpl implements OutboxInternal {
     private Object unfinishedSnapshotValue;
     private final AtomicLong lastForwardedWm = new AtomicLong(Long.MIN_VALUE);
 
+    // the pools of the reusable items per edge ordinal and the items taken from them, null if no edge has a pool
+    private ItemPool[] itemPools;
+    private Object[][] reusableItems;
+    private int[] reusableItemCounts;
+
     private boolean blocked;
 
     /**
@@ -80,6 +88,7 @@ public class OutboxImpl implements OutboxInternal {
         allEdgesAndSnapshot = IntStream.range(0, outstreams.length).toArray();
         snapshotEdge = hasSnapshot ? new int[] {outstreams.length - 1} : null;
         broadcastTracker = new BitSet(outstreams.length);
+        latencyMarkerTracker = new BitSet(outstreams.length);
     }
 
     @Override
@@ -245,8 +254,67 @@ public class OutboxImpl implements OutboxInternal {
         return offerInternal(allEdgesAndSnapshot, item);
     }
 
+    /**
+     * Offers the marker to all edges, independently of the items offered
+     * through the other methods: it doesn't count towards the batch size, to
+     * the emitted counts nor to the progress. If the call returns false, the
+     * caller can repeat it with the same marker or give it up and offer a
+     * different one.
+     */
+    final boolean offerLatencyMarker(@Nonnull LatencyMarker marker) {
+        if (marker != unfinishedLatencyMarker) {
+            latencyMarkerTracker.clear();
+        }
+        boolean done = true;
+        for (int ordinal : allEdges) {
+            if (!latencyMarkerTracker.get(ordinal)) {
+                if (outstreams[ordinal].offerBroadcast(marker).isDone()) {
+                    latencyMarkerTracker.set(ordinal);
+                } else {
+                    done = false;
+                }
+            }
+        }
+        unfinishedLatencyMarker = done ? null : marker;
+        return done;
+    }
+
     @Override
     public long lastForwardedWm() {
         return lastForwardedWm.get();
     }
+
+    /**
+     * Sets the pools of the reusable items per edge ordinal, see {@link
+     * #reusableItem(int)}. The array contains {@code null} for the edges
+     * without a pool.
+     */
+    void setItemPools(ItemPool[] itemPools) {
+        if (Arrays.stream(itemPools).allMatch(Objects::isNull)) {
+            return;
+        }
+        this.itemPools = itemPools;
+        reusableItems = new Object[itemPools.length][];
+        Arrays.setAll(reusableItems, i -> itemPools[i] != null ? new Object[ItemPool.TAKE_BATCH_SIZE] : null);
+        reusableItemCounts = new int[itemPools.length];
+    }
+
+    @Override
+    public Object reusableItem(int ordinal) {
+        if (itemPools == null || ordinal < 0 || ordinal >= itemPools.length || itemPools[ordinal] == null) {
+            return null;
+        }
+        Object[] items = reusableItems[ordinal];
+        int count = reusableItemCounts[ordinal];
+        if (count == 0) {
+            count = itemPools[ordinal].take(items);
+            if (count == 0) {
+                return null;
+            }
+        }
+        Object item = items[--count];
+        items[count] = null;
+        reusableItemCounts[ordinal] = count;
+        return item;
+    }
 }
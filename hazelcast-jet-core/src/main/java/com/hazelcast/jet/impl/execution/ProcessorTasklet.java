@@ -28,19 +28,20 @@ import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.impl.processor.ProcessorWrapper;
 import com.hazelcast.jet.impl.util.ArrayDequeInbox;
 import com.hazelcast.jet.impl.util.CircularListCursor;
+import com.hazelcast.jet.impl.util.LatencyHistogram;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.spi.serialization.SerializationService;
 import com.hazelcast.util.Preconditions;
-import com.hazelcast.util.function.Predicate;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
@@ -73,6 +74,9 @@ import static java.util.stream.Collectors.toCollection;
 public class ProcessorTasklet implements Tasklet {
 
     private static final int OUTBOX_BATCH_SIZE = 2048;
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+    private static final double P999 = 99.9;
 
     private final ProgressTracker progTracker = new ProgressTracker();
     private final OutboundEdgeStream[] outstreams;
@@ -109,7 +113,17 @@ public class ProcessorTasklet implements Tasklet {
     private final AtomicLongArray emittedCounts;
     private final AtomicLong queuesSize = new AtomicLong();
     private final AtomicLong queuesCapacity = new AtomicLong();
-    private final Predicate<Object> addToInboxFunction = inbox.queue()::add;
+    private final AtomicLong busyTimeNanos = new AtomicLong();
+    private final LatencyHistogram callDurations = new LatencyHistogram();
+    private final TaskletWaker waker;
+    private final BulkDrainTarget addToInboxFunction = new InboxDrainTarget();
+
+    private final long latencyMarkerIntervalNanos;
+    private final boolean injectsLatencyMarkers;
+    private final LatencyHistogram[] edgeLatencies; // null if latency markers are disabled
+    private final LatencyHistogram sourceLatencies;
+    private LatencyMarker pendingLatencyMarker;
+    private long nextLatencyMarkerNanos;
 
     @SuppressWarnings("checkstyle:ExecutableStatementCount")
     public ProcessorTasklet(@Nonnull Context context,
@@ -119,6 +133,8 @@ public class ProcessorTasklet implements Tasklet {
                             @Nonnull List<? extends OutboundEdgeStream> outstreams,
                             @Nonnull SnapshotContext ssContext,
                             @Nonnull OutboundCollector ssCollector,
+                            @Nonnull TaskletWaker waker,
+                            long latencyMarkerIntervalNanos,
                             @Nullable ProbeBuilder probeBuilder
     ) {
         Preconditions.checkNotNull(processor, "processor");
@@ -134,6 +150,7 @@ public class ProcessorTasklet implements Tasklet {
                                     .sorted(comparing(OutboundEdgeStream::ordinal))
                                     .toArray(OutboundEdgeStream[]::new);
         this.ssContext = ssContext;
+        this.waker = waker;
         this.logger = getLogger(context);
 
         instreamCursor = popInstreamGroup();
@@ -147,6 +164,17 @@ public class ProcessorTasklet implements Tasklet {
         waitForAllBarriers = ssContext.processingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE;
 
         watermarkCoalescer = WatermarkCoalescer.create(instreams.size());
+        this.latencyMarkerIntervalNanos = latencyMarkerIntervalNanos;
+        this.injectsLatencyMarkers = instreams.isEmpty() && !outstreams.isEmpty();
+        if (latencyMarkerIntervalNanos > 0) {
+            edgeLatencies = new LatencyHistogram[instreams.size()];
+            Arrays.setAll(edgeLatencies, i -> new LatencyHistogram());
+            sourceLatencies = new LatencyHistogram();
+            nextLatencyMarkerNanos = System.nanoTime();
+        } else {
+            edgeLatencies = null;
+            sourceLatencies = null;
+        }
         if (probeBuilder != null) {
             registerMetrics(instreams, probeBuilder);
         }
@@ -160,6 +188,15 @@ public class ProcessorTasklet implements Tasklet {
                 : Logger.getLogger(getClass());
     }
 
+    /**
+     * Returns how far the most advanced upstream watermark is ahead of the
+     * coalesced watermark of the stream, 0 until a watermark is coalesced.
+     */
+    private static long watermarkSkew(InboundEdgeStream instream) {
+        long coalescedWm = instream.coalescedWm();
+        return coalescedWm == Long.MIN_VALUE ? 0 : Math.max(0, instream.topObservedWm() - coalescedWm);
+    }
+
     private void registerMetrics(List<? extends InboundEdgeStream> instreams, final ProbeBuilder probeBuilder) {
         for (int i = 0; i < instreams.size(); i++) {
             int finalI = i;
@@ -175,6 +212,17 @@ public class ProcessorTasklet implements Tasklet {
                     (LongProbeFunction<ProcessorTasklet>) t -> instream.topObservedWm());
             builderWithOrdinal.register(this, "coalescedWm", ProbeLevel.INFO, ProbeUnit.MS,
                     (LongProbeFunction<ProcessorTasklet>) t -> instream.coalescedWm());
+            builderWithOrdinal.register(this, "wmSkew", ProbeLevel.INFO, ProbeUnit.MS,
+                    (LongProbeFunction<ProcessorTasklet>) t -> watermarkSkew(instream));
+            if (edgeLatencies != null) {
+                LatencyHistogram edgeLatency = edgeLatencies[finalI];
+                builderWithOrdinal.register(this, "edgeLatencyP50", ProbeLevel.INFO, ProbeUnit.NS,
+                        (LongProbeFunction<ProcessorTasklet>) t -> edgeLatency.valueAtPercentile(P50));
+                builderWithOrdinal.register(this, "edgeLatencyP99", ProbeLevel.INFO, ProbeUnit.NS,
+                        (LongProbeFunction<ProcessorTasklet>) t -> edgeLatency.valueAtPercentile(P99));
+                builderWithOrdinal.register(this, "edgeLatencyMax", ProbeLevel.INFO, ProbeUnit.NS,
+                        (LongProbeFunction<ProcessorTasklet>) t -> edgeLatency.max());
+            }
         }
 
         for (int i = 0; i < emittedCounts.length() - (context.snapshottingEnabled() ? 0 : 1); i++) {
@@ -197,6 +245,26 @@ public class ProcessorTasklet implements Tasklet {
                 (LongProbeFunction<ProcessorTasklet>) t -> t.queuesSize.get());
         probeBuilder.register(this, "queuesCapacity", ProbeLevel.INFO, ProbeUnit.COUNT,
                 (LongProbeFunction<ProcessorTasklet>) t -> t.queuesCapacity.get());
+        probeBuilder.register(this, "busyTimeNanos", ProbeLevel.INFO, ProbeUnit.NS,
+                (LongProbeFunction<ProcessorTasklet>) t -> t.busyTimeNanos.get());
+        probeBuilder.register(this, "callCount", ProbeLevel.INFO, ProbeUnit.COUNT,
+                (LongProbeFunction<ProcessorTasklet>) t -> t.callDurations.count());
+        probeBuilder.register(this, "callDurationP50", ProbeLevel.INFO, ProbeUnit.NS,
+                (LongProbeFunction<ProcessorTasklet>) t -> t.callDurations.valueAtPercentile(P50));
+        probeBuilder.register(this, "callDurationP99", ProbeLevel.INFO, ProbeUnit.NS,
+                (LongProbeFunction<ProcessorTasklet>) t -> t.callDurations.valueAtPercentile(P99));
+        probeBuilder.register(this, "callDurationP999", ProbeLevel.INFO, ProbeUnit.NS,
+                (LongProbeFunction<ProcessorTasklet>) t -> t.callDurations.valueAtPercentile(P999));
+        probeBuilder.register(this, "callDurationMax", ProbeLevel.INFO, ProbeUnit.NS,
+                (LongProbeFunction<ProcessorTasklet>) t -> t.callDurations.max());
+        if (sourceLatencies != null && !instreams.isEmpty()) {
+            probeBuilder.register(this, "sourceLatencyP50", ProbeLevel.INFO, ProbeUnit.NS,
+                    (LongProbeFunction<ProcessorTasklet>) t -> t.sourceLatencies.valueAtPercentile(P50));
+            probeBuilder.register(this, "sourceLatencyP99", ProbeLevel.INFO, ProbeUnit.NS,
+                    (LongProbeFunction<ProcessorTasklet>) t -> t.sourceLatencies.valueAtPercentile(P99));
+            probeBuilder.register(this, "sourceLatencyMax", ProbeLevel.INFO, ProbeUnit.NS,
+                    (LongProbeFunction<ProcessorTasklet>) t -> t.sourceLatencies.max());
+        }
     }
 
     private OutboxImpl createOutbox(@Nonnull OutboundCollector ssCollector) {
@@ -205,8 +273,12 @@ public class ProcessorTasklet implements Tasklet {
             collectors[i] = outstreams[i].getCollector();
         }
         collectors[outstreams.length] = ssCollector;
-        return new OutboxImpl(collectors, true, progTracker,
+        OutboxImpl outbox = new OutboxImpl(collectors, true, progTracker,
                 serializationService, OUTBOX_BATCH_SIZE, emittedCounts);
+        ItemPool[] itemPools = new ItemPool[outstreams.length];
+        Arrays.setAll(itemPools, i -> outstreams[i].itemPool());
+        outbox.setItemPools(itemPools);
+        return outbox;
     }
 
     @Override
@@ -224,11 +296,34 @@ public class ProcessorTasklet implements Tasklet {
         }
     }
 
+    @Nonnull @Override
+    public AtomicLong busyTimeNanos() {
+        return busyTimeNanos;
+    }
+
+    @Nonnull @Override
+    public LatencyHistogram callDurations() {
+        return callDurations;
+    }
+
+    @Nonnull @Override
+    public TaskletWaker waker() {
+        return waker;
+    }
+
+    @Override
+    public int localProcessorIndex() {
+        return context.localProcessorIndex();
+    }
+
     @Override @Nonnull
     public ProgressState call() {
         assert !processorClosed : "processor closed";
         progTracker.reset();
         outbox.reset();
+        if (latencyMarkerIntervalNanos > 0) {
+            emitLatencyMarker();
+        }
         stateMachineStep();
         ProgressState progressState = progTracker.toProgressState();
         if (progressState.isDone()) {
@@ -287,7 +382,9 @@ public class ProcessorTasklet implements Tasklet {
                     if (isSnapshotInbox()) {
                         processor.restoreFromSnapshot(inbox);
                     } else {
+                        inbox.trackTakenItems(currInstream.itemPool());
                         processor.process(currInstream.ordinal(), inbox);
+                        inbox.recycleTakenItems();
                     }
                 }
 
@@ -384,6 +481,58 @@ public class ProcessorTasklet implements Tasklet {
         }
     }
 
+    /**
+     * Injects a new latency marker, if this is a source and the interval
+     * elapsed, and offers the pending marker to the outbox. The markers
+     * aren't emitted while the output is idle, because they would make the
+     * downstream processors treat it as active again, nor after the done
+     * item.
+     */
+    private void emitLatencyMarker() {
+        if (state == EMIT_DONE_ITEM || state == END || outbox.lastForwardedWm() == IDLE_MESSAGE.timestamp()) {
+            pendingLatencyMarker = null;
+            return;
+        }
+        if (injectsLatencyMarkers && pendingLatencyMarker == null) {
+            long nanoTime = System.nanoTime();
+            if (nanoTime - nextLatencyMarkerNanos >= 0) {
+                nextLatencyMarkerNanos = nanoTime + latencyMarkerIntervalNanos;
+                long now = LatencyMarker.now();
+                pendingLatencyMarker = new LatencyMarker(now, now);
+            }
+        }
+        if (pendingLatencyMarker != null && outbox.offerLatencyMarker(pendingLatencyMarker)) {
+            pendingLatencyMarker = null;
+        }
+    }
+
+    private boolean addToInbox(Object item) {
+        if (item instanceof LatencyMarker) {
+            observeLatencyMarker((LatencyMarker) item);
+            return true;
+        }
+        return inbox.add(item);
+    }
+
+    /**
+     * Records the latencies of a received marker and, at most once per
+     * interval, prepares it to be forwarded. If the markers are disabled on
+     * this member, the marker is dropped.
+     */
+    private void observeLatencyMarker(LatencyMarker marker) {
+        if (edgeLatencies == null) {
+            return;
+        }
+        long now = LatencyMarker.now();
+        long nanoTime = System.nanoTime();
+        edgeLatencies[currInstream.ordinal()].record(now - marker.emitTime(), nanoTime);
+        sourceLatencies.record(now - marker.sourceTime(), nanoTime);
+        if (pendingLatencyMarker == null && outstreams.length > 0 && nanoTime - nextLatencyMarkerNanos >= 0) {
+            nextLatencyMarkerNanos = nanoTime + latencyMarkerIntervalNanos;
+            pendingLatencyMarker = new LatencyMarker(marker.sourceTime(), now);
+        }
+    }
+
     private void fillInbox() {
         assert inbox.isEmpty() : "inbox is not empty";
         assert pendingWatermark == null : "null wm expected, but was " + pendingWatermark;
@@ -406,15 +555,15 @@ public class ProcessorTasklet implements Tasklet {
             progTracker.madeProgress(result.isMadeProgress());
 
             // check if the last drained item is special
-            Object lastItem = inbox.queue().peekLast();
+            Object lastItem = inbox.peekLast();
             if (lastItem instanceof Watermark) {
-                long newWmValue = ((Watermark) inbox.queue().removeLast()).timestamp();
+                long newWmValue = ((Watermark) inbox.removeLast()).timestamp();
                 long wm = watermarkCoalescer.observeWm(currInstream.ordinal(), newWmValue);
                 if (wm != NO_NEW_WM) {
                     pendingWatermark = new Watermark(wm);
                 }
             } else if (lastItem instanceof SnapshotBarrier) {
-                SnapshotBarrier barrier = (SnapshotBarrier) inbox.queue().removeLast();
+                SnapshotBarrier barrier = (SnapshotBarrier) inbox.removeLast();
                 observeBarrier(currInstream.ordinal(), barrier);
             } else if (lastItem != null && !(lastItem instanceof BroadcastItem)) {
                 watermarkCoalescer.observeEvent(currInstream.ordinal());
@@ -517,4 +666,20 @@ public class ProcessorTasklet implements Tasklet {
             processorClosed = true;
         }
     }
+
+    /**
+     * Adds the items drained from the inbound edge streams to the inbox, the
+     * runs of data items in bulk.
+     */
+    private final class InboxDrainTarget implements BulkDrainTarget {
+        @Override
+        public boolean test(Object item) {
+            return addToInbox(item);
+        }
+
+        @Override
+        public void addAll(Object[] items, int from, int to) {
+            inbox.addAll(items, from, to);
+        }
+    }
 }
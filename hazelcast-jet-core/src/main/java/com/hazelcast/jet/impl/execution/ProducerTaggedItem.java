@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+/**
+ * An item in the shared queue of a local edge, tagged with the index of
+ * the upstream processor that added it. See {@link
+ * SharedQueueInboundEdgeStream}.
+ */
+final class ProducerTaggedItem {
+
+    final int producerIndex;
+    final Object item;
+
+    ProducerTaggedItem(int producerIndex, Object item) {
+        this.producerIndex = producerIndex;
+        this.item = item;
+    }
+
+    @Override
+    public String toString() {
+        return item + "@" + producerIndex;
+    }
+}
@@ -18,11 +18,14 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.util.concurrent.MPSCQueue;
 import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.impl.Networking;
+import com.hazelcast.jet.impl.util.Lz4Codec;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.LoggingService;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
 
 import javax.annotation.Nonnull;
@@ -31,12 +34,15 @@ import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.hazelcast.jet.impl.Networking.STREAM_PACKET_HEADER_SIZE;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
+import static com.hazelcast.jet.impl.execution.SenderTasklet.PAYLOAD_COMPRESSED;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFinest;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static java.lang.Math.ceil;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Receives from a remote member the data associated with a single edge.
@@ -68,15 +74,38 @@ public class ReceiverTasklet implements Tasklet {
      */
     static final int INITIAL_RECEIVE_WINDOW_COMPRESSED = 800;
 
+    /**
+     * With the adaptive flow control, the receive window is based on the
+     * highest drain rate in this many last flow-control periods.
+     */
+    static final int DRAIN_RATE_WINDOW = 10;
+
+    /**
+     * The minimum round-trip time is forgotten after this time, so that the
+     * window follows a route that became slower.
+     */
+    private static final long MIN_RTT_EXPIRY_NANOS = SECONDS.toNanos(10);
+    /**
+     * A round-trip time measurement starts only if the sender used all but
+     * this fraction of the receive window.
+     */
+    private static final int RTT_PROBE_WINDOW_DIVISOR = 4;
+    private static final int ADAPTIVE_WINDOW_GAIN = 2;
+
     /**
      * Receive Window converges towards the amount of data processed per flow-control
      * period multiplied by this number.
      */
     private final int rwinMultiplier;
     private final double flowControlPeriodNs;
+    private final boolean adaptiveFlowControl;
     private final ILogger logger;
 
-    private final Queue<BufferObjectDataInput> incoming = new MPSCQueue<>(null);
+    private final Queue<byte[]> incoming = new MPSCQueue<>(null);
+    // reused for all received packets, it's only used by the tasklet thread
+    private final BufferObjectDataInput packetInput;
+    // holds the decompressed items of a compressed packet
+    private byte[] decompressBuffer;
     private final ProgressTracker tracker = new ProgressTracker();
     private final ArrayDeque<ObjWithPtionIdAndSize> inbox = new ArrayDeque<>();
     private final OutboundCollector collector;
@@ -85,6 +114,10 @@ public class ReceiverTasklet implements Tasklet {
 
     private final AtomicLong itemsInCounter = new AtomicLong();
     private final AtomicLong bytesInCounter = new AtomicLong();
+    private final AtomicLong packetsInCounter = new AtomicLong();
+    private final AtomicLong compressedBytesInCounter = new AtomicLong();
+    private final AtomicLong ackLatencyNanos = new AtomicLong();
+    private final TaskletWaker waker = new TaskletWaker();
 
     //                    FLOW-CONTROL STATE
     //            All arrays are indexed by sender ID.
@@ -92,21 +125,45 @@ public class ReceiverTasklet implements Tasklet {
     // read by a task scheduler thread, written by a tasklet execution thread
     private volatile long ackedSeq;
     private volatile int numWaitingInInbox;
+    private volatile long receivedSeq;
+    private final AtomicLong rttSample = new AtomicLong();
+
+    // The round-trip time is measured from sending a new limit to the
+    // arrival of data beyond the previous limit, which the sender could only
+    // send after receiving the new one. The start time is set by the task
+    // scheduler and cleared by whoever completes or abandons the measurement.
+    private final AtomicLong rttProbeStart = new AtomicLong();
+    private volatile int rttProbeSeqCompressed;
 
     // read and written by updateAndGetSendSeqLimitCompressed(), which is invoked sequentially by a task scheduler
-    private int receiveWindowCompressed;
+    private volatile int receiveWindowCompressed;
     private int prevAckedSeqCompressed;
     private long prevTimestamp;
+    private int maxSendSeqLimitCompressed;
+    private long minRttNanos;
+    private long minRttTimestamp;
+    private final double[] drainRates = new double[DRAIN_RATE_WINDOW];
+    private int drainRateIndex;
 
     //                 END FLOW-CONTROL STATE
 
+    /**
+     * @param packetInput an input that the tasklet will {@linkplain
+     *          BufferObjectDataInput#init initialize} with the payload of each
+     *          received packet, instead of creating a new input for each one
+     * @param adaptiveFlowControl if the receive window should be sized from
+     *          the measured drain rate and round-trip time instead of using
+     *          the {@code rwinMultiplier}
+     */
     public ReceiverTasklet(
-            OutboundCollector collector, int rwinMultiplier, int flowControlPeriodMs,
-            LoggingService loggingService, String debugName
+            OutboundCollector collector, BufferObjectDataInput packetInput, int rwinMultiplier,
+            int flowControlPeriodMs, boolean adaptiveFlowControl, LoggingService loggingService, String debugName
     ) {
         this.collector = collector;
+        this.packetInput = packetInput;
         this.rwinMultiplier = rwinMultiplier;
         this.flowControlPeriodNs = (double) MILLISECONDS.toNanos(flowControlPeriodMs);
+        this.adaptiveFlowControl = adaptiveFlowControl;
         this.logger = loggingService.getLogger(getClass().getName() + '.' + debugName);
         this.receiveWindowCompressed = INITIAL_RECEIVE_WINDOW_COMPRESSED;
     }
@@ -142,8 +199,19 @@ public class ReceiverTasklet implements Tasklet {
         return tracker.toProgressState();
     }
 
-    void receiveStreamPacket(BufferObjectDataInput packetInput) {
-        incoming.add(packetInput);
+    /**
+     * Accepts the payload of a stream packet, including the header, which has
+     * {@link Networking#STREAM_PACKET_HEADER_SIZE} bytes. The payload must
+     * not be modified after this call.
+     */
+    void receiveStreamPacket(byte[] packetPayload) {
+        incoming.add(packetPayload);
+        waker.wakeUp();
+    }
+
+    @Nonnull @Override
+    public TaskletWaker waker() {
+        return waker;
     }
 
     /**
@@ -180,11 +248,14 @@ public class ReceiverTasklet implements Tasklet {
      *     Return the {@code sentSeq} limit as the current acked seq plus the current
      *     receive window.
      * </li></ol>
+     * With the adaptive flow control, the receive window is calculated by
+     * {@link #adaptReceiveWindow} instead.
      *
      * @param timestampNow value of the timestamp at the time the method is called. The timestamp
      *                     must be obtained from {@code System.nanoTime()}.
      */
     // Invoked sequentially by a task scheduler
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
     int updateAndGetSendSeqLimitCompressed(long timestampNow) {
         final boolean hadPrevStats = prevTimestamp != 0 || prevAckedSeqCompressed != 0;
 
@@ -195,7 +266,10 @@ public class ReceiverTasklet implements Tasklet {
         final int ackedSeqCompressedDelta = ackedSeqCompressed - prevAckedSeqCompressed;
         prevAckedSeqCompressed = ackedSeqCompressed;
 
-        if (hadPrevStats) {
+        updateMinRtt(timestampNow);
+        if (hadPrevStats && adaptiveFlowControl) {
+            adaptReceiveWindow(ackedSeqCompressedDelta, ackTimeDelta);
+        } else if (hadPrevStats) {
             final double ackedSeqsPerAckPeriod = flowControlPeriodNs * ackedSeqCompressedDelta / ackTimeDelta;
             final int targetRwin = rwinMultiplier * (int) ceil(ackedSeqsPerAckPeriod);
             int rwinDiff = targetRwin - receiveWindowCompressed;
@@ -212,7 +286,89 @@ public class ReceiverTasklet implements Tasklet {
                 logFinest(logger, "receiveWindowCompressed changed by %d to %d", rwinDiff, receiveWindowCompressed);
             }
         }
-        return ackedSeqCompressed + receiveWindowCompressed;
+        final int sendSeqLimitCompressed = ackedSeqCompressed + receiveWindowCompressed;
+        maybeStartRttProbe(timestampNow, sendSeqLimitCompressed);
+        return sendSeqLimitCompressed;
+    }
+
+    /**
+     * Sets the receive window to the amount of data the receiver can process
+     * until the sender gets the next limit: the highest drain rate in the last
+     * {@value #DRAIN_RATE_WINDOW} flow-control periods multiplied by the
+     * flow-control period plus the minimum round-trip time. While nothing is
+     * waiting in the inbox, the window is doubled so that the sender can speed
+     * up, and it isn't shrunk, because it's the sender who doesn't send
+     * enough data.
+     */
+    private void adaptReceiveWindow(int ackedSeqCompressedDelta, long ackTimeDelta) {
+        if (ackTimeDelta <= 0) {
+            return;
+        }
+        drainRates[drainRateIndex] = (double) ackedSeqCompressedDelta / ackTimeDelta;
+        drainRateIndex = (drainRateIndex + 1) % drainRates.length;
+        double maxDrainRate = 0;
+        for (double rate : drainRates) {
+            maxDrainRate = Math.max(maxDrainRate, rate);
+        }
+        final boolean receiverKeepsUp = numWaitingInInbox == 0;
+        final double bdp = maxDrainRate * (flowControlPeriodNs + minRttNanos);
+        final int targetRwin = Math.max(1, (int) ceil(receiverKeepsUp ? ADAPTIVE_WINDOW_GAIN * bdp : bdp));
+        if (targetRwin < receiveWindowCompressed && receiverKeepsUp) {
+            return;
+        }
+        if (targetRwin != receiveWindowCompressed) {
+            logFinest(logger, "receiveWindowCompressed changed from %d to %d", receiveWindowCompressed, targetRwin);
+        }
+        receiveWindowCompressed = targetRwin;
+    }
+
+    private void updateMinRtt(long timestampNow) {
+        final long sample = rttSample.getAndSet(0);
+        if (sample > 0 && (minRttNanos == 0 || sample <= minRttNanos
+                || timestampNow - minRttTimestamp > MIN_RTT_EXPIRY_NANOS)) {
+            minRttNanos = sample;
+            minRttTimestamp = timestampNow;
+        }
+    }
+
+    /**
+     * Starts a round-trip time measurement, if none is in progress, the new
+     * limit is higher than any previous one and the sender used most of the
+     * previous window, so that it's likely to send beyond it soon. A
+     * measurement that didn't complete in time is abandoned.
+     */
+    private void maybeStartRttProbe(long timestampNow, int sendSeqLimitCompressed) {
+        final long probeStart = rttProbeStart.get();
+        if (probeStart != 0 && timestampNow - probeStart > MIN_RTT_EXPIRY_NANOS) {
+            rttProbeStart.compareAndSet(probeStart, 0);
+        }
+        final int prevMaxLimit = maxSendSeqLimitCompressed;
+        if (sendSeqLimitCompressed - prevMaxLimit <= 0) {
+            return;
+        }
+        maxSendSeqLimitCompressed = sendSeqLimitCompressed;
+        if (rttProbeStart.get() == 0
+                && prevMaxLimit - compressSeq(receivedSeq) <= receiveWindowCompressed / RTT_PROBE_WINDOW_DIVISOR) {
+            rttProbeSeqCompressed = prevMaxLimit;
+            rttProbeStart.compareAndSet(0, timestampNow);
+        }
+    }
+
+    /**
+     * Completes the round-trip time measurement, if the received data went
+     * beyond the limit the sender had before the measurement started.
+     */
+    private void maybeCompleteRttProbe() {
+        final long probeStart = rttProbeStart.get();
+        if (probeStart != 0 && compressSeq(receivedSeq) - rttProbeSeqCompressed > 0
+                && rttProbeStart.compareAndSet(probeStart, 0)) {
+            recordRttSample(System.nanoTime() - probeStart);
+        }
+    }
+
+    void recordRttSample(long rttNanos) {
+        rttSample.set(rttNanos);
+        ackLatencyNanos.lazySet(rttNanos);
     }
 
     // Only one thread writes to ackedSeq
@@ -250,30 +406,66 @@ public class ReceiverTasklet implements Tasklet {
         return overhead + itemBlobSize;
     }
 
+    // Only the tasklet thread writes to receivedSeq
+    @SuppressWarnings("NonAtomicOperationOnVolatileField")
     private void tryFillInbox() {
         try {
             long totalBytes = 0;
             long totalItems = 0;
-            for (BufferObjectDataInput received; (received = incoming.poll()) != null; ) {
-                final int itemCount = received.readInt();
+            long totalPackets = 0;
+            long totalCompressedBytes = 0;
+            long totalFootprint = 0;
+            for (byte[] payload; (payload = incoming.poll()) != null; ) {
+                packetInput.init(payload, STREAM_PACKET_HEADER_SIZE);
+                final boolean compressed = packetInput.readByte() == PAYLOAD_COMPRESSED;
+                final int itemCount = packetInput.readInt();
+                final int rawLength = compressed ? decompressItems(payload) : payload.length;
                 for (int i = 0; i < itemCount; i++) {
-                    final int mark = received.position();
-                    final Object item = received.readObject();
-                    final int itemSize = received.position() - mark;
-                    inbox.add(new ObjWithPtionIdAndSize(item, received.readInt(), itemSize));
+                    final int mark = packetInput.position();
+                    final Object item = packetInput.readObject();
+                    final int itemSize = packetInput.position() - mark;
+                    final ObjWithPtionIdAndSize o = new ObjWithPtionIdAndSize(item, packetInput.readInt(), itemSize);
+                    totalFootprint += o.estimatedMemoryFootprint;
+                    inbox.add(o);
                 }
                 totalItems += itemCount;
-                totalBytes += received.position();
-                received.close();
+                totalBytes += rawLength;
+                totalCompressedBytes += payload.length;
+                totalPackets++;
+                // release the payload, but keep the input's internal buffers
+                packetInput.clear();
                 tracker.madeProgress();
             }
             lazyAdd(bytesInCounter, totalBytes);
             lazyAdd(itemsInCounter, totalItems);
+            lazyAdd(packetsInCounter, totalPackets);
+            lazyAdd(compressedBytesInCounter, totalCompressedBytes);
+            if (totalPackets > 0) {
+                receivedSeq += totalFootprint;
+                maybeCompleteRttProbe();
+            }
         } catch (IOException e) {
             throw rethrow(e);
         }
     }
 
+    /**
+     * Decompresses the items of the current packet and points the {@code
+     * packetInput} to them. Returns the length the packet would have
+     * uncompressed.
+     */
+    private int decompressItems(byte[] payload) throws IOException {
+        final int rawLength = packetInput.readInt();
+        final int compressedPos = packetInput.position();
+        if (decompressBuffer == null || decompressBuffer.length < rawLength) {
+            decompressBuffer = new byte[rawLength];
+        }
+        Lz4Codec.decompress(payload, compressedPos, payload.length - compressedPos, decompressBuffer, 0, rawLength);
+        packetInput.init(decompressBuffer, 0);
+        // the header and the item count, but not the length of the raw items
+        return compressedPos - Bits.INT_SIZE_IN_BYTES + rawLength;
+    }
+
     private static class ObjWithPtionIdAndSize extends ObjectWithPartitionId {
         final long estimatedMemoryFootprint;
 
@@ -290,4 +482,31 @@ public class ReceiverTasklet implements Tasklet {
     public AtomicLong getBytesInCounter() {
         return bytesInCounter;
     }
+
+    public AtomicLong getPacketsInCounter() {
+        return packetsInCounter;
+    }
+
+    /**
+     * Returns the counter of bytes actually received, before decompression.
+     */
+    public AtomicLong getCompressedBytesInCounter() {
+        return compressedBytesInCounter;
+    }
+
+    /**
+     * Returns the current receive window in bytes.
+     */
+    public long getReceiveWindowBytes() {
+        return (long) receiveWindowCompressed << COMPRESSED_SEQ_UNIT_LOG2;
+    }
+
+    /**
+     * Returns the last measured time from sending a new limit to the sender
+     * until receiving the data it allowed, in nanoseconds, or 0 if not
+     * measured yet.
+     */
+    public AtomicLong getAckLatencyNanos() {
+        return ackLatencyNanos;
+    }
 }
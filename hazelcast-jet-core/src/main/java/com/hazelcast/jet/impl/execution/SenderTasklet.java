@@ -17,9 +17,13 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.jet.RestartableException;
+import com.hazelcast.jet.impl.DataPlane;
+import com.hazelcast.jet.impl.DataPlaneConnection;
+import com.hazelcast.jet.impl.util.Lz4Codec;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataOutput;
@@ -29,55 +33,114 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.util.function.Predicate;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.hazelcast.jet.impl.Networking.createStreamPacketHeader;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static com.hazelcast.jet.impl.execution.ReceiverTasklet.compressSeq;
 import static com.hazelcast.jet.impl.execution.ReceiverTasklet.estimatedMemoryFootprint;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
+import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static com.hazelcast.jet.impl.util.Util.createObjectDataOutput;
 import static com.hazelcast.jet.impl.util.Util.getMemberConnection;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
 
 public class SenderTasklet implements Tasklet {
 
-    private final Connection connection;
+    /**
+     * The value of the flag following the packet header if the rest of the
+     * packet is {@link Lz4Codec LZ4}-compressed.
+     */
+    static final byte PAYLOAD_COMPRESSED = 1;
+    static final byte PAYLOAD_RAW = 0;
+
+    private final NodeEngine nodeEngine;
+    private final Address destinationAddress;
+    private final DataPlane dataPlane;
     private final Queue<Object> inbox = new ArrayDeque<>();
     private final ProgressTracker progTracker = new ProgressTracker();
     private final InboundEdgeStream inboundEdgeStream;
     private final BufferObjectDataOutput outputBuffer;
     private final int bufPosPastHeader;
     private final int packetSizeLimit;
+    // position of the item count, the compression flag is just before it
+    private final int bufPosItemCount;
+    private final int compressionThreshold;
+    private final Lz4Codec compressor;
+    private final boolean bigEndian;
+    private byte[] compressBuffer;
     private final AtomicLong itemsOutCounter = new AtomicLong();
     private final AtomicLong bytesOutCounter = new AtomicLong();
+    private final AtomicLong packetsOutCounter = new AtomicLong();
+    private final AtomicLong compressedBytesOutCounter = new AtomicLong();
+    private final AtomicLong stallTimeNanosCounter = new AtomicLong();
+    private final TaskletWaker waker = new TaskletWaker();
 
+    private CompletableFuture<DataPlaneConnection> dataPlaneConnectFuture;
+    // exactly one of the connections is non-null after the data-plane connect is done
+    private Connection connection;
+    private DataPlaneConnection dataPlaneConnection;
     private boolean instreamExhausted;
     // read and written by Jet thread
     private long sentSeq;
+    // the time when the tasklet had items to send, but the receive window was full; 0 if not stalled
+    private long stallStartNanos;
 
     // Written by HZ networking thread, read by Jet thread
     private volatile int sendSeqLimitCompressed;
     private Predicate<Object> addToInboxFunction = inbox::add;
 
+    /**
+     * @param compressionThreshold the minimum size of the items in a packet
+     *          to compress it, or -1 to disable compression
+     * @param dataPlane the dedicated connections to send the packets over,
+     *          or {@code null} to send them over the member connection. If
+     *          it fails to connect, the member connection is used.
+     */
     public SenderTasklet(InboundEdgeStream inboundEdgeStream, NodeEngine nodeEngine, Address destinationAddress,
-                         long executionId, int destinationVertexId, int packetSizeLimit) {
+                         long executionId, int destinationVertexId, int packetSizeLimit, int compressionThreshold,
+                         @Nullable DataPlane dataPlane) {
         this.inboundEdgeStream = inboundEdgeStream;
         this.packetSizeLimit = packetSizeLimit;
-        // we use Connection directly because we rely on packets not being transparently skipped or reordered
-        this.connection = getMemberConnection(nodeEngine, destinationAddress);
+        this.compressionThreshold = compressionThreshold;
+        this.compressor = compressionThreshold >= 0 ? new Lz4Codec() : null;
+        this.nodeEngine = nodeEngine;
+        this.destinationAddress = destinationAddress;
+        this.dataPlane = dataPlane;
+        if (dataPlane == null) {
+            // we use Connection directly because we rely on packets not being transparently skipped or reordered
+            this.connection = getMemberConnection(nodeEngine, destinationAddress);
+        }
         this.outputBuffer = createObjectDataOutput(nodeEngine);
         uncheckRun(() -> outputBuffer.write(createStreamPacketHeader(
                 nodeEngine, executionId, destinationVertexId, inboundEdgeStream.ordinal())));
         bufPosPastHeader = outputBuffer.position();
+        bufPosItemCount = bufPosPastHeader + Bits.BYTE_SIZE_IN_BYTES;
+        bigEndian = outputBuffer.getByteOrder() == ByteOrder.BIG_ENDIAN;
+    }
+
+    @Override
+    public void init() {
+        if (dataPlane != null) {
+            dataPlaneConnectFuture = dataPlane.connectionAsync(destinationAddress);
+            dataPlaneConnectFuture.whenComplete((r, e) -> waker.wakeUp());
+        }
     }
 
     @Nonnull @Override
     public ProgressState call() {
+        if (connection == null && dataPlaneConnection == null && !trySelectConnection()) {
+            return NO_PROGRESS;
+        }
         progTracker.reset();
         tryFillInbox();
         if (progTracker.isDone()) {
@@ -85,13 +148,57 @@ public class SenderTasklet implements Tasklet {
         }
         if (tryFillOutputBuffer()) {
             progTracker.madeProgress();
-            if (!connection.write(new Packet(outputBuffer.toByteArray()).setPacketType(Packet.Type.JET))) {
+            byte[] payload = maybeCompress(outputBuffer.toByteArray());
+            if (!write(payload)) {
                 throw new RestartableException("Connection write failed in " + toString());
             }
+            lazyIncrement(packetsOutCounter);
+            lazyAdd(compressedBytesOutCounter, payload.length);
         }
+        updateStallTime();
         return progTracker.toProgressState();
     }
 
+    /**
+     * Chooses the connection when the data-plane connect is done, before the
+     * first packet is sent. All packets then go over the chosen connection,
+     * which keeps them in order.
+     */
+    private boolean trySelectConnection() {
+        if (!dataPlaneConnectFuture.isDone()) {
+            return false;
+        }
+        try {
+            dataPlaneConnection = dataPlaneConnectFuture.join();
+        } catch (Exception e) {
+            ILogger logger = nodeEngine.getLogger(SenderTasklet.class);
+            logger.warning("Failed to connect the data plane to " + destinationAddress
+                    + ", using the member connection: " + peel(e));
+            connection = getMemberConnection(nodeEngine, destinationAddress);
+        }
+        return true;
+    }
+
+    private boolean write(byte[] payload) {
+        return dataPlaneConnection != null
+                ? dataPlaneConnection.write(payload)
+                : connection.write(new Packet(payload).setPacketType(Packet.Type.JET));
+    }
+
+    private void updateStallTime() {
+        final boolean stalled = !inbox.isEmpty() && !isWithinLimit(sentSeq, sendSeqLimitCompressed);
+        if (stalled == (stallStartNanos != 0)) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (stalled) {
+            stallStartNanos = now;
+        } else {
+            lazyAdd(stallTimeNanosCounter, now - stallStartNanos);
+            stallStartNanos = 0;
+        }
+    }
+
     private void tryFillInbox() {
         if (!inbox.isEmpty()) {
             progTracker.notDone();
@@ -111,8 +218,8 @@ public class SenderTasklet implements Tasklet {
 
     private boolean tryFillOutputBuffer() {
         try {
-            // header size + slot for writtenCount
-            outputBuffer.position(bufPosPastHeader + Bits.INT_SIZE_IN_BYTES);
+            // header size + compression flag + slot for writtenCount
+            outputBuffer.position(bufPosItemCount + Bits.INT_SIZE_IN_BYTES);
             int writtenCount = 0;
             for (Object item;
                  outputBuffer.position() < packetSizeLimit
@@ -120,14 +227,15 @@ public class SenderTasklet implements Tasklet {
                          && (item = inbox.poll()) != null;
                  writtenCount++
             ) {
-                ObjectWithPartitionId itemWithPId = item instanceof ObjectWithPartitionId ?
-                        (ObjectWithPartitionId) item : new ObjectWithPartitionId(item, - 1);
+                // don't wrap items without a partition, that would be garbage for each item
+                final boolean hasPId = item instanceof ObjectWithPartitionId;
                 final int mark = outputBuffer.position();
-                outputBuffer.writeObject(itemWithPId.getItem());
+                outputBuffer.writeObject(hasPId ? ((ObjectWithPartitionId) item).getItem() : item);
                 sentSeq += estimatedMemoryFootprint(outputBuffer.position() - mark);
-                outputBuffer.writeInt(itemWithPId.getPartitionId());
+                outputBuffer.writeInt(hasPId ? ((ObjectWithPartitionId) item).getPartitionId() : -1);
             }
-            outputBuffer.writeInt(bufPosPastHeader, writtenCount);
+            outputBuffer.write(bufPosPastHeader, PAYLOAD_RAW);
+            outputBuffer.writeInt(bufPosItemCount, writtenCount);
             lazyAdd(bytesOutCounter, outputBuffer.position());
             lazyAdd(itemsOutCounter, writtenCount);
             return writtenCount > 0;
@@ -136,6 +244,34 @@ public class SenderTasklet implements Tasklet {
         }
     }
 
+    /**
+     * Compresses the items in the packet, if compression is enabled, there's
+     * enough data and compression actually makes the packet smaller. The
+     * compressed packet has the uncompressed length of the items after the
+     * item count, followed by the compressed items.
+     */
+    private byte[] maybeCompress(byte[] packet) {
+        final int itemsPos = bufPosItemCount + Bits.INT_SIZE_IN_BYTES;
+        final int rawLength = packet.length - itemsPos;
+        if (compressor == null || rawLength < compressionThreshold) {
+            return packet;
+        }
+        final int maxLength = Lz4Codec.maxCompressedLength(rawLength);
+        if (compressBuffer == null || compressBuffer.length < maxLength) {
+            compressBuffer = new byte[maxLength];
+        }
+        final int compressedLength = compressor.compress(packet, itemsPos, rawLength, compressBuffer, 0);
+        if (compressedLength + Bits.INT_SIZE_IN_BYTES >= rawLength) {
+            return packet;
+        }
+        final byte[] compressed = new byte[itemsPos + Bits.INT_SIZE_IN_BYTES + compressedLength];
+        System.arraycopy(packet, 0, compressed, 0, itemsPos);
+        compressed[bufPosPastHeader] = PAYLOAD_COMPRESSED;
+        Bits.writeInt(compressed, itemsPos, rawLength, bigEndian);
+        System.arraycopy(compressBuffer, 0, compressed, itemsPos + Bits.INT_SIZE_IN_BYTES, compressedLength);
+        return compressed;
+    }
+
     /**
      * Updates the upper limit on {@link #sentSeq}, which constrains how much more data this tasklet can send.
      *
@@ -146,11 +282,18 @@ public class SenderTasklet implements Tasklet {
     // Called from HZ networking thread
     public void setSendSeqLimitCompressed(int sendSeqLimitCompressed) {
         this.sendSeqLimitCompressed = sendSeqLimitCompressed;
+        // the tasklet might be waiting for the window to open
+        waker.wakeUp();
+    }
+
+    @Nonnull @Override
+    public TaskletWaker waker() {
+        return waker;
     }
 
     @Override
     public String toString() {
-        return "SenderTasklet " + connection.getEndPoint();
+        return "SenderTasklet " + destinationAddress;
     }
 
     /**
@@ -170,4 +313,24 @@ public class SenderTasklet implements Tasklet {
     public AtomicLong getBytesOutCounter() {
         return bytesOutCounter;
     }
+
+    public AtomicLong getPacketsOutCounter() {
+        return packetsOutCounter;
+    }
+
+    /**
+     * Returns the counter of bytes actually sent, after compression. Equal
+     * to {@link #getBytesOutCounter()} if compression is disabled.
+     */
+    public AtomicLong getCompressedBytesOutCounter() {
+        return compressedBytesOutCounter;
+    }
+
+    /**
+     * Returns the counter of the time the tasklet had items to send, but
+     * the receive window didn't allow it to, in nanoseconds.
+     */
+    public AtomicLong getStallTimeNanosCounter() {
+        return stallTimeNanosCounter;
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.impl.util.ProgressState;
+
+import javax.annotation.Nullable;
+
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
+
+/**
+ * A collector that adds items to a queue shared by all upstream processors
+ * of the consumer. The broadcast items are tagged with the index of the
+ * producer so that {@link SharedQueueInboundEdgeStream} can coalesce them.
+ * The first item after an idle message is also tagged, so that the
+ * consumer knows the producer is active again.
+ */
+public class SharedQueueCollector extends ConveyorCollector {
+
+    private final int producerIndex;
+    private boolean idle;
+    // the last tagged item, reused if the offer is retried
+    private Object lastItem;
+    private ProducerTaggedItem lastTaggedItem;
+
+    /**
+     * @param conveyor a conveyor with a single multi-producer queue
+     * @param producerIndex the index of the upstream processor
+     */
+    public SharedQueueCollector(
+            ConcurrentConveyor<Object> conveyor, int producerIndex, int[] partitions,
+            @Nullable TaskletWaker consumerWaker
+    ) {
+        super(conveyor, 0, partitions, consumerWaker);
+        this.producerIndex = producerIndex;
+    }
+
+    @Override
+    public ProgressState offer(Object item) {
+        if (!idle) {
+            return offerToConveyor(item);
+        }
+        ProgressState result = offerToConveyor(tag(item));
+        if (result.isDone()) {
+            idle = false;
+        }
+        return result;
+    }
+
+    @Override
+    public ProgressState offerBroadcast(BroadcastItem item) {
+        ProgressState result = offerToConveyor(tag(item));
+        if (result.isDone()) {
+            idle = item instanceof Watermark && ((Watermark) item).timestamp() == IDLE_MESSAGE.timestamp();
+        }
+        return result;
+    }
+
+    private ProducerTaggedItem tag(Object item) {
+        if (item != lastItem) {
+            lastItem = item;
+            lastTaggedItem = new ProducerTaggedItem(producerIndex, item);
+        }
+        return lastTaggedItem;
+    }
+}
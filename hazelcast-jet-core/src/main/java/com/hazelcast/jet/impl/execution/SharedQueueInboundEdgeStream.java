@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.QueuedPipe;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.util.function.Predicate;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+
+import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.NO_NEW_WM;
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
+import static com.hazelcast.jet.impl.util.Util.toLocalTime;
+
+/**
+ * {@link InboundEdgeStream} implemented in terms of a single queue shared
+ * by all upstream processors, which add to it through {@link
+ * SharedQueueCollector}s. Unlike in {@link ConcurrentInboundEdgeStream},
+ * the cost of a drain doesn't depend on the number of upstream processors,
+ * which makes it suitable for edges with a high upstream parallelism.
+ * <p>
+ * The watermarks, snapshot barriers and done items are tagged with the
+ * index of the producer, the stream tracks their state per producer. The
+ * stream can't stop draining a single producer, therefore it only
+ * supports the at-least-once guarantee. After a terminal snapshot barrier,
+ * the control items of the producers that already sent the barrier are
+ * held back until the barrier is forwarded.
+ */
+public class SharedQueueInboundEdgeStream implements InboundEdgeStream {
+
+    private final int ordinal;
+    private final int priority;
+    private final QueuedPipe<Object> queue;
+    private final ProgressTracker tracker = new ProgressTracker();
+    private final Predicate<Object> drainFn = this::drainItem;
+    // control items held back until the barrier was forwarded, they precede the queue items
+    private final ArrayDeque<Object> released = new ArrayDeque<>();
+    // control items of producers that sent the terminal barrier
+    private final ArrayDeque<Object> heldBack = new ArrayDeque<>();
+
+    private final WatermarkCoalescer watermarkCoalescer;
+    private final BitSet receivedBarriers; // indicates if current snapshot is received from the producer
+    private final ILogger logger;
+    private final ItemPool itemPool;
+
+    private boolean waitForAllBarriers;
+    private SnapshotBarrier currentBarrier;  // next snapshot barrier to emit
+    private int numActiveProducers; // number of producers that haven't sent DONE_ITEM
+    private boolean stopDrain; // set when the destination must see the last item before further items
+    private Predicate<Object> currentDest; // the destination of the current drainTo() call
+
+    public SharedQueueInboundEdgeStream(QueuedPipe<Object> queue, int producerCount, int ordinal, int priority,
+                                        String debugName) {
+        this(queue, producerCount, ordinal, priority, null, debugName);
+    }
+
+    /**
+     * @param itemPool the pool to which the processed items are returned, or
+     *          {@code null} if they aren't reused
+     */
+    public SharedQueueInboundEdgeStream(QueuedPipe<Object> queue, int producerCount, int ordinal, int priority,
+                                        @Nullable ItemPool itemPool, String debugName) {
+        this.queue = queue;
+        this.itemPool = itemPool;
+        this.ordinal = ordinal;
+        this.priority = priority;
+
+        watermarkCoalescer = WatermarkCoalescer.create(producerCount);
+        numActiveProducers = producerCount;
+        receivedBarriers = new BitSet(producerCount);
+        logger = Logger.getLogger(SharedQueueInboundEdgeStream.class.getName() + "." + debugName);
+        logger.finest("Coalescing " + producerCount + " producers on a shared queue");
+    }
+
+    @Override
+    public int ordinal() {
+        return ordinal;
+    }
+
+    @Override
+    public int priority() {
+        return priority;
+    }
+
+    @Override
+    public ItemPool itemPool() {
+        return itemPool;
+    }
+
+    @Override
+    public ProgressState drainTo(Predicate<Object> dest) {
+        tracker.reset();
+        // a producer that completed after a forwarded watermark could be the last one without the barrier
+        if (maybeForwardBarrier(dest)) {
+            return MADE_PROGRESS;
+        }
+        stopDrain = false;
+        for (Object item; !stopDrain && (item = released.poll()) != null; ) {
+            tracker.madeProgress();
+            handleItem(item, dest);
+        }
+        if (!stopDrain) {
+            currentDest = dest;
+            queue.drain(drainFn);
+            currentDest = null;
+        }
+        if (numActiveProducers == 0) {
+            return tracker.toProgressState();
+        }
+        tracker.notDone();
+        if (!stopDrain && maybeEmitWm(watermarkCoalescer.checkWmHistory(), dest)) {
+            return MADE_PROGRESS;
+        }
+        return tracker.toProgressState();
+    }
+
+    private boolean drainItem(Object item) {
+        tracker.madeProgress();
+        handleItem(item, currentDest);
+        return !stopDrain;
+    }
+
+    /**
+     * Passes the item to {@code dest} or handles it, if it's a control item.
+     * Sets {@link #stopDrain} if no more items should be passed in this call.
+     */
+    private void handleItem(Object item, Predicate<Object> dest) {
+        if (!(item instanceof ProducerTaggedItem)) {
+            stopDrain = !dest.test(item);
+            return;
+        }
+        ProducerTaggedItem tagged = (ProducerTaggedItem) item;
+        int producerIndex = tagged.producerIndex;
+        Object payload = tagged.item;
+        if (payload == DONE_ITEM || payload instanceof Watermark || payload instanceof SnapshotBarrier) {
+            if (waitForAllBarriers && receivedBarriers.get(producerIndex)) {
+                heldBack.add(tagged);
+            } else {
+                handleControlItem(producerIndex, payload, dest);
+            }
+        } else {
+            watermarkCoalescer.observeEvent(producerIndex);
+            stopDrain = !dest.test(payload);
+        }
+    }
+
+    private void handleControlItem(int producerIndex, Object item, Predicate<Object> dest) {
+        if (item == DONE_ITEM) {
+            receivedBarriers.clear(producerIndex);
+            numActiveProducers--;
+            long wmTimestamp = watermarkCoalescer.queueDone(producerIndex);
+            if (maybeEmitWm(wmTimestamp, dest)) {
+                if (logger.isFinestEnabled()) {
+                    logger.finest("Producer " + producerIndex + " is done, forwarding " + new Watermark(wmTimestamp));
+                }
+                stopDrain = true;
+                return;
+            }
+            if (numActiveProducers == 0) {
+                stopDrain = true;
+                return;
+            }
+        } else if (item instanceof Watermark) {
+            long wmTimestamp = ((Watermark) item).timestamp();
+            boolean forwarded = maybeEmitWm(watermarkCoalescer.observeWm(producerIndex, wmTimestamp), dest);
+            if (logger.isFinestEnabled()) {
+                logger.finest("Received " + item + " from producer " + producerIndex
+                        + (forwarded ? ", forwarded=" : ", not forwarded")
+                        + ", coalescedWm=" + toLocalTime(watermarkCoalescer.coalescedWm())
+                        + ", topObservedWm=" + toLocalTime(topObservedWm()));
+            }
+            if (forwarded) {
+                stopDrain = true;
+                return;
+            }
+        } else {
+            observeBarrier(producerIndex, (SnapshotBarrier) item);
+        }
+        stopDrain = maybeForwardBarrier(dest);
+    }
+
+    /**
+     * Forwards the current snapshot barrier, if it was received from all
+     * active producers.
+     */
+    private boolean maybeForwardBarrier(Predicate<Object> dest) {
+        if (currentBarrier == null || numActiveProducers == 0
+                || receivedBarriers.cardinality() != numActiveProducers) {
+            return false;
+        }
+        boolean res = dest.test(currentBarrier);
+        assert res : "test result expected to be true";
+        currentBarrier = null;
+        receivedBarriers.clear();
+        // the held back items precede the remaining items
+        for (Object heldItem; (heldItem = heldBack.pollLast()) != null; ) {
+            released.addFirst(heldItem);
+        }
+        return true;
+    }
+
+    private void observeBarrier(int producerIndex, SnapshotBarrier barrier) {
+        if (currentBarrier == null) {
+            currentBarrier = barrier;
+        } else {
+            assert currentBarrier.equals(barrier) : currentBarrier + " != " + barrier;
+        }
+        if (barrier.isTerminal()) {
+            // see ConcurrentInboundEdgeStream.observeBarrier()
+            waitForAllBarriers = true;
+        }
+        receivedBarriers.set(producerIndex);
+    }
+
+    private boolean maybeEmitWm(long timestamp, Predicate<Object> dest) {
+        if (timestamp != NO_NEW_WM) {
+            boolean res = dest.test(new Watermark(timestamp));
+            assert res : "test result expected to be true";
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return numActiveProducers == 0;
+    }
+
+    @Override
+    public int capacities() {
+        return queue.capacity();
+    }
+
+    @Override
+    public int sizes() {
+        return queue.size() + released.size() + heldBack.size();
+    }
+
+    @Override
+    public long topObservedWm() {
+        return watermarkCoalescer.topObservedWm();
+    }
+
+    @Override
+    public long coalescedWm() {
+        return watermarkCoalescer.coalescedWm();
+    }
+}
@@ -16,9 +16,12 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.jet.impl.util.LatencyHistogram;
 import com.hazelcast.jet.impl.util.ProgressState;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
 
 public interface Tasklet {
 
@@ -35,4 +38,42 @@ public interface Tasklet {
     default void close() {
     }
 
+    /**
+     * Returns the counter to which the {@link TaskletExecutionService} adds
+     * the nanoseconds spent in {@link #call()}. Tasklets that expose it as a
+     * metric return their own instance, it's called once per execution.
+     */
+    @Nonnull
+    default AtomicLong busyTimeNanos() {
+        return new AtomicLong();
+    }
+
+    /**
+     * Returns the histogram to which the {@link TaskletExecutionService}
+     * records the duration of each {@link #call()}. Called once per execution.
+     */
+    @Nonnull
+    default LatencyHistogram callDurations() {
+        return new LatencyHistogram();
+    }
+
+    /**
+     * Returns the handle the producers of this tasklet's input use to wake
+     * up the worker running it, or null, if they don't. Called once per
+     * execution.
+     */
+    @Nullable
+    default TaskletWaker waker() {
+        return null;
+    }
+
+    /**
+     * Returns the index of the processor among the local processors of its
+     * vertex, or -1, if the tasklet doesn't run a processor. Used to place
+     * the connected tasklets close to each other.
+     */
+    default int localProcessorIndex() {
+        return -1;
+    }
+
 }
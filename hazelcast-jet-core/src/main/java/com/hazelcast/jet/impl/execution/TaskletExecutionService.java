@@ -17,21 +17,31 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.metrics.ProbeBuilder;
 import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.config.CooperativeIdleStrategy;
+import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.impl.util.CpuAffinity;
+import com.hazelcast.jet.impl.util.LatencyHistogram;
 import com.hazelcast.jet.impl.util.NonCompletableFuture;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.spi.properties.HazelcastProperties;
 import com.hazelcast.util.concurrent.BackoffIdleStrategy;
 import com.hazelcast.util.concurrent.IdleStrategy;
 
 import javax.annotation.Nonnull;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -46,8 +56,15 @@ import java.util.function.Consumer;
 
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.withTryCatch;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_BLOCKING_VIRTUAL_THREADS_ENABLED;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_CALL_DURATION_HISTOGRAMS_ENABLED;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_MINIMUM_IDLE_MICROSECONDS;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_SLOW_CALL_THRESHOLD_MILLIS;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_TASKLET_REBALANCE_PERIOD_MILLIS;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_WORK_STEALING_ENABLED;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFinest;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
 import static java.lang.Thread.currentThread;
@@ -55,6 +72,7 @@ import static java.util.Collections.emptyList;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.regex.Matcher.quoteReplacement;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.partitioningBy;
@@ -64,8 +82,11 @@ public class TaskletExecutionService {
 
     private static final long MAXIMUM_IDLE_COOPERATIVE = MILLISECONDS.toNanos(1);
     private static final long MAXIMUM_IDLE_NON_COOPERATIVE = MILLISECONDS.toNanos(5);
+    // don't move a tasklet unless the busiest worker is loaded by at least this fraction more than the least busy one
+    private static final double REBALANCE_IMBALANCE_THRESHOLD = 0.2;
+    private static final long SLOW_CALL_REPORT_INTERVAL = SECONDS.toNanos(10);
 
-    private final ExecutorService blockingTaskletExecutor = newCachedThreadPool(new BlockingTaskThreadFactory());
+    private final ExecutorService blockingTaskletExecutor;
     private final CooperativeWorker[] cooperativeWorkers;
     private final Thread[] cooperativeThreadPool;
     private final String hzInstanceName;
@@ -75,34 +96,146 @@ public class TaskletExecutionService {
     private final AtomicInteger blockingWorkerCount = new AtomicInteger();
     private volatile boolean isShutdown;
     private final Object lock = new Object();
-    private volatile IdleStrategy idlerCooperative;
     private volatile IdleStrategy idlerNonCooperative;
-
-    public TaskletExecutionService(NodeEngineImpl nodeEngine, int threadCount, long minimumIdleTimeNs) {
+    private final boolean workStealingEnabled;
+    private final long rebalancePeriodNs;
+    private final long slowCallThresholdNs;
+    private final boolean callDurationHistogramsEnabled;
+    // whether anything consumes the durations of the tasklet calls
+    private final boolean timeCalls;
+    private final long minimumIdleTimeNs;
+    private final CooperativeIdleStrategy cooperativeIdleStrategy;
+    private final AtomicLong nextRebalanceNanos = new AtomicLong();
+    // the CPU each cooperative worker is pinned to, null if they aren't pinned
+    private final int[] workerCpus;
+    // the indices of the workers on each NUMA node, null if the workers aren't pinned to multiple nodes
+    private final int[][] workersByNumaNode;
+    private final int[] numaNodeCursors;
+    private final boolean virtualBlockingThreads;
+
+    public TaskletExecutionService(
+            NodeEngineImpl nodeEngine, InstanceConfig instanceConfig, HazelcastProperties properties
+    ) {
+        int threadCount = instanceConfig.getCooperativeThreadCount();
         this.hzInstanceName = nodeEngine.getHazelcastInstance().getName();
         this.cooperativeWorkers = new CooperativeWorker[threadCount];
         this.cooperativeThreadPool = new Thread[threadCount];
         this.logger = nodeEngine.getLoggingService().getLogger(TaskletExecutionService.class);
-
-        logFine(logger, "Actual minimum idle time=%dµs", NANOSECONDS.toMicros(minimumIdleTimeNs));
-        idlerCooperative = new BackoffIdleStrategy(0, 0, minimumIdleTimeNs,
-                Math.max(minimumIdleTimeNs, MAXIMUM_IDLE_COOPERATIVE));
+        this.workStealingEnabled = properties.getBoolean(JET_WORK_STEALING_ENABLED);
+        this.rebalancePeriodNs = properties.getNanos(JET_TASKLET_REBALANCE_PERIOD_MILLIS);
+        this.slowCallThresholdNs = properties.getNanos(JET_SLOW_CALL_THRESHOLD_MILLIS);
+        this.callDurationHistogramsEnabled = properties.getBoolean(JET_CALL_DURATION_HISTOGRAMS_ENABLED);
+        this.timeCalls = rebalancePeriodNs > 0 || slowCallThresholdNs > 0 || callDurationHistogramsEnabled;
+        this.minimumIdleTimeNs = properties.getNanos(JET_MINIMUM_IDLE_MICROSECONDS);
+        this.cooperativeIdleStrategy = instanceConfig.getCooperativeIdleStrategy();
+        this.workerCpus = workerCpus(instanceConfig);
+        this.workersByNumaNode = workerCpus == null ? null : workersByNumaNode(workerCpus, CpuAffinity.numaNodeOfCpus());
+        this.numaNodeCursors = new int[workersByNumaNode == null ? 0 : workersByNumaNode.length];
+        ThreadFactory virtualFactory = properties.getBoolean(JET_BLOCKING_VIRTUAL_THREADS_ENABLED)
+                ? virtualThreadFactory("hz." + hzInstanceName + ".jet.blocking.thread-", logger)
+                : null;
+        this.virtualBlockingThreads = virtualFactory != null;
+        this.blockingTaskletExecutor = newCachedThreadPool(
+                virtualBlockingThreads ? virtualFactory : new BlockingTaskThreadFactory());
         idlerNonCooperative = new BackoffIdleStrategy(0, 0, minimumIdleTimeNs,
                 Math.max(minimumIdleTimeNs, MAXIMUM_IDLE_NON_COOPERATIVE));
 
+        logSettings();
         nodeEngine.getMetricsRegistry().newProbeBuilder()
                        .withTag("module", "jet")
                        .scanAndRegister(this);
+        startCooperativeWorkers(nodeEngine);
+    }
 
-        Arrays.setAll(cooperativeWorkers, i -> new CooperativeWorker());
+    private void logSettings() {
+        logFine(logger, "Work stealing enabled=%s, tasklet rebalance period=%dms",
+                workStealingEnabled, NANOSECONDS.toMillis(rebalancePeriodNs));
+        logFine(logger, "Actual minimum idle time=%dµs, cooperative idle strategy=%s",
+                NANOSECONDS.toMicros(minimumIdleTimeNs), cooperativeIdleStrategy);
+        logFine(logger, "Non-cooperative tasklets run on %s threads", virtualBlockingThreads ? "virtual" : "platform");
+        if (workersByNumaNode != null) {
+            logFine(logger, "Cooperative workers span %d NUMA nodes, tasklets will be placed by NUMA node",
+                    workersByNumaNode.length);
+        }
+    }
+
+    /**
+     * Returns a factory of virtual threads named with the given prefix and a
+     * sequence number, or null, if the JVM doesn't support them. We use
+     * reflection because we compile for Java 8.
+     */
+    static ThreadFactory virtualThreadFactory(String namePrefix, ILogger logger) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            logger.warning("Virtual threads are not supported by this JVM, non-cooperative tasklets will run on "
+                    + "platform threads");
+        } catch (InvocationTargetException e) {
+            // in Java 19 and 20 virtual threads are a preview feature
+            logger.warning("Virtual threads are not available, non-cooperative tasklets will run on platform "
+                    + "threads: " + e.getCause());
+        }
+        return null;
+    }
+
+    private void startCooperativeWorkers(NodeEngineImpl nodeEngine) {
+        Arrays.setAll(cooperativeWorkers, i ->
+                new CooperativeWorker(createCooperativeIdler(), workerCpus == null ? -1 : workerCpus[i]));
         Arrays.setAll(cooperativeThreadPool, i -> new Thread(cooperativeWorkers[i],
                 String.format("hz.%s.jet.cooperative.thread-%d", hzInstanceName, i)));
         Arrays.stream(cooperativeThreadPool).forEach(Thread::start);
         for (int i = 0; i < cooperativeWorkers.length; i++) {
-            nodeEngine.getMetricsRegistry().newProbeBuilder()
-                           .withTag("module", "jet")
-                           .withTag("cooperativeWorker", String.valueOf(i))
-                           .scanAndRegister(cooperativeWorkers[i]);
+            ProbeBuilder probeBuilder = nodeEngine.getMetricsRegistry().newProbeBuilder()
+                                                  .withTag("module", "jet")
+                                                  .withTag("cooperativeWorker", String.valueOf(i));
+            probeBuilder.scanAndRegister(cooperativeWorkers[i]);
+            probeBuilder.scanAndRegister(cooperativeWorkers[i].idler);
+        }
+    }
+
+    private static int[] workerCpus(InstanceConfig instanceConfig) {
+        String affinity = instanceConfig.getCooperativeThreadCpuAffinity();
+        if (affinity == null) {
+            return null;
+        }
+        List<Integer> cpus = CpuAffinity.parseCpuList(affinity);
+        int[] result = new int[instanceConfig.getCooperativeThreadCount()];
+        Arrays.setAll(result, i -> cpus.get(i % cpus.size()));
+        return result;
+    }
+
+    /**
+     * Groups the workers by the NUMA node of the CPU they are pinned to.
+     * Returns null if all of them are on the same node. CPUs with an unknown
+     * node are treated as node 0.
+     */
+    static int[][] workersByNumaNode(int[] workerCpus, Map<Integer, Integer> numaNodeOfCpu) {
+        Map<Integer, List<Integer>> byNode = new TreeMap<>();
+        for (int i = 0; i < workerCpus.length; i++) {
+            byNode.computeIfAbsent(numaNodeOfCpu.getOrDefault(workerCpus[i], 0), x -> new ArrayList<>()).add(i);
+        }
+        if (byNode.size() < 2) {
+            return null;
+        }
+        return byNode.values().stream()
+                     .map(workers -> workers.stream().mapToInt(Integer::intValue).toArray())
+                     .toArray(int[][]::new);
+    }
+
+    private IdleStrategy createCooperativeIdler() {
+        long maxIdleNs = Math.max(minimumIdleTimeNs, MAXIMUM_IDLE_COOPERATIVE);
+        switch (cooperativeIdleStrategy) {
+            case BACKOFF:
+                return new BackoffIdleStrategy(0, 0, minimumIdleTimeNs, maxIdleNs);
+            case BUSY_SPIN:
+                return n -> false;
+            case ADAPTIVE:
+                return new AdaptiveIdleStrategy(minimumIdleTimeNs, maxIdleNs);
+            default:
+                throw new IllegalArgumentException("Unknown idle strategy: " + cooperativeIdleStrategy);
         }
     }
 
@@ -171,15 +304,144 @@ public class TaskletExecutionService {
         // them could happen to not use all threads. When the other one ends,
         // some worker might have no tasklet.
         synchronized (lock) {
-            for (Tasklet t : tasklets) {
-                trackersByThread[cooperativeThreadIndex].add(new TaskletTracker(t, executionTracker, jobClassLoader));
-                cooperativeThreadIndex = (cooperativeThreadIndex + 1) % trackersByThread.length;
+            if (rebalancePeriodNs > 0) {
+                assignByLoad(trackersByThread, tasklets, executionTracker, jobClassLoader);
+            } else if (workersByNumaNode != null) {
+                assignByNumaNode(trackersByThread, tasklets, executionTracker, jobClassLoader);
+            } else {
+                for (Tasklet t : tasklets) {
+                    trackersByThread[cooperativeThreadIndex].add(
+                            new TaskletTracker(t, executionTracker, jobClassLoader));
+                    cooperativeThreadIndex = (cooperativeThreadIndex + 1) % trackersByThread.length;
+                }
             }
         }
+        // unpark only the workers that got new tasklets, the others have nothing new to do
         for (int i = 0; i < trackersByThread.length; i++) {
-            cooperativeWorkers[i].trackers.addAll(trackersByThread[i]);
+            if (trackersByThread[i].isEmpty()) {
+                continue;
+            }
+            CooperativeWorker worker = cooperativeWorkers[i];
+            for (TaskletTracker t : trackersByThread[i]) {
+                t.assignTo(worker);
+            }
+            worker.trackers.addAll(trackersByThread[i]);
+            LockSupport.unpark(cooperativeThreadPool[i]);
+        }
+    }
+
+    /**
+     * Assigns each new tasklet to the worker with the lowest estimated load.
+     * The load of a worker is its busy time in the last rebalance period; each
+     * new tasklet is assumed to add the average busy time of the currently
+     * running tasklets. Ties are broken by the number of tasklets.
+     */
+    private void assignByLoad(
+            List<TaskletTracker>[] trackersByThread, List<Tasklet> tasklets,
+            ExecutionTracker executionTracker, ClassLoader jobClassLoader
+    ) {
+        long[] estimatedLoad = new long[cooperativeWorkers.length];
+        int[] taskletCount = new int[cooperativeWorkers.length];
+        long totalLoad = 0;
+        long totalCount = 0;
+        for (int i = 0; i < cooperativeWorkers.length; i++) {
+            estimatedLoad[i] = cooperativeWorkers[i].recentBusyNanos;
+            taskletCount[i] = cooperativeWorkers[i].trackers.size();
+            totalLoad += estimatedLoad[i];
+            totalCount += taskletCount[i];
+        }
+        long perTaskletEstimate = Math.max(1, totalCount == 0 ? 0 : totalLoad / totalCount);
+        for (Tasklet t : tasklets) {
+            int target = 0;
+            for (int i = 1; i < estimatedLoad.length; i++) {
+                if (estimatedLoad[i] < estimatedLoad[target]
+                        || estimatedLoad[i] == estimatedLoad[target] && taskletCount[i] < taskletCount[target]) {
+                    target = i;
+                }
+            }
+            trackersByThread[target].add(new TaskletTracker(t, executionTracker, jobClassLoader));
+            estimatedLoad[target] += perTaskletEstimate;
+            taskletCount[target]++;
+        }
+    }
+
+    /**
+     * Assigns the tasklets of the processors with the same local index to
+     * the workers of the same NUMA node, round-robin within the node. The
+     * processors with the same local index are connected by the one-to-one
+     * and isolated edges, so their queues aren't shared across the nodes.
+     * Other tasklets are assigned round-robin over all workers.
+     */
+    private void assignByNumaNode(
+            List<TaskletTracker>[] trackersByThread, List<Tasklet> tasklets,
+            ExecutionTracker executionTracker, ClassLoader jobClassLoader
+    ) {
+        for (Tasklet t : tasklets) {
+            int localIndex = t.localProcessorIndex();
+            int worker;
+            if (localIndex < 0) {
+                worker = cooperativeThreadIndex;
+                cooperativeThreadIndex = (cooperativeThreadIndex + 1) % trackersByThread.length;
+            } else {
+                int node = localIndex % workersByNumaNode.length;
+                int[] nodeWorkers = workersByNumaNode[node];
+                worker = nodeWorkers[numaNodeCursors[node]];
+                numaNodeCursors[node] = (numaNodeCursors[node] + 1) % nodeWorkers.length;
+            }
+            trackersByThread[worker].add(new TaskletTracker(t, executionTracker, jobClassLoader));
+        }
+    }
+
+    /**
+     * Computes the busy time of each tasklet and worker in the last period
+     * and, if the load is uneven, asks the busiest worker to move one of its
+     * tasklets to the least busy worker. Called by any cooperative worker
+     * after the period elapses; the CAS on {@link #nextRebalanceNanos}
+     * ensures only one of them does it.
+     */
+    private void maybeRebalance(long now) {
+        long deadline = nextRebalanceNanos.get();
+        if (now - deadline < 0 || !nextRebalanceNanos.compareAndSet(deadline, now + rebalancePeriodNs)) {
+            return;
+        }
+        CooperativeWorker busiest = null;
+        CooperativeWorker leastBusy = null;
+        for (CooperativeWorker w : cooperativeWorkers) {
+            long workerLoad = 0;
+            for (TaskletTracker t : w.trackers) {
+                long total = t.busyTimeNanos.get();
+                t.recentBusyNanos = total - t.lastSampledBusyNanos;
+                t.lastSampledBusyNanos = total;
+                workerLoad += t.recentBusyNanos;
+            }
+            w.recentBusyNanos = workerLoad;
+            if (busiest == null || workerLoad > busiest.recentBusyNanos) {
+                busiest = w;
+            }
+            if (leastBusy == null || workerLoad < leastBusy.recentBusyNanos) {
+                leastBusy = w;
+            }
+        }
+        assert busiest != null && leastBusy != null;
+        long diff = busiest.recentBusyNanos - leastBusy.recentBusyNanos;
+        if (busiest == leastBusy || busiest.trackers.size() < 2
+                || diff < busiest.recentBusyNanos * REBALANCE_IMBALANCE_THRESHOLD) {
+            return;
+        }
+        // Move the tasklet whose load is closest to half of the difference.
+        // Moving a tasklet with a load over the difference would make things worse.
+        TaskletTracker candidate = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (TaskletTracker t : busiest.trackers) {
+            long distance = Math.abs(diff / 2 - t.recentBusyNanos);
+            if (t.recentBusyNanos > 0 && t.recentBusyNanos < diff && distance < bestDistance) {
+                candidate = t;
+                bestDistance = distance;
+            }
+        }
+        if (candidate != null) {
+            busiest.moveRequest.compareAndSet(null, new MoveRequest(candidate, leastBusy));
         }
-        Arrays.stream(cooperativeThreadPool).forEach(LockSupport::unpark);
     }
 
     private String trackersToString() {
@@ -208,10 +470,22 @@ public class TaskletExecutionService {
         }
     }
 
-    private final class BlockingWorker implements Runnable {
+    /**
+     * A worker that can be woken up by the producers of its tasklets' input,
+     * see {@link TaskletWaker}.
+     */
+    interface WakeableWorker {
+        void wakeUp();
+    }
+
+    private final class BlockingWorker implements Runnable, WakeableWorker {
         private final TaskletTracker tracker;
         private final CountDownLatch startedLatch;
 
+        // true while the tasklet made no progress in the last call, see CooperativeWorker.idle
+        private volatile boolean idle;
+        private volatile Thread myThread;
+
         private BlockingWorker(TaskletTracker tracker, CountDownLatch startedLatch) {
             this.tracker = tracker;
             this.startedLatch = startedLatch;
@@ -222,6 +496,8 @@ public class TaskletExecutionService {
             final ClassLoader clBackup = currentThread().getContextClassLoader();
             final Tasklet t = tracker.tasklet;
             final String oldName = currentThread().getName();
+            myThread = currentThread();
+            tracker.assignTo(this);
             currentThread().setContextClassLoader(tracker.jobClassLoader);
             IdleStrategy idlerLocal = idlerNonCooperative;
 
@@ -236,9 +512,24 @@ public class TaskletExecutionService {
                 long idleCount = 0;
                 ProgressState result;
                 do {
+                    long start = timeCalls ? System.nanoTime() : 0;
                     result = t.call();
+                    if (timeCalls) {
+                        long end = System.nanoTime();
+                        lazyAdd(tracker.busyTimeNanos, end - start);
+                        if (callDurationHistogramsEnabled) {
+                            tracker.callDurations.record(end - start, end);
+                        }
+                    }
                     if (result.isMadeProgress()) {
                         idleCount = 0;
+                        if (idle) {
+                            idle = false;
+                        }
+                    } else if (!idle) {
+                        // Call the tasklet once more before parking: a producer that
+                        // added an item before it saw the flag didn't wake us up.
+                        idle = true;
                     } else {
                         idlerLocal.idle(++idleCount);
                     }
@@ -255,60 +546,181 @@ public class TaskletExecutionService {
                 tracker.executionTracker.taskletDone();
             }
         }
+
+        @Override
+        public void wakeUp() {
+            if (idle) {
+                idle = false;
+                LockSupport.unpark(myThread);
+            }
+        }
     }
 
-    private final class CooperativeWorker implements Runnable {
+    final class CooperativeWorker implements Runnable, WakeableWorker {
         private static final int COOPERATIVE_LOGGING_THRESHOLD = 5;
 
         @Probe(name = "taskletCount")
         private final CopyOnWriteArrayList<TaskletTracker> trackers;
         @Probe
         private final AtomicLong iterationCount = new AtomicLong();
-
+        @Probe
+        private final AtomicLong stealCount = new AtomicLong();
+        @Probe
+        private final AtomicLong stolenFromCount = new AtomicLong();
+        @Probe
+        private final AtomicLong rebalancedCount = new AtomicLong();
+        @Probe
+        private final AtomicLong busyTimeNanos = new AtomicLong();
+        @Probe
+        private final AtomicLong slowCallCount = new AtomicLong();
+        @Probe
+        private final AtomicLong wakeUpCount = new AtomicLong();
+
+        /**
+         * True while none of the tasklets made progress in the last iteration.
+         * Set by this worker's thread, cleared also by producers in {@link
+         * #wakeUp()}.
+         */
+        private volatile boolean idle;
+
+        /**
+         * A tasklet this worker should move to another worker, requested by
+         * the rebalancer. Consumed by this worker's thread.
+         */
+        private final AtomicReference<MoveRequest> moveRequest = new AtomicReference<>();
+        /**
+         * Busy time of this worker's tasklets in the last rebalance period.
+         * Written by the rebalancer.
+         */
+        private volatile long recentBusyNanos;
+
+        /**
+         * A worker that asked this worker to hand over one of its tasklets.
+         * Written by the thief, consumed by this worker's thread.
+         */
+        private final AtomicReference<CooperativeWorker> stealRequest = new AtomicReference<>();
+        /**
+         * Tasklets handed over to this worker by other workers. Added by the
+         * giving worker, moved to {@link #trackers} by this worker's thread.
+         */
+        private final Queue<TaskletTracker> handedOver = new ConcurrentLinkedQueue<>();
+        /**
+         * Set by this worker's thread after it left the main loop. A worker
+         * handing over a tasklet checks it after adding to {@link
+         * #handedOver} and takes the tasklet back if it finds it still there,
+         * see {@link #handOver}.
+         */
+        private volatile boolean terminated;
+        /**
+         * Number of tasklets that made progress in the last iteration.
+         * Written only by this worker's thread, read by potential thieves.
+         */
+        private volatile int busyTaskletCount;
+        /**
+         * True while this worker has an outstanding steal request at some
+         * victim. Prevents the thief from requesting from multiple victims.
+         */
+        private volatile boolean awaitingSteal;
+
+        private final IdleStrategy idler;
         private final ProgressTracker progressTracker = new ProgressTracker();
         // prevent lambda allocation on each iteration
         private final Consumer<TaskletTracker> runTasklet = this::runTasklet;
 
+        private final int cpu;
+
         private boolean finestLogEnabled;
         private Thread myThread;
+        private int busyTaskletCountLocal;
 
-        CooperativeWorker() {
+        CooperativeWorker(IdleStrategy idler, int cpu) {
             this.trackers = new CopyOnWriteArrayList<>();
+            this.idler = idler;
+            this.cpu = cpu;
         }
 
         @Override
         public void run() {
             myThread = currentThread();
-            IdleStrategy idlerLocal = idlerCooperative;
+            if (cpu >= 0 && CpuAffinity.pinCurrentThread(cpu, logger)) {
+                logFine(logger, "%s pinned to CPU %d", myThread.getName(), cpu);
+            }
+            IdleStrategy idlerLocal = idler;
             long idleCount = 0;
 
             while (!isShutdown) {
                 finestLogEnabled = logger.isFinestEnabled();
                 progressTracker.reset();
+                busyTaskletCountLocal = 0;
+                acceptHandedOver();
                 // garbage-free iteration -- relies on implementation in COWArrayList that doesn't use an Iterator
                 trackers.forEach(runTasklet);
                 lazyIncrement(iterationCount);
+                if (workStealingEnabled) {
+                    busyTaskletCount = busyTaskletCountLocal;
+                    handleStealRequest();
+                }
+                if (rebalancePeriodNs > 0) {
+                    handleMoveRequest();
+                    maybeRebalance(System.nanoTime());
+                }
                 if (progressTracker.isMadeProgress()) {
                     idleCount = 0;
+                    if (idle) {
+                        idle = false;
+                    }
                 } else {
+                    if (workStealingEnabled) {
+                        requestSteal();
+                    }
+                    if (!idle) {
+                        idle = true;
+                    }
                     idlerLocal.idle(++idleCount);
                 }
             }
+            terminated = true;
+            acceptHandedOver();
             trackers.forEach(t -> t.executionTracker.taskletDone());
             trackers.clear();
         }
 
-        private void runTasklet(TaskletTracker t) {
-            long start = 0;
-            if (finestLogEnabled) {
-                start = System.nanoTime();
+        private void acceptHandedOver() {
+            TaskletTracker t;
+            while ((t = handedOver.poll()) != null) {
+                trackers.add(t);
+            }
+        }
+
+        /**
+         * Called by a producer after it added an item for one of this worker's
+         * tasklets. If the worker is idle, unparks it so that it doesn't sleep
+         * through the rest of its idle time. Clears the flag so that the other
+         * producers don't unpark it again before it idles again. If the worker
+         * isn't parked yet, the unpark makes its next park return immediately.
+         */
+        @Override
+        public void wakeUp() {
+            if (idle) {
+                idle = false;
+                wakeUpCount.incrementAndGet();
+                LockSupport.unpark(myThread);
             }
+        }
+
+        private void runTasklet(TaskletTracker t) {
+            boolean timed = timeCalls || finestLogEnabled;
+            long start = timed ? System.nanoTime() : 0;
             try {
                 myThread.setContextClassLoader(t.jobClassLoader);
                 final ProgressState result = t.tasklet.call();
                 if (result.isDone()) {
                     dismissTasklet(t);
                 }
+                t.madeProgress = result.isMadeProgress();
+                if (t.madeProgress) {
+                    busyTaskletCountLocal++;
+                }
                 progressTracker.mergeWith(result);
             } catch (Throwable e) {
                 logger.warning("Exception in " + t.tasklet, e);
@@ -317,9 +729,23 @@ public class TaskletExecutionService {
             if (t.executionTracker.executionCompletedExceptionally()) {
                 dismissTasklet(t);
             }
+            if (timed) {
+                recordCall(t, start, System.nanoTime());
+            }
+        }
 
+        private void recordCall(TaskletTracker t, long start, long end) {
+            long elapsed = end - start;
+            lazyAdd(t.busyTimeNanos, elapsed);
+            lazyAdd(busyTimeNanos, elapsed);
+            if (callDurationHistogramsEnabled) {
+                t.callDurations.record(elapsed, end);
+            }
+            if (slowCallThresholdNs > 0 && elapsed > slowCallThresholdNs) {
+                reportSlowCall(t, elapsed, end);
+            }
             if (finestLogEnabled) {
-                long elapsedMs = NANOSECONDS.toMillis((System.nanoTime() - start));
+                long elapsedMs = NANOSECONDS.toMillis(elapsed);
                 if (elapsedMs > COOPERATIVE_LOGGING_THRESHOLD) {
                     logger.finest("Cooperative tasklet call of '" + t.tasklet + "' took more than "
                             + COOPERATIVE_LOGGING_THRESHOLD + " ms: " + elapsedMs + "ms");
@@ -327,22 +753,169 @@ public class TaskletExecutionService {
             }
         }
 
+        private void reportSlowCall(TaskletTracker t, long elapsed, long now) {
+            lazyIncrement(slowCallCount);
+            t.slowCallsSinceReport++;
+            if (t.lastSlowCallReportNanos != 0 && now - t.lastSlowCallReportNanos < SLOW_CALL_REPORT_INTERVAL) {
+                return;
+            }
+            logger.warning("Cooperative call of " + t.tasklet + " took " + NANOSECONDS.toMillis(elapsed)
+                    + " ms, the threshold is " + NANOSECONDS.toMillis(slowCallThresholdNs) + " ms. "
+                    + t.slowCallsSinceReport + " slow call(s) since the last report. A slow cooperative call "
+                    + "delays all other tasklets running on the same thread.");
+            t.lastSlowCallReportNanos = now;
+            t.slowCallsSinceReport = 0;
+        }
+
         private void dismissTasklet(TaskletTracker t) {
             logFinest(logger, "Tasklet %s is done", t.tasklet);
             t.executionTracker.taskletDone();
             trackers.remove(t);
         }
+
+        /**
+         * Called by an idle worker: finds the worker with the most busy
+         * tasklets and asks it to hand one of them over. The victim will do
+         * it on its own thread, see {@link #handleStealRequest()}.
+         */
+        private void requestSteal() {
+            if (awaitingSteal) {
+                return;
+            }
+            CooperativeWorker victim = null;
+            int maxBusy = 1;
+            for (CooperativeWorker w : cooperativeWorkers) {
+                int busy = w.busyTaskletCount;
+                if (w != this && busy > maxBusy) {
+                    victim = w;
+                    maxBusy = busy;
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            awaitingSteal = true;
+            if (!victim.stealRequest.compareAndSet(null, this)) {
+                awaitingSteal = false;
+            }
+        }
+
+        /**
+         * Called on this worker's thread between two iterations. If some
+         * thief asked for a tasklet and we have at least two busy tasklets, we
+         * remove one of them from our list and add it to the thief's list.
+         * Since we're not calling the tasklet at this moment and the
+         * copy-on-write list publishes it safely, the tasklet is still called
+         * by one thread at a time.
+         */
+        private void handleStealRequest() {
+            if (stealRequest.get() == null) {
+                return;
+            }
+            CooperativeWorker thief = stealRequest.getAndSet(null);
+            TaskletTracker stolen = null;
+            if (busyTaskletCountLocal > 1) {
+                // keep the first busy tasklet, give away the last one
+                boolean seenBusy = false;
+                for (int i = 0; i < trackers.size(); i++) {
+                    TaskletTracker t = trackers.get(i);
+                    if (t.madeProgress) {
+                        if (seenBusy) {
+                            stolen = t;
+                        }
+                        seenBusy = true;
+                    }
+                }
+            }
+            if (stolen != null && handOver(stolen, thief)) {
+                busyTaskletCount = busyTaskletCountLocal - 1;
+                stolenFromCount.incrementAndGet();
+                thief.stealCount.incrementAndGet();
+                logFinest(logger, "%s was stolen by another worker", stolen.tasklet);
+            }
+            thief.awaitingSteal = false;
+        }
+
+        /**
+         * Called on this worker's thread between two iterations, performs the
+         * move requested by the rebalancer.
+         */
+        private void handleMoveRequest() {
+            if (moveRequest.get() == null) {
+                return;
+            }
+            MoveRequest request = moveRequest.getAndSet(null);
+            if (handOver(request.tracker, request.target)) {
+                rebalancedCount.incrementAndGet();
+                logFinest(logger, "%s was moved to another worker to balance the load", request.tracker.tasklet);
+            }
+        }
+
+        /**
+         * Moves the tracker from this worker's list to the target's {@link
+         * #handedOver} queue, the target moves it to its list on its own
+         * thread. Must be called on this worker's thread, when no tasklet is
+         * being called.
+         * <p>
+         * If the target has already left its main loop, it might have missed
+         * the tracker and it would never call {@code taskletDone()} for it.
+         * The target sets {@link #terminated} before its last drain of the
+         * queue and we check the flag after adding to it, so either the target
+         * drains the tracker or we see the flag. In the latter case exactly
+         * one of us removes the tracker from the queue: if it's us, we keep
+         * the tracker.
+         *
+         * @return false, if the tracker was no longer owned by this worker or
+         *      the target has terminated
+         */
+        private boolean handOver(TaskletTracker tracker, CooperativeWorker target) {
+            if (isShutdown || !trackers.remove(tracker)) {
+                return false;
+            }
+            tracker.assignTo(target);
+            target.handedOver.add(tracker);
+            if (target.terminated && target.handedOver.remove(tracker)) {
+                tracker.assignTo(this);
+                trackers.add(tracker);
+                return false;
+            }
+            LockSupport.unpark(target.myThread);
+            return true;
+        }
     }
 
     private static final class TaskletTracker {
         final Tasklet tasklet;
         final ExecutionTracker executionTracker;
         final ClassLoader jobClassLoader;
+        /**
+         * Whether the last call made progress. Only accessed by the thread
+         * currently owning the tasklet.
+         */
+        boolean madeProgress;
+        final AtomicLong busyTimeNanos;
+        final LatencyHistogram callDurations;
+        final TaskletWaker waker;
+        // accessed only by the thread currently owning the tasklet
+        long lastSlowCallReportNanos;
+        long slowCallsSinceReport;
+        // accessed only by the rebalancer
+        long lastSampledBusyNanos;
+        long recentBusyNanos;
 
         TaskletTracker(Tasklet tasklet, ExecutionTracker executionTracker, ClassLoader jobClassLoader) {
             this.tasklet = tasklet;
             this.executionTracker = executionTracker;
             this.jobClassLoader = jobClassLoader;
+            this.busyTimeNanos = tasklet.busyTimeNanos();
+            this.callDurations = tasklet.callDurations();
+            this.waker = tasklet.waker();
+        }
+
+        void assignTo(WakeableWorker worker) {
+            if (waker != null) {
+                waker.setWorker(worker);
+            }
         }
 
         @Override
@@ -351,6 +924,16 @@ public class TaskletExecutionService {
         }
     }
 
+    private static final class MoveRequest {
+        final TaskletTracker tracker;
+        final CooperativeWorker target;
+
+        MoveRequest(TaskletTracker tracker, CooperativeWorker target) {
+            this.tracker = tracker;
+            this.target = target;
+        }
+    }
+
     private final class BlockingTaskThreadFactory implements ThreadFactory {
         private final AtomicInteger seq = new AtomicInteger();
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.impl.execution.TaskletExecutionService.WakeableWorker;
+
+/**
+ * A handle through which the producers of the input of a tasklet wake up
+ * the worker thread currently running it. The {@link
+ * TaskletExecutionService} updates the worker when the tasklet is assigned
+ * to a worker or moved to another one.
+ * <p>
+ * Waking up is cheap if the worker is busy: it's a single volatile read.
+ */
+public final class TaskletWaker {
+
+    private volatile WakeableWorker worker;
+
+    void setWorker(WakeableWorker worker) {
+        this.worker = worker;
+    }
+
+    /**
+     * Unparks the worker running the tasklet, if it's idle. Does nothing if
+     * the tasklet isn't running yet. Can be called from any thread.
+     */
+    public void wakeUp() {
+        WakeableWorker w = worker;
+        if (w != null) {
+            w.wakeUp();
+        }
+    }
+}
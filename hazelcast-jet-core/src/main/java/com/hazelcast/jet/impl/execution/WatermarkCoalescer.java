@@ -195,11 +195,23 @@ public abstract class WatermarkCoalescer {
 
     /**
      * Standard implementation for 1..n inputs.
+     * <p>
+     * The minimum of the watermarks of the active queues is maintained in a
+     * tournament tree: a complete binary tree stored in an array, whose
+     * leaves are the watermarks of the queues ({@code Long.MAX_VALUE} for
+     * idle and done queues) and each inner node is the minimum of its
+     * children. A change of a queue's watermark updates the path to the
+     * root, therefore the cost of a watermark is {@code O(log(queueCount))}
+     * instead of a scan of all queues.
      */
     static final class StandardImpl extends WatermarkCoalescer {
 
         private final long[] queueWms;
         private final boolean[] isIdle;
+        // the tournament tree, the root is at index 1, the leaf of queue i at index leafOffset + i
+        private final long[] minTree;
+        private final int leafOffset;
+        private int notDoneInputCount;
         private AtomicLong lastEmittedWm = new AtomicLong(Long.MIN_VALUE);
         private AtomicLong topObservedWm = new AtomicLong(Long.MIN_VALUE);
         private boolean allInputsAreIdle;
@@ -209,12 +221,23 @@ public abstract class WatermarkCoalescer {
             isIdle = new boolean[queueCount];
             queueWms = new long[queueCount];
             Arrays.fill(queueWms, Long.MIN_VALUE);
+            notDoneInputCount = queueCount;
+            leafOffset = Integer.highestOneBit(Math.max(1, queueCount - 1)) << 1;
+            minTree = new long[2 * leafOffset];
+            Arrays.fill(minTree, leafOffset, leafOffset + queueCount, Long.MIN_VALUE);
+            // the padding leaves never become the minimum
+            Arrays.fill(minTree, leafOffset + queueCount, minTree.length, Long.MAX_VALUE);
+            for (int i = leafOffset - 1; i > 0; i--) {
+                minTree[i] = Math.min(minTree[2 * i], minTree[2 * i + 1]);
+            }
         }
 
         @Override
         public long queueDone(int queueIndex) {
             assert queueWms[queueIndex] < Long.MAX_VALUE : "Duplicate DONE call";
             queueWms[queueIndex] = Long.MAX_VALUE;
+            notDoneInputCount--;
+            updateMinTree(queueIndex, Long.MAX_VALUE);
             return checkObservedWms();
         }
 
@@ -223,6 +246,7 @@ public abstract class WatermarkCoalescer {
             if (isIdle[queueIndex]) {
                 isIdle[queueIndex] = false;
                 allInputsAreIdle = false;
+                updateMinTree(queueIndex, queueWms[queueIndex]);
             }
         }
 
@@ -235,11 +259,13 @@ public abstract class WatermarkCoalescer {
 
             if (wmValue == IDLE_MESSAGE.timestamp()) {
                 isIdle[queueIndex] = true;
+                updateMinTree(queueIndex, Long.MAX_VALUE);
                 return checkObservedWms();
             } else {
                 isIdle[queueIndex] = false;
                 allInputsAreIdle = false;
                 queueWms[queueIndex] = wmValue;
+                updateMinTree(queueIndex, wmValue);
                 if (wmValue > topObservedWm.get()) {
                     topObservedWm.lazySet(wmValue);
                 }
@@ -253,17 +279,8 @@ public abstract class WatermarkCoalescer {
                 return NO_NEW_WM;
             }
 
-            // find lowest observed wm
-            long min = Long.MAX_VALUE;
-            int notDoneInputCount = 0;
-            for (int i = 0; i < queueWms.length; i++) {
-                if (queueWms[i] < Long.MAX_VALUE) {
-                    notDoneInputCount++;
-                }
-                if (!isIdle[i] && queueWms[i] < min) {
-                    min = queueWms[i];
-                }
-            }
+            // the lowest observed wm of the active queues
+            long min = minTree[1];
 
             // if the lowest observed wm is MAX_VALUE that means that all inputs are idle or done
             if (min == Long.MAX_VALUE) {
@@ -296,6 +313,22 @@ public abstract class WatermarkCoalescer {
             return NO_NEW_WM;
         }
 
+        /**
+         * Sets the leaf of the queue and updates its ancestors, stopping at the
+         * first one that doesn't change.
+         */
+        private void updateMinTree(int queueIndex, long value) {
+            int i = leafOffset + queueIndex;
+            minTree[i] = value;
+            for (i >>= 1; i > 0; i >>= 1) {
+                long newMin = Math.min(minTree[2 * i], minTree[2 * i + 1]);
+                if (minTree[i] == newMin) {
+                    return;
+                }
+                minTree[i] = newMin;
+            }
+        }
+
         @Override
         public long checkWmHistory() {
             if (idleMessagePending) {
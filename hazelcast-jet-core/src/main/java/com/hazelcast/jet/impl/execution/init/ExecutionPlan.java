@@ -21,32 +21,42 @@ import com.hazelcast.internal.metrics.ProbeBuilder;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.ProbeUnit;
 import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.ManyToOneConcurrentArrayQueue;
 import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
 import com.hazelcast.internal.util.concurrent.QueuedPipe;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.EdgeConfig;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Edge.RoutingPolicy;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.impl.DataPlane;
 import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.execution.AdaptiveOneToOneQueue;
 import com.hazelcast.jet.impl.execution.ConcurrentInboundEdgeStream;
 import com.hazelcast.jet.impl.execution.ConveyorCollector;
 import com.hazelcast.jet.impl.execution.ConveyorCollectorWithPartition;
+import com.hazelcast.jet.impl.execution.ConveyorMemoryBudget;
 import com.hazelcast.jet.impl.execution.InboundEdgeStream;
+import com.hazelcast.jet.impl.execution.ItemPool;
 import com.hazelcast.jet.impl.execution.OutboundCollector;
 import com.hazelcast.jet.impl.execution.OutboundEdgeStream;
 import com.hazelcast.jet.impl.execution.ProcessorTasklet;
 import com.hazelcast.jet.impl.execution.ReceiverTasklet;
 import com.hazelcast.jet.impl.execution.SenderTasklet;
+import com.hazelcast.jet.impl.execution.SharedQueueCollector;
+import com.hazelcast.jet.impl.execution.SharedQueueInboundEdgeStream;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.execution.StoreSnapshotTasklet;
 import com.hazelcast.jet.impl.execution.Tasklet;
+import com.hazelcast.jet.impl.execution.TaskletWaker;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcSupplierCtx;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
+import com.hazelcast.jet.impl.util.SkewReductionPolicy;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.ObjectDataInput;
@@ -55,6 +65,7 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 import com.hazelcast.spi.partition.IPartitionService;
+import com.hazelcast.spi.properties.HazelcastProperties;
 import com.hazelcast.util.StringUtil;
 
 import java.io.IOException;
@@ -62,6 +73,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -76,6 +88,10 @@ import static com.hazelcast.jet.Util.idToString;
 import static com.hazelcast.jet.config.EdgeConfig.DEFAULT_QUEUE_SIZE;
 import static com.hazelcast.jet.impl.execution.OutboundCollector.compositeCollector;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_FLOW_CONTROL_ADAPTIVE_ENABLED;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_LATENCY_MARKER_INTERVAL_MILLIS;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_SHARED_QUEUE_MIN_PRODUCERS;
+import static com.hazelcast.jet.impl.util.Util.createObjectDataInput;
 import static com.hazelcast.jet.impl.util.Util.getJetInstance;
 import static com.hazelcast.jet.impl.util.Util.memoize;
 import static com.hazelcast.jet.impl.util.Util.readList;
@@ -89,6 +105,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     // use same size as DEFAULT_QUEUE_SIZE from Edges. In the future we might
     // want to make this configurable
     private static final int SNAPSHOT_QUEUE_SIZE = DEFAULT_QUEUE_SIZE;
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+    // the initial capacity of the adaptive queues of local edges
+    private static final int ADAPTIVE_QUEUE_INITIAL_CAPACITY = 64;
 
     private final List<Tasklet> tasklets = new ArrayList<>();
     /** dest vertex id --> dest ordinal --> sender addr -> receiver tasklet */
@@ -107,11 +126,23 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
 
     private final Map<String, ConcurrentConveyor<Object>[]> localConveyorMap = new HashMap<>();
     private final Map<String, Map<Address, ConcurrentConveyor<Object>>> edgeSenderConveyorMap = new HashMap<>();
+    /** vertex id --> local processor index --> waker of the processor tasklet */
+    private final Map<Integer, TaskletWaker[]> processorWakers = new HashMap<>();
+    /** sender conveyor --> waker of the sender tasklet draining it */
+    private final Map<ConcurrentConveyor<Object>, TaskletWaker> senderWakers = new IdentityHashMap<>();
     private final List<Processor> processors = new ArrayList<>();
+    private final Map<Integer, Collection<? extends Processor>> vertexProcessors = new HashMap<>();
+    private final Map<String, ItemPool> itemPools = new HashMap<>();
+    private final List<AdaptiveOneToOneQueue<Object>> adaptiveQueues = new ArrayList<>();
 
     private PartitionArrangement ptionArrgmt;
 
     private NodeEngineImpl nodeEngine;
+    private ConveyorMemoryBudget conveyorMemoryBudget;
+    private DataPlane dataPlane;
+    private int sharedQueueMinProducers;
+    private long latencyMarkerIntervalNanos;
+    private boolean adaptiveFlowControl;
     private long executionId;
     private long lastSnapshotId;
 
@@ -137,13 +168,24 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     public void initialize(NodeEngine nodeEngine, long jobId, long executionId, SnapshotContext snapshotContext) {
         this.nodeEngine = (NodeEngineImpl) nodeEngine;
         this.executionId = executionId;
+        JetService service = this.nodeEngine.getService(JetService.SERVICE_NAME);
+        this.conveyorMemoryBudget = service.getConveyorMemoryBudget();
+        this.dataPlane = service.getDataPlane();
+        HazelcastProperties properties = new HazelcastProperties(getConfig().getProperties());
+        this.sharedQueueMinProducers = properties.getInteger(JET_SHARED_QUEUE_MIN_PRODUCERS);
+        this.latencyMarkerIntervalNanos = properties.getNanos(JET_LATENCY_MARKER_INTERVAL_MILLIS);
+        this.adaptiveFlowControl = properties.getBoolean(JET_FLOW_CONTROL_ADAPTIVE_ENABLED);
         initProcSuppliers(jobId, executionId);
         initDag();
 
         this.ptionArrgmt = new PartitionArrangement(partitionOwners, nodeEngine.getThisAddress());
         JetInstance instance = getJetInstance(nodeEngine);
+        // the processors of all vertices are created first, the edges need to know if they retain the input items
         for (VertexDef vertex : vertices) {
-            Collection<? extends Processor> processors = createProcessors(vertex, vertex.localParallelism());
+            vertexProcessors.put(vertex.vertexId(), createProcessors(vertex, vertex.localParallelism()));
+        }
+        for (VertexDef vertex : vertices) {
+            Collection<? extends Processor> processors = vertexProcessors.get(vertex.vertexId());
 
             // create StoreSnapshotTasklet and the queues to it
             QueuedPipe<Object>[] snapshotQueues = new QueuedPipe[vertex.localParallelism()];
@@ -212,11 +254,11 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         vertex, localProcessorIdx, globalProcessorIndex
                 );
 
-                OutboundCollector snapshotCollector = new ConveyorCollector(ssConveyor, localProcessorIdx, null);
+                OutboundCollector snapshotCollector = new ConveyorCollector(ssConveyor, localProcessorIdx, null, null);
 
                 ProcessorTasklet processorTasklet = new ProcessorTasklet(context, nodeEngine.getSerializationService(),
                         processor, inboundStreams, outboundStreams, snapshotContext, snapshotCollector,
-                        processorProbeBuilder);
+                        processorWaker(vertex, localProcessorIdx), latencyMarkerIntervalNanos, processorProbeBuilder);
                 tasklets.add(processorTasklet);
                 this.processors.add(processor);
                 localProcessorIdx++;
@@ -390,6 +432,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             final Map<Address, ConcurrentConveyor<Object>> addrToConveyor = new HashMap<>();
             List<AtomicLong> bytesCounters = new ArrayList<>();
             List<AtomicLong> itemsCounters = new ArrayList<>();
+            List<AtomicLong> packetsCounters = new ArrayList<>();
+            List<AtomicLong> compressedBytesCounters = new ArrayList<>();
+            List<AtomicLong> stallTimeCounters = new ArrayList<>();
             Tasklet firstTasklet = null;
             for (Address destAddr : remoteMembers.get()) {
                 final ConcurrentConveyor<Object> conveyor = createConveyorArray(
@@ -399,17 +444,23 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                 + destAddr.toString().replace('.', '-'));
                 final int destVertexId = edge.destVertex().vertexId();
                 final SenderTasklet t = new SenderTasklet(inboundEdgeStream, nodeEngine,
-                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit());
+                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit(),
+                        edge.getConfig().isCompressionEnabled() ? edge.getConfig().getCompressionThreshold() : -1,
+                        dataPlane);
                 if (firstTasklet == null) {
                     firstTasklet = t;
                 }
                 bytesCounters.add(t.getBytesOutCounter());
                 itemsCounters.add(t.getItemsOutCounter());
+                packetsCounters.add(t.getPacketsOutCounter());
+                compressedBytesCounters.add(t.getCompressedBytesOutCounter());
+                stallTimeCounters.add(t.getStallTimeNanosCounter());
                 senderMap.computeIfAbsent(destVertexId, xx -> new HashMap<>())
                          .computeIfAbsent(edge.destOrdinal(), xx -> new HashMap<>())
                          .put(destAddr, t);
                 tasklets.add(t);
                 addrToConveyor.put(destAddr, conveyor);
+                senderWakers.put(conveyor, t.waker());
             }
 
             // We register the metrics to the first tasklet. The metrics itself aggregate counters from all tasklets
@@ -420,11 +471,28 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         addCountersProbeFunction(bytesCounters));
                 probeBuilder.register(firstTasklet, "distributedItemsOut", ProbeLevel.INFO, ProbeUnit.BYTES,
                         addCountersProbeFunction(itemsCounters));
+                probeBuilder.register(firstTasklet, "distributedPacketsOut", ProbeLevel.INFO, ProbeUnit.COUNT,
+                        addCountersProbeFunction(packetsCounters));
+                probeBuilder.register(firstTasklet, "distributedCompressedBytesOut", ProbeLevel.INFO,
+                        ProbeUnit.BYTES, addCountersProbeFunction(compressedBytesCounters));
+                probeBuilder.register(firstTasklet, "distributedStallTime", ProbeLevel.INFO, ProbeUnit.NS,
+                        addCountersProbeFunction(stallTimeCounters));
             }
             return addrToConveyor;
         });
     }
 
+    private static <T> LongProbeFunction<T> maxCountersProbeFunction(List<AtomicLong> counters) {
+        AtomicLong[] countersArray = counters.toArray(new AtomicLong[0]);
+        return source -> {
+            long max = 0;
+            for (AtomicLong counter : countersArray) {
+                max = Math.max(max, counter.get());
+            }
+            return max;
+        };
+    }
+
     private static <T> LongProbeFunction<T> addCountersProbeFunction(List<AtomicLong> counters) {
         AtomicLong[] countersArray = counters.toArray(new AtomicLong[0]);
         return source -> {
@@ -437,16 +505,46 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     }
 
     @SuppressWarnings("unchecked")
-    private static ConcurrentConveyor<Object>[] createConveyorArray(int count, int queueCount, int queueSize) {
+    private ConcurrentConveyor<Object>[] createConveyorArray(int count, int queueCount, int queueSize) {
         ConcurrentConveyor<Object>[] concurrentConveyors = new ConcurrentConveyor[count];
         Arrays.setAll(concurrentConveyors, i -> {
             QueuedPipe<Object>[] queues = new QueuedPipe[queueCount];
-            Arrays.setAll(queues, j -> new OneToOneConcurrentArrayQueue<>(queueSize));
+            Arrays.setAll(queues, j -> createQueue(queueSize));
             return concurrentConveyor(null, queues);
         });
         return concurrentConveyors;
     }
 
+    @SuppressWarnings("unchecked")
+    private static ConcurrentConveyor<Object>[] createSharedQueueConveyorArray(int count, int queueSize) {
+        ConcurrentConveyor<Object>[] concurrentConveyors = new ConcurrentConveyor[count];
+        Arrays.setAll(concurrentConveyors, i -> concurrentConveyor(null,
+                new ManyToOneConcurrentArrayQueue<>(queueSize)));
+        return concurrentConveyors;
+    }
+
+    /**
+     * Returns whether the consumers of the edge have a single queue shared by
+     * all producers, see {@link SharedQueueInboundEdgeStream}.
+     */
+    private boolean usesSharedQueue(EdgeDef edge) {
+        return sharedQueueMinProducers > 0
+                && !edge.isDistributed()
+                && edge.routingPolicy() != RoutingPolicy.ISOLATED
+                && jobConfig.getProcessingGuarantee() != ProcessingGuarantee.EXACTLY_ONCE
+                && edge.sourceVertex().localParallelism() >= sharedQueueMinProducers;
+    }
+
+    private QueuedPipe<Object> createQueue(int queueSize) {
+        if (conveyorMemoryBudget == null) {
+            return new OneToOneConcurrentArrayQueue<>(queueSize);
+        }
+        AdaptiveOneToOneQueue<Object> queue =
+                new AdaptiveOneToOneQueue<>(ADAPTIVE_QUEUE_INITIAL_CAPACITY, queueSize, conveyorMemoryBudget);
+        adaptiveQueues.add(queue);
+        return queue;
+    }
+
     private OutboundEdgeStream createOutboundEdgeStream(
             EdgeDef edge, int processorIndex, Map<Address, ConcurrentConveyor<Object>> senderConveyorMap,
             ProbeBuilder probeBuilder
@@ -456,7 +554,26 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                 edge, processorIndex, senderConveyorMap, probeBuilder
         );
         OutboundCollector compositeCollector = compositeCollector(outboundCollectors, edge, totalPtionCount);
-        return new OutboundEdgeStream(edge.sourceOrdinal(), compositeCollector);
+        return new OutboundEdgeStream(edge.sourceOrdinal(), compositeCollector, itemPool(edge));
+    }
+
+    /**
+     * Returns the pool of the items of the edge the downstream processors no
+     * longer use, or {@code null} if the items can't be reused. They can be
+     * reused if the edge is local, the downstream processors don't retain
+     * them and no other processor can receive the same item instance.
+     */
+    private ItemPool itemPool(EdgeDef edge) {
+        boolean reusesItems = !edge.isDistributed()
+                && !edge.isSnapshotRestoreEdge()
+                && edge.routingPolicy() != RoutingPolicy.BROADCAST
+                && edge.sourceVertex().outboundEdges().size() == 1
+                && vertexProcessors.get(edge.destVertex().vertexId()).stream()
+                                   .noneMatch(Processor::retainsInputItems);
+        if (!reusesItems) {
+            return null;
+        }
+        return itemPools.computeIfAbsent(edge.edgeId(), e -> new ItemPool(edge.getConfig().getQueueSize()));
     }
 
     private OutboundCollector[] createOutboundCollectors(
@@ -487,10 +604,21 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                     e -> createConveyorArray(downstreamParallelism, 1, queueSize));
             return IntStream.range(0, downstreamParallelism)
                             .filter(i -> i % upstreamParallelism == processorIndex)
-                            .mapToObj(i -> new ConveyorCollector(localConveyors[i], 0, ptionsPerProcessor[i]))
+                            .mapToObj(i -> new ConveyorCollector(localConveyors[i], 0, ptionsPerProcessor[i],
+                                    processorWaker(edge.destVertex(), i)))
                             .toArray(OutboundCollector[]::new);
         }
 
+        if (usesSharedQueue(edge)) {
+            // all producers add to a single queue of each consumer
+            ConcurrentConveyor<Object>[] sharedConveyors = localConveyorMap.computeIfAbsent(edge.edgeId(),
+                    e -> createSharedQueueConveyorArray(downstreamParallelism, upstreamParallelism * queueSize));
+            OutboundCollector[] sharedCollectors = new OutboundCollector[downstreamParallelism];
+            Arrays.setAll(sharedCollectors, n -> new SharedQueueCollector(sharedConveyors[n], processorIndex,
+                    ptionsPerProcessor[n], processorWaker(edge.destVertex(), n)));
+            return sharedCollectors;
+        }
+
         /*
          * Each edge is represented by an array of conveyors between the producers and consumers
          * There are as many conveyors as there are consumers.
@@ -505,8 +633,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                     return createConveyorArray(downstreamParallelism, queueCount, queueSize);
                 });
         final OutboundCollector[] localCollectors = new OutboundCollector[downstreamParallelism];
-        Arrays.setAll(localCollectors, n ->
-                new ConveyorCollector(localConveyors[n], processorIndex, ptionsPerProcessor[n]));
+        Arrays.setAll(localCollectors, n -> new ConveyorCollector(localConveyors[n], processorIndex,
+                ptionsPerProcessor[n], processorWaker(edge.destVertex(), n)));
 
         // in a local edge, we only have the local collectors.
         if (!edge.isDistributed()) {
@@ -525,8 +653,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         allCollectors[0] = compositeCollector(localCollectors, edge, totalPtionCount);
         int index = 1;
         for (Map.Entry<Address, int[]> entry : memberToPartitions.entrySet()) {
-            allCollectors[index++] = new ConveyorCollectorWithPartition(senderConveyorMap.get(entry.getKey()),
-                    processorIndex, entry.getValue());
+            ConcurrentConveyor<Object> senderConveyor = senderConveyorMap.get(entry.getKey());
+            allCollectors[index++] = new ConveyorCollectorWithPartition(senderConveyor,
+                    processorIndex, entry.getValue(), senderWakers.get(senderConveyor));
         }
         return allCollectors;
     }
@@ -543,6 +672,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                        int offset = 0;
                        List<AtomicLong> itemCounters = new ArrayList<>();
                        List<AtomicLong> bytesCounters = new ArrayList<>();
+                       List<AtomicLong> packetsCounters = new ArrayList<>();
+                       List<AtomicLong> compressedBytesCounters = new ArrayList<>();
+                       List<AtomicLong> ackLatencies = new ArrayList<>();
+                       List<ReceiverTasklet> receivers = new ArrayList<>();
                        Tasklet firstTasklet = null;
                        for (Address addr : ptionArrgmt.remotePartitionAssignment.get().keySet()) {
                            final OutboundCollector[] collectors = new OutboundCollector[ptionsPerProcessor.length];
@@ -550,11 +683,13 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                            final int queueOffset = --offset;
                            Arrays.setAll(collectors, n -> new ConveyorCollector(
                                    localConveyors[n], localConveyors[n].queueCount() + queueOffset,
-                                   ptionsPerProcessor[n]));
+                                   ptionsPerProcessor[n], processorWaker(edge.destVertex(), n)));
                            final OutboundCollector collector = compositeCollector(collectors, edge, totalPtionCount);
                            ReceiverTasklet receiverTasklet = new ReceiverTasklet(
-                                   collector, edge.getConfig().getReceiveWindowMultiplier(),
+                                   collector, createObjectDataInput(nodeEngine, EMPTY_PAYLOAD),
+                                   edge.getConfig().getReceiveWindowMultiplier(),
                                    getConfig().getInstanceConfig().getFlowControlPeriodMs(),
+                                   adaptiveFlowControl,
                                    nodeEngine.getLoggingService(),
                                    "receiverFor:" + edge.destVertex().name() + "#" + edge.destOrdinal());
                            addrToTasklet.put(addr, receiverTasklet);
@@ -563,6 +698,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                            }
                            itemCounters.add(receiverTasklet.getItemsInCounter());
                            bytesCounters.add(receiverTasklet.getBytesInCounter());
+                           packetsCounters.add(receiverTasklet.getPacketsInCounter());
+                           compressedBytesCounters.add(receiverTasklet.getCompressedBytesInCounter());
+                           ackLatencies.add(receiverTasklet.getAckLatencyNanos());
+                           receivers.add(receiverTasklet);
                        }
                        if (firstTasklet != null) {
                            // We register the metrics to the first tasklet. The metrics itself aggregate counters from
@@ -572,11 +711,33 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                    addCountersProbeFunction(itemCounters));
                            probeBuilder.register(firstTasklet, "distributedBytesIn", ProbeLevel.INFO, ProbeUnit.COUNT,
                                    addCountersProbeFunction(bytesCounters));
+                           probeBuilder.register(firstTasklet, "distributedPacketsIn", ProbeLevel.INFO,
+                                   ProbeUnit.COUNT, addCountersProbeFunction(packetsCounters));
+                           probeBuilder.register(firstTasklet, "distributedCompressedBytesIn", ProbeLevel.INFO,
+                                   ProbeUnit.BYTES, addCountersProbeFunction(compressedBytesCounters));
+                           probeBuilder.register(firstTasklet, "distributedReceiveWindow", ProbeLevel.INFO,
+                                   ProbeUnit.BYTES, (LongProbeFunction<Tasklet>) t -> receivers.stream()
+                                           .mapToLong(ReceiverTasklet::getReceiveWindowBytes).sum());
+                           probeBuilder.register(firstTasklet, "distributedAckLatency", ProbeLevel.INFO,
+                                   ProbeUnit.NS, maxCountersProbeFunction(ackLatencies));
                        }
                        return addrToTasklet;
                    });
     }
 
+    /**
+     * Returns the waker of the given processor tasklet. The wakers are
+     * created before the tasklets because the collectors of the upstream
+     * vertices need them.
+     */
+    private TaskletWaker processorWaker(VertexDef vertex, int localProcessorIdx) {
+        return processorWakers.computeIfAbsent(vertex.vertexId(), x -> {
+            TaskletWaker[] wakers = new TaskletWaker[vertex.localParallelism()];
+            Arrays.setAll(wakers, i -> new TaskletWaker());
+            return wakers;
+        })[localProcessorIdx];
+    }
+
     private JetConfig getConfig() {
         JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
         return service.getJetInstance().getConfig();
@@ -588,8 +749,14 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         for (EdgeDef inEdge : srcVertex.inboundEdges()) {
             // each tasklet has one input conveyor per edge
             final ConcurrentConveyor<Object> conveyor = localConveyorMap.get(inEdge.edgeId())[localProcessorIdx];
-            inboundStreams.add(newEdgeStream(inEdge, conveyor,
-                    "inputTo:" + inEdge.destVertex().name() + '#' + globalProcessorIdx));
+            final String debugName = "inputTo:" + inEdge.destVertex().name() + '#' + globalProcessorIdx;
+            if (usesSharedQueue(inEdge)) {
+                inboundStreams.add(new SharedQueueInboundEdgeStream(conveyor.queue(0),
+                        inEdge.sourceVertex().localParallelism(), inEdge.destOrdinal(), inEdge.priority(),
+                        itemPool(inEdge), debugName));
+            } else {
+                inboundStreams.add(newEdgeStream(inEdge, conveyor, debugName));
+            }
         }
         return inboundStreams;
     }
@@ -598,13 +765,34 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                                       String debugName) {
         return new ConcurrentInboundEdgeStream(conveyor, inEdge.destOrdinal(), inEdge.priority(),
                 jobConfig.getProcessingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE,
-                debugName);
+                skewReductionPolicy(inEdge.getConfig(), conveyor.queueCount()), itemPool(inEdge), debugName);
+    }
+
+    /**
+     * Returns the policy to reduce the watermark skew of the queues of an
+     * edge, or {@code null} if it's not configured.
+     */
+    private static SkewReductionPolicy skewReductionPolicy(EdgeConfig config, int queueCount) {
+        long maxSkew = config.getMaxWatermarkSkew();
+        if (maxSkew == 0 || queueCount < 2) {
+            return null;
+        }
+        return new SkewReductionPolicy(queueCount,
+                config.isWatermarkSkewThrottlingEnabled() ? maxSkew : Long.MAX_VALUE, maxSkew, false);
     }
 
     public List<Processor> getProcessors() {
         return processors;
     }
 
+    /**
+     * Returns the adaptive queues of the local edges, their slots have to be
+     * returned to the budget when the execution completes.
+     */
+    public List<AdaptiveOneToOneQueue<Object>> getAdaptiveQueues() {
+        return adaptiveQueues;
+    }
+
     public long lastSnapshotId() {
         return lastSnapshotId;
     }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.operation;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.impl.DataPlane;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.spi.Operation;
+
+/**
+ * Issues a one-time token with which the calling member connects to the
+ * {@link DataPlane} of this member. The response is the token as a string.
+ */
+public class IssueDataPlaneTokenOperation extends Operation implements IdentifiedDataSerializable {
+
+    private String response;
+
+    public IssueDataPlaneTokenOperation() {
+    }
+
+    @Override
+    public void run() {
+        JetService service = getService();
+        DataPlane dataPlane = service.getDataPlane();
+        if (dataPlane == null) {
+            throw new JetException("The data plane is disabled on " + getNodeEngine().getThisAddress());
+        }
+        // the caller address is the address of the member connection the operation came from
+        response = dataPlane.issueToken(getCallerAddress()).toString();
+    }
+
+    @Override
+    public Object getResponse() {
+        return response;
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.ISSUE_DATA_PLANE_TOKEN_OP;
+    }
+}
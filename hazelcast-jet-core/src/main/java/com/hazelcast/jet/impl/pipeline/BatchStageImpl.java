@@ -26,10 +26,12 @@ import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.BiFunctionEx;
 import com.hazelcast.jet.function.BiPredicateEx;
 import com.hazelcast.jet.function.PredicateEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 import com.hazelcast.jet.impl.pipeline.transform.AbstractTransform;
 import com.hazelcast.jet.impl.pipeline.transform.AggregateTransform;
 import com.hazelcast.jet.impl.pipeline.transform.Transform;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
 import com.hazelcast.jet.pipeline.BatchStage;
 import com.hazelcast.jet.pipeline.BatchStageWithKey;
 import com.hazelcast.jet.pipeline.ContextFactory;
@@ -62,6 +64,12 @@ public class BatchStageImpl<T> extends ComputeStageImplBase<T> implements BatchS
         return new BatchStageWithKeyImpl<>(this, keyFn);
     }
 
+    @Nonnull @Override
+    public BatchStageWithKey<T, Long> groupingLongKey(@Nonnull ToLongFunctionEx<? super T> keyFn) {
+        checkSerializable(keyFn, "keyFn");
+        return new BatchStageWithKeyImpl<>(this, new LongKeyFunctionEx<>(keyFn));
+    }
+
     @Nonnull @Override
     public <R> BatchStage<R> map(@Nonnull FunctionEx<? super T, ? extends R> mapFn) {
         return attachMap(mapFn);
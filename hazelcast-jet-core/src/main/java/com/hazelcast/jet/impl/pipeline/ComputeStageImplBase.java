@@ -287,7 +287,8 @@ public abstract class ComputeStageImplBase<T> extends AbstractStage {
                 asList(transform, transformOf(stage1)),
                 singletonList(fnAdapter.adaptJoinClause(joinClause)),
                 emptyList(),
-                fnAdapter.adaptHashJoinOutputFn(mapToOutputFn)
+                fnAdapter.adaptHashJoinOutputFn(mapToOutputFn),
+                this instanceof BatchStage
         ), fnAdapter);
     }
 
@@ -305,7 +306,8 @@ public abstract class ComputeStageImplBase<T> extends AbstractStage {
                 asList(transform, transformOf(stage1), transformOf(stage2)),
                 asList(fnAdapter.adaptJoinClause(joinClause1), fnAdapter.adaptJoinClause(joinClause2)),
                 emptyList(),
-                fnAdapter.adaptHashJoinOutputFn(mapToOutputFn)
+                fnAdapter.adaptHashJoinOutputFn(mapToOutputFn),
+                this instanceof BatchStage
         ), fnAdapter);
     }
 
@@ -32,6 +32,7 @@ import com.hazelcast.jet.function.PredicateEx;
 import com.hazelcast.jet.function.TriFunction;
 import com.hazelcast.jet.impl.JetEvent;
 import com.hazelcast.jet.impl.processor.ProcessorWrapper;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
 import com.hazelcast.jet.impl.util.WrappingProcessorMetaSupplier;
 import com.hazelcast.jet.pipeline.JoinClause;
 
@@ -201,9 +202,15 @@ public class FunctionAdapter {
 
 class JetEventFunctionAdapter extends FunctionAdapter {
     @Nonnull @Override
+    @SuppressWarnings("unchecked")
     <T, K> FunctionEx<? super JetEvent<T>, ? extends K> adaptKeyFn(
             @Nonnull FunctionEx<? super T, ? extends K> keyFn
     ) {
+        if (keyFn instanceof LongKeyFunctionEx) {
+            LongKeyFunctionEx<? super T> longKeyFn = (LongKeyFunctionEx<? super T>) keyFn;
+            return (FunctionEx<? super JetEvent<T>, ? extends K>)
+                    new LongKeyFunctionEx<JetEvent<T>>(e -> longKeyFn.applyAsLong(e.payload()));
+        }
         return e -> keyFn.apply(e.payload());
     }
 
@@ -27,23 +27,37 @@ import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.SupplierEx;
+import com.hazelcast.jet.impl.pipeline.transform.AggregateTransform;
+import com.hazelcast.jet.impl.pipeline.transform.DistinctTransform;
 import com.hazelcast.jet.impl.pipeline.transform.FlatMapTransform;
+import com.hazelcast.jet.impl.pipeline.transform.FusedMapTransform;
+import com.hazelcast.jet.impl.pipeline.transform.GlobalRollingAggregateTransform;
+import com.hazelcast.jet.impl.pipeline.transform.GroupTransform;
+import com.hazelcast.jet.impl.pipeline.transform.HashJoinTransform;
 import com.hazelcast.jet.impl.pipeline.transform.MapTransform;
+import com.hazelcast.jet.impl.pipeline.transform.MergeTransform;
+import com.hazelcast.jet.impl.pipeline.transform.ProcessorTransform;
+import com.hazelcast.jet.impl.pipeline.transform.RollingAggregateTransform;
 import com.hazelcast.jet.impl.pipeline.transform.SinkTransform;
 import com.hazelcast.jet.impl.pipeline.transform.StreamSourceTransform;
 import com.hazelcast.jet.impl.pipeline.transform.TimestampTransform;
 import com.hazelcast.jet.impl.pipeline.transform.Transform;
+import com.hazelcast.jet.impl.pipeline.transform.WindowAggregateTransform;
+import com.hazelcast.jet.impl.pipeline.transform.WindowGroupTransform;
 import com.hazelcast.jet.impl.util.LoggingUtil;
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
+import com.hazelcast.spi.properties.HazelcastProperties;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -51,6 +65,7 @@ import java.util.stream.Collectors;
 import static com.hazelcast.jet.core.Edge.from;
 import static com.hazelcast.jet.core.EventTimePolicy.eventTimePolicy;
 import static com.hazelcast.jet.impl.TopologicalSorter.checkTopologicalSort;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_PIPELINE_VERTEX_FUSION_ENABLED;
 import static java.util.stream.Collectors.toList;
 
 @SuppressWarnings("unchecked")
@@ -67,6 +82,8 @@ public class Planner {
 
     public final DAG dag = new DAG();
     public final Map<Transform, PlannerVertex> xform2vertex = new HashMap<>();
+    // the vertices added by a transform in addition to the one in xform2vertex
+    private final Map<Vertex, Transform> extraVertex2xform = new HashMap<>();
 
     private final PipelineImpl pipeline;
 
@@ -141,9 +158,48 @@ public class Planner {
             }
         }
 
+        // a system property of the submitting JVM, see JET_PIPELINE_VERTEX_FUSION_ENABLED
+        if (new HazelcastProperties(System.getProperties()).getBoolean(JET_PIPELINE_VERTEX_FUSION_ENABLED)) {
+            Set<Vertex> cooperativeVertices = new HashSet<>();
+            xform2vertex.forEach((transform, pv) -> {
+                if (isCooperative(transform)) {
+                    cooperativeVertices.add(pv.v);
+                }
+            });
+            extraVertex2xform.forEach((v, transform) -> {
+                if (isCooperative(transform)) {
+                    cooperativeVertices.add(v);
+                }
+            });
+            return VertexFusion.fuseChains(dag, cooperativeVertices::contains);
+        }
         return dag;
     }
 
+    /**
+     * Returns {@code true} if the processors of the vertices the given
+     * transform adds are known to be cooperative. The cooperativeness of the sources,
+     * sinks and custom processors is only known once the processors are
+     * created, they are treated as non-cooperative.
+     */
+    private static boolean isCooperative(Transform transform) {
+        if (transform instanceof ProcessorTransform) {
+            return ((ProcessorTransform) transform).isCooperative();
+        }
+        return transform instanceof MapTransform
+                || transform instanceof FlatMapTransform
+                || transform instanceof TimestampTransform
+                || transform instanceof MergeTransform
+                || transform instanceof AggregateTransform
+                || transform instanceof GroupTransform
+                || transform instanceof WindowAggregateTransform
+                || transform instanceof WindowGroupTransform
+                || transform instanceof RollingAggregateTransform
+                || transform instanceof GlobalRollingAggregateTransform
+                || transform instanceof DistinctTransform
+                || transform instanceof HashJoinTransform;
+    }
+
     private static List<Transform> findFusableChain(Transform transform, Map<Transform, List<Transform>> adjacencyMap) {
         ArrayList<Transform> chain = new ArrayList<>();
         for (;;) {
@@ -189,7 +245,10 @@ public class Planner {
         FunctionEx trailingMapFn = mergeMapFunctions(chain.subList(lastFlatMap, chain.size()));
         String name = chain.stream().map(Transform::name).collect(Collectors.joining(", ", "fused(", ")"));
         if (flatMapFn == null) {
-            return new MapTransform(name, chain.get(0).upstream().get(0), trailingMapFn);
+            List<FunctionEx<Object, Object>> stageFns = chain.stream()
+                    .map(t -> (FunctionEx<Object, Object>) ((MapTransform) t).mapFn())
+                    .collect(toList());
+            return new FusedMapTransform(name, chain.get(0).upstream().get(0), stageFns, trailingMapFn);
         } else {
             if (trailingMapFn != null) {
                 flatMapFn = flatMapFn.andThen(t -> t.map(trailingMapFn));
@@ -242,6 +301,29 @@ public class Planner {
         return pv;
     }
 
+    /**
+     * Adds a vertex of the given transform other than the one it adds with
+     * {@link #addVertex}, for example the first stage of a two-stage
+     * aggregation. The vertex isn't the source of the edges to the
+     * downstream transforms, but it's known to belong to the transform.
+     */
+    public Vertex addExtraVertex(Transform transform, String name, int localParallelism,
+                                 SupplierEx<Processor> procSupplier) {
+        return addExtraVertex(transform, name, localParallelism, ProcessorMetaSupplier.of(procSupplier));
+    }
+
+    public Vertex addExtraVertex(Transform transform, String name, int localParallelism,
+                                 ProcessorSupplier procSupplier) {
+        return addExtraVertex(transform, name, localParallelism, ProcessorMetaSupplier.of(procSupplier));
+    }
+
+    public Vertex addExtraVertex(Transform transform, String name, int localParallelism,
+                                 ProcessorMetaSupplier metaSupplier) {
+        Vertex v = dag.newVertex(name, metaSupplier).localParallelism(localParallelism);
+        extraVertex2xform.put(v, transform);
+        return v;
+    }
+
     public void addEdges(Transform transform, Vertex toVertex, BiConsumer<Edge, Integer> configureEdgeFn) {
         int destOrdinal = 0;
         for (Transform fromTransform : transform.upstream()) {
@@ -21,7 +21,9 @@ import com.hazelcast.jet.aggregate.AggregateOperation2;
 import com.hazelcast.jet.aggregate.AggregateOperation3;
 import com.hazelcast.jet.datamodel.WindowResult;
 import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.impl.pipeline.transform.WindowAggregateTransform;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
 import com.hazelcast.jet.pipeline.StageWithKeyAndWindow;
 import com.hazelcast.jet.pipeline.StageWithWindow;
 import com.hazelcast.jet.pipeline.StreamStage;
@@ -63,6 +65,11 @@ public class StageWithWindowImpl<T> implements StageWithWindow<T> {
         return new StageWithKeyAndWindowImpl<>(streamStage, keyFn, wDef);
     }
 
+    @Nonnull @Override
+    public StageWithKeyAndWindow<T, Long> groupingLongKey(@Nonnull ToLongFunctionEx<? super T> keyFn) {
+        return new StageWithKeyAndWindowImpl<>(streamStage, new LongKeyFunctionEx<>(keyFn), wDef);
+    }
+
     @Nonnull @Override
     public <R> StreamStage<WindowResult<R>> aggregate(
             @Nonnull AggregateOperation1<? super T, ?, ? extends R> aggrOp
@@ -24,9 +24,11 @@ import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.BiFunctionEx;
 import com.hazelcast.jet.function.BiPredicateEx;
 import com.hazelcast.jet.function.PredicateEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 import com.hazelcast.jet.impl.pipeline.transform.AbstractTransform;
 import com.hazelcast.jet.impl.pipeline.transform.Transform;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
 import com.hazelcast.jet.pipeline.BatchStage;
 import com.hazelcast.jet.pipeline.ContextFactory;
 import com.hazelcast.jet.pipeline.JoinClause;
@@ -56,6 +58,12 @@ public class StreamStageImpl<T> extends ComputeStageImplBase<T> implements Strea
         return new StreamStageWithKeyImpl<>(this, keyFn);
     }
 
+    @Nonnull @Override
+    public StreamStageWithKey<T, Long> groupingLongKey(@Nonnull ToLongFunctionEx<? super T> keyFn) {
+        checkSerializable(keyFn, "keyFn");
+        return new StreamStageWithKeyImpl<>(this, new LongKeyFunctionEx<>(keyFn));
+    }
+
     @Nonnull @Override
     public StageWithWindow<T> window(WindowDefinition wDef) {
         return new StageWithWindowImpl<>(this, wDef);
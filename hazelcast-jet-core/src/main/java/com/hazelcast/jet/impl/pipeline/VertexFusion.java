@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline;
+
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.core.Edge.RoutingPolicy;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.impl.processor.FusedChainP;
+import com.hazelcast.jet.impl.processor.FusedProcessorMetaSupplier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.hazelcast.jet.core.Vertex.LOCAL_PARALLELISM_USE_DEFAULT;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Fuses the chains of vertices connected by local one-to-one edges into a
+ * single vertex, see {@link
+ * com.hazelcast.jet.impl.util.JetProperties#JET_PIPELINE_VERTEX_FUSION_ENABLED}.
+ * The fused vertex is the last vertex of the chain with a meta-supplier
+ * that creates {@link FusedChainP} processors, the inbound edges of the
+ * first vertex are moved to it. Only the vertices with cooperative
+ * processors are fused, a fused processor must not change the
+ * cooperativeness of its stages.
+ */
+final class VertexFusion {
+
+    private VertexFusion() {
+    }
+
+    /**
+     * Returns a DAG with the chains of the given DAG fused. The given DAG
+     * must not be used afterwards.
+     *
+     * @param isCooperative returns {@code true} for the vertices whose
+     *          processors are known to be cooperative
+     */
+    static DAG fuseChains(DAG dag, Predicate<Vertex> isCooperative) {
+        // the next vertex in the chain for each vertex that isn't the last one
+        Map<Vertex, Vertex> nextInChain = new HashMap<>();
+        for (Vertex v : dag) {
+            List<Edge> outbound = dag.getOutboundEdges(v.getName());
+            if (outbound.size() == 1 && isFusable(dag, outbound.get(0), isCooperative)) {
+                nextInChain.put(v, outbound.get(0).getDestination());
+            }
+        }
+        if (nextInChain.isEmpty()) {
+            return dag;
+        }
+
+        Set<Vertex> fusedAway = nextInChain.keySet();
+        Set<Vertex> notHeads = new HashSet<>(nextInChain.values());
+        // the last vertex of the chain for the first vertex of each chain
+        Map<Vertex, Vertex> chainHeadToTail = new HashMap<>();
+        for (Vertex head : fusedAway) {
+            if (notHeads.contains(head)) {
+                continue;
+            }
+            List<Vertex> chain = new ArrayList<>();
+            for (Vertex v = head; v != null; v = nextInChain.get(v)) {
+                chain.add(v);
+            }
+            Vertex tail = chain.get(chain.size() - 1);
+            int localParallelism = localParallelism(tail);
+            List<ProcessorMetaSupplier> metaSuppliers = chain.stream().map(Vertex::getMetaSupplier).collect(toList());
+            List<String> vertexNames = chain.stream().map(Vertex::getName).collect(toList());
+            tail.updateMetaSupplier(ms -> new FusedProcessorMetaSupplier(metaSuppliers, vertexNames));
+            tail.localParallelism(localParallelism);
+            chainHeadToTail.put(head, tail);
+        }
+
+        // the edges from a vertex that is fused away are inside a chain, the others remain
+        DAG fusedDag = new DAG();
+        List<Edge> edges = new ArrayList<>();
+        for (Vertex v : dag) {
+            if (fusedAway.contains(v)) {
+                continue;
+            }
+            fusedDag.vertex(v);
+            for (Edge edge : dag.getOutboundEdges(v.getName())) {
+                Vertex tail = chainHeadToTail.get(edge.getDestination());
+                edges.add(tail != null ? edge.to(tail, edge.getDestOrdinal()) : edge);
+            }
+        }
+        edges.forEach(fusedDag::edge);
+        return fusedDag;
+    }
+
+    private static boolean isFusable(DAG dag, Edge edge, Predicate<Vertex> isCooperative) {
+        RoutingPolicy routingPolicy = edge.getRoutingPolicy();
+        return isCooperative.test(edge.getSource())
+                && isCooperative.test(edge.getDestination())
+                && !edge.isDistributed()
+                && (routingPolicy == RoutingPolicy.UNICAST || routingPolicy == RoutingPolicy.ISOLATED)
+                && edge.getSourceOrdinal() == 0
+                && edge.getDestOrdinal() == 0
+                && dag.getInboundEdges(edge.getDestName()).size() == 1
+                && localParallelism(edge.getSource()) == localParallelism(edge.getDestination());
+    }
+
+    private static int localParallelism(Vertex v) {
+        return v.getLocalParallelism() != LOCAL_PARALLELISM_USE_DEFAULT
+                ? v.getLocalParallelism()
+                : v.getMetaSupplier().preferredLocalParallelism();
+    }
+}
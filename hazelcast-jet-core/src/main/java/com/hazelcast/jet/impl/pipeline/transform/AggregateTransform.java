@@ -96,8 +96,8 @@ public class AggregateTransform<A, R> extends AbstractTransform {
     //                   ----------------
     private void addToDagTwoStage(Planner p) {
         String vertexName = name();
-        Vertex v1 = p.dag.newVertex(vertexName + FIRST_STAGE_VERTEX_NAME_SUFFIX, accumulateP(aggrOp))
-                         .localParallelism(localParallelism());
+        Vertex v1 = p.addExtraVertex(this, vertexName + FIRST_STAGE_VERTEX_NAME_SUFFIX, localParallelism(),
+                accumulateP(aggrOp));
         PlannerVertex pv2 = p.addVertex(this, vertexName, 1, combineP(aggrOp));
         p.addEdges(this, v1);
         p.dag.edge(between(v1, pv2.v).distributed().allToOne(name().hashCode()));
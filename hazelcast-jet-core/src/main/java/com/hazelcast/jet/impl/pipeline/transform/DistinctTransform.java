@@ -41,8 +41,8 @@ public class DistinctTransform<T, K> extends AbstractTransform {
     @Override
     public void addToDag(Planner p) {
         String vertexName = name();
-        Vertex v1 = p.dag.newVertex(vertexName + FIRST_STAGE_VERTEX_NAME_SUFFIX, distinctP(keyFn))
-                         .localParallelism(localParallelism());
+        Vertex v1 = p.addExtraVertex(this, vertexName + FIRST_STAGE_VERTEX_NAME_SUFFIX, localParallelism(),
+                distinctP(keyFn));
         PlannerVertex pv2 = p.addVertex(this, vertexName, localParallelism(), distinctP(keyFn));
         p.addEdges(this, v1, (e, ord) -> e.partitioned(keyFn, HASH_CODE));
         p.dag.edge(between(v1, pv2.v).distributed().partitioned(keyFn));
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+import static com.hazelcast.jet.impl.processor.FusedMapP.fusedMapP;
+
+/**
+ * A chain of map and filter transforms fused into one. Besides the merged
+ * function it keeps the functions of the individual stages so that the
+ * processors can apply them to batches of items.
+ */
+public class FusedMapTransform extends MapTransform<Object, Object> {
+    @Nonnull
+    private final List<FunctionEx<Object, Object>> stageFns;
+
+    public FusedMapTransform(
+            @Nonnull String name,
+            @Nonnull Transform upstream,
+            @Nonnull List<FunctionEx<Object, Object>> stageFns,
+            @Nonnull FunctionEx<Object, Object> mergedFn
+    ) {
+        super(name, upstream, mergedFn);
+        this.stageFns = stageFns;
+    }
+
+    @Nonnull
+    public List<FunctionEx<Object, Object>> stageFns() {
+        return stageFns;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addToDag(Planner p) {
+        PlannerVertex pv = p.addVertex(this, name(), localParallelism(),
+                fusedMapP(stageFns, (FunctionEx<Object, Object>) mapFn()));
+        p.addEdges(this, pv.v);
+    }
+}
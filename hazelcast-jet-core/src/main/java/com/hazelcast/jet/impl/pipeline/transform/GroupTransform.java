@@ -108,8 +108,8 @@ public class GroupTransform<K, A, R, OUT> extends AbstractTransform {
     //                         ---------------
     private void addToDagTwoStage(Planner p) {
         List<FunctionEx<?, ? extends K>> groupKeyFns = this.groupKeyFns;
-        Vertex v1 = p.dag.newVertex(name() + FIRST_STAGE_VERTEX_NAME_SUFFIX, accumulateByKeyP(groupKeyFns, aggrOp))
-                .localParallelism(localParallelism());
+        Vertex v1 = p.addExtraVertex(this, name() + FIRST_STAGE_VERTEX_NAME_SUFFIX, localParallelism(),
+                accumulateByKeyP(groupKeyFns, aggrOp));
         PlannerVertex pv2 = p.addVertex(this, name(), localParallelism(),
                 combineByKeyP(aggrOp, mapToOutputFn));
         p.addEdges(this, v1, (e, ord) -> e.partitioned(groupKeyFns.get(ord), HASH_CODE));
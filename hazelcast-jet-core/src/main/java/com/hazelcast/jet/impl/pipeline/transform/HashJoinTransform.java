@@ -24,7 +24,6 @@ import com.hazelcast.jet.function.TriFunction;
 import com.hazelcast.jet.impl.pipeline.Planner;
 import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
 import com.hazelcast.jet.impl.processor.HashJoinCollectP;
-import com.hazelcast.jet.impl.processor.HashJoinP;
 import com.hazelcast.jet.pipeline.JoinClause;
 
 import javax.annotation.Nonnull;
@@ -33,6 +32,7 @@ import java.util.List;
 
 import static com.hazelcast.jet.core.Edge.from;
 import static com.hazelcast.jet.impl.pipeline.Planner.tailList;
+import static com.hazelcast.jet.impl.processor.HashJoinP.hashJoinP;
 import static java.util.stream.Collectors.toList;
 
 public class HashJoinTransform<T0, R> extends AbstractTransform {
@@ -44,31 +44,36 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
     private final BiFunctionEx mapToOutputBiFn;
     @Nullable
     private final TriFunction mapToOutputTriFn;
+    private final boolean allowSpilling;
 
     public HashJoinTransform(
             @Nonnull List<Transform> upstream,
             @Nonnull List<JoinClause<?, ? super T0, ?, ?>> clauses,
             @Nonnull List<Tag> tags,
-            @Nonnull BiFunctionEx mapToOutputBiFn
+            @Nonnull BiFunctionEx mapToOutputBiFn,
+            boolean allowSpilling
     ) {
         super(upstream.size() + "-way hash-join", upstream);
         this.clauses = clauses;
         this.tags = tags;
         this.mapToOutputBiFn = mapToOutputBiFn;
         this.mapToOutputTriFn = null;
+        this.allowSpilling = allowSpilling;
     }
 
     public <T1, T2> HashJoinTransform(
             @Nonnull List<Transform> upstream,
             @Nonnull List<JoinClause<?, ? super T0, ?, ?>> clauses,
             @Nonnull List<Tag> tags,
-            @Nonnull TriFunction<T0, T1, T2, R> mapToOutputTriFn
+            @Nonnull TriFunction<T0, T1, T2, R> mapToOutputTriFn,
+            boolean allowSpilling
     ) {
         super(upstream.size() + "-way hash-join", upstream);
         this.clauses = clauses;
         this.tags = tags;
         this.mapToOutputBiFn = null;
         this.mapToOutputTriFn = mapToOutputTriFn;
+        this.allowSpilling = allowSpilling;
     }
 
     //         ---------           ----------           ----------
@@ -104,11 +109,12 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
         BiFunctionEx mapToOutputBiFn = this.mapToOutputBiFn;
         TriFunction mapToOutputTriFn = this.mapToOutputTriFn;
         Vertex joiner = p.addVertex(this, name() + "-joiner", localParallelism(),
-                () -> new HashJoinP<>(keyFns, tags, mapToOutputBiFn, mapToOutputTriFn)).v;
+                hashJoinP(keyFns, tags, mapToOutputBiFn, mapToOutputTriFn)).v;
         p.dag.edge(from(primary.v, primary.nextAvailableOrdinal()).to(joiner, 0));
 
         String collectorName = name() + "-collector";
         int collectorOrdinal = 1;
+        boolean allowSpilling = this.allowSpilling;
         for (Transform fromTransform : tailList(this.upstream())) {
             PlannerVertex fromPv = p.xform2vertex.get(fromTransform);
             JoinClause<?, ?, ?, ?> clause = this.clauses.get(collectorOrdinal - 1);
@@ -116,9 +122,8 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
                     (FunctionEx<Object, Object>) clause.rightKeyFn();
             FunctionEx<Object, Object> projectFn =
                     (FunctionEx<Object, Object>) clause.rightProjectFn();
-            Vertex collector = p.dag.newVertex(collectorName + collectorOrdinal,
-                    () -> new HashJoinCollectP(getKeyFn, projectFn));
-            collector.localParallelism(1);
+            Vertex collector = p.addExtraVertex(this, collectorName + collectorOrdinal, 1,
+                    () -> new HashJoinCollectP(getKeyFn, projectFn, allowSpilling));
             p.dag.edge(from(fromPv.v, fromPv.nextAvailableOrdinal())
                     .to(collector, 0)
                     .distributed().broadcast());
@@ -41,9 +41,10 @@ public final class PartitionedProcessorTransform<T, K> extends ProcessorTransfor
             @Nonnull String name,
             @Nonnull Transform upstream,
             @Nonnull ProcessorMetaSupplier processorSupplier,
-            @Nonnull FunctionEx<? super T, ? extends K> partitionKeyFn
+            @Nonnull FunctionEx<? super T, ? extends K> partitionKeyFn,
+            boolean cooperative
     ) {
-        super(name, upstream, processorSupplier);
+        super(name, upstream, processorSupplier, cooperative);
         this.partitionKeyFn = partitionKeyFn;
     }
 
@@ -53,7 +54,7 @@ public final class PartitionedProcessorTransform<T, K> extends ProcessorTransfor
             @Nonnull ProcessorMetaSupplier processorSupplier,
             @Nonnull FunctionEx<? super T, ? extends K> partitionKeyFn
     ) {
-        return new PartitionedProcessorTransform<>(name, upstream, processorSupplier, partitionKeyFn);
+        return new PartitionedProcessorTransform<>(name, upstream, processorSupplier, partitionKeyFn, false);
     }
 
     public static <C, T, K, R> PartitionedProcessorTransform<T, K> mapUsingContextPartitionedTransform(
@@ -63,7 +64,8 @@ public final class PartitionedProcessorTransform<T, K> extends ProcessorTransfor
             @Nonnull FunctionEx<? super T, ? extends K> partitionKeyFn
     ) {
         return new PartitionedProcessorTransform<>("mapUsingPartitionedContext",
-                upstream, ProcessorMetaSupplier.of(mapUsingContextP(contextFactory, mapFn)), partitionKeyFn);
+                upstream, ProcessorMetaSupplier.of(mapUsingContextP(contextFactory, mapFn)), partitionKeyFn,
+                contextFactory.isCooperative());
     }
 
     public static <C, T, K> PartitionedProcessorTransform<T, K> filterUsingPartitionedContextTransform(
@@ -73,7 +75,8 @@ public final class PartitionedProcessorTransform<T, K> extends ProcessorTransfor
             @Nonnull FunctionEx<? super T, ? extends K> partitionKeyFn
     ) {
         return new PartitionedProcessorTransform<>("filterUsingPartitionedContext",
-                upstream, ProcessorMetaSupplier.of(filterUsingContextP(contextFactory, filterFn)), partitionKeyFn);
+                upstream, ProcessorMetaSupplier.of(filterUsingContextP(contextFactory, filterFn)), partitionKeyFn,
+                contextFactory.isCooperative());
     }
 
     public static <C, T, K, R> PartitionedProcessorTransform<T, K> flatMapUsingPartitionedContextTransform(
@@ -83,7 +86,8 @@ public final class PartitionedProcessorTransform<T, K> extends ProcessorTransfor
             @Nonnull FunctionEx<? super T, ? extends K> partitionKeyFn
     ) {
         return new PartitionedProcessorTransform<>("flatMapUsingPartitionedContext",
-                upstream, ProcessorMetaSupplier.of(flatMapUsingContextP(contextFactory, flatMapFn)), partitionKeyFn);
+                upstream, ProcessorMetaSupplier.of(flatMapUsingContextP(contextFactory, flatMapFn)), partitionKeyFn,
+                contextFactory.isCooperative());
     }
 
     public static <C, T, K, R> PartitionedProcessorTransform<T, K> flatMapUsingPartitionedContextAsyncTransform(
@@ -95,7 +99,7 @@ public final class PartitionedProcessorTransform<T, K> extends ProcessorTransfor
     ) {
         return new PartitionedProcessorTransform<>(operationName + "UsingPartitionedContextAsync", upstream,
                 ProcessorMetaSupplier.of(flatMapUsingContextAsyncP(contextFactory, partitionKeyFn, flatMapAsyncFn)),
-                partitionKeyFn);
+                partitionKeyFn, contextFactory.isCooperative());
     }
 
     @Override
@@ -34,14 +34,17 @@ import static com.hazelcast.jet.core.processor.Processors.mapUsingContextP;
 
 public class ProcessorTransform extends AbstractTransform {
     final ProcessorMetaSupplier processorSupplier;
+    private final boolean cooperative;
 
     ProcessorTransform(
             @Nonnull String name,
             @Nonnull Transform upstream,
-            @Nonnull ProcessorMetaSupplier processorSupplier
+            @Nonnull ProcessorMetaSupplier processorSupplier,
+            boolean cooperative
     ) {
         super(name, upstream);
         this.processorSupplier = processorSupplier;
+        this.cooperative = cooperative;
     }
 
     public static ProcessorTransform customProcessorTransform(
@@ -49,7 +52,7 @@ public class ProcessorTransform extends AbstractTransform {
             @Nonnull Transform upstream,
             @Nonnull ProcessorMetaSupplier createProcessorFn
     ) {
-        return new ProcessorTransform(name, upstream, createProcessorFn);
+        return new ProcessorTransform(name, upstream, createProcessorFn, false);
     }
 
     public static <C, T, R> ProcessorTransform mapUsingContextTransform(
@@ -58,7 +61,7 @@ public class ProcessorTransform extends AbstractTransform {
             @Nonnull BiFunctionEx<? super C, ? super T, ? extends R> mapFn
     ) {
         return new ProcessorTransform("mapUsingContext", upstream,
-                ProcessorMetaSupplier.of(mapUsingContextP(contextFactory, mapFn)));
+                ProcessorMetaSupplier.of(mapUsingContextP(contextFactory, mapFn)), contextFactory.isCooperative());
     }
 
     public static <C, T> ProcessorTransform filterUsingContextTransform(
@@ -67,7 +70,7 @@ public class ProcessorTransform extends AbstractTransform {
             @Nonnull BiPredicateEx<? super C, ? super T> filterFn
     ) {
         return new ProcessorTransform("filterUsingContext", upstream,
-                ProcessorMetaSupplier.of(filterUsingContextP(contextFactory, filterFn)));
+                ProcessorMetaSupplier.of(filterUsingContextP(contextFactory, filterFn)), contextFactory.isCooperative());
     }
 
     public static <C, T, R> ProcessorTransform flatMapUsingContextTransform(
@@ -76,7 +79,7 @@ public class ProcessorTransform extends AbstractTransform {
             @Nonnull BiFunctionEx<? super C, ? super T, ? extends Traverser<? extends R>> flatMapFn
     ) {
         return new ProcessorTransform("flatMapUsingContext", upstream,
-                ProcessorMetaSupplier.of(flatMapUsingContextP(contextFactory, flatMapFn)));
+                ProcessorMetaSupplier.of(flatMapUsingContextP(contextFactory, flatMapFn)), contextFactory.isCooperative());
     }
 
     public static <C, T, R> ProcessorTransform flatMapUsingContextAsyncTransform(
@@ -89,7 +92,16 @@ public class ProcessorTransform extends AbstractTransform {
         //      be sent to a random member. We keep it this way for simplicity:
         //      the number of in-flight items is limited (maxAsyncOps)
         return new ProcessorTransform(operationName + "UsingContextAsync", upstream,
-                ProcessorMetaSupplier.of(flatMapUsingContextAsyncP(contextFactory, Object::hashCode, flatMapAsyncFn)));
+                ProcessorMetaSupplier.of(flatMapUsingContextAsyncP(contextFactory, Object::hashCode, flatMapAsyncFn)),
+                contextFactory.isCooperative());
+    }
+
+    /**
+     * Returns {@code true} if the processors of this transform are known to
+     * be cooperative, {@code false} if they aren't or if it's unknown.
+     */
+    public boolean isCooperative() {
+        return cooperative;
     }
 
     @Override
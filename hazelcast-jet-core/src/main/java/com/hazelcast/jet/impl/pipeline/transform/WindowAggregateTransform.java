@@ -27,6 +27,7 @@ import com.hazelcast.jet.impl.JetEvent;
 import com.hazelcast.jet.impl.pipeline.Planner;
 import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
 import com.hazelcast.jet.impl.util.ConstantFunctionEx;
+import com.hazelcast.jet.pipeline.MultiWindowDefinition;
 import com.hazelcast.jet.pipeline.SessionWindowDefinition;
 import com.hazelcast.jet.pipeline.SlidingWindowDefinition;
 import com.hazelcast.jet.pipeline.WindowDefinition;
@@ -43,7 +44,10 @@ import static com.hazelcast.jet.core.processor.Processors.combineToSlidingWindow
 import static com.hazelcast.jet.impl.JetEvent.jetEvent;
 import static com.hazelcast.jet.impl.pipeline.transform.AbstractTransform.Optimization.MEMORY;
 import static com.hazelcast.jet.impl.pipeline.transform.AggregateTransform.FIRST_STAGE_VERTEX_NAME_SUFFIX;
+import static com.hazelcast.jet.impl.processor.SlidingWindowP.framePolicy;
 import static java.util.Collections.nCopies;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 
 public class WindowAggregateTransform<A, R> extends AbstractTransform {
     private static final int MAX_WATERMARK_STRIDE = 100;
@@ -70,6 +74,8 @@ public class WindowAggregateTransform<A, R> extends AbstractTransform {
     static String createName(WindowDefinition wDef) {
         if (wDef instanceof SlidingWindowDefinition) {
             return "sliding-window";
+        } else if (wDef instanceof MultiWindowDefinition) {
+            return "multi-sliding-window";
         } else if (wDef instanceof SessionWindowDefinition) {
             return "session-window";
         } else {
@@ -87,6 +93,8 @@ public class WindowAggregateTransform<A, R> extends AbstractTransform {
     static long preferredWatermarkStride(WindowDefinition wDef) {
         if (wDef instanceof SlidingWindowDefinition) {
             return ((SlidingWindowDefinition) wDef).slideBy();
+        } else if (wDef instanceof MultiWindowDefinition) {
+            return framePolicy(winPolicies(wDef)).frameSize();
         } else if (wDef instanceof SessionWindowDefinition) {
             long timeout = ((SessionWindowDefinition) wDef).sessionTimeout();
             return Math.min(MAX_WATERMARK_STRIDE, Math.max(1, timeout / MIN_WMS_PER_SESSION));
@@ -95,6 +103,20 @@ public class WindowAggregateTransform<A, R> extends AbstractTransform {
         }
     }
 
+    /**
+     * Returns the policies of the sliding windows of the given definition,
+     * which is either a {@link SlidingWindowDefinition} or a {@link
+     * MultiWindowDefinition}.
+     */
+    static List<SlidingWindowPolicy> winPolicies(WindowDefinition wDef) {
+        List<SlidingWindowDefinition> slidingDefs = wDef instanceof MultiWindowDefinition
+                ? ((MultiWindowDefinition) wDef).windowDefinitions()
+                : singletonList((SlidingWindowDefinition) wDef);
+        return slidingDefs.stream()
+                          .map(def -> slidingWinPolicy(def.windowSize(), def.slideBy()))
+                          .collect(toList());
+    }
+
     @Override
     public long preferredWatermarkStride() {
         return preferredWatermarkStride(wDef);
@@ -105,9 +127,9 @@ public class WindowAggregateTransform<A, R> extends AbstractTransform {
         if (wDef instanceof SessionWindowDefinition) {
             addSessionWindow(p, (SessionWindowDefinition) wDef);
         } else if (aggrOp.combineFn() == null || wDef.earlyResultsPeriod() > 0 || getOptimization() == MEMORY) {
-            addSlidingWindowSingleStage(p, (SlidingWindowDefinition) wDef);
+            addSlidingWindowSingleStage(p, winPolicies(wDef));
         } else {
-            addSlidingWindowTwoStage(p, (SlidingWindowDefinition) wDef);
+            addSlidingWindowTwoStage(p, winPolicies(wDef));
         }
     }
 
@@ -123,13 +145,13 @@ public class WindowAggregateTransform<A, R> extends AbstractTransform {
     //             ---------------------------
     //            | aggregateToSlidingWindowP | local parallelism = 1
     //             ---------------------------
-    private void addSlidingWindowSingleStage(Planner p, SlidingWindowDefinition wDef) {
+    private void addSlidingWindowSingleStage(Planner p, List<SlidingWindowPolicy> winPolicies) {
         PlannerVertex pv = p.addVertex(this, name(), 1,
                 aggregateToSlidingWindowP(
                         nCopies(aggrOp.arity(), new ConstantFunctionEx<>(name().hashCode())),
                         nCopies(aggrOp.arity(), (ToLongFunctionEx<JetEvent>) JetEvent::timestamp),
                         TimestampKind.EVENT,
-                        slidingWinPolicy(wDef.windowSize(), wDef.slideBy()),
+                        winPolicies,
                         wDef.earlyResultsPeriod(),
                         aggrOp,
                         jetEventOfWindowResultFn()
@@ -154,20 +176,19 @@ public class WindowAggregateTransform<A, R> extends AbstractTransform {
     //               -------------------------
     //              | combineToSlidingWindowP | local parallelism = 1
     //               -------------------------
-    private void addSlidingWindowTwoStage(Planner p, SlidingWindowDefinition wDef) {
-        SlidingWindowPolicy winPolicy = slidingWinPolicy(wDef.windowSize(), wDef.slideBy());
-        Vertex v1 = p.dag.newVertex(name() + FIRST_STAGE_VERTEX_NAME_SUFFIX, accumulateByFrameP(
-                nCopies(aggrOp.arity(), new ConstantFunctionEx<>(name().hashCode())),
-                nCopies(aggrOp.arity(), (ToLongFunctionEx<JetEvent>) JetEvent::timestamp),
-                TimestampKind.EVENT,
-                winPolicy,
-                aggrOp
-        ));
+    private void addSlidingWindowTwoStage(Planner p, List<SlidingWindowPolicy> winPolicies) {
         // We use requested parallelism for 1st stage: edge to it is local-unicast, each processor
         // can process part of the input which will be combined into one result in 2nd stage.
-        v1.localParallelism(localParallelism());
+        Vertex v1 = p.addExtraVertex(this, name() + FIRST_STAGE_VERTEX_NAME_SUFFIX, localParallelism(),
+                accumulateByFrameP(
+                        nCopies(aggrOp.arity(), new ConstantFunctionEx<>(name().hashCode())),
+                        nCopies(aggrOp.arity(), (ToLongFunctionEx<JetEvent>) JetEvent::timestamp),
+                        TimestampKind.EVENT,
+                        framePolicy(winPolicies),
+                        aggrOp
+                ));
         PlannerVertex pv2 = p.addVertex(this, name(), 1,
-                combineToSlidingWindowP(winPolicy, aggrOp, jetEventOfWindowResultFn()));
+                combineToSlidingWindowP(winPolicies, aggrOp, jetEventOfWindowResultFn()));
         p.addEdges(this, v1);
         p.dag.edge(between(v1, pv2.v).distributed().allToOne(name().hashCode()));
     }
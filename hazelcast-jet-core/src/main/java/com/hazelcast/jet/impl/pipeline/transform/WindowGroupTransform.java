@@ -28,7 +28,6 @@ import com.hazelcast.jet.impl.JetEvent;
 import com.hazelcast.jet.impl.pipeline.Planner;
 import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
 import com.hazelcast.jet.pipeline.SessionWindowDefinition;
-import com.hazelcast.jet.pipeline.SlidingWindowDefinition;
 import com.hazelcast.jet.pipeline.WindowDefinition;
 
 import javax.annotation.Nonnull;
@@ -36,7 +35,6 @@ import java.util.List;
 
 import static com.hazelcast.jet.core.Edge.between;
 import static com.hazelcast.jet.core.Partitioner.HASH_CODE;
-import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
 import static com.hazelcast.jet.core.processor.Processors.accumulateByFrameP;
 import static com.hazelcast.jet.core.processor.Processors.aggregateToSessionWindowP;
 import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
@@ -45,6 +43,8 @@ import static com.hazelcast.jet.function.Functions.entryKey;
 import static com.hazelcast.jet.impl.JetEvent.jetEvent;
 import static com.hazelcast.jet.impl.pipeline.transform.AbstractTransform.Optimization.MEMORY;
 import static com.hazelcast.jet.impl.pipeline.transform.AggregateTransform.FIRST_STAGE_VERTEX_NAME_SUFFIX;
+import static com.hazelcast.jet.impl.pipeline.transform.WindowAggregateTransform.winPolicies;
+import static com.hazelcast.jet.impl.processor.SlidingWindowP.framePolicy;
 import static java.util.Collections.nCopies;
 
 public class WindowGroupTransform<K, R> extends AbstractTransform {
@@ -86,9 +86,9 @@ public class WindowGroupTransform<K, R> extends AbstractTransform {
         if (wDef instanceof SessionWindowDefinition) {
             addSessionWindow(p, (SessionWindowDefinition) wDef);
         } else if (aggrOp.combineFn() == null || wDef.earlyResultsPeriod() > 0 || getOptimization() == MEMORY) {
-            addSlidingWindowSingleStage(p, (SlidingWindowDefinition) wDef);
+            addSlidingWindowSingleStage(p, winPolicies(wDef));
         } else {
-            addSlidingWindowTwoStage(p, (SlidingWindowDefinition) wDef);
+            addSlidingWindowTwoStage(p, winPolicies(wDef));
         }
     }
 
@@ -104,13 +104,13 @@ public class WindowGroupTransform<K, R> extends AbstractTransform {
     //             ---------------------------
     //            | aggregateToSlidingWindowP |
     //             ---------------------------
-    private void addSlidingWindowSingleStage(Planner p, SlidingWindowDefinition wDef) {
+    private void addSlidingWindowSingleStage(Planner p, List<SlidingWindowPolicy> winPolicies) {
         PlannerVertex pv = p.addVertex(this, name(), localParallelism(),
                 aggregateToSlidingWindowP(
                         keyFns,
                         nCopies(keyFns.size(), (ToLongFunctionEx<JetEvent>) JetEvent::timestamp),
                         TimestampKind.EVENT,
-                        slidingWinPolicy(wDef.windowSize(), wDef.slideBy()),
+                        winPolicies,
                         wDef.earlyResultsPeriod(),
                         aggrOp,
                         jetEventOfKeyedWindowResultFn()
@@ -135,17 +135,16 @@ public class WindowGroupTransform<K, R> extends AbstractTransform {
     //              -------------------------
     //             | combineToSlidingWindowP |
     //              -------------------------
-    private void addSlidingWindowTwoStage(Planner p, SlidingWindowDefinition wDef) {
-        SlidingWindowPolicy winPolicy = slidingWinPolicy(wDef.windowSize(), wDef.slideBy());
-        Vertex v1 = p.dag.newVertex(name() + FIRST_STAGE_VERTEX_NAME_SUFFIX, accumulateByFrameP(
-                keyFns,
-                nCopies(keyFns.size(), (ToLongFunctionEx<JetEvent>) JetEvent::timestamp),
-                TimestampKind.EVENT,
-                winPolicy,
-                aggrOp));
-        v1.localParallelism(localParallelism());
+    private void addSlidingWindowTwoStage(Planner p, List<SlidingWindowPolicy> winPolicies) {
+        Vertex v1 = p.addExtraVertex(this, name() + FIRST_STAGE_VERTEX_NAME_SUFFIX, localParallelism(),
+                accumulateByFrameP(
+                        keyFns,
+                        nCopies(keyFns.size(), (ToLongFunctionEx<JetEvent>) JetEvent::timestamp),
+                        TimestampKind.EVENT,
+                        framePolicy(winPolicies),
+                        aggrOp));
         PlannerVertex pv2 = p.addVertex(this, name(), localParallelism(),
-                combineToSlidingWindowP(winPolicy, aggrOp, jetEventOfKeyedWindowResultFn()));
+                combineToSlidingWindowP(winPolicies, aggrOp, jetEventOfKeyedWindowResultFn()));
         p.addEdges(this, v1, (e, ord) -> e.partitioned(keyFns.get(ord), HASH_CODE));
         p.dag.edge(between(v1, pv2.v).distributed().partitioned(entryKey()));
     }
@@ -0,0 +1,481 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.jet.core.Inbox;
+import com.hazelcast.jet.core.Outbox;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.spi.NodeEngine;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
+import static com.hazelcast.jet.impl.execution.init.ExecutionPlan.createLoggerName;
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * Runs the processors of a chain of vertices connected by local
+ * one-to-one edges as a single processor. Each processor of the chain
+ * except the last one emits to a buffer which is the inbox of the next
+ * processor, the last one emits to the outbox of this processor. The
+ * buffers take the role of the edge queues and this processor takes the
+ * role of the tasklets, calling the methods of the inner processors in the
+ * order the tasklets would.
+ * <p>
+ * The inbox of this processor is the inbox of the first processor. The
+ * entries the inner processors save to the snapshot keep their key, the
+ * value is wrapped into an entry with the index of the processor in the
+ * chain.
+ */
+public final class FusedChainP implements Processor {
+
+    /**
+     * The number of items a buffer between two processors accepts.
+     */
+    static final int BUFFER_CAPACITY = 1024;
+
+    private final Processor[] processors;
+    private final String[] vertexNames;
+    private final StageOutbox[] outboxes;
+    private final StageInbox[] inboxes;
+    private final boolean[] tryProcessPending;
+    private StageInbox[] restoreInboxes;
+
+    private boolean firstStageDone;
+    private int snapshotIndex;
+    private int completeIndex;
+    private boolean edgeCompleted;
+    private int restoreIndex;
+
+    public FusedChainP(@Nonnull List<? extends Processor> processors) {
+        this(processors, null);
+    }
+
+    /**
+     * @param vertexNames the names of the fused vertices, each processor gets
+     *          a context with the name of its vertex. If {@code null}, the
+     *          processors get the context of this processor.
+     */
+    public FusedChainP(@Nonnull List<? extends Processor> processors, @Nullable List<String> vertexNames) {
+        checkTrue(processors.size() > 1, "at least two processors are required");
+        checkTrue(vertexNames == null || vertexNames.size() == processors.size(),
+                "a vertex name is required for each processor");
+        int count = processors.size();
+        this.processors = processors.toArray(new Processor[0]);
+        this.vertexNames = vertexNames != null ? vertexNames.toArray(new String[0]) : null;
+        this.outboxes = new StageOutbox[count];
+        this.inboxes = new StageInbox[count];
+        this.tryProcessPending = new boolean[count];
+        this.restoreIndex = count - 1;
+        for (int i = 1; i < count; i++) {
+            inboxes[i] = new StageInbox();
+        }
+    }
+
+    @Override
+    public boolean isCooperative() {
+        for (Processor processor : processors) {
+            if (!processor.isCooperative()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean retainsInputItems() {
+        return processors[0].retainsInputItems();
+    }
+
+    @Override
+    public void init(@Nonnull Outbox outbox, @Nonnull Context context) throws Exception {
+        for (int i = 0; i < processors.length; i++) {
+            outboxes[i] = i < processors.length - 1
+                    ? new StageOutbox(i, inboxes[i + 1].queue, outbox)
+                    : new StageOutbox(i, null, outbox);
+            processors[i].init(outboxes[i], stageContext(i, context));
+        }
+    }
+
+    /**
+     * Returns the context of the processor at the given index: a copy of the
+     * given context with the name and the logger of the processor's vertex.
+     * Like in {@link PeekWrappedP}, the context is replaced only if it's a
+     * {@link ProcCtx}.
+     */
+    private Context stageContext(int index, Context context) {
+        if (vertexNames == null || !(context instanceof ProcCtx)) {
+            return context;
+        }
+        ProcCtx c = (ProcCtx) context;
+        NodeEngine nodeEngine = ((HazelcastInstanceImpl) c.jetInstance().getHazelcastInstance()).node.nodeEngine;
+        ILogger logger = nodeEngine.getLogger(createLoggerName(
+                processors[index].getClass().getName(),
+                c.jobConfig().getName(),
+                vertexNames[index],
+                c.globalProcessorIndex()));
+        return new ProcCtx(c.jetInstance(), c.jobId(), c.executionId(), c.jobConfig(),
+                logger, vertexNames[index], c.localProcessorIndex(), c.globalProcessorIndex(), c.processingGuarantee(),
+                c.localParallelism(), c.memberIndex(), c.memberCount());
+    }
+
+    @Override
+    public void process(int ordinal, @Nonnull Inbox inbox) {
+        if (pump()) {
+            processors[0].process(ordinal, inbox);
+            pump();
+        }
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
+        if (!firstStageDone) {
+            if (!processors[0].tryProcessWatermark(watermark)) {
+                pump();
+                return false;
+            }
+            firstStageDone = true;
+        }
+        if (!pump()) {
+            return false;
+        }
+        firstStageDone = false;
+        return true;
+    }
+
+    @Override
+    public boolean tryProcess() {
+        boolean done = tryProcessStages(0);
+        return pump() && done;
+    }
+
+    /**
+     * Calls {@link Processor#tryProcess()} on the processors from the given
+     * index on, like the tasklet calls it when the inbox is empty. Returns
+     * {@code true} if no call is pending.
+     */
+    private boolean tryProcessStages(int fromIndex) {
+        boolean done = true;
+        for (int i = fromIndex; i < processors.length; i++) {
+            if (tryProcessPending[i] || i == 0 || inboxes[i].queue.isEmpty()) {
+                tryProcessPending[i] = !processors[i].tryProcess();
+                done &= !tryProcessPending[i];
+            }
+            pump();
+        }
+        return done;
+    }
+
+    @Override
+    public boolean completeEdge(int ordinal) {
+        if (!firstStageDone) {
+            if (!processors[0].completeEdge(ordinal)) {
+                pump();
+                return false;
+            }
+            firstStageDone = true;
+        }
+        if (!pump()) {
+            return false;
+        }
+        firstStageDone = false;
+        return true;
+    }
+
+    /**
+     * Completes the processors from the first one to the last one. The
+     * processors after the completing one still have their input edge
+     * active, therefore their {@code tryProcess()} is called before each
+     * step like the tasklets would call it. This matters when the first
+     * processor is a source: its {@code complete()} may never return {@code
+     * true} and the downstream processors, e.g. the one inserting the
+     * watermarks, rely on {@code tryProcess()} to emit items on their own.
+     */
+    @Override
+    public boolean complete() {
+        while (completeIndex < processors.length) {
+            boolean inputActive = completeIndex > 0 && !edgeCompleted;
+            tryProcessStages(inputActive ? completeIndex : completeIndex + 1);
+            if (!pump()) {
+                return false;
+            }
+            Processor processor = processors[completeIndex];
+            if (inputActive) {
+                if (tryProcessPending[completeIndex]) {
+                    // like the tasklet, complete the edge only after tryProcess() returned true
+                    return false;
+                }
+                if (!processor.completeEdge(0)) {
+                    pump();
+                    return false;
+                }
+                edgeCompleted = true;
+                continue;
+            }
+            if (!processor.complete()) {
+                pump();
+                return false;
+            }
+            completeIndex++;
+            edgeCompleted = false;
+        }
+        return pump();
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        // the completed processors aren't asked to save the snapshot anymore
+        snapshotIndex = Math.max(snapshotIndex, completeIndex);
+        while (snapshotIndex < processors.length) {
+            if (!pump()) {
+                return false;
+            }
+            if (!processors[snapshotIndex].saveToSnapshot()) {
+                pump();
+                return false;
+            }
+            snapshotIndex++;
+        }
+        if (!pump()) {
+            return false;
+        }
+        snapshotIndex = 0;
+        return true;
+    }
+
+    @Override
+    public void restoreFromSnapshot(@Nonnull Inbox inbox) {
+        if (restoreInboxes == null) {
+            restoreInboxes = new StageInbox[processors.length];
+            for (int i = 0; i < processors.length; i++) {
+                restoreInboxes[i] = new StageInbox();
+            }
+        }
+        for (Object item; (item = inbox.poll()) != null; ) {
+            Entry<?, ?> snapshotEntry = (Entry<?, ?>) item;
+            Entry<?, ?> wrappedValue = (Entry<?, ?>) snapshotEntry.getValue();
+            restoreInboxes[(Integer) wrappedValue.getKey()].queue.add(
+                    entry(snapshotEntry.getKey(), wrappedValue.getValue()));
+        }
+    }
+
+    /**
+     * Restores the processors from the last one to the first one, so that a
+     * processor receives the items its upstream processor emits while
+     * restoring only after it's restored itself.
+     */
+    @Override
+    public boolean finishSnapshotRestore() {
+        while (restoreIndex >= 0) {
+            if (!pump()) {
+                return false;
+            }
+            Processor processor = processors[restoreIndex];
+            Deque<Object> restoreQueue = restoreInboxes != null ? restoreInboxes[restoreIndex].queue : null;
+            if (restoreQueue != null && !restoreQueue.isEmpty()) {
+                int sizeBefore = restoreQueue.size();
+                processor.restoreFromSnapshot(restoreInboxes[restoreIndex]);
+                if (restoreQueue.size() == sizeBefore) {
+                    pump();
+                    return false;
+                }
+                continue;
+            }
+            if (!processor.finishSnapshotRestore()) {
+                pump();
+                return false;
+            }
+            restoreIndex--;
+        }
+        restoreInboxes = null;
+        return pump();
+    }
+
+    @Override
+    public void close() throws Exception {
+        Exception firstError = null;
+        for (Processor processor : processors) {
+            try {
+                processor.close();
+            } catch (Exception e) {
+                if (firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+        if (firstError != null) {
+            throw firstError;
+        }
+    }
+
+    /**
+     * Passes the items in the buffers to the downstream processors for as
+     * long as any processor makes progress. Returns {@code true} if all
+     * buffers are empty.
+     */
+    private boolean pump() {
+        boolean progress;
+        do {
+            progress = false;
+            for (int i = 1; i < processors.length; i++) {
+                progress |= pumpStage(i);
+            }
+        } while (progress);
+        for (int i = 1; i < processors.length; i++) {
+            if (!inboxes[i].queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Passes the items in the inbox of the processor at the given index to
+     * it. Returns {@code true} if the processor took any item.
+     */
+    private boolean pumpStage(int index) {
+        if (tryProcessPending[index]) {
+            return false;
+        }
+        Deque<Object> queue = inboxes[index].queue;
+        boolean progress = false;
+        while (!queue.isEmpty()) {
+            Object head = queue.peek();
+            if (head instanceof Watermark) {
+                // like the tasklet, forward the idle message without passing it to the processor
+                boolean done = head.equals(IDLE_MESSAGE)
+                        ? outboxes[index].offer(IDLE_MESSAGE)
+                        : processors[index].tryProcessWatermark((Watermark) head);
+                if (!done) {
+                    break;
+                }
+                queue.remove();
+            } else {
+                int sizeBefore = queue.size();
+                processors[index].process(0, inboxes[index]);
+                if (queue.size() == sizeBefore) {
+                    break;
+                }
+            }
+            progress = true;
+        }
+        return progress;
+    }
+
+    /**
+     * The inbox of an inner processor. It hides the items after a
+     * watermark, the watermark is passed to {@link
+     * Processor#tryProcessWatermark} once the items before it are
+     * processed.
+     */
+    private static final class StageInbox implements Inbox {
+        private final Deque<Object> queue = new ArrayDeque<>();
+
+        @Override
+        public boolean isEmpty() {
+            return peek() == null;
+        }
+
+        @Override
+        public Object peek() {
+            Object item = queue.peek();
+            return item instanceof Watermark ? null : item;
+        }
+
+        @Override
+        public Object poll() {
+            return peek() != null ? queue.poll() : null;
+        }
+
+        @Override
+        public void remove() {
+            if (peek() == null) {
+                throw new NoSuchElementException();
+            }
+            queue.remove();
+        }
+    }
+
+    /**
+     * The outbox of an inner processor. It adds the items to the inbox of
+     * the next processor, if there's one, otherwise it offers them to the
+     * outbox of the fused processor.
+     */
+    private static final class StageOutbox implements Outbox {
+        private final int index;
+        private final Deque<Object> buffer;
+        private final Outbox outbox;
+
+        StageOutbox(int index, @Nullable Deque<Object> buffer, Outbox outbox) {
+            this.index = index;
+            this.buffer = buffer;
+            this.outbox = outbox;
+        }
+
+        @Override
+        public int bucketCount() {
+            return buffer != null ? 1 : outbox.bucketCount();
+        }
+
+        @Override
+        public boolean offer(int ordinal, @Nonnull Object item) {
+            if (buffer == null) {
+                return outbox.offer(ordinal, item);
+            }
+            assert ordinal == 0 || ordinal == -1 : "ordinal=" + ordinal;
+            if (buffer.size() >= BUFFER_CAPACITY) {
+                return false;
+            }
+            buffer.add(item);
+            return true;
+        }
+
+        @Override
+        public boolean offer(@Nonnull int[] ordinals, @Nonnull Object item) {
+            if (buffer == null) {
+                return outbox.offer(ordinals, item);
+            }
+            return ordinals.length == 0 || offer(ordinals[0], item);
+        }
+
+        @Override
+        public boolean offerToSnapshot(@Nonnull Object key, @Nonnull Object value) {
+            return outbox.offerToSnapshot(key, entry(index, value));
+        }
+
+        @Override
+        public boolean hasUnfinishedItem() {
+            return buffer == null && outbox.hasUnfinishedItem();
+        }
+
+        @Nullable @Override
+        public Object reusableItem(int ordinal) {
+            return buffer == null ? outbox.reusableItem(ordinal) : null;
+        }
+    }
+}
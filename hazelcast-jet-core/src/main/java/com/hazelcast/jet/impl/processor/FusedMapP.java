@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Inbox;
+import com.hazelcast.jet.core.Outbox;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.spi.properties.HazelcastProperties;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.hazelcast.jet.core.processor.Processors.mapP;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_FUSED_MAP_BATCH_SIZE;
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Processor for a chain of fused map and filter stages which processes the
+ * items in batches. It takes a batch of items from the inbox and applies
+ * each stage's function to all items of the batch before the next stage, a
+ * {@code null} result filters the item out. Then it emits the remaining
+ * items.
+ * <p>
+ * The items taken from the inbox and not yet emitted are emitted before
+ * the processor handles a watermark, completes the edge or saves the
+ * snapshot.
+ */
+public final class FusedMapP implements Processor {
+
+    private final FunctionEx<Object, Object>[] stages;
+    private final Object[] batch;
+    private int batchCount;
+    private int emitIndex;
+    private Outbox outbox;
+
+    @SuppressWarnings("unchecked")
+    FusedMapP(@Nonnull List<FunctionEx<Object, Object>> stages, int batchSize) {
+        checkPositive(batchSize, "batchSize must be positive");
+        this.stages = stages.toArray(new FunctionEx[0]);
+        this.batch = new Object[batchSize];
+    }
+
+    @Override
+    public void init(@Nonnull Outbox outbox, @Nonnull Context context) {
+        this.outbox = outbox;
+    }
+
+    @Override
+    public void process(int ordinal, @Nonnull Inbox inbox) {
+        while (emitBatch() && !inbox.isEmpty()) {
+            for (Object item; batchCount < batch.length && (item = inbox.poll()) != null; ) {
+                batch[batchCount++] = item;
+            }
+            applyStages();
+        }
+    }
+
+    @Override
+    public boolean tryProcess() {
+        return emitBatch();
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
+        return emitBatch() && outbox.offer(watermark);
+    }
+
+    @Override
+    public boolean completeEdge(int ordinal) {
+        return emitBatch();
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        return emitBatch();
+    }
+
+    private void applyStages() {
+        for (int stage = 0; stage < stages.length && batchCount > 0; stage++) {
+            FunctionEx<Object, Object> fn = stages[stage];
+            int count = 0;
+            for (int i = 0; i < batchCount; i++) {
+                Object result = fn.apply(batch[i]);
+                if (result != null) {
+                    batch[count++] = result;
+                }
+            }
+            Arrays.fill(batch, count, batchCount, null);
+            batchCount = count;
+        }
+    }
+
+    /**
+     * Emits the rest of the current batch, returns {@code true} if the
+     * whole batch is emitted.
+     */
+    private boolean emitBatch() {
+        for (; emitIndex < batchCount; emitIndex++) {
+            if (!outbox.offer(batch[emitIndex])) {
+                return false;
+            }
+            batch[emitIndex] = null;
+        }
+        batchCount = 0;
+        emitIndex = 0;
+        return true;
+    }
+
+    /**
+     * Returns a supplier of processors for the fused chain of map stages with
+     * the given functions. If the {@link
+     * com.hazelcast.jet.impl.util.JetProperties#JET_FUSED_MAP_BATCH_SIZE
+     * batch size} is set on the member, it creates {@code FusedMapP}
+     * processors, otherwise it creates {@link
+     * com.hazelcast.jet.core.processor.Processors#mapP mapP} processors with
+     * the given merged function.
+     *
+     * @param stages the functions of the stages
+     * @param mergedFn the function applying all the stages to a single item
+     */
+    @Nonnull
+    public static ProcessorSupplier fusedMapP(
+            @Nonnull List<FunctionEx<Object, Object>> stages,
+            @Nonnull FunctionEx<Object, Object> mergedFn
+    ) {
+        return new Supplier(stages, mergedFn);
+    }
+
+    private static final class Supplier implements ProcessorSupplier {
+
+        static final long serialVersionUID = 1L;
+
+        private final List<FunctionEx<Object, Object>> stages;
+        private final FunctionEx<Object, Object> mergedFn;
+        private transient int batchSize;
+
+        Supplier(List<FunctionEx<Object, Object>> stages, FunctionEx<Object, Object> mergedFn) {
+            this.stages = stages;
+            this.mergedFn = mergedFn;
+        }
+
+        @Override
+        public void init(@Nonnull Context context) {
+            HazelcastProperties properties =
+                    new HazelcastProperties(context.jetInstance().getConfig().getProperties());
+            batchSize = properties.getInteger(JET_FUSED_MAP_BATCH_SIZE);
+        }
+
+        @Nonnull
+        @Override
+        public Collection<? extends Processor> get(int count) {
+            return Stream.generate(() -> batchSize > 0 ? new FusedMapP(stages, batchSize) : mapP(mergedFn).get())
+                         .limit(count)
+                         .collect(toList());
+        }
+    }
+}
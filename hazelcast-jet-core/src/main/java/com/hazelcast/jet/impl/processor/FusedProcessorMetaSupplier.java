@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.nio.Address;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A {@link ProcessorMetaSupplier} of the vertex which replaces a chain of
+ * fused vertices. It delegates to the meta-suppliers of the vertices, see
+ * {@link FusedChainP}.
+ */
+public final class FusedProcessorMetaSupplier implements ProcessorMetaSupplier {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<ProcessorMetaSupplier> metaSuppliers;
+    private final List<String> vertexNames;
+
+    /**
+     * @param vertexNames the names of the fused vertices, in the order of
+     *          the meta-suppliers
+     */
+    public FusedProcessorMetaSupplier(@Nonnull List<ProcessorMetaSupplier> metaSuppliers,
+                                      @Nonnull List<String> vertexNames) {
+        checkTrue(metaSuppliers.size() == vertexNames.size(), "a vertex name is required for each meta-supplier");
+        this.metaSuppliers = new ArrayList<>(metaSuppliers);
+        this.vertexNames = new ArrayList<>(vertexNames);
+    }
+
+    @Override
+    public void init(@Nonnull Context context) throws Exception {
+        for (ProcessorMetaSupplier metaSupplier : metaSuppliers) {
+            metaSupplier.init(context);
+        }
+    }
+
+    @Nonnull @Override
+    public Function<Address, ProcessorSupplier> get(@Nonnull List<Address> addresses) {
+        List<Function<? super Address, ? extends ProcessorSupplier>> functions = metaSuppliers
+                .stream()
+                .map(metaSupplier -> metaSupplier.get(addresses))
+                .collect(toList());
+        return address -> {
+            List<ProcessorSupplier> suppliers = functions.stream()
+                                                         .map(f -> (ProcessorSupplier) f.apply(address))
+                                                         .collect(toList());
+            return new FusedProcessorSupplier(suppliers, vertexNames);
+        };
+    }
+
+    @Override
+    public void close(Throwable error) throws Exception {
+        Exception firstError = null;
+        for (ProcessorMetaSupplier metaSupplier : metaSuppliers) {
+            try {
+                metaSupplier.close(error);
+            } catch (Exception e) {
+                if (firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+        if (firstError != null) {
+            throw firstError;
+        }
+    }
+}
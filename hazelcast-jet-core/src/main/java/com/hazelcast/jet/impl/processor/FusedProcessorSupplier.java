@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.ProcessorSupplier;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link ProcessorSupplier} which creates {@link FusedChainP} processors
+ * from the processors the suppliers of the fused vertices create.
+ */
+public final class FusedProcessorSupplier implements ProcessorSupplier {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<ProcessorSupplier> suppliers;
+    private final List<String> vertexNames;
+
+    FusedProcessorSupplier(@Nonnull List<ProcessorSupplier> suppliers, @Nonnull List<String> vertexNames) {
+        this.suppliers = suppliers;
+        this.vertexNames = vertexNames;
+    }
+
+    @Override
+    public void init(@Nonnull Context context) throws Exception {
+        for (ProcessorSupplier supplier : suppliers) {
+            supplier.init(context);
+        }
+    }
+
+    @Nonnull @Override
+    public Collection<? extends Processor> get(int count) {
+        List<List<Processor>> chains = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            chains.add(new ArrayList<>(suppliers.size()));
+        }
+        for (ProcessorSupplier supplier : suppliers) {
+            int i = 0;
+            for (Processor processor : supplier.get(count)) {
+                chains.get(i++).add(processor);
+            }
+        }
+        List<Processor> result = new ArrayList<>(count);
+        for (List<Processor> chain : chains) {
+            result.add(new FusedChainP(chain, vertexNames));
+        }
+        return result;
+    }
+
+    @Override
+    public void close(Throwable error) throws Exception {
+        Exception firstError = null;
+        for (ProcessorSupplier supplier : suppliers) {
+            try {
+                supplier.close(error);
+            } catch (Exception e) {
+                if (firstError == null) {
+                    firstError = e;
+                }
+            }
+        }
+        if (firstError != null) {
+            throw firstError;
+        }
+    }
+}
@@ -16,21 +16,31 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+import com.hazelcast.util.function.LongFunction;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.util.Collections.singletonList;
 
@@ -39,15 +49,37 @@ import static java.util.Collections.singletonList;
  * aggregate operation on each group. The items may originate from one or
  * more inbound edges. The supplied aggregate operation must have as many
  * accumulation functions as there are inbound edges.
+ * <p>
+ * If {@linkplain SpillStore spilling} is enabled and the aggregate
+ * operation has a {@code combineFn}, the processor spills the groups to
+ * disk files once it has more groups than the threshold. In {@link
+ * #complete()} it then loads the files one by one, combines the
+ * accumulators of each group and emits the results.
+ * <p>
+ * If all the key functions are {@link LongKeyFunctionEx}s, the processor
+ * keeps the groups in a {@code Long2ObjectHashMap} to avoid boxing the
+ * keys of the items.
  */
 public class GroupP<K, A, R, OUT> extends AbstractProcessor {
     @Nonnull private final List<FunctionEx<?, ? extends K>> groupKeyFns;
     @Nonnull private final AggregateOperation<A, R> aggrOp;
 
-    private final Map<K, A> keyToAcc = new HashMap<>();
+    private Map<K, A> keyToAcc = new HashMap<>();
+    // the key functions if all of them extract primitive long keys
+    @Nullable private final LongKeyFunctionEx<Object>[] longKeyFns;
+    // keyToAcc if it's keyed by primitive longs
+    private Long2ObjectHashMap<A> longKeyToAcc;
+    private final LongFunction<A> createLongKeyAccFn;
     private Traverser<OUT> resultTraverser;
     private final BiFunction<? super K, ? super R, OUT> mapToOutputFn;
 
+    @Probe
+    private final AtomicLong bytesSpilled = new AtomicLong();
+    // package-visible for test, taken from the context in init() if not set
+    SpillStore.Factory spillFactory;
+    // the stores with partitions not yet loaded, the first one is the newest
+    private final Deque<PendingStore> spillStores = new ArrayDeque<>();
+
     public GroupP(
             @Nonnull List<FunctionEx<?, ? extends K>> groupKeyFns,
             @Nonnull AggregateOperation<A, R> aggrOp,
@@ -58,6 +90,8 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
         this.groupKeyFns = groupKeyFns;
         this.aggrOp = aggrOp;
         this.mapToOutputFn = mapToOutputFn;
+        this.longKeyFns = KeyedStateMaps.longKeyFns(groupKeyFns);
+        this.createLongKeyAccFn = k -> aggrOp.createFn().get();
     }
 
     public <T> GroupP(
@@ -68,26 +102,151 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
         this(singletonList(groupKeyFn), aggrOp, mapToOutputFn);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void init(@Nonnull Context context) {
+        keyToAcc = KeyedStateMaps.<K, A>stateMapSupplier(context, longKeyFns != null).get();
+        if (keyToAcc instanceof Long2ObjectHashMap) {
+            longKeyToAcc = (Long2ObjectHashMap<A>) keyToAcc;
+        }
+        if (aggrOp.combineFn() == null) {
+            spillFactory = null;
+        } else if (spillFactory == null) {
+            spillFactory = SpillStore.factory(context);
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
-        Function<Object, ? extends K> keyFn = (Function<Object, ? extends K>) groupKeyFns.get(ordinal);
-        K key = keyFn.apply(item);
-        A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
+        A acc;
+        if (longKeyToAcc != null) {
+            acc = longKeyToAcc.computeIfAbsent(longKeyFns[ordinal].applyAsLong(item), createLongKeyAccFn);
+        } else {
+            Function<Object, ? extends K> keyFn = (Function<Object, ? extends K>) groupKeyFns.get(ordinal);
+            K key = keyFn.apply(item);
+            acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
+        }
         aggrOp.accumulateFn(ordinal).accept(acc, item);
+        if (spillFactory != null && keyToAcc.size() > spillFactory.threshold()) {
+            if (spillStores.isEmpty()) {
+                spillStores.push(new PendingStore(spillFactory.newStore(0)));
+            }
+            spillTo(spillStores.peek().store);
+        }
         return true;
     }
 
     @Override
     public boolean complete() {
         if (resultTraverser == null) {
-            resultTraverser = new ResultTraverser()
+            Traverser<Entry<K, A>> entries;
+            if (spillStores.isEmpty()) {
+                entries = new ResultTraverser();
+            } else {
+                SpillStore store = spillStores.peek().store;
+                spillTo(store);
+                store.finishWriting();
+                entries = new SpilledResultTraverser();
+            }
+            resultTraverser = entries
                     // reuse null filtering done by map()
                     .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue())));
         }
         return emitFromTraverser(resultTraverser);
     }
 
+    @Override
+    public void close() {
+        for (PendingStore pending : spillStores) {
+            pending.store.delete();
+        }
+        spillStores.clear();
+    }
+
+    private void spillTo(SpillStore store) {
+        for (Entry<K, A> e : keyToAcc.entrySet()) {
+            lazyAdd(bytesSpilled, store.write(e.getKey(), e.getValue()));
+        }
+        keyToAcc.clear();
+    }
+
+    /**
+     * Loads the given partition of the store into {@link #keyToAcc},
+     * combining the accumulators of each key. If there are more keys than
+     * the threshold, it spills them to a store of the next level and
+     * returns it.
+     */
+    @SuppressWarnings("unchecked")
+    private SpillStore loadPartition(SpillStore store, int partition) {
+        SpillStore overflow = null;
+        SpillStore.Reader reader = store.reader(partition);
+        while (reader.advance()) {
+            if (overflow != null) {
+                lazyAdd(bytesSpilled, overflow.write(reader.key(), reader.value()));
+                continue;
+            }
+            A acc = keyToAcc.putIfAbsent((K) reader.key(), (A) reader.value());
+            if (acc != null) {
+                aggrOp.combineFn().accept(acc, (A) reader.value());
+            } else if (keyToAcc.size() > spillFactory.threshold() && store.level() < SpillStore.MAX_LEVEL) {
+                overflow = spillFactory.newStore(store.level() + 1);
+                spillTo(overflow);
+            }
+        }
+        if (overflow != null) {
+            overflow.finishWriting();
+        }
+        store.deletePartition(partition);
+        return overflow;
+    }
+
+    /**
+     * Loads the spilled partitions one at a time and traverses the entries
+     * of each.
+     */
+    private class SpilledResultTraverser implements Traverser<Entry<K, A>> {
+        private Traverser<Entry<K, A>> partitionTraverser = new ResultTraverser();
+
+        @Override
+        public Entry<K, A> next() {
+            Entry<K, A> entry;
+            while ((entry = partitionTraverser.next()) == null) {
+                if (!loadNextPartition()) {
+                    return null;
+                }
+                partitionTraverser = new ResultTraverser();
+            }
+            return entry;
+        }
+
+        private boolean loadNextPartition() {
+            for (PendingStore pending; (pending = spillStores.peek()) != null; ) {
+                if (pending.nextPartition == SpillStore.PARTITION_COUNT) {
+                    pending.store.delete();
+                    spillStores.pop();
+                    continue;
+                }
+                SpillStore overflow = loadPartition(pending.store, pending.nextPartition++);
+                if (overflow != null) {
+                    spillStores.push(new PendingStore(overflow));
+                } else if (!keyToAcc.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class PendingStore {
+        final SpillStore store;
+        int nextPartition;
+
+        PendingStore(SpillStore store) {
+            this.store = store;
+        }
+    }
+
     private class ResultTraverser implements Traverser<Entry<K, A>> {
         private final Iterator<Entry<K, A>> iter = keyToAcc.entrySet().iterator();
 
@@ -97,7 +256,9 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
                 return null;
             }
             try {
-                return iter.next();
+                Entry<K, A> e = iter.next();
+                // the iterator of Long2ObjectHashMap reuses the entry object
+                return longKeyToAcc != null ? entry(e.getKey(), e.getValue()) : e;
             } finally {
                 iter.remove();
             }
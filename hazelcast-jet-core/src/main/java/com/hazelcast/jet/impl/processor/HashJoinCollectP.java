@@ -16,23 +16,37 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.core.AbstractProcessor;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+
 /**
  * Implements the "collector" stage in a hash join transformation. This
  * stage collects the entire joined stream into a hashtable and then
  * broadcasts it to all local second-stage processors.
+ * <p>
+ * If {@linkplain SpillStore spilling} is enabled and the hashtable has
+ * more keys than the threshold, the processor spills it to disk files.
+ * Instead of the hashtable, it then broadcasts the {@link SpillStore} and
+ * the {@link HashJoinP} processors join their input with it one partition
+ * at a time. The hash-join processors delete the files. Spilling must
+ * be allowed when creating the processor: it's only safe if the primary
+ * stream of the join is finite, otherwise the hash-join processors would
+ * spill it forever and never emit anything.
  */
 public class HashJoinCollectP<K, T, V> extends AbstractProcessor {
 
-    private static final BiFunction<Object, Object, Object> MERGE_FN = (o, n) -> {
+    static final BiFunction<Object, Object, Object> MERGE_FN = (o, n) -> {
         if (o instanceof HashJoinArrayList) {
             ((HashJoinArrayList) o).add(n);
             return o;
@@ -49,10 +63,35 @@ public class HashJoinCollectP<K, T, V> extends AbstractProcessor {
     private final Map<K, Object> lookupTable = new HashMap<>();
     @Nonnull private final Function<T, K> keyFn;
     @Nonnull private final Function<T, V> projectFn;
+    private final boolean allowSpilling;
+
+    @Probe
+    private final AtomicLong bytesSpilled = new AtomicLong();
+    // package-visible for test, taken from the context in init() if not set
+    SpillStore.Factory spillFactory;
+    private SpillStore spillStore;
 
     public HashJoinCollectP(@Nonnull Function<T, K> keyFn, @Nonnull Function<T, V> projectFn) {
+        this(keyFn, projectFn, false);
+    }
+
+    /**
+     * @param allowSpilling whether the lookup table can be spilled to disk,
+     *      it must be {@code false} if the primary stream is infinite
+     */
+    public HashJoinCollectP(
+            @Nonnull Function<T, K> keyFn, @Nonnull Function<T, V> projectFn, boolean allowSpilling
+    ) {
         this.keyFn = keyFn;
         this.projectFn = projectFn;
+        this.allowSpilling = allowSpilling;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        if (spillFactory == null && allowSpilling) {
+            spillFactory = SpillStore.factory(context);
+        }
     }
 
     @Override
@@ -62,12 +101,48 @@ public class HashJoinCollectP<K, T, V> extends AbstractProcessor {
         K key = keyFn.apply(t);
         V value = projectFn.apply(t);
         lookupTable.merge(key, value, MERGE_FN);
+        if (spillFactory != null && lookupTable.size() > spillFactory.threshold()) {
+            spill();
+        }
         return true;
     }
 
     @Override
     public boolean complete() {
-        return tryEmit(lookupTable);
+        if (spillStore == null) {
+            return tryEmit(lookupTable);
+        }
+        spill();
+        spillStore.finishWriting();
+        if (!tryEmit(spillStore)) {
+            return false;
+        }
+        // the hash-join processors own the store now
+        spillStore = null;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (spillStore != null) {
+            spillStore.delete();
+        }
+    }
+
+    private void spill() {
+        if (spillStore == null) {
+            spillStore = spillFactory.newStore(0);
+        }
+        for (Entry<K, Object> e : lookupTable.entrySet()) {
+            if (e.getValue() instanceof HashJoinArrayList) {
+                for (Object value : (HashJoinArrayList) e.getValue()) {
+                    lazyAdd(bytesSpilled, spillStore.write(e.getKey(), value));
+                }
+            } else {
+                lazyAdd(bytesSpilled, spillStore.write(e.getKey(), e.getValue()));
+            }
+        }
+        lookupTable.clear();
     }
 
     // We need a custom ArrayList subclass because the user's V type could be
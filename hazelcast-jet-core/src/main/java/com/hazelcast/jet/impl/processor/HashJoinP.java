@@ -16,10 +16,15 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.datamodel.ItemsByTag;
 import com.hazelcast.jet.datamodel.Tag;
+import com.hazelcast.jet.function.BiFunctionEx;
+import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 import com.hazelcast.jet.impl.pipeline.transform.HashJoinTransform;
 import com.hazelcast.jet.impl.processor.HashJoinCollectP.HashJoinArrayList;
@@ -28,16 +33,27 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
+import static com.hazelcast.jet.impl.processor.HashJoinCollectP.MERGE_FN;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Implements the {@linkplain HashJoinTransform hash-join transform}. On
@@ -61,6 +77,17 @@ import static java.util.Objects.requireNonNull;
  * In the latter case the function must expect {@code ItemsByTag} as the
  * second argument. It uses {@code mapToOutputTriFn} for the two-arity
  * case ({@code tags == null && keyFns.size() == 2}).
+ * <p>
+ * Instead of a lookup table, the processor can receive a {@link
+ * SpillStore} with the lookup table spilled to disk files by {@link
+ * HashJoinCollectP}. It then spills the items of edge 0 partitioned by
+ * their key for the first spilled table in the same way. In {@link
+ * #complete()} it loads the lookup table partitions one at a time and
+ * joins the items of the partition with it. If more tables are spilled,
+ * the items of each partition are partitioned again by their key for the
+ * next spilled table and so on, so that only one partition of each
+ * spilled table is in memory at a time. The processors created by {@link
+ * #hashJoinP} delete the received stores when the supplier is closed.
  */
 @SuppressWarnings("unchecked")
 @SuppressFBWarnings(value = "NP_PARAMETER_MUST_BE_NONNULL_BUT_MARKED_AS_NULLABLE",
@@ -73,6 +100,14 @@ public class HashJoinP<E0> extends AbstractProcessor {
 
     private boolean ordinal0Consumed;
 
+    @Probe
+    private final AtomicLong bytesSpilled = new AtomicLong();
+    private final List<SpillStore> spilledTables;
+    private Set<SpillStore> receivedSpillStores;
+    // package-visible for test, taken from the context in init() if not set
+    SpillStore.Factory spillFactory;
+    private SpilledJoin spilledJoin;
+
     @SuppressFBWarnings(value = "NP_PARAMETER_MUST_BE_NONNULL_BUT_MARKED_AS_NULLABLE",
             justification = "https://github.com/spotbugs/spotbugs/issues/844")
     public HashJoinP(
@@ -83,6 +118,7 @@ public class HashJoinP<E0> extends AbstractProcessor {
     ) {
         this.keyFns = keyFns;
         this.lookupTables = new ArrayList<>(Collections.nCopies(keyFns.size(), null));
+        this.spilledTables = new ArrayList<>(Collections.nCopies(keyFns.size(), null));
         BiFunction<E0, Object[], Object> mapTupleToOutputFn;
         checkTrue(mapToOutputBiFn != null ^ mapToOutputTriFn != null,
                 "Exactly one of mapToOutputBiFn and mapToOutputTriFn must be non-null");
@@ -110,19 +146,79 @@ public class HashJoinP<E0> extends AbstractProcessor {
         flatMapper = flatMapper(traverser::accept);
     }
 
+    @Override
+    protected void init(@Nonnull Context context) {
+        if (spillFactory == null) {
+            spillFactory = SpillStore.factory(context);
+        }
+    }
+
     @Override
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
         assert !ordinal0Consumed : "Edge 0 must have a lower priority than all other edges";
-        lookupTables.set(ordinal - 1, (Map) item);
+        if (item instanceof SpillStore) {
+            if (spillFactory == null) {
+                throw new IllegalStateException("Received a spilled lookup table, but spilling is disabled");
+            }
+            spilledTables.set(ordinal - 1, (SpillStore) item);
+            if (receivedSpillStores != null) {
+                receivedSpillStores.add((SpillStore) item);
+            }
+        } else {
+            lookupTables.set(ordinal - 1, (Map) item);
+        }
         return true;
     }
 
     @Override
     protected boolean tryProcess0(@Nonnull Object item) {
-        ordinal0Consumed = true;
+        if (!ordinal0Consumed) {
+            ordinal0Consumed = true;
+            int[] spilledIndices = new int[keyFns.size()];
+            int count = 0;
+            for (int i = 0; i < spilledTables.size(); i++) {
+                if (spilledTables.get(i) != null) {
+                    spilledIndices[count++] = i;
+                }
+            }
+            if (count > 0) {
+                spilledJoin = new SpilledJoin(Arrays.copyOf(spilledIndices, count));
+            }
+        }
+        if (spilledJoin != null) {
+            spilledJoin.spill((E0) item);
+            return true;
+        }
         return flatMapper.tryProcess((E0) item);
     }
 
+    @Override
+    public boolean complete() {
+        return spilledJoin == null || spilledJoin.tryJoin();
+    }
+
+    @Override
+    public void close() {
+        if (spilledJoin != null) {
+            spilledJoin.delete();
+        }
+    }
+
+    /**
+     * Returns a supplier of hash-join processors which deletes the spilled
+     * lookup tables the processors receive when it's closed. See {@link
+     * HashJoinP} for the description of the arguments.
+     */
+    @Nonnull
+    public static ProcessorSupplier hashJoinP(
+            @Nonnull List<FunctionEx<?, Object>> keyFns,
+            @Nonnull List<Tag> tags,
+            @Nullable BiFunctionEx mapToOutputBiFn,
+            @Nullable TriFunction mapToOutputTriFn
+    ) {
+        return new Supplier(keyFns, tags, mapToOutputBiFn, mapToOutputTriFn);
+    }
+
     @Nonnull
     private Object lookUpJoined(int index, E0 item) {
         Map<Object, Object> lookupTableForOrdinal = lookupTables.get(index);
@@ -130,6 +226,164 @@ public class HashJoinP<E0> extends AbstractProcessor {
         return lookupTableForOrdinal.get(key);
     }
 
+    /**
+     * Joins the items of edge 0 with the spilled lookup tables, one
+     * partition at a time.
+     */
+    private final class SpilledJoin {
+        // the indices of the spilled tables in the lookup tables
+        private final int[] spilledIndices;
+        private final SpillStore items;
+        // the stores of items with partitions still to join, the first one is the newest
+        private final Deque<PendingItems> pending = new ArrayDeque<>();
+        private E0 pendingItem;
+        private boolean started;
+
+        SpilledJoin(int[] spilledIndices) {
+            this.spilledIndices = spilledIndices;
+            this.items = spillFactory.newStore(0);
+        }
+
+        void spill(E0 item) {
+            lazyAdd(bytesSpilled, items.write(keyFns.get(spilledIndices[0]).apply(item), item));
+        }
+
+        /**
+         * Joins and emits the items, returns {@code true} when done.
+         */
+        boolean tryJoin() {
+            if (!started) {
+                started = true;
+                items.finishWriting();
+                pending.push(new PendingItems(items, 0));
+            }
+            for (PendingItems top; ; ) {
+                if (pendingItem != null) {
+                    if (!flatMapper.tryProcess(pendingItem)) {
+                        return false;
+                    }
+                    pendingItem = null;
+                }
+                if ((top = pending.peek()) == null) {
+                    return true;
+                }
+                if (top.reader != null) {
+                    if (top.reader.advance()) {
+                        pendingItem = (E0) top.reader.value();
+                        continue;
+                    }
+                    top.reader = null;
+                    top.store.deletePartition(top.nextPartition - 1);
+                }
+                if (top.nextPartition == SpillStore.PARTITION_COUNT) {
+                    top.store.delete();
+                    pending.pop();
+                    continue;
+                }
+                int partition = top.nextPartition++;
+                int tableIndex = spilledIndices[top.depth];
+                lookupTables.set(tableIndex, loadTable(spilledTables.get(tableIndex), partition));
+                if (top.depth == spilledIndices.length - 1) {
+                    top.reader = top.store.reader(partition);
+                } else {
+                    pending.push(new PendingItems(partitionAgain(top, partition), top.depth + 1));
+                }
+            }
+        }
+
+        /**
+         * Spills the items of the given partition to a new store,
+         * partitioned by their key for the next spilled table.
+         */
+        private SpillStore partitionAgain(PendingItems parent, int partition) {
+            SpillStore store = spillFactory.newStore(0);
+            Function<E0, Object> keyFn = keyFns.get(spilledIndices[parent.depth + 1]);
+            SpillStore.Reader reader = parent.store.reader(partition);
+            while (reader.advance()) {
+                E0 item = (E0) reader.value();
+                lazyAdd(bytesSpilled, store.write(keyFn.apply(item), item));
+            }
+            store.finishWriting();
+            parent.store.deletePartition(partition);
+            return store;
+        }
+
+        private Map<Object, Object> loadTable(SpillStore table, int partition) {
+            Map<Object, Object> result = new HashMap<>();
+            SpillStore.Reader reader = table.reader(partition);
+            while (reader.advance()) {
+                result.merge(reader.key(), reader.value(), MERGE_FN);
+            }
+            return result;
+        }
+
+        void delete() {
+            items.delete();
+            for (PendingItems p : pending) {
+                if (p.reader != null) {
+                    p.reader.close();
+                }
+                p.store.delete();
+            }
+            pending.clear();
+        }
+    }
+
+    private static final class PendingItems {
+        final SpillStore store;
+        final int depth;
+        int nextPartition;
+        SpillStore.Reader reader;
+
+        PendingItems(SpillStore store, int depth) {
+            this.store = store;
+            this.depth = depth;
+        }
+    }
+
+    private static final class Supplier implements ProcessorSupplier {
+
+        static final long serialVersionUID = 1L;
+
+        private final List<FunctionEx<?, Object>> keyFns;
+        private final List<Tag> tags;
+        private final BiFunctionEx mapToOutputBiFn;
+        private final TriFunction mapToOutputTriFn;
+        private transient Set<SpillStore> receivedSpillStores;
+
+        Supplier(List<FunctionEx<?, Object>> keyFns, List<Tag> tags, BiFunctionEx mapToOutputBiFn,
+                 TriFunction mapToOutputTriFn) {
+            this.keyFns = keyFns;
+            this.tags = tags;
+            this.mapToOutputBiFn = mapToOutputBiFn;
+            this.mapToOutputTriFn = mapToOutputTriFn;
+        }
+
+        @Override
+        public void init(@Nonnull Context context) {
+            receivedSpillStores = ConcurrentHashMap.newKeySet();
+        }
+
+        @Nonnull @Override
+        public Collection<? extends Processor> get(int count) {
+            return Stream.generate(() -> {
+                HashJoinP<Object> processor = new HashJoinP<>((List) keyFns, tags, mapToOutputBiFn, mapToOutputTriFn);
+                processor.receivedSpillStores = receivedSpillStores;
+                return processor;
+            }).limit(count).collect(toList());
+        }
+
+        @Override
+        public void close(Throwable error) {
+            if (receivedSpillStores == null) {
+                return;
+            }
+            for (SpillStore store : receivedSpillStores) {
+                store.delete();
+            }
+        }
+    }
+
     private class CombinationsTraverser<OUT> implements Traverser<OUT> {
         private final BiFunction<E0, Object[], OUT> mapTupleToOutputFn;
         private final Object[] lookedUpValues;
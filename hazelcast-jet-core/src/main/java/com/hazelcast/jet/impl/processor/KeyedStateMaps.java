@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
+import com.hazelcast.jet.impl.util.OffHeapStateMap;
+import com.hazelcast.jet.impl.util.OffHeapStateMap.HeapCache;
+import com.hazelcast.spi.properties.HazelcastProperties;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.hazelcast.jet.impl.util.JetProperties.JET_KEYED_STATE_HEAP_CACHE_SIZE;
+
+/**
+ * Creates the maps in which the keyed aggregation processors keep their
+ * state, see {@link
+ * com.hazelcast.jet.impl.util.JetProperties#JET_KEYED_STATE_HEAP_CACHE_SIZE}.
+ */
+final class KeyedStateMaps {
+
+    private KeyedStateMaps() {
+    }
+
+    /**
+     * Returns a supplier of the state maps for a processor with the given
+     * context. The maps are {@link OffHeapStateMap}s if the heap cache size
+     * is set on the member, otherwise they are {@code HashMap}s. Outside of
+     * a job, for example in a test context, they are always {@code
+     * HashMap}s. All the {@code OffHeapStateMap}s of a supplier share one
+     * heap cache, so the processor must use a single supplier for all its
+     * maps.
+     */
+    @Nonnull
+    static <K, V> Supplier<Map<K, V>> stateMapSupplier(@Nonnull Processor.Context context) {
+        return stateMapSupplier(context, false);
+    }
+
+    /**
+     * Returns a supplier of the state maps like {@link
+     * #stateMapSupplier(Processor.Context)}, except that the heap maps are
+     * {@code Long2ObjectHashMap}s if {@code longKeys} is true. The keys must
+     * be {@code Long}s in that case.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    static <K, V> Supplier<Map<K, V>> stateMapSupplier(@Nonnull Processor.Context context, boolean longKeys) {
+        return stateMapSupplier(context, longKeys
+                ? () -> (Map<K, V>) new Long2ObjectHashMap<V>()
+                : HashMap::new);
+    }
+
+    /**
+     * Returns a supplier of the state maps like {@link
+     * #stateMapSupplier(Processor.Context)}, except that the heap maps are
+     * created by the given supplier.
+     */
+    @Nonnull
+    static <K, V> Supplier<Map<K, V>> stateMapSupplier(
+            @Nonnull Processor.Context context, @Nonnull Supplier<Map<K, V>> heapMapSupplier
+    ) {
+        if (!(context instanceof ProcCtx)) {
+            return heapMapSupplier;
+        }
+        HazelcastProperties properties = new HazelcastProperties(context.jetInstance().getConfig().getProperties());
+        int cacheSize = properties.getInteger(JET_KEYED_STATE_HEAP_CACHE_SIZE);
+        if (cacheSize <= 0) {
+            return heapMapSupplier;
+        }
+        InternalSerializationService serializationService =
+                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+        HeapCache heapCache = new HeapCache(cacheSize);
+        return () -> new OffHeapStateMap<>(serializationService, heapCache);
+    }
+
+    /**
+     * Releases the cached entries of a state map the processor no longer
+     * uses, so that they don't take the place of the entries of its other
+     * maps in the shared heap cache. The heap maps are left to the garbage
+     * collector.
+     */
+    static void release(@Nullable Map<?, ?> stateMap) {
+        if (stateMap instanceof OffHeapStateMap) {
+            stateMap.clear();
+        }
+    }
+
+    /**
+     * Returns the given key functions cast to {@link LongKeyFunctionEx} if
+     * they all are instances of it, otherwise {@code null}.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static LongKeyFunctionEx<Object>[] longKeyFns(@Nonnull List<? extends Function<?, ?>> keyFns) {
+        if (!keyFns.stream().allMatch(LongKeyFunctionEx.class::isInstance)) {
+            return null;
+        }
+        return keyFns.toArray(new LongKeyFunctionEx[0]);
+    }
+}
@@ -243,5 +243,10 @@ public final class PeekWrappedP<T> extends ProcessorWrapper {
         public boolean hasUnfinishedItem() {
             return wrappedOutbox.hasUnfinishedItem();
         }
+
+        @Override
+        public Object reusableItem(int ordinal) {
+            return wrappedOutbox.reusableItem(ordinal);
+        }
     }
 }
@@ -0,0 +1,556 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.LongLongAccumulator;
+import com.hazelcast.jet.impl.aggregate.LongArithmeticFn;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * A map of keys to accumulators whose whole state is one or two {@code
+ * long}s, such as the {@link LongAccumulator} of {@code counting()} and
+ * {@code summingLong()} or the {@link LongLongAccumulator} of {@code
+ * averagingLong()}. Instead of an accumulator object per key, the map
+ * keeps the state in a {@code long[]} array parallel to the array of the
+ * keys, so it takes a fraction of the memory of a {@code HashMap}. If the
+ * map is {@linkplain #supplierFor long-keyed}, the keys are {@code Long}s
+ * and the map keeps them unboxed in a {@code long[]} array too.
+ * <p>
+ * The accumulators returned by the {@code Map} methods are copies, a
+ * change to them is only stored by {@link #put}. The methods {@link
+ * #accumulate}, {@link #accumulateLong} and {@link #patch} apply the
+ * aggregate operation's functions to the state in place: they load it
+ * into a reused accumulator object, apply the function and store the
+ * result back. {@code patch} applies a {@link LongArithmeticFn} directly
+ * to the arrays.
+ *
+ * @param <K> type of the key
+ * @param <A> type of the accumulator
+ */
+final class PrimitiveAccumulatorMap<K, A> extends AbstractMap<K, A> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final double LOAD_FACTOR = 0.6;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private static final Layout<LongAccumulator> LONG_ACCUMULATOR_LAYOUT = new Layout<LongAccumulator>() {
+        @Override
+        int width() {
+            return 1;
+        }
+
+        @Override
+        LongAccumulator newAccumulator() {
+            return new LongAccumulator();
+        }
+
+        @Override
+        void load(long[] states, int offset, LongAccumulator acc) {
+            acc.set(states[offset]);
+        }
+
+        @Override
+        void store(LongAccumulator acc, long[] states, int offset) {
+            states[offset] = acc.get();
+        }
+    };
+
+    private static final Layout<LongLongAccumulator> LONG_LONG_ACCUMULATOR_LAYOUT = new Layout<LongLongAccumulator>() {
+        @Override
+        int width() {
+            return 2;
+        }
+
+        @Override
+        LongLongAccumulator newAccumulator() {
+            return new LongLongAccumulator();
+        }
+
+        @Override
+        void load(long[] states, int offset, LongLongAccumulator acc) {
+            acc.set1(states[offset]);
+            acc.set2(states[offset + 1]);
+        }
+
+        @Override
+        void store(LongLongAccumulator acc, long[] states, int offset) {
+            states[offset] = acc.get1();
+            states[offset + 1] = acc.get2();
+        }
+    };
+
+    private final Layout<A> layout;
+    private final int width;
+    // the state of the accumulator created by the aggregate operation's createFn
+    private final long[] emptyState;
+    private final A reusedAcc;
+
+    // package-visible for test
+    final boolean longKeyed;
+
+    // the keys are in objectKeys, or in longKeys if the map is long-keyed
+    private Object[] objectKeys;
+    private long[] longKeys;
+    private boolean[] used = new boolean[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private long[] states;
+    private int size;
+    private int modCount;
+
+    private PrimitiveAccumulatorMap(Layout<A> layout, A emptyAcc, boolean longKeyed) {
+        this.layout = layout;
+        this.width = layout.width();
+        this.emptyState = new long[width];
+        layout.store(emptyAcc, emptyState, 0);
+        this.reusedAcc = layout.newAccumulator();
+        this.longKeyed = longKeyed;
+        if (longKeyed) {
+            this.longKeys = new long[INITIAL_CAPACITY];
+        } else {
+            this.objectKeys = new Object[INITIAL_CAPACITY];
+        }
+        this.states = new long[INITIAL_CAPACITY * width];
+    }
+
+    /**
+     * Returns a supplier of the maps for the accumulators of the same class
+     * as the given empty one, or {@code null} if the class isn't supported.
+     * If {@code longKeyed} is true, the keys of the maps must be {@code
+     * Long}s and the maps keep them unboxed, use {@link #accumulateLong} to
+     * accumulate to them.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static <K, A> Supplier<Map<K, A>> supplierFor(@Nonnull A emptyAcc, boolean longKeyed) {
+        Layout<A> layout;
+        if (emptyAcc.getClass() == LongAccumulator.class) {
+            layout = (Layout<A>) LONG_ACCUMULATOR_LAYOUT;
+        } else if (emptyAcc.getClass() == LongLongAccumulator.class) {
+            layout = (Layout<A>) LONG_LONG_ACCUMULATOR_LAYOUT;
+        } else {
+            return null;
+        }
+        return () -> new PrimitiveAccumulatorMap<>(layout, emptyAcc, longKeyed);
+    }
+
+    /**
+     * Applies the given accumulate function to the accumulator of the
+     * given key and the item. If the map doesn't contain the key, it adds
+     * it with an empty accumulator first. The map must not be long-keyed.
+     *
+     * @return {@code true} if the key was added
+     */
+    <T> boolean accumulate(@Nonnull K key, @Nonnull BiConsumer<? super A, ? super T> accumulateFn, T item) {
+        int hash = hash(key.hashCode());
+        int slot = findObjectSlot(key, hash);
+        boolean added = slot < 0;
+        if (added) {
+            slot = insertObject(-slot - 1, key, hash, emptyState, 0);
+        }
+        accumulateAt(slot, accumulateFn, item);
+        return added;
+    }
+
+    /**
+     * Like {@link #accumulate}, but takes the key unboxed. The map must be
+     * long-keyed.
+     *
+     * @return {@code true} if the key was added
+     */
+    <T> boolean accumulateLong(long key, @Nonnull BiConsumer<? super A, ? super T> accumulateFn, T item) {
+        int hash = hash(Long.hashCode(key));
+        int slot = findLongSlot(key, hash);
+        boolean added = slot < 0;
+        if (added) {
+            slot = insertLong(-slot - 1, key, hash, emptyState, 0);
+        }
+        accumulateAt(slot, accumulateFn, item);
+        return added;
+    }
+
+    private <T> void accumulateAt(int slot, BiConsumer<? super A, ? super T> accumulateFn, T item) {
+        int offset = slot * width;
+        layout.load(states, offset, reusedAcc);
+        accumulateFn.accept(reusedAcc, item);
+        layout.store(reusedAcc, states, offset);
+    }
+
+    /**
+     * Applies the given function to the accumulator of each key in this
+     * map and the accumulator of the same key in the given map, for
+     * example to combine or deduct a frame. The keys missing in this map
+     * are added with an empty accumulator first. If {@code removeEmpty} is
+     * true, the keys whose accumulator becomes empty are removed. Both maps
+     * must be long-keyed or neither.
+     * <p>
+     * If the function is a {@link LongArithmeticFn}, such as the combine
+     * and deduct functions of {@code counting()}, it's applied to the
+     * states directly, without going through the accumulator objects.
+     */
+    void patch(
+            @Nonnull PrimitiveAccumulatorMap<K, A> other,
+            @Nonnull BiConsumer<? super A, ? super A> patchFn,
+            boolean removeEmpty
+    ) {
+        LongArithmeticFn arithmeticFn = patchFn instanceof LongArithmeticFn ? (LongArithmeticFn) patchFn : null;
+        boolean[] otherUsed = other.used;
+        long[] otherStates = other.states;
+        for (int otherSlot = 0; otherSlot < otherUsed.length; otherSlot++) {
+            if (!otherUsed[otherSlot]) {
+                continue;
+            }
+            int hash = other.hashes[otherSlot];
+            int slot;
+            if (longKeyed) {
+                long key = other.longKeys[otherSlot];
+                slot = findLongSlot(key, hash);
+                if (slot < 0) {
+                    slot = insertLong(-slot - 1, key, hash, emptyState, 0);
+                }
+            } else {
+                Object key = other.objectKeys[otherSlot];
+                slot = findObjectSlot(key, hash);
+                if (slot < 0) {
+                    slot = insertObject(-slot - 1, key, hash, emptyState, 0);
+                }
+            }
+            int offset = slot * width;
+            int otherOffset = otherSlot * width;
+            if (arithmeticFn != null) {
+                for (int i = 0; i < width; i++) {
+                    states[offset + i] = arithmeticFn.apply(states[offset + i], otherStates[otherOffset + i]);
+                }
+            } else {
+                layout.load(states, offset, reusedAcc);
+                other.layout.load(otherStates, otherOffset, other.reusedAcc);
+                patchFn.accept(reusedAcc, other.reusedAcc);
+                layout.store(reusedAcc, states, offset);
+            }
+            if (removeEmpty && isEmptyState(offset)) {
+                removeSlot(slot);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return isValidKey(key) && findSlot(key) >= 0;
+    }
+
+    @Override
+    public A get(Object key) {
+        if (!isValidKey(key)) {
+            return null;
+        }
+        int slot = findSlot(key);
+        return slot >= 0 ? accumulatorAt(slot) : null;
+    }
+
+    @Override
+    public A put(@Nonnull K key, @Nonnull A acc) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            slot = longKeyed
+                    ? insertLong(-slot - 1, (Long) key, hash(key.hashCode()), emptyState, 0)
+                    : insertObject(-slot - 1, key, hash(key.hashCode()), emptyState, 0);
+            layout.store(acc, states, slot * width);
+            return null;
+        }
+        A previous = accumulatorAt(slot);
+        layout.store(acc, states, slot * width);
+        return previous;
+    }
+
+    @Override
+    public A remove(Object key) {
+        if (!isValidKey(key)) {
+            return null;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        A previous = accumulatorAt(slot);
+        removeSlot(slot);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(used, false);
+        if (objectKeys != null) {
+            Arrays.fill(objectKeys, null);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    @Nonnull @Override
+    public Set<Entry<K, A>> entrySet() {
+        return new AbstractSet<Entry<K, A>>() {
+            @Nonnull @Override
+            public Iterator<Entry<K, A>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private A accumulatorAt(int slot) {
+        A acc = layout.newAccumulator();
+        layout.load(states, slot * width, acc);
+        return acc;
+    }
+
+    private boolean isEmptyState(int offset) {
+        for (int i = 0; i < width; i++) {
+            if (states[offset + i] != emptyState[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidKey(Object key) {
+        return longKeyed ? key instanceof Long : key != null;
+    }
+
+    private int findSlot(Object key) {
+        int hash = hash(key.hashCode());
+        return longKeyed ? findLongSlot((Long) key, hash) : findObjectSlot(key, hash);
+    }
+
+    /**
+     * Returns the slot of the given key if it exists, otherwise returns
+     * {@code -slot - 1}, where {@code slot} is the empty slot where the key
+     * can be inserted.
+     */
+    private int findObjectSlot(Object key, int hash) {
+        int mask = used.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            if (!used[slot]) {
+                return -slot - 1;
+            }
+            if (hashes[slot] == hash && objectKeys[slot].equals(key)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Like {@link #findObjectSlot}, for a long-keyed map.
+     */
+    private int findLongSlot(long key, int hash) {
+        int mask = used.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            if (!used[slot]) {
+                return -slot - 1;
+            }
+            if (longKeys[slot] == key) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Inserts the key with the given state into the given empty slot and
+     * returns the slot of the key, which changes if the table is resized.
+     */
+    private int insertObject(int slot, Object key, int hash, long[] state, int stateOffset) {
+        if (resizeIfFull()) {
+            slot = -findObjectSlot(key, hash) - 1;
+        }
+        objectKeys[slot] = key;
+        return fillSlot(slot, hash, state, stateOffset);
+    }
+
+    /**
+     * Like {@link #insertObject}, for a long-keyed map.
+     */
+    private int insertLong(int slot, long key, int hash, long[] state, int stateOffset) {
+        if (resizeIfFull()) {
+            slot = -findLongSlot(key, hash) - 1;
+        }
+        longKeys[slot] = key;
+        return fillSlot(slot, hash, state, stateOffset);
+    }
+
+    private boolean resizeIfFull() {
+        modCount++;
+        if (size + 1 > used.length * LOAD_FACTOR) {
+            resize();
+            return true;
+        }
+        return false;
+    }
+
+    private int fillSlot(int slot, int hash, long[] state, int stateOffset) {
+        used[slot] = true;
+        hashes[slot] = hash;
+        System.arraycopy(state, stateOffset, states, slot * width, width);
+        size++;
+        return slot;
+    }
+
+    /**
+     * Removes the key in the given slot. The following keys of the cluster
+     * are shifted back, so that each key remains reachable from its ideal
+     * slot without tombstones.
+     */
+    private void removeSlot(int slot) {
+        modCount++;
+        int mask = used.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int ideal = hashes[next] & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                if (longKeyed) {
+                    longKeys[gap] = longKeys[next];
+                } else {
+                    objectKeys[gap] = objectKeys[next];
+                }
+                hashes[gap] = hashes[next];
+                System.arraycopy(states, next * width, states, gap * width, width);
+                gap = next;
+            }
+        }
+        used[gap] = false;
+        if (!longKeyed) {
+            objectKeys[gap] = null;
+        }
+        size--;
+    }
+
+    private void resize() {
+        Object[] oldObjectKeys = objectKeys;
+        long[] oldLongKeys = longKeys;
+        boolean[] oldUsed = used;
+        int[] oldHashes = hashes;
+        long[] oldStates = states;
+        int capacity = oldUsed.length * 2;
+        if (longKeyed) {
+            longKeys = new long[capacity];
+        } else {
+            objectKeys = new Object[capacity];
+        }
+        used = new boolean[capacity];
+        hashes = new int[capacity];
+        states = new long[oldStates.length * 2];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i]) {
+                continue;
+            }
+            int slot = oldHashes[i] & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            if (longKeyed) {
+                longKeys[slot] = oldLongKeys[i];
+            } else {
+                objectKeys[slot] = oldObjectKeys[i];
+            }
+            used[slot] = true;
+            hashes[slot] = oldHashes[i];
+            System.arraycopy(oldStates, i * width, states, slot * width, width);
+        }
+    }
+
+    /**
+     * Spreads the given hash code. For a {@code long} key the hash code is
+     * that of the boxed key, so that both find the same slot.
+     */
+    private static int hash(int hashCode) {
+        int hash = hashCode * HASH_MULTIPLIER;
+        return hash ^ (hash >>> Short.SIZE);
+    }
+
+    /**
+     * Iterates the entries with copies of the accumulators.
+     */
+    private final class EntryIterator implements Iterator<Entry<K, A>> {
+        private final int expectedModCount = modCount;
+        private int slot = -1;
+
+        EntryIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return slot < used.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, A> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K key = (K) (longKeyed ? (Object) longKeys[slot] : objectKeys[slot]);
+            Entry<K, A> entry = entry(key, accumulatorAt(slot));
+            advance();
+            return entry;
+        }
+
+        private void advance() {
+            do {
+                slot++;
+            } while (slot < used.length && !used[slot]);
+        }
+    }
+
+    /**
+     * Converts an accumulator to and from its state in a {@code long[]}.
+     */
+    private abstract static class Layout<A> {
+        abstract int width();
+
+        abstract A newAccumulator();
+
+        abstract void load(long[] states, int offset, A acc);
+
+        abstract void store(A acc, long[] states, int offset);
+    }
+}
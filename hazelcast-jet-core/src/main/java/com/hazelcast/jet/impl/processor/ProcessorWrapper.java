@@ -44,6 +44,11 @@ public abstract class ProcessorWrapper implements Processor {
         return wrapped.isCooperative();
     }
 
+    @Override
+    public boolean retainsInputItems() {
+        return wrapped.retainsInputItems();
+    }
+
     @Override
     public void init(@Nonnull Outbox outbox, @Nonnull Context context) throws Exception {
         wrapped.init(outbox, context);
@@ -81,7 +81,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     private static final Watermark COMPLETING_WM = new Watermark(Long.MAX_VALUE);
 
     // exposed for testing, to check for memory leaks
-    final Map<K, Windows<A>> keyToWindows = new HashMap<>();
+    Map<K, Windows<A>> keyToWindows = new HashMap<>();
     final SortedMap<Long, Set<K>> deadlineToKeys = new TreeMap<>();
     long currentWatermark = Long.MIN_VALUE;
 
@@ -147,6 +147,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     protected void init(@Nonnull Context context) {
         processingGuarantee = context.processingGuarantee();
         lastTimeEarlyResultsEmitted = NANOSECONDS.toMillis(System.nanoTime());
+        keyToWindows = KeyedStateMaps.<K, Windows<A>>stateMapSupplier(context).get();
     }
 
     @Override
@@ -30,6 +30,7 @@ import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.core.function.KeyedWindowResultFunction;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
@@ -39,6 +40,8 @@ import com.hazelcast.util.function.LongFunction;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,7 +50,9 @@ import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
@@ -56,6 +61,7 @@ import static com.hazelcast.jet.Traversers.traverseStream;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.tumblingWinPolicy;
 import static com.hazelcast.jet.function.ComparatorEx.naturalOrder;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
@@ -66,6 +72,7 @@ import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
@@ -86,8 +93,13 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     Map<K, A> slidingWindowBackup;
     long nextWinToEmit = Long.MIN_VALUE;
 
+    // the policy of the window, or of the shared frames if there are more windows
     @Nonnull
     private final SlidingWindowPolicy winPolicy;
+    // the policies of the windows if there are more of them, otherwise null
+    @Nullable
+    private final List<SlidingWindowPolicy> multiWinPolicies;
+    private final long maxWindowSize;
     @Nonnull
     private final List<ToLongFunction<Object>> frameTimestampFns;
     @Nonnull
@@ -104,10 +116,15 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     @Nonnull
     private final FlatMapper<Watermark, ?> wmFlatMapper;
     private ProcessingGuarantee processingGuarantee;
+    private Supplier<Map<K, A>> stateMapSupplier = HashMap::new;
+    // the key functions if all of them extract primitive long keys
+    @Nullable
+    private final LongKeyFunctionEx<Object>[] longKeyFns;
 
     // extracted lambdas to reduce GC litter
     private final LongFunction<Map<K, A>> createMapPerTsFunction;
     private final Function<K, A> createAccFunction;
+    private final LongFunction<A> createLongKeyAccFunction;
 
     @Probe
     private final AtomicLong lateEventsDropped = new AtomicLong();
@@ -116,6 +133,12 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     @Probe
     private final AtomicLong totalKeysInFrames = new AtomicLong();
 
+    // The windows last computed for each of the multiWinPolicies and their
+    // end timestamps. If the aggregate operation has deductFn, the next
+    // window is computed by patching the previous one.
+    private final Map<K, A>[] multiWindows;
+    private final long[] multiWindowEnds;
+
     // Fields for early results emission
     private final long earlyResultsPeriod;
     private long lastTimeEarlyResultsEmitted;
@@ -133,7 +156,6 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     private long minRestoredFrameTs = Long.MAX_VALUE;
     private boolean badFrameRestored;
 
-    @SuppressWarnings("unchecked")
     public SlidingWindowP(
             @Nonnull List<? extends Function<?, ? extends K>> keyFns,
             @Nonnull List<? extends ToLongFunction<?>> frameTimestampFns,
@@ -142,14 +164,46 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             @Nonnull AggregateOperation<A, ? extends R> aggrOp,
             @Nonnull KeyedWindowResultFunction<? super K, ? super R, ? extends OUT> mapToOutputFn,
             boolean isLastStage
+    ) {
+        this(keyFns, frameTimestampFns, singletonList(winPolicy), earlyResultsPeriod, aggrOp, mapToOutputFn,
+                isLastStage);
+    }
+
+    /**
+     * Creates a processor that computes several windows. The frame timestamp
+     * functions must return the timestamps of the frames of the {@link
+     * #framePolicy} of the windows.
+     */
+    @SuppressWarnings("unchecked")
+    public SlidingWindowP(
+            @Nonnull List<? extends Function<?, ? extends K>> keyFns,
+            @Nonnull List<? extends ToLongFunction<?>> frameTimestampFns,
+            @Nonnull List<SlidingWindowPolicy> winPolicies,
+            long earlyResultsPeriod,
+            @Nonnull AggregateOperation<A, ? extends R> aggrOp,
+            @Nonnull KeyedWindowResultFunction<? super K, ? super R, ? extends OUT> mapToOutputFn,
+            boolean isLastStage
     ) {
         checkTrue(keyFns.size() == aggrOp.arity(), keyFns.size() + " key functions " +
                 "provided for " + aggrOp.arity() + "-arity aggregate operation");
+        checkTrue(!winPolicies.isEmpty(), "at least one window policy is required");
+        if (winPolicies.size() == 1) {
+            this.winPolicy = winPolicies.get(0);
+            this.multiWinPolicies = null;
+            this.multiWindows = null;
+            this.multiWindowEnds = null;
+        } else {
+            requireNonNull(aggrOp.combineFn(), "AggregateOperation.combineFn is required for multiple windows");
+            this.winPolicy = framePolicy(winPolicies);
+            this.multiWinPolicies = new ArrayList<>(winPolicies);
+            this.multiWindows = new Map[winPolicies.size()];
+            this.multiWindowEnds = new long[winPolicies.size()];
+        }
         if (!winPolicy.isTumbling()) {
             requireNonNull(aggrOp.combineFn(), "AggregateOperation.combineFn is required for sliding windows");
         }
         checkNotNegative(earlyResultsPeriod, "earlyResultsPeriod must be zero or positive");
-        this.winPolicy = winPolicy;
+        this.maxWindowSize = winPolicies.stream().mapToLong(SlidingWindowPolicy::windowSize).max().getAsLong();
         this.frameTimestampFns = (List<ToLongFunction<Object>>) frameTimestampFns;
         this.keyFns = (List<Function<Object, ? extends K>>) keyFns;
         this.earlyResultsPeriod = earlyResultsPeriod;
@@ -165,18 +219,27 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         this.emptyAcc = aggrOp.createFn().get();
         this.createMapPerTsFunction = x -> {
             lazyIncrement(totalFrames);
-            return new HashMap<>();
+            return stateMapSupplier.get();
         };
         this.createAccFunction = k -> {
             lazyIncrement(totalKeysInFrames);
             return aggrOp.createFn().get();
         };
+        this.createLongKeyAccFunction = k -> {
+            lazyIncrement(totalKeysInFrames);
+            return aggrOp.createFn().get();
+        };
+        this.longKeyFns = KeyedStateMaps.longKeyFns(keyFns);
     }
 
     @Override
     protected void init(@Nonnull Context context) {
         processingGuarantee = context.processingGuarantee();
         lastTimeEarlyResultsEmitted = NANOSECONDS.toMillis(System.nanoTime());
+        Supplier<Map<K, A>> primitiveAccMapSupplier = PrimitiveAccumulatorMap.supplierFor(emptyAcc, longKeyFns != null);
+        stateMapSupplier = primitiveAccMapSupplier != null
+                ? KeyedStateMaps.stateMapSupplier(context, primitiveAccMapSupplier)
+                : KeyedStateMaps.stateMapSupplier(context, longKeyFns != null);
     }
 
     @Override
@@ -197,6 +260,10 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return true;
         }
         lastTimeEarlyResultsEmitted = now;
+        if (multiWinPolicies != null) {
+            earlyWinTraverser = multiEarlyWinTraverser(rangeStart);
+            return emitFromTraverser(earlyWinTraverser);
+        }
         slidingWindowBackup = slidingWindow;
         slidingWindow = null;
         Stream<Long> earlyWinRange = range(
@@ -205,15 +272,24 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                 winPolicy.frameSize())
             .boxed();
         earlyWinTraverser = traverseStream(earlyWinRange)
-                .flatMap(winEnd -> traverseIterable(computeWindow(winEnd).entrySet())
-                        .map(e -> mapToOutputFn.apply(
-                                winEnd - winPolicy.windowSize(),
-                                winEnd,
-                                e.getKey(),
-                                aggrOp.exportFn().apply(e.getValue()),
-                                true))
-                        .onFirstNull(() -> completeEarlyWindow(winEnd)))
+                .flatMap(winEnd -> {
+                    Map<K, A> window = computeWindow(winEnd);
+                    return traverseIterable(window.entrySet())
+                            .map(e -> mapToOutputFn.apply(
+                                    winEnd - winPolicy.windowSize(),
+                                    winEnd,
+                                    e.getKey(),
+                                    aggrOp.exportFn().apply(e.getValue()),
+                                    true))
+                            .onFirstNull(() -> {
+                                completeEarlyWindow(winEnd);
+                                if (isRecomputedWindow(winPolicy.windowSize())) {
+                                    KeyedStateMaps.release(window);
+                                }
+                            });
+                })
                 .onFirstNull(() -> {
+                    KeyedStateMaps.release(slidingWindow);
                     slidingWindow = slidingWindowBackup;
                     slidingWindowBackup = null;
                     earlyWinTraverser = null;
@@ -222,6 +298,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
         final long frameTs = frameTimestampFns.get(ordinal).applyAsLong(item);
         assert frameTs == winPolicy.floorFrameTs(frameTs) : "getFrameTsFn returned an invalid frame timestamp";
@@ -236,10 +313,26 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             lazyIncrement(lateEventsDropped);
             return true;
         }
-        final K key = keyFns.get(ordinal).apply(item);
-        A acc = tsToKeyToAcc
-                .computeIfAbsent(frameTs, createMapPerTsFunction)
-                .computeIfAbsent(key, createAccFunction);
+        Map<K, A> keyToAcc = tsToKeyToAcc.computeIfAbsent(frameTs, createMapPerTsFunction);
+        if (keyToAcc instanceof PrimitiveAccumulatorMap) {
+            PrimitiveAccumulatorMap<K, A> primitiveKeyToAcc = (PrimitiveAccumulatorMap<K, A>) keyToAcc;
+            boolean added = longKeyFns != null
+                    ? primitiveKeyToAcc.accumulateLong(
+                            longKeyFns[ordinal].applyAsLong(item), aggrOp.accumulateFn(ordinal), item)
+                    : primitiveKeyToAcc.accumulate(keyFns.get(ordinal).apply(item), aggrOp.accumulateFn(ordinal), item);
+            if (added) {
+                lazyIncrement(totalKeysInFrames);
+            }
+            topTs = max(topTs, frameTs);
+            return true;
+        }
+        A acc;
+        if (longKeyFns != null && keyToAcc instanceof Long2ObjectHashMap) {
+            acc = ((Long2ObjectHashMap<A>) keyToAcc)
+                    .computeIfAbsent(longKeyFns[ordinal].applyAsLong(item), createLongKeyAccFunction);
+        } else {
+            acc = keyToAcc.computeIfAbsent(keyFns.get(ordinal).apply(item), createAccFunction);
+        }
         aggrOp.accumulateFn(ordinal).accept(acc, item);
         topTs = max(topTs, frameTs);
         return true;
@@ -335,13 +428,16 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             logFine(getLogger(), "Restored nextWinToEmit from snapshot to: %s", nextWinToEmit);
             // Delete too old restored frames. This can happen when restoring from exported state and new job
             // has smaller window size
-            if (nextWinToEmit > Long.MIN_VALUE + winPolicy.windowSize()) {
-                for (long ts = minRestoredFrameTs; ts <= nextWinToEmit - winPolicy.windowSize();
-                        ts += winPolicy.frameSize()) {
+            if (nextWinToEmit > Long.MIN_VALUE + maxWindowSize) {
+                long evictUpToTs = multiWinPolicies == null
+                        ? nextWinToEmit - winPolicy.windowSize()
+                        : multiEvictUpToTs(nextWinToEmit - winPolicy.frameSize());
+                for (long ts = minRestoredFrameTs; ts <= evictUpToTs; ts += winPolicy.frameSize()) {
                     Map<K, A> removed = tsToKeyToAcc.remove(ts);
                     if (removed != null) {
                         lazyAdd(totalFrames, -1);
                         lazyAdd(totalKeysInFrames, -removed.size());
+                        KeyedStateMaps.release(removed);
                     }
                 }
             }
@@ -356,13 +452,24 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             // wmFlatMapper to initialize nextWinToEmit to the next window
             return Traversers.empty();
         }
+        if (multiWinPolicies != null) {
+            return multiWindowTraverserAndEvictor(rangeStart, wm);
+        }
         return traverseStream(range(rangeStart, wm, winPolicy.frameSize()).boxed())
-                .flatMap(winEnd -> traverseIterable(computeWindow(winEnd).entrySet())
-                        .map(e -> mapToOutputFn.apply(
-                                winEnd - winPolicy.windowSize(), winEnd,
-                                e.getKey(), aggrOp.finishFn().apply(e.getValue()),
-                                false))
-                        .onFirstNull(() -> completeWindow(winEnd)));
+                .flatMap(winEnd -> {
+                    Map<K, A> window = computeWindow(winEnd);
+                    return traverseIterable(window.entrySet())
+                            .map(e -> mapToOutputFn.apply(
+                                    winEnd - winPolicy.windowSize(), winEnd,
+                                    e.getKey(), aggrOp.finishFn().apply(e.getValue()),
+                                    false))
+                            .onFirstNull(() -> {
+                                completeWindow(winEnd);
+                                if (isRecomputedWindow(winPolicy.windowSize())) {
+                                    KeyedStateMaps.release(window);
+                                }
+                            });
+                });
     }
 
     private long startingWindowTs(long wm) {
@@ -391,25 +498,39 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return tsToKeyToAcc.getOrDefault(frameTs, emptyMap());
         }
         if (aggrOp.deductFn() == null) {
-            return recomputeWindow(frameTs);
+            return recomputeWindow(frameTs, winPolicy.windowSize());
         }
         if (slidingWindow == null) {
-            slidingWindow = recomputeWindow(frameTs);
+            slidingWindow = recomputeWindow(frameTs, winPolicy.windowSize());
         } else {
             // add leading-edge frame
-            patchSlidingWindow(aggrOp.combineFn(), tsToKeyToAcc.get(frameTs));
+            patchWindow(slidingWindow, aggrOp.combineFn(), tsToKeyToAcc.get(frameTs));
         }
         return slidingWindow;
     }
 
-    private Map<K, A> recomputeWindow(long frameTs) {
-        Map<K, A> window = new HashMap<>();
-        for (long ts = frameTs - winPolicy.windowSize() + winPolicy.frameSize();
+    /**
+     * Returns {@code true} if a window of the given size is recomputed from
+     * the frames each time it's emitted and dropped afterwards.
+     */
+    private boolean isRecomputedWindow(long windowSize) {
+        return windowSize != winPolicy.frameSize() && aggrOp.deductFn() == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<K, A> recomputeWindow(long frameTs, long windowSize) {
+        Map<K, A> window = stateMapSupplier.get();
+        for (long ts = frameTs - windowSize + winPolicy.frameSize();
              ts <= frameTs;
              ts += winPolicy.frameSize()
         ) {
             assert combineFn != null : "combineFn == null";
-            for (Entry<K, A> entry : tsToKeyToAcc.getOrDefault(ts, emptyMap()).entrySet()) {
+            Map<K, A> frame = tsToKeyToAcc.getOrDefault(ts, emptyMap());
+            if (frame instanceof PrimitiveAccumulatorMap) {
+                ((PrimitiveAccumulatorMap<K, A>) window).patch((PrimitiveAccumulatorMap<K, A>) frame, combineFn, false);
+                continue;
+            }
+            for (Entry<K, A> entry : frame.entrySet()) {
                 combineFn.accept(
                         window.computeIfAbsent(entry.getKey(), k -> aggrOp.createFn().get()),
                         entry.getValue());
@@ -418,12 +539,18 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         return window;
     }
 
-    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, Map<K, A> patchingFrame) {
+    @SuppressWarnings("unchecked")
+    private void patchWindow(Map<K, A> window, BiConsumer<? super A, ? super A> patchOp, Map<K, A> patchingFrame) {
         if (patchingFrame == null) {
             return;
         }
+        if (patchingFrame instanceof PrimitiveAccumulatorMap) {
+            ((PrimitiveAccumulatorMap<K, A>) window)
+                    .patch((PrimitiveAccumulatorMap<K, A>) patchingFrame, patchOp, true);
+            return;
+        }
         for (Entry<K, A> e : patchingFrame.entrySet()) {
-            slidingWindow.compute(e.getKey(), (k, acc) -> {
+            window.compute(e.getKey(), (k, acc) -> {
                 A result = acc != null ? acc : aggrOp.createFn().get();
                 patchOp.accept(result, e.getValue());
                 return result.equals(emptyAcc) ? null : result;
@@ -439,8 +566,9 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             lazyAdd(totalFrames, -1);
             if (!winPolicy.isTumbling() && aggrOp.deductFn() != null) {
                 // deduct trailing-edge frame
-                patchSlidingWindow(aggrOp.deductFn(), evictedFrame);
+                patchWindow(slidingWindow, aggrOp.deductFn(), evictedFrame);
             }
+            KeyedStateMaps.release(evictedFrame);
         }
         assert tsToKeyToAcc.values().stream().mapToInt(Map::size).sum() == totalKeysInFrames.get()
                 : "totalKeysInFrames mismatch, expected=" + tsToKeyToAcc.values().stream().mapToInt(Map::size).sum()
@@ -453,17 +581,140 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         }
         Map<K, A> frameToDeduct = tsToKeyToAcc.get(frameTs - winPolicy.windowSize() + winPolicy.frameSize());
         if (frameToDeduct != null) {
-            patchSlidingWindow(aggrOp.deductFn(), frameToDeduct);
+            patchWindow(slidingWindow, aggrOp.deductFn(), frameToDeduct);
         }
     }
 
+    private Traverser<Object> multiWindowTraverserAndEvictor(long rangeStart, long wm) {
+        return traverseStream(range(rangeStart, wm, winPolicy.frameSize()).boxed())
+                .flatMap(winEnd -> traverseStream(alignedMultiWinPolicies(winEnd))
+                        .flatMap(i -> {
+                            Map<K, A> window = computeMultiWindow(i, winEnd);
+                            return windowResultTraverser(i, winEnd, window, false)
+                                    .onFirstNull(() -> {
+                                        if (isRecomputedWindow(multiWinPolicies.get(i).windowSize())) {
+                                            KeyedStateMaps.release(window);
+                                        }
+                                    });
+                        })
+                        .onFirstNull(() -> completeMultiWindowFrame(winEnd)));
+    }
+
+    private Traverser<OUT> multiEarlyWinTraverser(long rangeStart) {
+        return traverseStream(range(rangeStart, topTs + maxWindowSize - winPolicy.frameSize(), winPolicy.frameSize())
+                .boxed())
+                .flatMap(winEnd -> traverseStream(alignedMultiWinPolicies(winEnd)
+                        .filter(i -> winEnd - multiWinPolicies.get(i).windowSize() < topTs))
+                        .flatMap(i -> {
+                            Map<K, A> window = recomputeWindow(winEnd, multiWinPolicies.get(i).windowSize());
+                            return windowResultTraverser(i, winEnd, window, true)
+                                    .onFirstNull(() -> KeyedStateMaps.release(window));
+                        }))
+                .onFirstNull(() -> earlyWinTraverser = null);
+    }
+
+    private Traverser<OUT> windowResultTraverser(int policyIndex, long winEnd, Map<K, A> window, boolean isEarly) {
+        long winStart = winEnd - multiWinPolicies.get(policyIndex).windowSize();
+        return traverseIterable(window.entrySet())
+                .map(e -> mapToOutputFn.apply(
+                        winStart, winEnd, e.getKey(),
+                        isEarly ? aggrOp.exportFn().apply(e.getValue()) : aggrOp.finishFn().apply(e.getValue()),
+                        isEarly));
+    }
+
+    /**
+     * Returns the indices of the multiWinPolicies that have a window ending
+     * at the given frame timestamp.
+     */
+    private Stream<Integer> alignedMultiWinPolicies(long frameTs) {
+        return IntStream.range(0, multiWinPolicies.size())
+                        .filter(i -> multiWinPolicies.get(i).floorFrameTs(frameTs) == frameTs)
+                        .boxed();
+    }
+
+    private Map<K, A> computeMultiWindow(int policyIndex, long frameTs) {
+        long windowSize = multiWinPolicies.get(policyIndex).windowSize();
+        if (windowSize == winPolicy.frameSize()) {
+            return tsToKeyToAcc.getOrDefault(frameTs, emptyMap());
+        }
+        if (aggrOp.deductFn() == null) {
+            return recomputeWindow(frameTs, windowSize);
+        }
+        long slideBy = multiWinPolicies.get(policyIndex).frameSize();
+        Map<K, A> window = multiWindows[policyIndex];
+        if (window == null || multiWindowEnds[policyIndex] != frameTs - slideBy) {
+            KeyedStateMaps.release(window);
+            window = recomputeWindow(frameTs, windowSize);
+        } else {
+            // add the leading-edge frames and deduct the trailing-edge ones
+            for (long ts = frameTs - slideBy + winPolicy.frameSize(); ts <= frameTs; ts += winPolicy.frameSize()) {
+                patchWindow(window, aggrOp.combineFn(), tsToKeyToAcc.get(ts));
+                patchWindow(window, aggrOp.deductFn(), tsToKeyToAcc.get(ts - windowSize));
+            }
+        }
+        multiWindows[policyIndex] = window;
+        multiWindowEnds[policyIndex] = frameTs;
+        return window;
+    }
+
+    /**
+     * Evicts the frames that aren't needed for the windows ending after the
+     * given frame timestamp.
+     */
+    private void completeMultiWindowFrame(long frameTs) {
+        for (long ts = multiEvictUpToTs(frameTs - winPolicy.frameSize()) + winPolicy.frameSize();
+             ts <= multiEvictUpToTs(frameTs);
+             ts += winPolicy.frameSize()
+        ) {
+            Map<K, A> evictedFrame = tsToKeyToAcc.remove(ts);
+            if (evictedFrame != null) {
+                lazyAdd(totalKeysInFrames, -evictedFrame.size());
+                lazyAdd(totalFrames, -1);
+                KeyedStateMaps.release(evictedFrame);
+            }
+        }
+    }
+
+    /**
+     * Returns the timestamp of the newest frame that isn't needed for the
+     * windows ending after the given frame timestamp. The frames are kept
+     * until they are deducted from the window last computed for each
+     * policy.
+     */
+    private long multiEvictUpToTs(long frameTs) {
+        long evictUpToTs = Long.MAX_VALUE;
+        for (SlidingWindowPolicy policy : multiWinPolicies) {
+            evictUpToTs = min(evictUpToTs, policy.floorFrameTs(frameTs) - policy.windowSize());
+        }
+        return evictUpToTs;
+    }
+
+    private void evictAllFrames() {
+        for (Map<K, A> frame : tsToKeyToAcc.values()) {
+            lazyAdd(totalKeysInFrames, -frame.size());
+            lazyAdd(totalFrames, -1);
+            KeyedStateMaps.release(frame);
+        }
+        tsToKeyToAcc.clear();
+        for (Map<K, A> window : multiWindows) {
+            KeyedStateMaps.release(window);
+        }
+        Arrays.fill(multiWindows, null);
+    }
+
     private boolean flushBuffers() {
         if (flushTraverser == null) {
             if (tsToKeyToAcc.isEmpty()) {
                 return true;
             }
-            flushTraverser = windowTraverserAndEvictor(topTs + winPolicy.windowSize() - winPolicy.frameSize())
-                    .onFirstNull(() -> flushTraverser = null);
+            flushTraverser = windowTraverserAndEvictor(topTs + maxWindowSize - winPolicy.frameSize())
+                    .onFirstNull(() -> {
+                        flushTraverser = null;
+                        if (multiWinPolicies != null) {
+                            // the frames kept to patch the windows of later events
+                            evictAllFrames();
+                        }
+                    });
         }
         return emitFromTraverser(flushTraverser);
     }
@@ -478,6 +729,30 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                 : LongStream.iterate(start, n -> n + step).limit(1 + (end - start) / step);
     }
 
+    /**
+     * Returns the policy of the frames shared by the given windows: a
+     * tumbling window whose size is the greatest common divisor of their
+     * sliding steps. The frame offsets of the windows must be congruent
+     * modulo that size.
+     */
+    @Nonnull
+    public static SlidingWindowPolicy framePolicy(@Nonnull List<SlidingWindowPolicy> winPolicies) {
+        long frameSize = 0;
+        for (SlidingWindowPolicy policy : winPolicies) {
+            frameSize = gcd(frameSize, policy.frameSize());
+        }
+        long frameOffset = winPolicies.get(0).frameOffset() % frameSize;
+        for (SlidingWindowPolicy policy : winPolicies) {
+            checkTrue(policy.frameOffset() % frameSize == frameOffset,
+                    "The frame offsets of the windows don't match their common frame size " + frameSize);
+        }
+        return tumblingWinPolicy(frameSize).withOffset(frameOffset);
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
     // package-visible for test
     enum Keys {
         NEXT_WIN_TO_EMIT
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.properties.HazelcastProperties;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_SPILL_DIRECTORY;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_SPILL_THRESHOLD_KEYS;
+
+/**
+ * Pairs of keys and values spilled to local disk files, see {@link
+ * com.hazelcast.jet.impl.util.JetProperties#JET_SPILL_THRESHOLD_KEYS}.
+ * The pairs are partitioned by the hash of the serialized key into {@value
+ * #PARTITION_COUNT} files, so that all the pairs for a key are in one file
+ * and each file can be processed in memory on its own.
+ * <p>
+ * A file that is still too large to fit in memory can be spilled again
+ * into a store of the next level, which partitions the keys by the next
+ * bits of the hash. The keys with the same hash can't be split, therefore
+ * the levels end at {@link #MAX_LEVEL}.
+ * <p>
+ * The store is written by a single thread. Once {@link #finishWriting()}
+ * is called, it can be read by multiple threads, each with its own
+ * {@link Reader}.
+ */
+final class SpillStore {
+
+    static final int PARTITION_BITS = 4;
+    static final int PARTITION_COUNT = 1 << PARTITION_BITS;
+    static final int MAX_LEVEL = Integer.SIZE / PARTITION_BITS - 1;
+
+    private static final int BUFFER_SIZE = 1 << 14;
+
+    private final InternalSerializationService serializationService;
+    private final Path directory;
+    private final int level;
+    private final DataOutputStream[] outputs = new DataOutputStream[PARTITION_COUNT];
+    private final long[] recordCounts = new long[PARTITION_COUNT];
+    private long bytesWritten;
+
+    private SpillStore(InternalSerializationService serializationService, Path parentDirectory, int level) {
+        this.serializationService = serializationService;
+        this.level = level;
+        try {
+            Files.createDirectories(parentDirectory);
+            this.directory = Files.createTempDirectory(parentDirectory, "jet-spill-");
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    /**
+     * Returns the factory of the stores for a processor with the given
+     * context, or {@code null} if spilling is disabled. Outside of a job,
+     * for example in a test context, spilling is always disabled.
+     */
+    @Nullable
+    static Factory factory(@Nonnull Processor.Context context) {
+        if (!(context instanceof ProcCtx)) {
+            return null;
+        }
+        HazelcastProperties properties = new HazelcastProperties(context.jetInstance().getConfig().getProperties());
+        int threshold = properties.getInteger(JET_SPILL_THRESHOLD_KEYS);
+        if (threshold <= 0) {
+            return null;
+        }
+        String directory = properties.getString(JET_SPILL_DIRECTORY);
+        InternalSerializationService serializationService =
+                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+        return new Factory(serializationService,
+                Paths.get(directory.isEmpty() ? System.getProperty("java.io.tmpdir") : directory), threshold);
+    }
+
+    int level() {
+        return level;
+    }
+
+    /**
+     * Returns the number of bytes written to the files so far.
+     */
+    long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Appends the given pair to the file of the key's partition and
+     * returns the number of bytes written.
+     */
+    int write(@Nonnull Object key, @Nonnull Object value) {
+        Data keyData = serializationService.toData(key);
+        byte[] keyBytes = keyData.toByteArray();
+        byte[] valueBytes = serializationService.toData(value).toByteArray();
+        int partition = partition(keyData.hashCode());
+        try {
+            DataOutputStream out = outputs[partition];
+            if (out == null) {
+                out = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(file(partition)), BUFFER_SIZE));
+                outputs[partition] = out;
+            }
+            out.writeInt(keyBytes.length);
+            out.write(keyBytes);
+            out.writeInt(valueBytes.length);
+            out.write(valueBytes);
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+        int recordSize = 2 * Integer.BYTES + keyBytes.length + valueBytes.length;
+        recordCounts[partition]++;
+        bytesWritten += recordSize;
+        return recordSize;
+    }
+
+    /**
+     * Flushes and closes the files. No more pairs can be written.
+     */
+    void finishWriting() {
+        for (int i = 0; i < outputs.length; i++) {
+            if (outputs[i] != null) {
+                close(outputs[i]);
+                outputs[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Returns a reader of the pairs in the given partition.
+     */
+    @Nonnull
+    Reader reader(int partition) {
+        return new Reader(partition);
+    }
+
+    /**
+     * Deletes the file of the given partition.
+     */
+    void deletePartition(int partition) {
+        try {
+            Files.deleteIfExists(file(partition));
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    /**
+     * Closes and deletes all the files of the store.
+     */
+    void delete() {
+        finishWriting();
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            deletePartition(i);
+        }
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    private int partition(int hash) {
+        return (hash >>> (level * PARTITION_BITS)) & (PARTITION_COUNT - 1);
+    }
+
+    private Path file(int partition) {
+        return directory.resolve(Integer.toString(partition));
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    /**
+     * Creates the spill stores of a processor.
+     */
+    static final class Factory {
+        private final InternalSerializationService serializationService;
+        private final Path directory;
+        private final int threshold;
+
+        Factory(InternalSerializationService serializationService, Path directory, int threshold) {
+            this.serializationService = serializationService;
+            this.directory = directory;
+            this.threshold = threshold;
+        }
+
+        /**
+         * Returns the number of keys a processor keeps in memory before it
+         * spills them.
+         */
+        int threshold() {
+            return threshold;
+        }
+
+        @Nonnull
+        SpillStore newStore(int level) {
+            return new SpillStore(serializationService, directory, level);
+        }
+    }
+
+    /**
+     * Reads the pairs of a partition one by one.
+     */
+    final class Reader implements Closeable {
+        private long remaining;
+        private DataInputStream in;
+        private Object key;
+        private Object value;
+
+        private Reader(int partition) {
+            remaining = recordCounts[partition];
+            if (remaining > 0) {
+                try {
+                    in = new DataInputStream(new BufferedInputStream(
+                            Files.newInputStream(file(partition)), BUFFER_SIZE));
+                } catch (IOException e) {
+                    throw sneakyThrow(e);
+                }
+            }
+        }
+
+        /**
+         * Reads the next pair, returns {@code false} if there's none. The
+         * reader is closed after the last pair.
+         */
+        boolean advance() {
+            if (remaining == 0) {
+                close();
+                return false;
+            }
+            try {
+                key = readObject();
+                value = readObject();
+            } catch (IOException e) {
+                throw sneakyThrow(e);
+            }
+            remaining--;
+            return true;
+        }
+
+        Object key() {
+            return key;
+        }
+
+        Object value() {
+            return value;
+        }
+
+        @Override
+        public void close() {
+            remaining = 0;
+            if (in != null) {
+                SpillStore.close(in);
+                in = null;
+            }
+        }
+
+        private Object readObject() throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return serializationService.toObject(new HeapData(bytes));
+        }
+    }
+}
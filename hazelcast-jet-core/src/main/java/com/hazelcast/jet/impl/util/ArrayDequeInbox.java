@@ -17,17 +17,34 @@
 package com.hazelcast.jet.impl.util;
 
 import com.hazelcast.jet.core.Inbox;
+import com.hazelcast.jet.impl.execution.ItemPool;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 
 /**
- * An {@link Inbox} implementation backed by an {@link ArrayDeque}.
+ * An {@link Inbox} implementation backed by an array deque. The deque is a
+ * ring buffer of its own rather than an {@code ArrayDeque}, so that it can
+ * take a run of items with {@link #addAll} in at most two array copies.
  */
 public final class ArrayDequeInbox implements Inbox {
 
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_TAKEN_ITEMS_CAPACITY = 16;
+
     private final ProgressTracker progTracker;
-    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+
+    // the ring buffer, its length is a power of two
+    private Object[] items = new Object[INITIAL_CAPACITY];
+    private int head;
+    private int size;
+
+    // the pool to which the taken items are returned, null if they aren't tracked
+    private ItemPool itemPool;
+    private Object[] takenItems = new Object[INITIAL_TAKEN_ITEMS_CAPACITY];
+    private int takenCount;
 
     /**
      * Constructs the inbox with the provided progress tracker.
@@ -38,35 +55,154 @@ public final class ArrayDequeInbox implements Inbox {
 
     @Override
     public boolean isEmpty() {
-        return queue.isEmpty();
+        return size == 0;
     }
 
     @Override
     public Object peek() {
-        return queue.peek();
+        return items[head];
     }
 
     @Override
     public Object poll() {
-        Object result = queue.poll();
+        Object result = size == 0 ? null : removeFirst();
         progTracker.madeProgress(result != null);
+        if (itemPool != null && result != null) {
+            addTaken(result);
+        }
         return result;
     }
 
     @Override
     public void remove() {
-        queue.remove();
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        Object item = removeFirst();
         progTracker.madeProgress();
+        if (itemPool != null) {
+            addTaken(item);
+        }
+    }
+
+    /**
+     * Makes the inbox remember the items taken from it until {@link
+     * #recycleTakenItems()} is called. Does nothing if the pool is {@code
+     * null}.
+     */
+    public void trackTakenItems(@Nullable ItemPool pool) {
+        assert takenCount == 0 : "taken items not recycled";
+        itemPool = pool;
+    }
+
+    /**
+     * Returns the items taken since {@link #trackTakenItems} to the pool and
+     * stops tracking them.
+     */
+    public void recycleTakenItems() {
+        if (takenCount > 0) {
+            itemPool.recycle(takenItems, takenCount);
+            takenCount = 0;
+        }
+        itemPool = null;
+    }
+
+    private void addTaken(Object item) {
+        if (takenCount == takenItems.length) {
+            takenItems = Arrays.copyOf(takenItems, takenItems.length * 2);
+        }
+        takenItems[takenCount++] = item;
+    }
+
+    /**
+     * Adds the item to the tail of the inbox.
+     *
+     * @return {@code true}, like {@code Collection.add()}
+     */
+    public boolean add(@Nonnull Object item) {
+        if (item == null) {
+            throw new NullPointerException();
+        }
+        ensureCapacity(size + 1);
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+        return true;
     }
 
     /**
-     * Retrieves the queue backing this inbox.
+     * Adds the items {@code src[from]} to {@code src[to - 1]} to the tail
+     * of the inbox. The items must not be {@code null}.
      */
-    public Deque<Object> queue() {
-        return queue;
+    public void addAll(@Nonnull Object[] src, int from, int to) {
+        int count = to - from;
+        ensureCapacity(size + count);
+        int tail = (head + size) & (items.length - 1);
+        int firstPart = Math.min(count, items.length - tail);
+        System.arraycopy(src, from, items, tail, firstPart);
+        System.arraycopy(src, from + firstPart, items, 0, count - firstPart);
+        size += count;
+    }
+
+    /**
+     * Returns the item at the tail of the inbox, or {@code null} if it's
+     * empty.
+     */
+    public Object peekLast() {
+        return items[(head + size - 1) & (items.length - 1)];
+    }
+
+    /**
+     * Removes and returns the item at the tail of the inbox.
+     *
+     * @throws NoSuchElementException if the inbox is empty
+     */
+    public Object removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int index = (head + size - 1) & (items.length - 1);
+        Object item = items[index];
+        items[index] = null;
+        size--;
+        return item;
+    }
+
+    /**
+     * Removes all the items without tracking them as taken.
+     */
+    public void clear() {
+        int firstPart = Math.min(size, items.length - head);
+        Arrays.fill(items, head, head + firstPart, null);
+        Arrays.fill(items, 0, size - firstPart, null);
+        head = 0;
+        size = 0;
     }
 
     public int size() {
-        return queue.size();
+        return size;
+    }
+
+    private Object removeFirst() {
+        Object item = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return item;
+    }
+
+    private void ensureCapacity(int requiredCapacity) {
+        if (requiredCapacity <= items.length) {
+            return;
+        }
+        int newCapacity = items.length;
+        while (newCapacity < requiredCapacity) {
+            newCapacity <<= 1;
+        }
+        Object[] newItems = new Object[newCapacity];
+        int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, newItems, 0, firstPart);
+        System.arraycopy(items, 0, newItems, firstPart, size - firstPart);
+        items = newItems;
+        head = 0;
     }
 }
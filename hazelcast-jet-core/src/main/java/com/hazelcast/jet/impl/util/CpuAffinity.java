@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.logging.ILogger;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Pins threads to CPUs and reads the NUMA topology on Linux without native
+ * code: the thread's kernel ID is read from {@code /proc/thread-self} and
+ * the affinity is set using the {@code taskset} utility. The topology is
+ * read from {@code /sys/devices/system/node}.
+ */
+public final class CpuAffinity {
+
+    private static final Path THREAD_SELF = Paths.get("/proc/thread-self");
+    private static final Path NUMA_NODES = Paths.get("/sys/devices/system/node");
+    private static final String NODE_DIR_PREFIX = "node";
+    private static final long TASKSET_TIMEOUT_SECONDS = 10;
+
+    private CpuAffinity() {
+    }
+
+    /**
+     * Parses a CPU list in the format used by {@code taskset -c} and the
+     * Linux {@code cpulist} files, for example {@code "0-3,8,10-11"}. The
+     * CPUs are returned in the order they are listed.
+     *
+     * @throws IllegalArgumentException if the list is malformed or empty
+     */
+    @Nonnull
+    public static List<Integer> parseCpuList(@Nonnull String cpuList) {
+        List<Integer> cpus = new ArrayList<>();
+        for (String part : cpuList.trim().split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+            int dash = part.indexOf('-');
+            try {
+                int from = Integer.parseInt(part.substring(0, dash < 0 ? part.length() : dash).trim());
+                int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1).trim());
+                if (from < 0 || to < from) {
+                    throw new IllegalArgumentException("Invalid CPU range '" + part + "' in '" + cpuList + '\'');
+                }
+                for (int cpu = from; cpu <= to; cpu++) {
+                    cpus.add(cpu);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CPU list: '" + cpuList + '\'', e);
+            }
+        }
+        if (cpus.isEmpty()) {
+            throw new IllegalArgumentException("Empty CPU list: '" + cpuList + '\'');
+        }
+        return cpus;
+    }
+
+    /**
+     * Pins the calling thread to the given CPU. Logs a warning and returns
+     * false, if it fails, for example because the OS isn't Linux or {@code
+     * taskset} isn't installed.
+     */
+    public static boolean pinCurrentThread(int cpu, @Nonnull ILogger logger) {
+        try {
+            // the link points to "<pid>/task/<tid>"
+            Path self = Files.readSymbolicLink(THREAD_SELF);
+            String tid = self.getFileName().toString();
+            Process process = new ProcessBuilder("taskset", "-p", "-c", String.valueOf(cpu), tid)
+                    .redirectErrorStream(true)
+                    .start();
+            if (!process.waitFor(TASKSET_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                logger.warning("Failed to pin " + Thread.currentThread().getName() + " to CPU " + cpu
+                        + ": taskset didn't finish in " + TASKSET_TIMEOUT_SECONDS + " seconds");
+                return false;
+            }
+            if (process.exitValue() != 0) {
+                logger.warning("Failed to pin " + Thread.currentThread().getName() + " to CPU " + cpu
+                        + ", taskset exited with " + process.exitValue());
+                return false;
+            }
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warning("Failed to pin " + Thread.currentThread().getName() + " to CPU " + cpu
+                    + ", CPU affinity is only supported on Linux with taskset installed: " + e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns the NUMA node of each CPU. Returns an empty map if the topology
+     * isn't available, callers should then treat all CPUs as one node.
+     */
+    @Nonnull
+    public static Map<Integer, Integer> numaNodeOfCpus() {
+        return numaNodeOfCpus(NUMA_NODES);
+    }
+
+    // exposed for tests
+    @Nonnull
+    static Map<Integer, Integer> numaNodeOfCpus(@Nonnull Path nodesDir) {
+        Map<Integer, Integer> result = new HashMap<>();
+        if (!Files.isDirectory(nodesDir)) {
+            return result;
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(nodesDir, NODE_DIR_PREFIX + "[0-9]*")) {
+            for (Path dir : dirs) {
+                int node = Integer.parseInt(dir.getFileName().toString().substring(NODE_DIR_PREFIX.length()));
+                String cpuList = new String(Files.readAllBytes(dir.resolve("cpulist")), US_ASCII).trim();
+                if (!cpuList.isEmpty()) {
+                    parseCpuList(cpuList).forEach(cpu -> result.put(cpu, node));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // the topology is only an optimization hint
+            result.clear();
+        }
+        return result;
+    }
+}
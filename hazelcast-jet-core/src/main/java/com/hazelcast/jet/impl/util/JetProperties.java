@@ -52,6 +52,283 @@ public final class JetProperties {
     public static final HazelcastProperty JET_MINIMUM_IDLE_MICROSECONDS
             = new HazelcastProperty("jet.minimum.idle.microseconds", 25, MICROSECONDS);
 
+    /**
+     * Enables work stealing between the cooperative worker threads. When
+     * enabled, a worker whose tasklets made no progress asks the worker with
+     * the most busy tasklets to hand over one of them. The hand-over is
+     * performed by the owning worker between two calls, so each tasklet is
+     * still called by at most one thread at a time.
+     * <p>
+     * Tasklets can move between threads when this is enabled, therefore it's
+     * disabled by default.
+     */
+    public static final HazelcastProperty JET_WORK_STEALING_ENABLED
+            = new HazelcastProperty("jet.work.stealing.enabled", false);
+
+    /**
+     * The period in milliseconds in which the busy time of the cooperative
+     * tasklets is sampled and the tasklets are moved between the cooperative
+     * worker threads so that each thread is equally busy. When enabled, the
+     * tasklets of newly submitted jobs are also assigned to the least busy
+     * threads instead of round-robin.
+     * <p>
+     * Tasklets can move between threads when this is enabled. The default
+     * value is 0, which disables the rebalancing.
+     */
+    public static final HazelcastProperty JET_TASKLET_REBALANCE_PERIOD_MILLIS
+            = new HazelcastProperty("jet.tasklet.rebalance.period.millis", 0, MILLISECONDS);
+
+    /**
+     * If a single call to a cooperative tasklet takes longer than this many
+     * milliseconds, a warning with the name of the tasklet (the vertex name
+     * and the processor index) is logged, at most once per 10 seconds for each
+     * tasklet. A cooperative tasklet taking long delays all other tasklets on
+     * the same thread. The default value is 0, which disables the logging.
+     * <p>
+     * See also {@link #JET_CALL_DURATION_HISTOGRAMS_ENABLED}.
+     */
+    public static final HazelcastProperty JET_SLOW_CALL_THRESHOLD_MILLIS
+            = new HazelcastProperty("jet.slow.call.threshold.millis", 0, MILLISECONDS);
+
+    /**
+     * Records the duration of each tasklet call in a histogram. The
+     * distribution of the call durations in the last minute is available as
+     * the {@code callCount}, {@code callDurationP50}, {@code
+     * callDurationP99}, {@code callDurationP999} and {@code callDurationMax}
+     * metrics of each processor, they are 0 when this is disabled.
+     * <p>
+     * The tasklet calls are timed only if this, the {@link
+     * #JET_TASKLET_REBALANCE_PERIOD_MILLIS rebalancing} or the {@link
+     * #JET_SLOW_CALL_THRESHOLD_MILLIS slow call logging} is enabled. The
+     * {@code busyTimeNanos} metrics of the processors and cooperative
+     * workers are updated only then.
+     * <p>
+     * Disabled by default.
+     */
+    public static final HazelcastProperty JET_CALL_DURATION_HISTOGRAMS_ENABLED
+            = new HazelcastProperty("jet.call.duration.histograms.enabled", false);
+
+    /**
+     * Runs the non-cooperative tasklets on virtual threads instead of
+     * platform threads, if the JVM supports them (Java 21 or later). If it
+     * doesn't, a warning is logged and platform threads are used.
+     * <p>
+     * An idle non-cooperative tasklet parks for an increasing time of up to
+     * 5 ms and the upstream tasklet unparks it when it adds an item to its
+     * queue. Parked virtual threads don't occupy an OS thread, which makes
+     * it cheap to run the non-cooperative vertices with a high local
+     * parallelism. Note that a
+     * virtual thread blocked inside a {@code synchronized} block or a native
+     * call still occupies its carrier thread.
+     * <p>
+     * Disabled by default.
+     */
+    public static final HazelcastProperty JET_BLOCKING_VIRTUAL_THREADS_ENABLED
+            = new HazelcastProperty("jet.blocking.virtual.threads.enabled", false);
+
+    /**
+     * The total number of queue slots the local edges of all jobs on a member
+     * can use. If set to a positive value, each queue of a local edge starts
+     * with a small array and only grows towards the {@link
+     * com.hazelcast.jet.config.EdgeConfig#setQueueSize queue size} of the
+     * edge when the consumer falls behind, as long as the total number of
+     * slots on the member is within this budget. The queues shrink back when
+     * their occupancy stays low.
+     * <p>
+     * Use it for jobs with a high local parallelism, where each of the
+     * <em>upstream parallelism &times; downstream parallelism</em> queues of
+     * an edge otherwise preallocates the full queue size. Each slot takes 4
+     * or 8 bytes of heap, depending on the size of object references.
+     * <p>
+     * The default value is 0, which disables the adaptive queues.
+     */
+    public static final HazelcastProperty JET_CONVEYOR_SLOT_BUDGET
+            = new HazelcastProperty("jet.conveyor.slot.budget", 0L);
+
+    /**
+     * The minimum local parallelism of the upstream vertex of a local edge
+     * for which each downstream processor gets a single queue shared by all
+     * upstream processors, instead of one queue per upstream processor. The
+     * cost of draining the shared queue doesn't depend on the number of
+     * upstream processors, which helps edges such as {@code allToOne()} or
+     * the combining step of an aggregation that have many mostly idle
+     * producers.
+     * <p>
+     * The shared queue isn't used in jobs with the exactly-once guarantee,
+     * because it can't stop taking the items of a single producer until the
+     * snapshot barrier is received from the others.
+     * <p>
+     * The default value is 0, which disables the shared queues.
+     */
+    public static final HazelcastProperty JET_SHARED_QUEUE_MIN_PRODUCERS
+            = new HazelcastProperty("jet.shared.queue.min.producers", 0);
+
+    /**
+     * The interval in milliseconds at which the source processors inject a
+     * latency marker. The markers travel along the edges like other items
+     * and each processor records how long they took from the upstream
+     * processor and from the source. The latencies are available as the
+     * {@code edgeLatency*} metrics per input ordinal and as the {@code
+     * sourceLatency*} metrics of the processor. Each processor forwards at
+     * most one marker per interval.
+     * <p>
+     * The latencies between processors on different members include the
+     * clock skew between the members.
+     * <p>
+     * The default value is 0, which disables the markers.
+     */
+    public static final HazelcastProperty JET_LATENCY_MARKER_INTERVAL_MILLIS
+            = new HazelcastProperty("jet.latency.marker.interval.millis", 0, MILLISECONDS);
+
+    /**
+     * Sizes the receive window of distributed edges from the measured drain
+     * rate of the receiver and the round-trip time to the sender, instead of
+     * from the {@link com.hazelcast.jet.config.EdgeConfig#setReceiveWindowMultiplier
+     * receive window multiplier}. The window is the amount of data the
+     * receiver can process until the sender gets the next flow-control
+     * message: the highest drain rate in the last few flow-control periods
+     * multiplied by the flow-control period plus the round-trip time. It's
+     * doubled while the receiver keeps up, so that the sender can speed up,
+     * but not while items are waiting in the receiver.
+     * <p>
+     * Compared to the fixed multiplier, this lets a sender use the bandwidth
+     * of a link with a high round-trip time and it admits less data into a
+     * receiver that can't keep up.
+     * <p>
+     * Disabled by default.
+     */
+    public static final HazelcastProperty JET_FLOW_CONTROL_ADAPTIVE_ENABLED
+            = new HazelcastProperty("jet.flow.control.adaptive.enabled", false);
+
+    /**
+     * If positive, the members send the packets of distributed edges over
+     * dedicated TCP connections instead of the member connections shared
+     * with the other Hazelcast traffic. Each member listens for these
+     * connections on its member port plus this offset, therefore the offset
+     * must be the same on all members.
+     * <p>
+     * Only the data packets use the dedicated connections, the flow-control
+     * messages still go over the member connections.
+     * <p>
+     * Disabled by default.
+     */
+    public static final HazelcastProperty JET_DATA_PLANE_PORT_OFFSET
+            = new HazelcastProperty("jet.data.plane.port.offset", 0);
+
+    /**
+     * The number of threads doing the I/O of the dedicated data-plane
+     * connections, see {@link #JET_DATA_PLANE_PORT_OFFSET}.
+     */
+    public static final HazelcastProperty JET_DATA_PLANE_IO_THREAD_COUNT
+            = new HazelcastProperty("jet.data.plane.io.thread.count", 1);
+
+    /**
+     * The maximum size of a packet on the dedicated data-plane connections,
+     * see {@link #JET_DATA_PLANE_PORT_OFFSET}. A member closes a connection
+     * on which it receives a larger frame, a job that produces a larger
+     * packet fails. Must be the same on all members.
+     * <p>
+     * The default value is 64 MB.
+     */
+    public static final HazelcastProperty JET_DATA_PLANE_MAX_PACKET_BYTES
+            = new HazelcastProperty("jet.data.plane.max.packet.bytes", 1 << 26);
+
+    /**
+     * The number of items a processor of fused map and filter stages of a
+     * pipeline takes from the inbox at once. If positive, the processor
+     * applies the first stage to all items of the batch, then the second
+     * stage to the remaining items and so on, instead of passing each item
+     * through all the stages. Each stage's function is then called from a
+     * tight loop many times in a row, which is cheaper than calling the
+     * functions of all stages in turn through a traverser.
+     * <p>
+     * Only the chains that don't contain a {@code flatMap} stage are
+     * processed in batches.
+     * <p>
+     * The default value is 0, which disables the batches.
+     */
+    public static final HazelcastProperty JET_FUSED_MAP_BATCH_SIZE
+            = new HazelcastProperty("jet.fused.map.batch.size", 0);
+
+    /**
+     * Fuses each chain of vertices of a DAG created from a pipeline which are
+     * connected by local edges that are neither partitioned nor broadcast,
+     * where each vertex of the chain has a single outbound edge to the next
+     * vertex, which in turn has no other inbound edge, and the vertices have
+     * the same local parallelism. The fused vertex runs the processors of the
+     * whole chain in a single processor, avoiding the queue between each two
+     * of them. It keeps the name of the last vertex of the chain.
+     * <p>
+     * Unlike the other properties in this class, this one is not read from
+     * the member configuration: the pipeline is turned into a DAG on the JVM
+     * that submits the job, which can be a client, therefore the property is
+     * read from the system properties of that JVM, for example {@code
+     * -Djet.pipeline.vertex.fusion.enabled=true}. Setting it in the {@code
+     * JetConfig} of the members has no effect.
+     * <p>
+     * The fused vertex has the metrics of a single processor, therefore keep
+     * it disabled to see the original vertices when debugging a job.
+     * <p>
+     * Disabled by default.
+     */
+    public static final HazelcastProperty JET_PIPELINE_VERTEX_FUSION_ENABLED
+            = new HazelcastProperty("jet.pipeline.vertex.fusion.enabled", false);
+
+    /**
+     * The number of keyed state entries of a processor that are kept as
+     * objects on the heap. If positive, the keyed aggregation processors
+     * ({@code GroupP}, {@code SlidingWindowP} and {@code SessionWindowP})
+     * keep their state in maps that hold only this many recently used keys
+     * and their accumulators on the heap and keep the other ones serialized
+     * in direct memory, outside of the heap. This allows a state larger than
+     * what the garbage collector handles well, at the cost of serializing the
+     * entries that fall out of the cache.
+     * <p>
+     * The limit applies to each processor: the maps {@code SlidingWindowP}
+     * has for each frame share it. The keys are compared in their serialized form, like the
+     * keys of an {@code IMap}, and both the keys and the accumulators must be
+     * serializable. The direct memory is limited by the {@code
+     * -XX:MaxDirectMemorySize} JVM option.
+     * <p>
+     * The default value is 0, which keeps all the state on the heap.
+     */
+    public static final HazelcastProperty JET_KEYED_STATE_HEAP_CACHE_SIZE
+            = new HazelcastProperty("jet.keyed.state.heap.cache.size", 0);
+
+    /**
+     * The number of keys a batch processor keeps in memory before it spills
+     * its state to local disk files. If positive, the group-by processor
+     * ({@code GroupP}) and the collector of the hash-join build side ({@code
+     * HashJoinCollectP}) write their state to files partitioned by the hash
+     * of the key when they exceed this number of keys, respectively entries.
+     * Once the input is exhausted, each file is processed separately, and a
+     * file which is still too large is partitioned again. The hash-join
+     * processor then partitions its input in the same way and joins it with
+     * the build side one file at a time.
+     * <p>
+     * Spilling requires the keys and the values to be serializable and the
+     * keys to have a serialized form consistent with {@code equals}. A
+     * group-by processor with an aggregate operation without a {@code
+     * combineFn} doesn't spill. The build side of a hash join is only
+     * spilled if the primary stage is a batch stage: the hash-join
+     * processor can't join a spilled build side until its primary input is
+     * exhausted, so the build side of a join with a stream stays in memory
+     * regardless of this property. The bytes written are available as the
+     * {@code bytesSpilled} metric of the processor.
+     * <p>
+     * The default value is 0, which disables spilling.
+     */
+    public static final HazelcastProperty JET_SPILL_THRESHOLD_KEYS
+            = new HazelcastProperty("jet.spill.threshold.keys", 0);
+
+    /**
+     * The directory in which the spill files are created, see {@link
+     * #JET_SPILL_THRESHOLD_KEYS}. The default is the {@code java.io.tmpdir}
+     * directory.
+     */
+    public static final HazelcastProperty JET_SPILL_DIRECTORY
+            = new HazelcastProperty("jet.spill.directory", "");
+
     private JetProperties() {
     }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * An allocation-free histogram of durations in nanoseconds, in the style of
+ * HdrHistogram. Each power of two is split into {@value #SUB_BUCKET_COUNT}
+ * linear sub-buckets, so the relative error of the reported values is at most
+ * 12.5%. Values above 2<sup>{@value #MAX_EXPONENT}</sup> ns (about 18
+ * minutes) are recorded in the last bucket.
+ * <p>
+ * The histogram reports only the recent values: the window is split into
+ * {@value #SLOT_COUNT} time slots, values are recorded into the slot of the
+ * current time and the slots older than the window are ignored and reused.
+ * Therefore the reported values cover between 3/4 of the window and the
+ * whole window. This way a recent latency spike shows up in the reported
+ * percentiles even after a job has been running for a long time.
+ * <p>
+ * Only one thread at a time can {@link #record} values, the counts use
+ * {@code lazySet}. Any thread can read the values, the result might be
+ * slightly inconsistent when read concurrently with recording.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The default length of the window of reported values, 1 minute.
+     */
+    public static final long DEFAULT_WINDOW_NANOS = MINUTES.toNanos(1);
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+    private static final int SLOT_COUNT = 4;
+    private static final long NO_SLOT = Long.MIN_VALUE;
+    private static final double HUNDRED = 100d;
+
+    private final long slotNanos;
+    private final AtomicLongArray counts = new AtomicLongArray(SLOT_COUNT * BUCKET_COUNT);
+    private final AtomicLongArray maxes = new AtomicLongArray(SLOT_COUNT);
+    // the number of the time slot each slot holds, NO_SLOT while unused or being cleared
+    private final AtomicLongArray slotNumbers = new AtomicLongArray(SLOT_COUNT);
+    // accessed only by the recording thread
+    private long currentSlotNumber = NO_SLOT;
+
+    /**
+     * Creates a histogram reporting the values recorded in the last {@link
+     * #DEFAULT_WINDOW_NANOS}.
+     */
+    public LatencyHistogram() {
+        this(DEFAULT_WINDOW_NANOS);
+    }
+
+    /**
+     * Creates a histogram reporting the values recorded in the last {@code
+     * windowNanos}.
+     */
+    public LatencyHistogram(long windowNanos) {
+        this.slotNanos = Math.max(1, windowNanos / SLOT_COUNT);
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slotNumbers.set(i, NO_SLOT);
+        }
+    }
+
+    /**
+     * Records one duration. Negative values are recorded as 0.
+     *
+     * @param nanos the duration
+     * @param nowNanos the current {@link System#nanoTime()}, the caller
+     *                 usually has it at hand
+     */
+    public void record(long nanos, long nowNanos) {
+        long slotNumber = Math.floorDiv(nowNanos, slotNanos);
+        if (slotNumber > currentSlotNumber) {
+            startSlot(slotNumber);
+        }
+        int slot = slotIndex(currentSlotNumber);
+        lazyIncrement(counts, slot * BUCKET_COUNT + bucketIndex(nanos));
+        if (nanos > maxes.get(slot)) {
+            maxes.lazySet(slot, nanos);
+        }
+    }
+
+    private void startSlot(long slotNumber) {
+        int slot = slotIndex(slotNumber);
+        // hide the slot from the readers while clearing it
+        slotNumbers.set(slot, NO_SLOT);
+        for (int i = slot * BUCKET_COUNT; i < (slot + 1) * BUCKET_COUNT; i++) {
+            counts.lazySet(i, 0);
+        }
+        maxes.lazySet(slot, 0);
+        slotNumbers.set(slot, slotNumber);
+        currentSlotNumber = slotNumber;
+    }
+
+    /**
+     * Returns the number of recent values.
+     */
+    public long count() {
+        return count(System.nanoTime());
+    }
+
+    long count(long nowNanos) {
+        long count = 0;
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            if (isRecent(slot, nowNanos)) {
+                for (int i = slot * BUCKET_COUNT; i < (slot + 1) * BUCKET_COUNT; i++) {
+                    count += counts.get(i);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the maximum recent value, exactly.
+     */
+    public long max() {
+        return max(System.nanoTime());
+    }
+
+    long max(long nowNanos) {
+        long max = 0;
+        for (int slot = 0; slot < SLOT_COUNT; slot++) {
+            if (isRecent(slot, nowNanos)) {
+                max = Math.max(max, maxes.get(slot));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the value at the given percentile of the recent values, that
+     * is the highest value in the bucket where the percentile falls. Returns
+     * 0 if there are no recent values.
+     *
+     * @param percentile the percentile, from 0 to 100
+     */
+    public long valueAtPercentile(double percentile) {
+        return valueAtPercentile(percentile, System.nanoTime());
+    }
+
+    long valueAtPercentile(double percentile, long nowNanos) {
+        long count = count(nowNanos);
+        if (count == 0) {
+            return 0;
+        }
+        long max = max(nowNanos);
+        long targetCount = Math.max(1, (long) Math.ceil(percentile / HUNDRED * count));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            for (int slot = 0; slot < SLOT_COUNT; slot++) {
+                if (isRecent(slot, nowNanos)) {
+                    cumulative += counts.get(slot * BUCKET_COUNT + i);
+                }
+            }
+            if (cumulative >= targetCount) {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private boolean isRecent(int slot, long nowNanos) {
+        long slotNumber = slotNumbers.get(slot);
+        return slotNumber != NO_SLOT && Math.floorDiv(nowNanos, slotNanos) - slotNumber < SLOT_COUNT;
+    }
+
+    private static int slotIndex(long slotNumber) {
+        return (int) Math.floorMod(slotNumber, (long) SLOT_COUNT);
+    }
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = Math.min(MAX_EXPONENT, Long.SIZE - 1 - Long.numberOfLeadingZeros(value));
+        if (exponent == MAX_EXPONENT && value >= 1L << (MAX_EXPONENT + 1)) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+
+/**
+ * A key function extracting a primitive {@code long} key, which it boxes
+ * when applied as a {@code FunctionEx}.
+ * <p>
+ * We want to be able to do instanceof check on it so that the aggregating
+ * processors can keep the keys unboxed.
+ */
+public class LongKeyFunctionEx<T> implements FunctionEx<T, Long> {
+    private final ToLongFunctionEx<? super T> keyFn;
+
+    public LongKeyFunctionEx(ToLongFunctionEx<? super T> keyFn) {
+        this.keyFn = keyFn;
+    }
+
+    @Override
+    public Long applyEx(T t) {
+        return keyFn.applyAsLong(t);
+    }
+
+    /**
+     * Returns the key of the given item without boxing it.
+     */
+    public long applyAsLong(T t) {
+        return keyFn.applyAsLong(t);
+    }
+}
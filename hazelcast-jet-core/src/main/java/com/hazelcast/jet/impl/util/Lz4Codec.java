@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import java.util.Arrays;
+
+/**
+ * A pure-Java implementation of the LZ4 block format. The compressor uses
+ * a single-probe hash table and a greedy match search, which favors speed
+ * over the compression ratio.
+ * <p>
+ * An instance holds the hash table of the compressor and isn't thread-safe,
+ * the decompression is stateless.
+ */
+public final class Lz4Codec {
+
+    private static final int MIN_MATCH = 4;
+    // the last match must start at least 12 bytes before the end of input...
+    private static final int MF_LIMIT = 12;
+    // ...and the last 5 bytes are always literals
+    private static final int LAST_LITERALS = 5;
+    private static final int MAX_DISTANCE = (1 << 16) - 1;
+    private static final int HASH_LOG = 12;
+    private static final int HASH_MULTIPLIER = -1640531535;
+    // after this many bytes without a match, the search starts skipping bytes
+    private static final int SKIP_TRIGGER_LOG2 = 6;
+    private static final int RUN_MASK = 0xF;
+    private static final int ML_BITS = 4;
+    private static final int BYTE_MASK = 0xFF;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    /**
+     * Returns the maximum length of the compressed form of input of the given
+     * length.
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / BYTE_MASK + LAST_LITERALS * 2 + MF_LIMIT;
+    }
+
+    /**
+     * Compresses {@code srcLen} bytes of {@code src} starting at {@code
+     * srcOff} into {@code dest} starting at {@code destOff}. The
+     * destination must have at least {@link #maxCompressedLength} bytes
+     * available.
+     *
+     * @return the length of the compressed data
+     */
+    public int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff) {
+        final int srcEnd = srcOff + srcLen;
+        final int matchLimit = srcEnd - LAST_LITERALS;
+        final int mfLimit = srcEnd - MF_LIMIT;
+        int anchor = srcOff;
+        int dOff = destOff;
+        if (srcLen > MF_LIMIT) {
+            Arrays.fill(hashTable, -1);
+            for (int sOff = srcOff; sOff < mfLimit; ) {
+                int seq = readInt(src, sOff);
+                int h = hash(seq);
+                int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != seq) {
+                    sOff += 1 + ((sOff - anchor) >>> SKIP_TRIGGER_LOG2);
+                    continue;
+                }
+                // extend the match backwards into the pending literals
+                while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+                int matchLen = MIN_MATCH;
+                while (sOff + matchLen < matchLimit && src[sOff + matchLen] == src[ref + matchLen]) {
+                    matchLen++;
+                }
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLen, dest, dOff);
+                sOff += matchLen;
+                anchor = sOff;
+            }
+        }
+        return writeLastLiterals(src, anchor, srcEnd - anchor, dest, dOff) - destOff;
+    }
+
+    /**
+     * Decompresses {@code srcLen} bytes of {@code src} starting at {@code
+     * srcOff} into {@code dest} starting at {@code destOff}. The
+     * decompressed data must be exactly {@code destLen} bytes long.
+     *
+     * @throws IllegalArgumentException if the input is malformed
+     */
+    public static void decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff, int destLen) {
+        final int srcEnd = srcOff + srcLen;
+        final int destEnd = destOff + destLen;
+        int sOff = srcOff;
+        int dOff = destOff;
+        try {
+            while (true) {
+                final int token = src[sOff++] & BYTE_MASK;
+                int literalLen = token >>> ML_BITS;
+                if (literalLen == RUN_MASK) {
+                    for (int b = BYTE_MASK; b == BYTE_MASK; literalLen += b) {
+                        b = src[sOff++] & BYTE_MASK;
+                    }
+                }
+                System.arraycopy(src, sOff, dest, dOff, literalLen);
+                sOff += literalLen;
+                dOff += literalLen;
+                if (sOff >= srcEnd) {
+                    break;
+                }
+                final int offset = (src[sOff++] & BYTE_MASK) | (src[sOff++] & BYTE_MASK) << Byte.SIZE;
+                int matchLen = token & RUN_MASK;
+                if (matchLen == RUN_MASK) {
+                    for (int b = BYTE_MASK; b == BYTE_MASK; matchLen += b) {
+                        b = src[sOff++] & BYTE_MASK;
+                    }
+                }
+                matchLen += MIN_MATCH;
+                final int ref = dOff - offset;
+                if (offset == 0 || ref < destOff || dOff + matchLen > destEnd) {
+                    throw new IllegalArgumentException("Malformed LZ4 input at offset " + (sOff - srcOff));
+                }
+                copyMatch(dest, ref, dOff, matchLen);
+                dOff += matchLen;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed LZ4 input", e);
+        }
+        if (dOff != destEnd) {
+            throw new IllegalArgumentException("Decompressed length " + (dOff - destOff) + " != " + destLen);
+        }
+    }
+
+    private static void copyMatch(byte[] buf, int ref, int dOff, int matchLen) {
+        if (dOff - ref >= matchLen) {
+            System.arraycopy(buf, ref, buf, dOff, matchLen);
+        } else {
+            // overlapping match, repeats the last (dOff - ref) bytes
+            for (int i = 0; i < matchLen; i++) {
+                buf[dOff + i] = buf[ref + i];
+            }
+        }
+    }
+
+    private static int writeSequence(
+            byte[] src, int literalOff, int literalLen, int offset, int matchLen, byte[] dest, int destOff
+    ) {
+        int dOff = destOff;
+        final int tokenOff = dOff++;
+        int token;
+        if (literalLen >= RUN_MASK) {
+            token = RUN_MASK << ML_BITS;
+            dOff = writeLength(literalLen - RUN_MASK, dest, dOff);
+        } else {
+            token = literalLen << ML_BITS;
+        }
+        System.arraycopy(src, literalOff, dest, dOff, literalLen);
+        dOff += literalLen;
+        dest[dOff++] = (byte) offset;
+        dest[dOff++] = (byte) (offset >>> Byte.SIZE);
+        final int matchLenCode = matchLen - MIN_MATCH;
+        if (matchLenCode >= RUN_MASK) {
+            token |= RUN_MASK;
+            dOff = writeLength(matchLenCode - RUN_MASK, dest, dOff);
+        } else {
+            token |= matchLenCode;
+        }
+        dest[tokenOff] = (byte) token;
+        return dOff;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalOff, int literalLen, byte[] dest, int destOff) {
+        int dOff = destOff;
+        if (literalLen >= RUN_MASK) {
+            dest[dOff++] = (byte) (RUN_MASK << ML_BITS);
+            dOff = writeLength(literalLen - RUN_MASK, dest, dOff);
+        } else {
+            dest[dOff++] = (byte) (literalLen << ML_BITS);
+        }
+        System.arraycopy(src, literalOff, dest, dOff, literalLen);
+        return dOff + literalLen;
+    }
+
+    private static int writeLength(int length, byte[] dest, int destOff) {
+        int dOff = destOff;
+        int remaining = length;
+        for (; remaining >= BYTE_MASK; remaining -= BYTE_MASK) {
+            dest[dOff++] = (byte) BYTE_MASK;
+        }
+        dest[dOff++] = (byte) remaining;
+        return dOff;
+    }
+
+    private static int readInt(byte[] buf, int off) {
+        return (buf[off] & BYTE_MASK)
+                | (buf[off + 1] & BYTE_MASK) << Byte.SIZE
+                | (buf[off + 2] & BYTE_MASK) << 2 * Byte.SIZE
+                | (buf[off + 3] & BYTE_MASK) << 3 * Byte.SIZE;
+    }
+
+    private static int hash(int seq) {
+        return (seq * HASH_MULTIPLIER) >>> (Integer.SIZE - HASH_LOG);
+    }
+}
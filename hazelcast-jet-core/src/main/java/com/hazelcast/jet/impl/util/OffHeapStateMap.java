@@ -0,0 +1,747 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.nio.serialization.Data;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A map that keeps the recently used entries as objects on the heap and
+ * the other entries serialized in direct memory, outside of the heap. The
+ * entries on the heap are in an access-ordered {@link HeapCache} of a fixed
+ * capacity, the least recently used entry is serialized when the cache
+ * overflows. An entry that is accessed again is deserialized and moved back
+ * to the cache, so each entry is either in the cache or in the direct
+ * memory. Several maps can share one cache, then the capacity limits the
+ * entries of all of them and an access to one map can serialize the
+ * entries of another one.
+ * <p>
+ * The serialized entries are appended to chunks of direct memory. The
+ * index of the serialized entries is a hash table with open addressing
+ * that holds the hash and the address of each entry in two primitive
+ * arrays, therefore it adds no objects on the heap. When the space of the
+ * removed entries exceeds the space of the live entries, the live entries
+ * are copied to new chunks. The chunks are released when their buffers are
+ * garbage-collected.
+ * <p>
+ * The keys are compared in their serialized form, like the keys of an
+ * {@code IMap}. The values can be mutated only while they are in the
+ * cache: an entry returned by {@link #get} or {@link #computeIfAbsent} is
+ * the most recently used entry and remains in the cache until other
+ * entries are accessed. The entries of the serialized part returned by the
+ * iterator of {@link #entrySet()} are copies. Null values aren't
+ * supported. While an iterator is in use, the cached entries of the map
+ * aren't serialized due to the accesses to the other maps sharing the
+ * cache.
+ * <p>
+ * The map is not thread-safe.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class OffHeapStateMap<K, V> extends AbstractMap<K, V> {
+
+    static final int MIN_CHUNK_SIZE = 1 << 12;
+    static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int INITIAL_INDEX_CAPACITY = 16;
+    private static final double INDEX_LOAD_FACTOR = 0.6;
+
+    private final InternalSerializationService serializationService;
+    private final HeapCache heapCache;
+    // the entries of this map in the heap cache
+    private final Map<K, CacheNode<K, V>> cache = new HashMap<>();
+    private final EntrySet entrySet = new EntrySet();
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    // the offset of the next record in the last chunk
+    private int writeOffset;
+    private long liveBytes;
+    private long garbageBytes;
+
+    // the index of the serialized entries, 0 marks an empty slot
+    private long[] addresses = new long[INITIAL_INDEX_CAPACITY];
+    private int[] hashes = new int[INITIAL_INDEX_CAPACITY];
+    private int indexSize;
+    private int modCount;
+    // the number of the iterators in use, the cached entries are pinned while positive
+    private int pinCount;
+
+    /**
+     * @param serializationService the service to serialize the keys and values
+     * @param cacheCapacity the number of entries kept as objects on the heap
+     */
+    public OffHeapStateMap(@Nonnull InternalSerializationService serializationService, int cacheCapacity) {
+        this(serializationService, new HeapCache(cacheCapacity));
+    }
+
+    /**
+     * @param serializationService the service to serialize the keys and values
+     * @param heapCache the cache of the entries kept as objects on the heap,
+     *          possibly shared with other maps
+     */
+    public OffHeapStateMap(@Nonnull InternalSerializationService serializationService, @Nonnull HeapCache heapCache) {
+        this.serializationService = serializationService;
+        this.heapCache = heapCache;
+    }
+
+    @Override
+    public int size() {
+        return cache.size() + indexSize;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (cache.containsKey(key)) {
+            return true;
+        }
+        if (indexSize == 0) {
+            return false;
+        }
+        Data keyData = serializationService.toData(key);
+        return findSlot(keyData.toByteArray(), keyData.hashCode()) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        CacheNode<K, V> node = cache.get(key);
+        if (node != null) {
+            if (pinCount == 0) {
+                heapCache.touch(node);
+            }
+            return node.getValue();
+        }
+        return indexSize == 0 ? null : load(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        requireNonNull(value, "value");
+        modified();
+        V oldValue = cachePut(key, value);
+        if (oldValue == null && indexSize > 0) {
+            oldValue = unload(key);
+        }
+        return oldValue;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, @Nonnull Function<? super K, ? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                modified();
+                cachePut(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public V remove(Object key) {
+        CacheNode<K, V> node = cache.remove(key);
+        V oldValue;
+        if (node != null) {
+            heapCache.unlink(node);
+            oldValue = node.getValue();
+        } else {
+            oldValue = indexSize > 0 ? unload(key) : null;
+        }
+        if (oldValue != null) {
+            modified();
+        }
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        for (CacheNode<K, V> node : cache.values()) {
+            heapCache.unlink(node);
+        }
+        cache.clear();
+        pinCount = 0;
+        chunks.clear();
+        writeOffset = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        addresses = new long[INITIAL_INDEX_CAPACITY];
+        hashes = new int[INITIAL_INDEX_CAPACITY];
+        indexSize = 0;
+        modCount++;
+    }
+
+    @Nonnull @Override
+    public Set<Entry<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * Returns the number of entries kept serialized in direct memory.
+     */
+    public int serializedCount() {
+        return indexSize;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory allocated for the
+     * serialized entries.
+     */
+    long allocatedBytes() {
+        long result = 0;
+        for (ByteBuffer chunk : chunks) {
+            result += chunk.capacity();
+        }
+        return result;
+    }
+
+    /**
+     * Moves the serialized entry for the given key to the cache and
+     * returns its value, or returns {@code null} if there's no such entry.
+     */
+    @SuppressWarnings("unchecked")
+    private V load(Object key) {
+        Data keyData = serializationService.toData(key);
+        int slot = findSlot(keyData.toByteArray(), keyData.hashCode());
+        if (slot < 0) {
+            return null;
+        }
+        V value = readValue(addresses[slot]);
+        removeSlot(slot);
+        modified();
+        cachePut((K) key, value);
+        return value;
+    }
+
+    /**
+     * Removes the serialized entry for the given key and returns its
+     * value, or returns {@code null} if there's no such entry.
+     */
+    private V unload(Object key) {
+        Data keyData = serializationService.toData(key);
+        int slot = findSlot(keyData.toByteArray(), keyData.hashCode());
+        if (slot < 0) {
+            return null;
+        }
+        V value = readValue(addresses[slot]);
+        removeSlot(slot);
+        return value;
+    }
+
+    /**
+     * Puts the entry to the cache as the most recently used one. Returns the
+     * previous value of the cached entry, or {@code null} if the key wasn't
+     * cached. The cache may serialize the least recently used entries of
+     * this or other maps.
+     */
+    private V cachePut(K key, V value) {
+        CacheNode<K, V> node = cache.get(key);
+        if (node != null) {
+            heapCache.touch(node);
+            return node.setValue(value);
+        }
+        node = new CacheNode<>(this, key, value);
+        cache.put(key, node);
+        heapCache.add(node);
+        return null;
+    }
+
+    /**
+     * Records a modification by a method of this map. The modification
+     * invalidates the iterators, so the cached entries pinned by them are
+     * unpinned.
+     */
+    private void modified() {
+        modCount++;
+        if (pinCount > 0) {
+            pinCount = 0;
+            cache.values().forEach(heapCache::linkEldest);
+        }
+    }
+
+    /**
+     * Removes the cached entries from the eviction order of the heap cache,
+     * so that they stay cached while an iterator uses them.
+     */
+    private void pin() {
+        if (pinCount++ == 0) {
+            cache.values().forEach(heapCache::unlink);
+        }
+    }
+
+    /**
+     * Returns the cached entries to the eviction order of the heap cache
+     * when the last iterator is done. They lost their order, they are
+     * treated as the least recently used entries.
+     */
+    private void unpin() {
+        if (pinCount > 0 && --pinCount == 0) {
+            cache.values().forEach(heapCache::linkEldest);
+        }
+    }
+
+    /**
+     * Serializes the given entry which the heap cache evicted.
+     */
+    void evict(CacheNode<K, V> node) {
+        cache.remove(node.getKey());
+        store(node.getKey(), node.getValue());
+        modCount++;
+    }
+
+    /**
+     * Serializes the given entry evicted from the cache.
+     */
+    private void store(K key, V value) {
+        Data keyData = serializationService.toData(key);
+        byte[] keyBytes = keyData.toByteArray();
+        byte[] valueBytes = serializationService.toData(value).toByteArray();
+        if (indexSize + 1 > addresses.length * INDEX_LOAD_FACTOR) {
+            resizeIndex();
+        }
+        int slot = findSlot(keyBytes, keyData.hashCode());
+        assert slot < 0 : "the evicted key is already serialized: " + key;
+        long address = writeRecord(keyBytes, valueBytes);
+        slot = -slot - 1;
+        addresses[slot] = address;
+        hashes[slot] = keyData.hashCode();
+        indexSize++;
+    }
+
+    /**
+     * Returns the slot of the entry with the given serialized key if it
+     * exists, otherwise returns {@code -slot - 1}, where {@code slot} is
+     * the empty slot where the entry can be inserted.
+     */
+    private int findSlot(byte[] keyBytes, int hash) {
+        int mask = addresses.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long address = addresses[slot];
+            if (address == 0) {
+                return -slot - 1;
+            }
+            if (hashes[slot] == hash && keyEquals(address, keyBytes)) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry in the given slot. The following entries of the
+     * cluster are shifted back, so that each entry remains reachable from
+     * its ideal slot without tombstones.
+     */
+    private void removeSlot(int slot) {
+        long recordSize = recordSize(addresses[slot]);
+        liveBytes -= recordSize;
+        garbageBytes += recordSize;
+        int mask = addresses.length - 1;
+        int gap = slot;
+        for (int next = (gap + 1) & mask; addresses[next] != 0; next = (next + 1) & mask) {
+            int ideal = hashes[next] & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                addresses[gap] = addresses[next];
+                hashes[gap] = hashes[next];
+                gap = next;
+            }
+        }
+        addresses[gap] = 0;
+        indexSize--;
+    }
+
+    private void resizeIndex() {
+        long[] oldAddresses = addresses;
+        int[] oldHashes = hashes;
+        addresses = new long[oldAddresses.length * 2];
+        hashes = new int[oldHashes.length * 2];
+        int mask = addresses.length - 1;
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] == 0) {
+                continue;
+            }
+            int slot = oldHashes[i] & mask;
+            while (addresses[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            addresses[slot] = oldAddresses[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+
+    private long writeRecord(byte[] keyBytes, byte[] valueBytes) {
+        if (garbageBytes > liveBytes && garbageBytes >= MIN_CHUNK_SIZE) {
+            compact();
+        }
+        int recordSize = RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+        ByteBuffer chunk = chunkFor(recordSize);
+        long address = address(chunks.size() - 1, writeOffset);
+        chunk.position(writeOffset);
+        chunk.putInt(keyBytes.length).putInt(valueBytes.length).put(keyBytes).put(valueBytes);
+        writeOffset += recordSize;
+        liveBytes += recordSize;
+        return address;
+    }
+
+    /**
+     * Returns the chunk with enough space for a record of the given size
+     * after the {@link #writeOffset}, adds a new chunk if needed. The chunk
+     * sizes double up to {@link #MAX_CHUNK_SIZE}, a larger record gets a
+     * chunk of its own.
+     */
+    private ByteBuffer chunkFor(int recordSize) {
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.capacity() - writeOffset < recordSize) {
+            int lastSize = chunk == null ? 0 : chunk.capacity();
+            int size = max(recordSize, min(MAX_CHUNK_SIZE, max(MIN_CHUNK_SIZE, 2 * lastSize)));
+            chunk = ByteBuffer.allocateDirect(size);
+            chunks.add(chunk);
+            writeOffset = 0;
+        }
+        return chunk;
+    }
+
+    /**
+     * Copies the live records to new chunks and drops the old chunks. The
+     * entries keep their slots in the index.
+     */
+    private void compact() {
+        List<ByteBuffer> oldChunks = new ArrayList<>(chunks);
+        chunks.clear();
+        writeOffset = 0;
+        garbageBytes = 0;
+        for (int slot = 0; slot < addresses.length; slot++) {
+            long address = addresses[slot];
+            if (address == 0) {
+                continue;
+            }
+            ByteBuffer source = oldChunks.get(chunkIndex(address));
+            int offset = offset(address);
+            int recordSize = (int) recordSize(source, offset);
+            ByteBuffer chunk = chunkFor(recordSize);
+            addresses[slot] = address(chunks.size() - 1, writeOffset);
+            source.limit(offset + recordSize).position(offset);
+            chunk.position(writeOffset);
+            chunk.put(source);
+            source.clear();
+            writeOffset += recordSize;
+        }
+    }
+
+    private boolean keyEquals(long address, byte[] keyBytes) {
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        if (chunk.getInt(offset) != keyBytes.length) {
+            return false;
+        }
+        int keyOffset = offset + RECORD_HEADER_SIZE;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (chunk.get(keyOffset + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private K readKey(long address) {
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        return readObject(chunk, offset + RECORD_HEADER_SIZE, chunk.getInt(offset));
+    }
+
+    private V readValue(long address) {
+        ByteBuffer chunk = chunks.get(chunkIndex(address));
+        int offset = offset(address);
+        int keyLength = chunk.getInt(offset);
+        return readObject(chunk, offset + RECORD_HEADER_SIZE + keyLength, chunk.getInt(offset + Integer.BYTES));
+    }
+
+    private <T> T readObject(ByteBuffer chunk, int offset, int length) {
+        byte[] bytes = new byte[length];
+        chunk.position(offset);
+        chunk.get(bytes);
+        return serializationService.toObject(new HeapData(bytes));
+    }
+
+    private long recordSize(long address) {
+        return recordSize(chunks.get(chunkIndex(address)), offset(address));
+    }
+
+    private static long recordSize(ByteBuffer chunk, int offset) {
+        return RECORD_HEADER_SIZE + chunk.getInt(offset) + chunk.getInt(offset + Integer.BYTES);
+    }
+
+    // the chunk index is stored incremented, so that no address is 0
+    private static long address(int chunkIndex, int offset) {
+        return (long) (chunkIndex + 1) << Integer.SIZE | offset;
+    }
+
+    private static int chunkIndex(long address) {
+        return (int) (address >>> Integer.SIZE) - 1;
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * The cache of the entries kept as objects on the heap, shared by one or
+     * more {@link OffHeapStateMap}s, typically all the state maps of one
+     * processor. It keeps the cached entries of all the maps in a single
+     * access order, when there are more entries than the capacity, it
+     * evicts the least recently used entry regardless of the map it belongs
+     * to. The entries pinned by the iterators of a map aren't counted.
+     * <p>
+     * The cache is not thread-safe, all its maps must be used by one thread.
+     */
+    public static final class HeapCache {
+
+        private final int capacity;
+        // the sentinel of the circular list, its next node is the least recently used one
+        private final CacheNode<?, ?> head = new CacheNode<>(null, null, null);
+        private int size;
+
+        /**
+         * @param capacity the maximum number of entries kept as objects on the heap
+         */
+        public HeapCache(int capacity) {
+            checkPositive(capacity, "capacity must be positive");
+            this.capacity = capacity;
+            head.prev = head;
+            head.next = head;
+        }
+
+        /**
+         * Returns the number of cached entries, except for the pinned ones.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Adds the node as the most recently used one and evicts the least
+         * recently used nodes over the capacity.
+         */
+        void add(CacheNode<?, ?> node) {
+            link(node, head.prev);
+            while (size > capacity) {
+                CacheNode<?, ?> eldest = head.next;
+                unlink(eldest);
+                evict(eldest);
+            }
+        }
+
+        /**
+         * Moves the node to the most recently used position, unless it's
+         * pinned.
+         */
+        void touch(CacheNode<?, ?> node) {
+            if (node.prev != null) {
+                unlink(node);
+                link(node, head.prev);
+            }
+        }
+
+        /**
+         * Adds the node as the least recently used one.
+         */
+        void linkEldest(CacheNode<?, ?> node) {
+            link(node, head);
+        }
+
+        /**
+         * Removes the node from the eviction order, if it's in it.
+         */
+        void unlink(CacheNode<?, ?> node) {
+            if (node.prev == null) {
+                return;
+            }
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        private void link(CacheNode<?, ?> node, CacheNode<?, ?> after) {
+            node.prev = after;
+            node.next = after.next;
+            after.next.prev = node;
+            after.next = node;
+            size++;
+        }
+
+        private static <K, V> void evict(CacheNode<K, V> node) {
+            node.owner.evict(node);
+        }
+    }
+
+    /**
+     * A cached entry, linked into the access order of the {@link HeapCache}
+     * unless it's pinned.
+     */
+    static final class CacheNode<K, V> extends SimpleEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient OffHeapStateMap<K, V> owner;
+        private transient CacheNode<?, ?> prev;
+        private transient CacheNode<?, ?> next;
+
+        CacheNode(OffHeapStateMap<K, V> owner, K key, V value) {
+            super(key, value);
+            this.owner = owner;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Nonnull @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return OffHeapStateMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            OffHeapStateMap.this.clear();
+        }
+    }
+
+    /**
+     * Iterates the cached entries first, then the serialized ones. The
+     * serialized entries are iterated from the slot after an empty slot, so
+     * that the entries shifted back when the iterator removes an entry are
+     * never the ones already iterated. The cached entries are pinned until
+     * the iteration is done, so that the other maps sharing the heap cache
+     * don't serialize them meanwhile.
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private final Iterator<CacheNode<K, V>> cacheIterator = cache.values().iterator();
+        private final int startSlot = slotAfterEmptySlot();
+        // the number of index slots passed since the start slot
+        private int position;
+        private int lastSlot = -1;
+        private CacheNode<K, V> lastNode;
+        private boolean lastFromCache;
+        private boolean canRemove;
+        private int expectedModCount = modCount;
+        private boolean pinned;
+
+        EntryIterator() {
+            pin();
+            pinned = true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            checkForComodification();
+            if (cacheIterator.hasNext()) {
+                return true;
+            }
+            while (position < addresses.length && addresses[currentSlot()] == 0) {
+                position++;
+            }
+            if (position < addresses.length) {
+                return true;
+            }
+            if (pinned) {
+                pinned = false;
+                unpin();
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            canRemove = true;
+            lastFromCache = cacheIterator.hasNext();
+            if (lastFromCache) {
+                lastNode = cacheIterator.next();
+                return lastNode;
+            }
+            lastSlot = currentSlot();
+            position++;
+            long address = addresses[lastSlot];
+            return new SimpleImmutableEntry<>(readKey(address), readValue(address));
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            if (lastFromCache) {
+                cacheIterator.remove();
+                heapCache.unlink(lastNode);
+            } else {
+                removeSlot(lastSlot);
+                // the slot may now hold an entry shifted from a following slot
+                position--;
+            }
+            canRemove = false;
+            expectedModCount = ++modCount;
+        }
+
+        private int currentSlot() {
+            return (startSlot + position) & (addresses.length - 1);
+        }
+
+        private int slotAfterEmptySlot() {
+            for (int slot = 0; ; slot++) {
+                if (addresses[slot] == 0) {
+                    return (slot + 1) & (addresses.length - 1);
+                }
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
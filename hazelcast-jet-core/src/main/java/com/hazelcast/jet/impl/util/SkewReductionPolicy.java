@@ -74,6 +74,11 @@ import static com.hazelcast.util.Preconditions.checkTrue;
  *     for every watermark item received from any queue. If this method
  *     returns {@code true}, it means that the draining order was changed and
  *     the draining loop should exit.
+ * </li><li>
+ *     Call {@link #observeIdle(int) observeIdle(queueIndex)} for an idle
+ *     message, {@link #observeEvent(int) observeEvent(queueIndex)} for an
+ *     event and {@link #queueDone(int) queueDone(queueIndex)} when a queue
+ *     is done. Idle and done queues don't hold back the other queues.
  * </li></ol>
  */
 public class SkewReductionPolicy {
@@ -81,10 +86,15 @@ public class SkewReductionPolicy {
     // package-visible for tests
     final long[] queueWms;
     final int[] drainOrderToQIdx;
+    // queues that are idle or done, they are excluded from the bottom watermark
+    private final boolean[] excluded;
 
     private final long maxSkew;
     private final long priorityDrainingThreshold;
     private final boolean forceAdvanceWm;
+    // the bottom watermark of the queues that aren't excluded, valid if !bottomWmDirty
+    private long bottomWm = Long.MIN_VALUE;
+    private boolean bottomWmDirty;
 
     /**
      * Creates a policy which does not stop draining from any queue under any
@@ -111,6 +121,7 @@ public class SkewReductionPolicy {
 
         drainOrderToQIdx = new int[numQueues];
         Arrays.setAll(drainOrderToQIdx, i -> i);
+        excluded = new boolean[numQueues];
     }
 
     /**
@@ -141,10 +152,42 @@ public class SkewReductionPolicy {
         }
         boolean didReorder = adjustDrainingOrder(queueIndex, wmValue);
         queueWms[queueIndex] = wmValue;
+        excluded[queueIndex] = false;
+        bottomWmDirty = true;
         forceAdvanceWmIfConfigured();
         return didReorder;
     }
 
+    /**
+     * Called when the queue at {@code queueIndex} becomes idle. The queue
+     * won't hold back the other queues until it receives an event or a
+     * watermark.
+     */
+    public void observeIdle(int queueIndex) {
+        excluded[queueIndex] = true;
+        bottomWmDirty = true;
+    }
+
+    /**
+     * Called when an event is received from the queue at {@code
+     * queueIndex}. If the queue was idle, it holds back the other queues
+     * again.
+     */
+    public void observeEvent(int queueIndex) {
+        if (excluded[queueIndex]) {
+            excluded[queueIndex] = false;
+            bottomWmDirty = true;
+        }
+    }
+
+    /**
+     * Called when the queue at {@code queueIndex} is done, it won't hold
+     * back the other queues anymore.
+     */
+    public void queueDone(int queueIndex) {
+        observeIdle(queueIndex);
+    }
+
     private void forceAdvanceWmIfConfigured() {
         if (!forceAdvanceWm) {
             return;
@@ -152,6 +195,7 @@ public class SkewReductionPolicy {
         long newBottomWm = subtractClamped(topObservedWm(), maxSkew);
         for (int i = 0; i < drainOrderToQIdx.length && queueWms[drainOrderToQIdx[i]] < newBottomWm; i++) {
             queueWms[drainOrderToQIdx[i]] = newBottomWm;
+            bottomWmDirty = true;
         }
     }
 
@@ -175,12 +219,29 @@ public class SkewReductionPolicy {
      * @return {@code false} if the draining should now stop; {@code true} otherwise
      */
     public boolean shouldStopDraining(int queueIndex, boolean madeProgress) {
-        long skew = subtractClamped(queueWms[queueIndex], queueWms[drainOrderToQIdx[0]]);
+        if (excluded[queueIndex]) {
+            return false;
+        }
+        long skew = subtractClamped(queueWms[queueIndex], bottomObservedWm());
         return (madeProgress && skew > priorityDrainingThreshold) || (!forceAdvanceWm && skew > maxSkew);
     }
 
+    /**
+     * Returns the lowest watermark of the queues that are neither idle nor
+     * done, or {@code Long.MAX_VALUE} if there's no such queue.
+     */
     public long bottomObservedWm() {
-        return queueWms[drainOrderToQIdx[0]];
+        if (bottomWmDirty) {
+            bottomWm = Long.MAX_VALUE;
+            for (int queueIndex : drainOrderToQIdx) {
+                if (!excluded[queueIndex]) {
+                    bottomWm = queueWms[queueIndex];
+                    break;
+                }
+            }
+            bottomWmDirty = false;
+        }
+        return bottomWm;
     }
 
     private long topObservedWm() {
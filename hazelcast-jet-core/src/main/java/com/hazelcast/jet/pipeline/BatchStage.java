@@ -33,6 +33,7 @@ import com.hazelcast.jet.function.BiPredicateEx;
 import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.PredicateEx;
 import com.hazelcast.jet.function.SupplierEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 
 import javax.annotation.Nonnull;
@@ -58,6 +59,9 @@ public interface BatchStage<T> extends GeneralStage<T> {
     @Nonnull
     <K> BatchStageWithKey<T, K> groupingKey(@Nonnull FunctionEx<? super T, ? extends K> keyFn);
 
+    @Nonnull @Override
+    BatchStageWithKey<T, Long> groupingLongKey(@Nonnull ToLongFunctionEx<? super T> keyFn);
+
     @Nonnull @Override
     <R> BatchStage<R> map(@Nonnull FunctionEx<? super T, ? extends R> mapFn);
 
@@ -57,6 +57,7 @@ public abstract class GeneralHashJoinBuilder<T0> {
     private final Transform transform0;
     private final PipelineImpl pipelineImpl;
     private final FunctionAdapter fnAdapter;
+    private final boolean isBatch;
     private final CreateOutStageFn<T0> createOutStageFn;
     private final Map<Tag<?>, TransformAndClause> clauses = new HashMap<>();
 
@@ -65,6 +66,7 @@ public abstract class GeneralHashJoinBuilder<T0> {
         this.pipelineImpl = (PipelineImpl) stage0.getPipeline();
         this.createOutStageFn = createOutStageFn;
         this.fnAdapter = ((ComputeStageImplBase) stage0).fnAdapter;
+        this.isBatch = stage0 instanceof BatchStage;
     }
 
     /**
@@ -106,7 +108,8 @@ public abstract class GeneralHashJoinBuilder<T0> {
                 orderedClauses.stream()
                               .map(Entry::getKey)
                               .collect(toList()),
-                fnAdapter.adaptHashJoinOutputFn(mapToOutputFn));
+                fnAdapter.adaptHashJoinOutputFn(mapToOutputFn),
+                isBatch);
         pipelineImpl.connect(upstream, hashJoinTransform);
         return createOutStageFn.get(hashJoinTransform, fnAdapter, pipelineImpl);
     }
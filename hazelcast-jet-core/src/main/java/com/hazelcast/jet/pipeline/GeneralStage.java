@@ -637,6 +637,24 @@ public interface GeneralStage<T> extends Stage {
     @Nonnull
     <K> GeneralStageWithKey<T, K> groupingKey(@Nonnull FunctionEx<? super T, ? extends K> keyFn);
 
+    /**
+     * Specifies the function that will extract a primitive {@code long} key
+     * from the items in the associated pipeline stage. It's equivalent to
+     * {@link #groupingKey} with the key boxed into a {@code Long}, but the
+     * grouped and windowed aggregations keep the keys unboxed, which saves
+     * the allocation of a {@code Long} per item and makes the aggregation
+     * faster.
+     * <p>
+     * Sample usage:
+     * <pre>{@code
+     * users.groupingLongKey(User::getId)
+     * }</pre>
+     *
+     * @param keyFn function that extracts the grouping key
+     */
+    @Nonnull
+    GeneralStageWithKey<T, Long> groupingLongKey(@Nonnull ToLongFunctionEx<? super T> keyFn);
+
     /**
      * Adds a timestamp to each item in the stream using the supplied function
      * and specifies the allowed amount of disorder between them. As the stream
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.pipeline;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * Represents the definition of several sliding windows that are computed
+ * over the same stream by a single aggregating stage. The stage emits the
+ * results of all the windows, the window a result belongs to can be told
+ * by its size, {@code end - start}.
+ */
+public class MultiWindowDefinition extends WindowDefinition {
+    private final List<SlidingWindowDefinition> windowDefinitions;
+
+    MultiWindowDefinition(@Nonnull List<SlidingWindowDefinition> windowDefinitions) {
+        checkTrue(!windowDefinitions.isEmpty(), "at least one window definition is required");
+        checkTrue(windowDefinitions.stream().mapToLong(SlidingWindowDefinition::windowSize).distinct().count()
+                        == windowDefinitions.size(),
+                "the sizes of the windows must be distinct");
+        this.windowDefinitions = Collections.unmodifiableList(new ArrayList<>(windowDefinitions));
+    }
+
+    @Override
+    public MultiWindowDefinition setEarlyResultsPeriod(long earlyResultPeriod) {
+        return (MultiWindowDefinition) super.setEarlyResultsPeriod(earlyResultPeriod);
+    }
+
+    /**
+     * Returns the definitions of the windows. Their early results periods
+     * are ignored, the one of this definition applies to all of them.
+     */
+    @Nonnull
+    public List<SlidingWindowDefinition> windowDefinitions() {
+        return windowDefinitions;
+    }
+}
@@ -23,6 +23,7 @@ import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.datamodel.WindowResult;
 import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
 
 import javax.annotation.Nonnull;
 
@@ -72,6 +73,17 @@ public interface StageWithWindow<T> {
             @Nonnull FunctionEx<? super T, ? extends K> keyFn
     );
 
+    /**
+     * Specifies the function that will extract a primitive {@code long}
+     * grouping key from the items in the associated pipeline stage. It's
+     * equivalent to {@link #groupingKey} with the key boxed into a {@code
+     * Long}, but the window aggregation keeps the keys unboxed.
+     *
+     * @param keyFn function that extracts the grouping key
+     */
+    @Nonnull
+    StageWithKeyAndWindow<T, Long> groupingLongKey(@Nonnull ToLongFunctionEx<? super T> keyFn);
+
     /**
      * Attaches a stage that passes through just the items that are distinct
      * within their window (no two items emitted for a window are equal). There
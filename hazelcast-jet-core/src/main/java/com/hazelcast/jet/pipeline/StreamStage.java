@@ -28,6 +28,7 @@ import com.hazelcast.jet.function.BiPredicateEx;
 import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.PredicateEx;
 import com.hazelcast.jet.function.SupplierEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
 import com.hazelcast.jet.function.TriFunction;
 
 import javax.annotation.Nonnull;
@@ -66,6 +67,9 @@ public interface StreamStage<T> extends GeneralStage<T> {
     @Nonnull @Override
     <K> StreamStageWithKey<T, K> groupingKey(@Nonnull FunctionEx<? super T, ? extends K> keyFn);
 
+    @Nonnull @Override
+    StreamStageWithKey<T, Long> groupingLongKey(@Nonnull ToLongFunctionEx<? super T> keyFn);
+
     @Nonnull @Override
     <R> StreamStage<R> map(@Nonnull FunctionEx<? super T, ? extends R> mapFn);
 
@@ -18,6 +18,8 @@ package com.hazelcast.jet.pipeline;
 
 import javax.annotation.Nonnull;
 
+import static java.util.Arrays.asList;
+
 /**
  * The definition of the window for a windowed aggregation operation. To obtain
  * a window definition, use the factory methods provided in this interface.
@@ -91,6 +93,35 @@ public abstract class WindowDefinition {
         return new SlidingWindowDefinition(windowSize, windowSize);
     }
 
+    /**
+     * Returns a definition of several sliding windows that are computed by
+     * a single aggregating stage. It's equivalent to aggregating the stream
+     * in a separate stage for each of the windows, but the events are only
+     * accumulated once, into frames whose size is the greatest common
+     * divisor of the sliding steps. The results of all the windows are
+     * derived from these shared frames, so the stage takes about as much
+     * memory and CPU time to accumulate as a stage with just one window.
+     * <p>
+     * The stage emits the results of all the windows, the window a result
+     * belongs to can be told by its size, {@code end - start}. Therefore
+     * the sizes of the windows must be distinct. For example, this
+     * definition computes the 1-minute tumbling window and the 5-minute and
+     * 1-hour windows that slide by a minute:
+     * <pre>{@code
+     * WindowDefinition.multiWindow(
+     *         WindowDefinition.tumbling(MINUTES.toMillis(1)),
+     *         WindowDefinition.sliding(MINUTES.toMillis(5), MINUTES.toMillis(1)),
+     *         WindowDefinition.sliding(HOURS.toMillis(1), MINUTES.toMillis(1)))
+     * }</pre>
+     * The aggregate operation must have the {@code combine} primitive.
+     *
+     * @param windowDefinitions the definitions of the windows
+     */
+    @Nonnull
+    public static MultiWindowDefinition multiWindow(@Nonnull SlidingWindowDefinition... windowDefinitions) {
+        return new MultiWindowDefinition(asList(windowDefinitions));
+    }
+
     /**
      * Returns a window definition that aggregates events into session windows.
      * Events and windows under different grouping keys are treated
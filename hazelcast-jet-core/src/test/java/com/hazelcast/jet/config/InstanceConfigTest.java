@@ -24,6 +24,7 @@ import org.junit.runner.RunWith;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 @RunWith(HazelcastParallelClassRunner.class)
 public class InstanceConfigTest {
@@ -99,4 +100,34 @@ public class InstanceConfigTest {
         // Then
         assertTrue(config.isLosslessRestartEnabled());
     }
+
+    @Test
+    public void when_setCooperativeIdleStrategy_then_returnsStrategy() {
+        // When
+        InstanceConfig config = new InstanceConfig();
+        config.setCooperativeIdleStrategy(CooperativeIdleStrategy.ADAPTIVE);
+
+        // Then
+        assertEquals(CooperativeIdleStrategy.ADAPTIVE, config.getCooperativeIdleStrategy());
+    }
+
+    @Test
+    public void when_setCooperativeThreadCpuAffinity_then_returnsTrimmedList() {
+        // When
+        InstanceConfig config = new InstanceConfig();
+        config.setCooperativeThreadCpuAffinity(" 0-3,8 ");
+
+        // Then
+        assertEquals("0-3,8", config.getCooperativeThreadCpuAffinity());
+    }
+
+    @Test
+    public void when_setEmptyCooperativeThreadCpuAffinity_then_notPinned() {
+        // When
+        InstanceConfig config = new InstanceConfig().setCooperativeThreadCpuAffinity("0-3");
+        config.setCooperativeThreadCpuAffinity(" ");
+
+        // Then
+        assertNull(config.getCooperativeThreadCpuAffinity());
+    }
 }
@@ -73,7 +73,9 @@ public class JetConfigXmlGeneratorTest {
                       .setBackupCount(randomInt(6))
                       .setScaleUpDelayMillis(randomInt())
                       .setFlowControlPeriodMs(randomInt())
-                      .setLosslessRestartEnabled(true);
+                      .setLosslessRestartEnabled(true)
+                      .setCooperativeIdleStrategy(CooperativeIdleStrategy.ADAPTIVE)
+                      .setCooperativeThreadCpuAffinity("2-5");
         String xml = generate(jetConfig);
 
         // Then
@@ -88,7 +90,11 @@ public class JetConfigXmlGeneratorTest {
         EdgeConfig defaultEdgeConfig = jetConfig.getDefaultEdgeConfig();
         defaultEdgeConfig.setQueueSize(randomInt())
                          .setPacketSizeLimit(randomInt())
-                         .setReceiveWindowMultiplier(randomInt());
+                         .setReceiveWindowMultiplier(randomInt())
+                         .setCompressionEnabled(true)
+                         .setCompressionThreshold(randomInt())
+                         .setMaxWatermarkSkew(randomInt())
+                         .setWatermarkSkewThrottlingEnabled(true);
         String xml = generate(jetConfig);
 
         // Then
@@ -130,6 +136,10 @@ public class JetConfigXmlGeneratorTest {
         assertEquals(expected.getQueueSize(), actual.getQueueSize());
         assertEquals(expected.getPacketSizeLimit(), actual.getPacketSizeLimit());
         assertEquals(expected.getReceiveWindowMultiplier(), actual.getReceiveWindowMultiplier());
+        assertEquals(expected.isCompressionEnabled(), actual.isCompressionEnabled());
+        assertEquals(expected.getCompressionThreshold(), actual.getCompressionThreshold());
+        assertEquals(expected.getMaxWatermarkSkew(), actual.getMaxWatermarkSkew());
+        assertEquals(expected.isWatermarkSkewThrottlingEnabled(), actual.isWatermarkSkewThrottlingEnabled());
     }
 
     private static void assertInstanceConfig(InstanceConfig expected, InstanceConfig actual) {
@@ -138,6 +148,8 @@ public class JetConfigXmlGeneratorTest {
         assertEquals(expected.getBackupCount(), actual.getBackupCount());
         assertEquals(expected.getScaleUpDelayMillis(), actual.getScaleUpDelayMillis());
         assertEquals(expected.isLosslessRestartEnabled(), actual.isLosslessRestartEnabled());
+        assertEquals(expected.getCooperativeIdleStrategy(), actual.getCooperativeIdleStrategy());
+        assertEquals(expected.getCooperativeThreadCpuAffinity(), actual.getCooperativeThreadCpuAffinity());
     }
 
     private static JetConfig jetConfig(String xml) {
@@ -89,6 +89,8 @@ public class XmlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
                 "        <backup-count>4</backup-count>\n" +
                 "        <scale-up-delay-millis>1234</scale-up-delay-millis>\n" +
                 "        <lossless-restart-enabled>true</lossless-restart-enabled>\n" +
+                "        <cooperative-idle-strategy>ADAPTIVE</cooperative-idle-strategy>\n" +
+                "        <cooperative-thread-cpu-affinity>0-3,8</cooperative-thread-cpu-affinity>\n" +
                 "    </instance>\n" +
                 JET_END_TAG;
 
@@ -101,6 +103,10 @@ public class XmlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
         assertEquals("flowControlMs", 51, jetConfig.getInstanceConfig().getFlowControlPeriodMs());
         assertEquals("scaleUpDelayMillis", 1234, jetConfig.getInstanceConfig().getScaleUpDelayMillis());
         assertTrue("losslessRestartEnabled", jetConfig.getInstanceConfig().isLosslessRestartEnabled());
+        assertEquals("cooperativeIdleStrategy", CooperativeIdleStrategy.ADAPTIVE,
+                jetConfig.getInstanceConfig().getCooperativeIdleStrategy());
+        assertEquals("cooperativeThreadCpuAffinity", "0-3,8",
+                jetConfig.getInstanceConfig().getCooperativeThreadCpuAffinity());
     }
 
     @Test
@@ -111,6 +117,10 @@ public class XmlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
                 "       <queue-size>111</queue-size>\n" +
                 "       <packet-size-limit>222</packet-size-limit>\n" +
                 "       <receive-window-multiplier>333</receive-window-multiplier>\n" +
+                "       <compression-enabled>true</compression-enabled>\n" +
+                "       <compression-threshold>444</compression-threshold>\n" +
+                "       <max-watermark-skew>555</max-watermark-skew>\n" +
+                "       <watermark-skew-throttling-enabled>true</watermark-skew-throttling-enabled>\n" +
                 "    </edge-defaults>\n" +
                 JET_END_TAG;
 
@@ -122,6 +132,10 @@ public class XmlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
         assertEquals("queueSize", 111, edgeConfig.getQueueSize());
         assertEquals("packetSizeLimit", 222, edgeConfig.getPacketSizeLimit());
         assertEquals("receiveWindowMultiplier", 333, edgeConfig.getReceiveWindowMultiplier());
+        assertTrue("compressionEnabled", edgeConfig.isCompressionEnabled());
+        assertEquals("compressionThreshold", 444, edgeConfig.getCompressionThreshold());
+        assertEquals("maxWatermarkSkew", 555, edgeConfig.getMaxWatermarkSkew());
+        assertTrue("watermarkSkewThrottlingEnabled", edgeConfig.isWatermarkSkewThrottlingEnabled());
     }
 
     @Test
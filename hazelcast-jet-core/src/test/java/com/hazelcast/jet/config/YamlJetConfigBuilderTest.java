@@ -96,7 +96,9 @@ public class YamlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
                 + "    flow-control-period: 50\n"
                 + "    backup-count: 2\n"
                 + "    scale-up-delay-millis: 1234\n"
-                + "    lossless-restart-enabled: true\n";
+                + "    lossless-restart-enabled: true\n"
+                + "    cooperative-idle-strategy: BUSY_SPIN\n"
+                + "    cooperative-thread-cpu-affinity: 0-3,8\n";
 
         //When
         JetConfig jetConfig = buildConfig(yaml);
@@ -108,6 +110,9 @@ public class YamlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
         assertEquals("flowControlMs", 50, instanceConfig.getFlowControlPeriodMs());
         assertEquals("scaleUpDelayMillis", 1234, instanceConfig.getScaleUpDelayMillis());
         assertTrue("losslessRestartEnabled", instanceConfig.isLosslessRestartEnabled());
+        assertEquals("cooperativeIdleStrategy", CooperativeIdleStrategy.BUSY_SPIN,
+                instanceConfig.getCooperativeIdleStrategy());
+        assertEquals("cooperativeThreadCpuAffinity", "0-3,8", instanceConfig.getCooperativeThreadCpuAffinity());
 
     }
 
@@ -119,7 +124,11 @@ public class YamlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
                 + "  edge-defaults:\n"
                 + "    queue-size: 999\n"
                 + "    packet-size-limit: 997\n"
-                + "    receive-window-multiplier: 996\n";
+                + "    receive-window-multiplier: 996\n"
+                + "    compression-enabled: true\n"
+                + "    compression-threshold: 995\n"
+                + "    max-watermark-skew: 994\n"
+                + "    watermark-skew-throttling-enabled: true\n";
 
         //When
         JetConfig jetConfig = buildConfig(yaml);
@@ -129,6 +138,10 @@ public class YamlJetConfigBuilderTest extends AbstractJetConfigBuilderTest {
         assertEquals("queueSize", 999, edgeConfig.getQueueSize());
         assertEquals("packetSizeLimit", 997, edgeConfig.getPacketSizeLimit());
         assertEquals("receiveWindowMultiplier", 996, edgeConfig.getReceiveWindowMultiplier());
+        assertTrue("compressionEnabled", edgeConfig.isCompressionEnabled());
+        assertEquals("compressionThreshold", 995, edgeConfig.getCompressionThreshold());
+        assertEquals("maxWatermarkSkew", 994, edgeConfig.getMaxWatermarkSkew());
+        assertTrue("watermarkSkewThrottlingEnabled", edgeConfig.isWatermarkSkewThrottlingEnabled());
     }
 
 
@@ -22,6 +22,7 @@ import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.core.test.TestSupport;
 import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
 import com.hazelcast.jet.pipeline.ContextFactory;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import org.junit.Test;
@@ -220,6 +221,20 @@ public class ProcessorsTest {
                 ));
     }
 
+    @Test
+    public void aggregateByLongKey() {
+        FunctionEx<Object, Long> keyFn = new LongKeyFunctionEx<>(o -> (int) o % 2);
+        TestSupport
+                .verifyProcessor(aggregateByKeyP(singletonList(keyFn), aggregateToListAndString(), Util::entry))
+                .disableSnapshots()
+                .outputChecker(TestSupport.SAME_ITEMS_ANY_ORDER)
+                .input(asList(1, 2, 3, 4))
+                .expectOutput(asList(
+                        entry(1L, "[1, 3]"),
+                        entry(0L, "[2, 4]")
+                ));
+    }
+
     @Test
     public void accumulateByKey() {
         FunctionEx<Object, String> keyFn = Object::toString;
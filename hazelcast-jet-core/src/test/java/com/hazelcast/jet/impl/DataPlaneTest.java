@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.TestProcessors.ListSource;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.core.processor.SinkProcessors;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_DATA_PLANE_PORT_OFFSET;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class DataPlaneTest extends JetTestSupport {
+
+    private static final int PORT_OFFSET = 1;
+    private static final int MEMBER_PORT_OFFSET = 20_000;
+    private static final int MAX_PACKET_SIZE = 1 << 21;
+
+    private final BlockingQueue<Object[]> received = new LinkedBlockingQueue<>();
+    private final List<DataPlane> dataPlanes = new ArrayList<>();
+    private final Map<Address, DataPlane> members = new HashMap<>();
+
+    @After
+    public void after() {
+        dataPlanes.forEach(DataPlane::shutdown);
+    }
+
+    @Test
+    public void when_manyPacketsWritten_then_receivedInOrder() throws Exception {
+        // Given
+        DataPlane sender = startDataPlane();
+        DataPlane receiver = startDataPlane();
+        Address senderAddress = memberAddress(sender);
+        DataPlaneConnection connection = connection(sender, memberAddress(receiver));
+
+        // When
+        int packetCount = 10_000;
+        for (int i = 0; i < packetCount; i++) {
+            assertTrue(connection.write(packet(i)));
+        }
+
+        // Then
+        for (int i = 0; i < packetCount; i++) {
+            Object[] senderAndPacket = received.poll(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS);
+            assertNotNull("packet " + i + " not received", senderAndPacket);
+            assertEquals(senderAddress, senderAndPacket[0]);
+            assertArrayEquals(packet(i), (byte[]) senderAndPacket[1]);
+        }
+        assertEquals(packetCount, sender.getPacketsOut());
+        assertEquals(packetCount, receiver.getPacketsIn());
+        // the packets were gathered into fewer writes
+        assertTrue("writeCalls=" + sender.getWriteCalls(), sender.getWriteCalls() < packetCount);
+    }
+
+    @Test
+    public void when_packetLargerThanReadBuffer_then_received() throws Exception {
+        // Given
+        DataPlane sender = startDataPlane();
+        DataPlane receiver = startDataPlane();
+        DataPlaneConnection connection = connection(sender, memberAddress(receiver));
+        byte[] largePacket = new byte[1 << 20];
+        Arrays.fill(largePacket, (byte) 42);
+
+        // When
+        assertTrue(connection.write(largePacket));
+        assertTrue(connection.write(packet(1)));
+
+        // Then
+        assertArrayEquals(largePacket, (byte[]) received.poll(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS)[1]);
+        assertArrayEquals(packet(1), (byte[]) received.poll(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS)[1]);
+    }
+
+    @Test
+    public void when_connectionClosed_then_writeFailsAndNewConnectionCreated() throws Exception {
+        // Given
+        DataPlane sender = startDataPlane();
+        DataPlane receiver = startDataPlane();
+        Address receiverAddress = memberAddress(receiver);
+        DataPlaneConnection connection = connection(sender, receiverAddress);
+
+        // When
+        sender.closeConnections(receiverAddress);
+
+        // Then
+        assertFalse(connection.write(packet(1)));
+        DataPlaneConnection newConnection = connection(sender, receiverAddress);
+        assertTrue(newConnection != connection);
+        assertTrue(newConnection.write(packet(2)));
+        assertArrayEquals(packet(2), (byte[]) received.poll(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS)[1]);
+    }
+
+    @Test
+    public void when_handshakeWithInvalidToken_then_connectionClosed() throws Exception {
+        // Given
+        DataPlane receiver = startDataPlane();
+
+        try (Socket socket = rawConnect(receiver)) {
+            // When
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            writeHandshake(out, UUID.randomUUID());
+            out.writeInt(1);
+            out.write(42);
+            out.flush();
+
+            // Then
+            assertClosedByPeer(socket);
+        }
+        assertEquals(1, receiver.getRejectedConnections());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void when_tokenOfNonMember_then_connectionClosed() throws Exception {
+        // Given
+        DataPlane receiver = startDataPlane();
+        UUID token = receiver.issueToken(new Address("127.0.0.1", 1));
+
+        try (Socket socket = rawConnect(receiver)) {
+            // When
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            writeHandshake(out, token);
+            out.flush();
+
+            // Then
+            assertClosedByPeer(socket);
+        }
+        assertEquals(1, receiver.getRejectedConnections());
+    }
+
+    @Test
+    public void when_frameLongerThanMaxPacketSize_then_connectionClosed() throws Exception {
+        // Given
+        DataPlane sender = startDataPlane();
+        DataPlane receiver = startDataPlane();
+        UUID token = receiver.issueToken(memberAddress(sender));
+
+        try (Socket socket = rawConnect(receiver)) {
+            // When
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            writeHandshake(out, token);
+            // would overflow the size of the frame with its length
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+
+            // Then
+            assertClosedByPeer(socket);
+        }
+        assertEquals(1, receiver.getRejectedConnections());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void when_packetLargerThanMaxPacketSize_then_writeFails() throws Exception {
+        // Given
+        DataPlane sender = startDataPlane();
+        DataPlane receiver = startDataPlane();
+        DataPlaneConnection connection = connection(sender, memberAddress(receiver));
+
+        // When
+        try {
+            connection.write(new byte[MAX_PACKET_SIZE + 1]);
+            fail("write should have failed");
+        } catch (JetException expected) {
+        }
+
+        // Then
+        assertTrue(connection.write(packet(1)));
+        assertArrayEquals(packet(1), (byte[]) received.poll(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS)[1]);
+    }
+
+    @Test
+    public void when_tokenRequestFails_then_connectFails() throws Exception {
+        // Given
+        DataPlane receiver = startDataPlane();
+        DataPlane sender = startDataPlane(member -> {
+            CompletableFuture<UUID> future = new CompletableFuture<>();
+            future.completeExceptionally(new JetException("mock failure"));
+            return future;
+        });
+
+        // When
+        CompletableFuture<DataPlaneConnection> future = sender.connectionAsync(memberAddress(receiver));
+
+        // Then
+        try {
+            future.get(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS);
+            fail("connect should have failed");
+        } catch (ExecutionException expected) {
+        }
+        assertEquals(0, receiver.getRejectedConnections());
+    }
+
+    @Test
+    public void when_senderRemoved_then_inboundConnectionClosed() throws Exception {
+        // Given
+        DataPlane sender = startDataPlane();
+        DataPlane receiver = startDataPlane();
+        DataPlaneConnection connection = connection(sender, memberAddress(receiver));
+        assertTrue(connection.write(packet(1)));
+        assertNotNull(received.poll(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS));
+
+        // When
+        receiver.closeConnections(memberAddress(sender));
+
+        // Then
+        assertTrueEventually(() -> assertFalse(connection.write(packet(2))));
+    }
+
+    @Test
+    public void when_membersSecured_then_dataPlaneUnsupported() {
+        Config config = new Config();
+        assertNull(JetService.dataPlaneUnsupportedReason(config));
+
+        config.getNetworkConfig().getSSLConfig().setEnabled(true);
+        assertNotNull(JetService.dataPlaneUnsupportedReason(config));
+
+        config = new Config();
+        config.getSecurityConfig().setEnabled(true);
+        assertNotNull(JetService.dataPlaneUnsupportedReason(config));
+    }
+
+    @Test
+    public void when_dataPlaneEnabled_then_distributedEdgeUsesIt() {
+        // Given
+        JetConfig config = new JetConfig();
+        config.setProperty(JET_DATA_PLANE_PORT_OFFSET.getName(), String.valueOf(MEMBER_PORT_OFFSET));
+        JetInstance[] instances = createJetMembers(config, 2);
+        List<Integer> items = range(0, 1_000).boxed().collect(toList());
+
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("source", () -> new ListSource(items)).localParallelism(1);
+        Vertex sink = dag.newVertex("sink", SinkProcessors.writeListP("sink")).localParallelism(1);
+        dag.edge(between(source, sink).distributed());
+
+        // When
+        instances[0].newJob(dag).join();
+
+        // Then
+        List<Object> expected = Stream.concat(items.stream(), items.stream()).sorted().collect(toList());
+        assertEquals(expected, instances[0].getList("sink").stream().sorted().collect(toList()));
+        long packetsOut = Arrays.stream(instances)
+                                .mapToLong(instance -> getJetService(instance).getDataPlane().getPacketsOut())
+                                .sum();
+        assertTrue("packetsOut=" + packetsOut, packetsOut > 0);
+    }
+
+    private DataPlane startDataPlane() throws IOException {
+        // the member connection is simulated by calling the target data plane directly
+        return startDataPlane(null);
+    }
+
+    private DataPlane startDataPlane(Function<Address, CompletableFuture<UUID>> tokenRequester) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Address address = new Address("127.0.0.1", port - PORT_OFFSET);
+        Function<Address, CompletableFuture<UUID>> requester = tokenRequester != null ? tokenRequester
+                : member -> CompletableFuture.completedFuture(members.get(member).issueToken(address));
+        DataPlane dataPlane = new DataPlane(address, PORT_OFFSET, 1, MAX_PACKET_SIZE, "data-plane-" + port,
+                requester, members::containsKey, (sender, packet) -> received.add(new Object[]{sender, packet}),
+                Logger.getLogger(DataPlane.class));
+        dataPlanes.add(dataPlane);
+        members.put(address, dataPlane);
+        dataPlane.start();
+        return dataPlane;
+    }
+
+    private static DataPlaneConnection connection(DataPlane sender, Address member) throws Exception {
+        return sender.connectionAsync(member).get(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS);
+    }
+
+    private static Socket rawConnect(DataPlane receiver) throws IOException {
+        Address address = memberAddress(receiver);
+        Socket socket = new Socket(address.getInetAddress(), address.getPort() + PORT_OFFSET);
+        socket.setSoTimeout((int) SECONDS.toMillis(ASSERT_TRUE_EVENTUALLY_TIMEOUT));
+        return socket;
+    }
+
+    private static void writeHandshake(DataOutputStream out, UUID token) throws IOException {
+        out.writeInt(2 * Long.BYTES);
+        out.writeLong(token.getMostSignificantBits());
+        out.writeLong(token.getLeastSignificantBits());
+    }
+
+    private static void assertClosedByPeer(Socket socket) throws IOException {
+        try {
+            assertEquals(-1, socket.getInputStream().read());
+        } catch (SocketException e) {
+            // connection reset
+        }
+    }
+
+    private static Address memberAddress(DataPlane dataPlane) {
+        return dataPlane.thisAddress();
+    }
+
+    private static byte[] packet(int i) {
+        byte[] packet = new byte[i % 100 + 1];
+        Arrays.fill(packet, (byte) i);
+        return packet;
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.hazelcast.jet.impl.execution.AdaptiveOneToOneQueue.SAMPLES_PER_WINDOW;
+import static com.hazelcast.jet.impl.execution.AdaptiveOneToOneQueue.SAMPLE_INTERVAL;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class AdaptiveOneToOneQueueTest {
+
+    private final ConveyorMemoryBudget budget = new ConveyorMemoryBudget(1024);
+
+    @Test
+    public void when_created_then_initialCapacityReserved() {
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 64, budget);
+
+        assertEquals(4, q.currentCapacity());
+        assertEquals(64, q.capacity());
+        assertEquals(4, budget.usedSlots());
+    }
+
+    @Test
+    public void when_filled_then_growsToMaxCapacity() {
+        // Given
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 64, budget);
+
+        // When
+        for (int i = 0; i < 64; i++) {
+            assertTrue("offer " + i, q.offer(i));
+        }
+
+        // Then
+        assertFalse(q.offer(64));
+        assertEquals(64, q.size());
+        assertEquals(64, q.currentCapacity());
+        assertEquals(64, budget.usedSlots());
+        assertPolls(q, 0, 64);
+    }
+
+    @Test
+    public void when_budgetExhausted_then_doesNotGrow() {
+        // Given
+        ConveyorMemoryBudget smallBudget = new ConveyorMemoryBudget(8);
+        AdaptiveOneToOneQueue<Integer> q1 = new AdaptiveOneToOneQueue<>(4, 64, smallBudget);
+        AdaptiveOneToOneQueue<Integer> q2 = new AdaptiveOneToOneQueue<>(4, 64, smallBudget);
+
+        // When
+        int offered = 0;
+        while (q1.offer(offered)) {
+            offered++;
+        }
+
+        // Then
+        assertEquals(4, offered);
+        assertEquals(4, q1.currentCapacity());
+        assertEquals(8, smallBudget.usedSlots());
+
+        // When
+        q2.release();
+        assertEquals(Integer.valueOf(0), q1.poll());
+        assertTrue(q1.offer(offered));
+
+        // Then
+        assertEquals(8, q1.currentCapacity());
+        assertPolls(q1, 1, 5);
+    }
+
+    @Test
+    public void when_occupancyLow_then_shrinks() {
+        // Given
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 64, budget);
+        for (int i = 0; i < 64; i++) {
+            q.offer(i);
+        }
+        assertPolls(q, 0, 64);
+
+        // When
+        int count = 64 + 8 * SAMPLE_INTERVAL * SAMPLES_PER_WINDOW;
+        for (int i = 64; i < count; i++) {
+            assertTrue(q.offer(i));
+            assertEquals(Integer.valueOf(i), q.poll());
+        }
+
+        // Then
+        assertEquals(4, q.currentCapacity());
+        assertEquals(4, budget.usedSlots());
+    }
+
+    @Test
+    public void when_resizedWhileNotEmpty_then_orderPreserved() {
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 1024, budget);
+        int offered = 0;
+        int polled = 0;
+        // alternately fill the queue to a growing level and drain most of it
+        for (int round = 1; round < 200; round++) {
+            for (int i = 0; i < round % 50 && q.offer(offered); i++) {
+                offered++;
+            }
+            for (int i = 0; i < round % 7; i++) {
+                Integer item = q.poll();
+                if (item == null) {
+                    break;
+                }
+                assertEquals(polled++, item.intValue());
+            }
+        }
+        assertPolls(q, polled, offered);
+    }
+
+    @Test
+    public void when_drainToAcrossResize_then_allItemsInOrder() {
+        // Given
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 64, budget);
+        for (int i = 0; i < 20; i++) {
+            q.offer(i);
+        }
+        List<Object> target = new ArrayList<>();
+
+        // When
+        assertEquals(5, q.drainTo(target, 5));
+        assertEquals(15, q.drainTo(target, 100));
+
+        // Then
+        assertEquals(20, target.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, target.get(i));
+        }
+        assertEquals(20, q.removedCount());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void when_drainWithPredicate_then_stopsAfterFalse() {
+        // Given
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 64, budget);
+        for (int i = 0; i < 10; i++) {
+            q.offer(i);
+        }
+        List<Integer> target = new ArrayList<>();
+
+        // When
+        int drained = q.drain(item -> target.add(item) && item < 6);
+
+        // Then
+        assertEquals(7, drained);
+        assertEquals(7, target.size());
+        assertPolls(q, 7, 10);
+    }
+
+    @Test
+    public void when_iteratedAcrossResize_then_allItemsInOrder() {
+        // Given
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 64, budget);
+        for (int i = 0; i < 10; i++) {
+            q.offer(i);
+        }
+        q.poll();
+
+        // When
+        List<Integer> items = new ArrayList<>();
+        q.iterator().forEachRemaining(items::add);
+
+        // Then
+        assertEquals(asList(1, 2, 3, 4, 5, 6, 7, 8, 9), items);
+        assertEquals("[1, 2, 3, 4, 5, 6, 7, 8, 9]", q.toString());
+        assertEquals(9, q.size());
+    }
+
+    @Test
+    public void when_consumerOvertakesIterator_then_iteratorStops() {
+        // Given
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 64, budget);
+        q.offer(0);
+        q.offer(1);
+        Iterator<Integer> it = q.iterator();
+
+        // When
+        q.poll();
+        q.poll();
+
+        // Then
+        assertEquals(Integer.valueOf(0), it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void when_released_then_slotsReturnedOnce() {
+        // Given
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 64, budget);
+        for (int i = 0; i < 20; i++) {
+            q.offer(i);
+        }
+
+        // When
+        q.release();
+        q.release();
+
+        // Then
+        assertEquals(0, budget.usedSlots());
+    }
+
+    @Test
+    public void when_producerAndConsumerThreads_then_allItemsInOrder() throws Exception {
+        AdaptiveOneToOneQueue<Integer> q = new AdaptiveOneToOneQueue<>(4, 1024, budget);
+        int count = 1_000_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; ) {
+                if (q.offer(i)) {
+                    i++;
+                } else {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+        List<Object> batch = new ArrayList<>();
+        for (int expected = 0; expected < count; ) {
+            batch.clear();
+            if (q.drainTo(batch, 100) == 0) {
+                Thread.yield();
+            }
+            for (Object item : batch) {
+                assertEquals(expected++, item);
+            }
+        }
+        producer.join();
+        assertNull(q.poll());
+    }
+
+    private static void assertPolls(AdaptiveOneToOneQueue<Integer> q, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertEquals(Integer.valueOf(i), q.poll());
+        }
+        assertNull(q.poll());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
+import com.hazelcast.internal.util.concurrent.QueuedPipe;
+import com.hazelcast.jet.impl.util.ArrayDequeInbox;
+import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link ConcurrentInboundEdgeStream#drainTo}
+ * into the inbox of a processor, in items per second. Each invocation
+ * fills all the queues and drains them to the inbox. With {@code
+ * bulk=true} the destination is a {@link BulkDrainTarget}, which takes the
+ * runs of items with {@link ArrayDequeInbox#addAll}, otherwise it takes
+ * them one by one.
+ * <p>
+ * Run using the {@code main()} method or through the JMH runner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentInboundEdgeStreamBenchmark {
+
+    private static final int ITEMS_PER_QUEUE = 1024;
+    private static final int TOTAL_ITEMS = 16 * ITEMS_PER_QUEUE;
+
+    @Param({"1", "4", "16"})
+    public int queueCount;
+
+    @Param({"false", "true"})
+    public boolean bulk;
+
+    private QueuedPipe<Object>[] queues;
+    private ConcurrentInboundEdgeStream stream;
+    private ArrayDequeInbox inbox;
+    private Predicate<Object> dest;
+    private Object[] items;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        queues = new QueuedPipe[queueCount];
+        for (int i = 0; i < queueCount; i++) {
+            queues[i] = new OneToOneConcurrentArrayQueue<>(ITEMS_PER_QUEUE);
+        }
+        ConcurrentConveyor<Object> conveyor = ConcurrentConveyor.concurrentConveyor(new Object(), queues);
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false, "benchmark");
+        inbox = new ArrayDequeInbox(new ProgressTracker());
+        if (bulk) {
+            dest = new BulkDrainTarget() {
+                @Override
+                public boolean test(Object item) {
+                    return inbox.add(item);
+                }
+
+                @Override
+                public void addAll(Object[] run, int from, int to) {
+                    inbox.addAll(run, from, to);
+                }
+            };
+        } else {
+            dest = inbox::add;
+        }
+        items = new Object[ITEMS_PER_QUEUE];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+    }
+
+    /**
+     * Drains the same number of items regardless of the queue count, so that
+     * the results for different queue counts are comparable.
+     */
+    @Benchmark
+    @OperationsPerInvocation(TOTAL_ITEMS)
+    public int drain() {
+        int drained = 0;
+        for (int round = 0; round < TOTAL_ITEMS / (queueCount * ITEMS_PER_QUEUE); round++) {
+            for (QueuedPipe<Object> queue : queues) {
+                for (Object item : items) {
+                    queue.offer(item);
+                }
+            }
+            stream.drainTo(dest);
+            drained += inbox.size();
+            inbox.clear();
+        }
+        return drained;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ConcurrentInboundEdgeStreamBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -19,21 +19,28 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
 import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
 import com.hazelcast.jet.impl.util.ProgressState;
-import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.jet.impl.util.SkewReductionPolicy;
+import com.hazelcast.test.HazelcastParametersRunnerFactory;
 import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.util.function.Predicate;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import static com.hazelcast.jet.core.JetTestSupport.wm;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
@@ -41,7 +48,8 @@ import static com.hazelcast.jet.impl.util.ProgressState.WAS_ALREADY_DONE;
 import static org.junit.Assert.assertEquals;
 
 @Category(ParallelTest.class)
-@RunWith(HazelcastSerialClassRunner.class)
+@RunWith(Parameterized.class)
+@Parameterized.UseParametersRunnerFactory(HazelcastParametersRunnerFactory.class)
 public class ConcurrentInboundEdgeStreamTest {
 
     private static final Object senderGone = new Object();
@@ -49,11 +57,20 @@ public class ConcurrentInboundEdgeStreamTest {
     @Rule
     public ExpectedException exception = ExpectedException.none();
 
+    // whether the destination is a BulkDrainTarget
+    @Parameter
+    public boolean bulkDest;
+
     private OneToOneConcurrentArrayQueue<Object> q1;
     private OneToOneConcurrentArrayQueue<Object> q2;
     private ConcurrentInboundEdgeStream stream;
     private ConcurrentConveyor<Object> conveyor;
 
+    @Parameters(name = "bulkDest={0}")
+    public static Collection<Object> parameters() {
+        return Arrays.asList(false, true);
+    }
+
     @Before
     public void setUp() {
         q1 = new OneToOneConcurrentArrayQueue<>(128);
@@ -234,12 +251,159 @@ public class ConcurrentInboundEdgeStreamTest {
         drainAndAssert(MADE_PROGRESS, wm(1));
     }
 
+    @Test
+    public void when_itemsAfterWmInSameQueue_then_drainedInNextCall() {
+        // When
+        add(q1, 1, wm(1), 2, 3);
+        add(q2, wm(1), 4);
+
+        // Then
+        drainAndAssert(MADE_PROGRESS, 1, wm(1));
+        assertEquals(3, stream.sizes());
+        drainAndAssert(MADE_PROGRESS, 2, 3, 4);
+        assertEquals(0, stream.sizes());
+    }
+
+    @Test
+    public void when_itemsAfterWmInSameQueue_then_notReorderedWithNewItems() {
+        add(q1, 1, wm(1), 2);
+        drainAndAssert(MADE_PROGRESS, 1);
+
+        add(q1, 3);
+        drainAndAssert(MADE_PROGRESS, 2, 3);
+
+        add(q2, wm(1));
+        drainAndAssert(MADE_PROGRESS, wm(1));
+    }
+
+    @Test
+    public void when_moreItemsThanRunAndLatencyMarkers_then_orderKept() {
+        // Given
+        q1 = new OneToOneConcurrentArrayQueue<>(1024);
+        q2 = new OneToOneConcurrentArrayQueue<>(1024);
+        conveyor = ConcurrentConveyor.concurrentConveyor(senderGone, q1, q2);
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false, "cies");
+        LatencyMarker marker = new LatencyMarker(1, 2);
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            expected.add(i);
+        }
+        expected.add(marker);
+        expected.add(marker);
+        for (int i = 300; i < 400; i++) {
+            expected.add(i);
+        }
+        q1.addAll(expected.subList(0, 301));
+        q2.addAll(expected.subList(301, 402));
+        add(q2, wm(1));
+
+        // When
+        List<Object> list = new ArrayList<>();
+        ProgressState state = stream.drainTo(dest(list));
+
+        // Then
+        assertEquals(MADE_PROGRESS, state);
+        assertEquals(expected, list);
+        assertEquals(0, stream.sizes());
+    }
+
+    @Test
+    public void when_destRejectsItem_then_restKeptForNextCall() {
+        // Given
+        add(q1, 1, 2, 3);
+        List<Object> list = new ArrayList<>();
+
+        // When
+        ProgressState state = stream.drainTo(o -> list.add(o) && !o.equals(2));
+
+        // Then
+        assertEquals(MADE_PROGRESS, state);
+        assertEquals(Arrays.asList(1, 2), list);
+        drainAndAssert(MADE_PROGRESS, 3);
+    }
+
+    @Test
+    public void when_skewPolicyAndQueueAhead_then_queueSkippedUntilOthersCatchUp() {
+        // Given
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false,
+                new SkewReductionPolicy(2, 10, 10, false), null, "cies");
+        add(q1, wm(100), 1);
+        add(q2, wm(0), 2);
+        // q1 is now ahead, the drain order changes
+        drainAndAssert(MADE_PROGRESS);
+        drainAndAssert(MADE_PROGRESS, wm(0));
+
+        // When-Then
+        // q1 is too far ahead, only q2 is drained
+        drainAndAssert(MADE_PROGRESS, 2);
+        drainAndAssert(NO_PROGRESS);
+
+        add(q2, wm(100));
+        drainAndAssert(MADE_PROGRESS, wm(100));
+        drainAndAssert(MADE_PROGRESS, 1);
+    }
+
+    @Test
+    public void when_skewPolicyAndLaggingQueueIdle_then_queueAheadDrained() {
+        // Given
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false,
+                new SkewReductionPolicy(2, 10, 10, false), null, "cies");
+        add(q1, wm(100), 1);
+        add(q2, wm(0));
+        drainAndAssert(MADE_PROGRESS);
+        drainAndAssert(MADE_PROGRESS, wm(0));
+        drainAndAssert(NO_PROGRESS);
+
+        // When
+        add(q2, IDLE_MESSAGE);
+
+        // Then
+        drainAndAssert(MADE_PROGRESS, wm(100));
+        drainAndAssert(MADE_PROGRESS, 1);
+    }
+
+    @Test
+    public void when_skewPolicyAndBarrierPending_then_queueAheadNotSkipped() {
+        // Given
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, true,
+                new SkewReductionPolicy(2, 10, 10, false), null, "cies");
+        add(q1, wm(100));
+        add(q2, wm(0));
+        drainAndAssert(MADE_PROGRESS);
+        drainAndAssert(MADE_PROGRESS, wm(0));
+
+        // When
+        add(q2, barrier(0));
+        add(q1, barrier(0));
+
+        // Then
+        // q1 is ahead, but it holds the barrier the snapshot waits for
+        drainAndAssert(MADE_PROGRESS, barrier(0));
+    }
+
     private void drainAndAssert(ProgressState expectedState, Object... expectedItems) {
         List<Object> list = new ArrayList<>();
-        assertEquals("progressState", expectedState, stream.drainTo(list::add));
+        assertEquals("progressState", expectedState, stream.drainTo(dest(list)));
         assertEquals(Arrays.asList(expectedItems), list);
     }
 
+    private Predicate<Object> dest(List<Object> list) {
+        if (!bulkDest) {
+            return list::add;
+        }
+        return new BulkDrainTarget() {
+            @Override
+            public boolean test(Object item) {
+                return list.add(item);
+            }
+
+            @Override
+            public void addAll(Object[] items, int from, int to) {
+                list.addAll(Arrays.asList(items).subList(from, to));
+            }
+        };
+    }
+
     private void add(OneToOneConcurrentArrayQueue<Object> q, Object... items) {
         q.addAll(Arrays.asList(items));
     }
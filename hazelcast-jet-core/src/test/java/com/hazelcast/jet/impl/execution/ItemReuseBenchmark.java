@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
+import com.hazelcast.jet.impl.util.ArrayDequeInbox;
+import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures the cost of passing mutable items over a local edge, from the
+ * outbox of the upstream processor through the queue and the inbound
+ * stream to the inbox of the downstream processor, with and without the
+ * reuse of the items through an {@link ItemPool}. The {@code reuse=false}
+ * case allocates a new item for each emitted item.
+ * <p>
+ * Run using the {@code main()} method, it adds the GC profiler: compare the
+ * {@code gc.alloc.rate.norm} result, the number of bytes allocated per
+ * item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemReuseBenchmark {
+
+    private static final int QUEUE_SIZE = 1024;
+
+    @Param({"false", "true"})
+    public boolean reuse;
+
+    private OutboxImpl outbox;
+    private ConcurrentInboundEdgeStream stream;
+    private ArrayDequeInbox inbox;
+    private Predicate<Object> addToInbox;
+
+    @Setup
+    public void setup() {
+        ItemPool itemPool = reuse ? new ItemPool(QUEUE_SIZE) : null;
+        ConcurrentConveyor<Object> conveyor = ConcurrentConveyor.concurrentConveyor(new Object(),
+                new OneToOneConcurrentArrayQueue<>(QUEUE_SIZE));
+        outbox = new OutboxImpl(new OutboundCollector[] {new ConveyorCollector(conveyor, 0, null, null)}, false,
+                new ProgressTracker(), new DefaultSerializationServiceBuilder().build(), QUEUE_SIZE,
+                new AtomicLongArray(1));
+        outbox.setItemPools(new ItemPool[] {itemPool});
+        stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false, null, itemPool, "benchmark");
+        inbox = new ArrayDequeInbox(new ProgressTracker());
+        addToInbox = inbox::add;
+    }
+
+    /**
+     * Emits a queue full of items, drains them to the inbox and processes
+     * them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(QUEUE_SIZE)
+    public long emitAndProcess() {
+        outbox.reset();
+        for (int i = 0; i < QUEUE_SIZE; i++) {
+            MutableItem item = (MutableItem) outbox.reusableItem(0);
+            if (item == null) {
+                item = new MutableItem();
+            }
+            item.value = i;
+            if (!outbox.offer(0, item)) {
+                throw new AssertionError("item rejected");
+            }
+        }
+
+        stream.drainTo(addToInbox);
+        inbox.trackTakenItems(stream.itemPool());
+        long sum = 0;
+        for (Object item; (item = inbox.poll()) != null; ) {
+            sum += ((MutableItem) item).value;
+        }
+        inbox.recycleTakenItems();
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemReuseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+
+    private static final class MutableItem {
+        long value;
+    }
+}
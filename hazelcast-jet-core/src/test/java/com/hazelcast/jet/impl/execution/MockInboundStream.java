@@ -38,6 +38,7 @@ public class MockInboundStream implements InboundEdgeStream {
     private final int chunkSize;
 
     private boolean done;
+    private ItemPool itemPool;
 
     MockInboundStream(int priority, List<?> mockData, int chunkSize) {
         this.priority = priority;
@@ -53,6 +54,15 @@ public class MockInboundStream implements InboundEdgeStream {
         this.ordinal = ordinal;
     }
 
+    void setItemPool(ItemPool itemPool) {
+        this.itemPool = itemPool;
+    }
+
+    @Override
+    public ItemPool itemPool() {
+        return itemPool;
+    }
+
     @Override
     public ProgressState drainTo(Predicate<Object> dest) {
         if (done) {
@@ -25,12 +25,17 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Predicate;
 
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -191,6 +196,29 @@ public class OutboxImplTest {
         assertTrue(outbox.offer(5));
     }
 
+    @Test
+    public void when_noItemPool_then_noReusableItem() {
+        assertNull(outbox.reusableItem(0));
+    }
+
+    @Test
+    public void when_itemPoolHasItems_then_reusableItemsReturned() {
+        // Given
+        ItemPool pool = new ItemPool(10);
+        pool.recycle(new Object[] {1, 2}, 2);
+        outbox.setItemPools(new ItemPool[] {null, pool});
+
+        // When
+        Set<Object> items = new HashSet<>(asList(outbox.reusableItem(1), outbox.reusableItem(1)));
+
+        // Then
+        assertEquals(new HashSet<>(asList(1, 2)), items);
+        assertNull(outbox.reusableItem(1));
+        assertNull(outbox.reusableItem(0));
+        assertNull(outbox.reusableItem(-1));
+        assertEquals(0, pool.size());
+    }
+
     private void do_when_offerDifferent_then_fail(Predicate<Object> offerF) {
         assertTrue(offerF.test(1));
         assertTrue(offerF.test(2));
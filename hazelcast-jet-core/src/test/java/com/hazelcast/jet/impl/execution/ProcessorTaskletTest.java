@@ -30,6 +30,7 @@ import org.junit.runner.RunWith;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -59,6 +60,7 @@ public class ProcessorTaskletTest {
     private List<OutboundEdgeStream> outstreams;
     private PassThroughProcessor processor;
     private Processor.Context context;
+    private long latencyMarkerIntervalNanos;
 
     @Before
     public void setUp() {
@@ -128,6 +130,27 @@ public class ProcessorTaskletTest {
         assertEquals(mockInput, outstream1.getBuffer());
     }
 
+    @Test
+    public void when_instreamHasItemPool_then_processedItemsRecycled() {
+        // Given
+        ItemPool itemPool = new ItemPool(MOCK_INPUT_SIZE);
+        MockInboundStream instream1 = new MockInboundStream(0, mockInput, 4);
+        instream1.push(DONE_ITEM);
+        instream1.setItemPool(itemPool);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instreams.add(instream1);
+        outstreams.add(outstream1);
+        Tasklet tasklet = createTasklet();
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        Object[] recycled = new Object[MOCK_INPUT_SIZE];
+        assertEquals(MOCK_INPUT_SIZE, itemPool.take(recycled));
+        assertEquals(new HashSet<>(mockInput), new HashSet<>(Arrays.asList(recycled)));
+    }
+
     @Test
     public void when_3instreams_then_pushAllIntoOutstream() {
         // Given
@@ -246,13 +269,64 @@ public class ProcessorTaskletTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void when_latencyMarkerReceived_then_forwardedButNotProcessed() {
+        // Given
+        LatencyMarker marker = new LatencyMarker(LatencyMarker.now(), LatencyMarker.now());
+        List<Object> input = new ArrayList<>(mockInput);
+        input.add(MOCK_INPUT_SIZE / 2, marker);
+        input.add(DONE_ITEM);
+        mockInput.add(DONE_ITEM);
+        MockInboundStream instream1 = new MockInboundStream(0, input, input.size());
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instreams.add(instream1);
+        outstreams.add(outstream1);
+        latencyMarkerIntervalNanos = 1;
+        Tasklet tasklet = createTasklet();
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        List<Object> markers = outstream1.getBuffer().stream()
+                                         .filter(LatencyMarker.class::isInstance)
+                                         .collect(toList());
+        outstream1.getBuffer().removeAll(markers);
+        assertEquals(mockInput, outstream1.getBuffer());
+        assertEquals(1, markers.size());
+        LatencyMarker forwarded = (LatencyMarker) markers.get(0);
+        assertEquals(marker.sourceTime(), forwarded.sourceTime());
+        assertTrue(forwarded.emitTime() >= marker.emitTime());
+    }
+
+    @Test
+    public void when_sourceWithLatencyMarkers_then_injectsMarker() {
+        // Given
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        outstreams.add(outstream1);
+        latencyMarkerIntervalNanos = 1;
+        ProcessorTasklet tasklet = createTasklet();
+        processor.itemsToEmitInComplete = 1;
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        List<Object> output = outstream1.getBuffer();
+        assertEquals(asList("completing", DONE_ITEM), output.subList(output.size() - 2, output.size()));
+        assertTrue(output.get(0) instanceof LatencyMarker);
+        LatencyMarker marker = (LatencyMarker) output.get(0);
+        assertEquals(marker.sourceTime(), marker.emitTime());
+    }
+
     private ProcessorTasklet createTasklet() {
         for (int i = 0; i < instreams.size(); i++) {
             instreams.get(i).setOrdinal(i);
         }
 
         final ProcessorTasklet t = new ProcessorTasklet(context, new DefaultSerializationServiceBuilder().build(),
-                processor, instreams, outstreams, mock(SnapshotContext.class), new MockOutboundCollector(10), null);
+                processor, instreams, outstreams, mock(SnapshotContext.class), new MockOutboundCollector(10),
+                new TaskletWaker(), latencyMarkerIntervalNanos, null);
         t.init();
         return t;
     }
@@ -199,7 +199,7 @@ public class ProcessorTaskletTest_Snapshots {
         snapshotContext = new SnapshotContext(mock(ILogger.class), "test job", -1, guarantee);
         snapshotContext.initTaskletCount(1, 0);
         final ProcessorTasklet t = new ProcessorTasklet(context, serializationService, processor, instreams, outstreams,
-                snapshotContext, snapshotCollector, null);
+                snapshotContext, snapshotCollector, new TaskletWaker(), 0, null);
         t.init();
         return t;
     }
@@ -42,10 +42,11 @@ public class ReceiverTaskletSendLimitTest {
     private static final int FLOW_CONTROL_PERIOD_MS = 100;
 
     private ReceiverTasklet tasklet;
+    private int ackPeriodCount;
 
     @Before
     public void before() {
-        tasklet = new ReceiverTasklet(null, RWIN_MULTIPLIER, FLOW_CONTROL_PERIOD_MS,
+        tasklet = new ReceiverTasklet(null, null, RWIN_MULTIPLIER, FLOW_CONTROL_PERIOD_MS, false,
                 new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()), "");
     }
 
@@ -138,4 +139,66 @@ public class ReceiverTaskletSendLimitTest {
         final long rwin = seqLimitAfterRecover - ackedSeqCompressed;
         assertTrue(rwin >= RWIN_MULTIPLIER * ackedSeqsPerIterCompressed);
     }
+
+    @Test
+    public void when_adaptiveAndSteadyFlow_then_rwinTwiceTheDrainPerPeriod() {
+        // Given
+        tasklet = createAdaptiveTasklet();
+        final int ackedSeqsPerIterCompressed = 1000;
+
+        // When
+        final long rwin = runSteadyFlow(ackedSeqsPerIterCompressed, 15);
+
+        // Then
+        assertTrue("rwin=" + rwin, abs(rwin - 2 * ackedSeqsPerIterCompressed) < 2);
+    }
+
+    @Test
+    public void when_adaptiveAndRttMeasured_then_rwinCoversRtt() {
+        // Given
+        tasklet = createAdaptiveTasklet();
+        final int ackedSeqsPerIterCompressed = 1000;
+
+        // When
+        tasklet.recordRttSample(ACK_PERIOD);
+        final long rwin = runSteadyFlow(ackedSeqsPerIterCompressed, 15);
+
+        // Then
+        // the drain in one ack period plus one round trip, doubled
+        assertTrue("rwin=" + rwin, abs(rwin - 4 * ackedSeqsPerIterCompressed) < 2);
+    }
+
+    @Test
+    public void when_adaptiveAndReceiverBacklogged_then_rwinFollowsDrainRate() {
+        // Given
+        tasklet = createAdaptiveTasklet();
+        runSteadyFlow(1000, 15);
+
+        // When
+        tasklet.setNumWaitingInInbox(1);
+        final long rwin = runSteadyFlow(500, 15);
+
+        // Then
+        assertTrue("rwin=" + rwin, abs(rwin - 500) < 2);
+    }
+
+    private ReceiverTasklet createAdaptiveTasklet() {
+        return new ReceiverTasklet(null, null, RWIN_MULTIPLIER, FLOW_CONTROL_PERIOD_MS, true,
+                new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()), "");
+    }
+
+    /**
+     * Acks the given amount of data in each iteration and returns the
+     * receive window after the last one.
+     */
+    private long runSteadyFlow(int ackedSeqsPerIterCompressed, int iterCount) {
+        final long ackedSeqsPerIter = (long) ackedSeqsPerIterCompressed << COMPRESSED_SEQ_UNIT_LOG2;
+        long ackedSeq = 0;
+        int seqLimitCompressed = 0;
+        for (int i = 0; i < iterCount; i++, ackPeriodCount++) {
+            ackedSeq = tasklet.ackItem(ackedSeqsPerIter);
+            seqLimitCompressed = tasklet.updateAndGetSendSeqLimitCompressed(START + ackPeriodCount * ACK_PERIOD);
+        }
+        return seqLimitCompressed - (ackedSeq >> COMPRESSED_SEQ_UNIT_LOG2);
+    }
 }
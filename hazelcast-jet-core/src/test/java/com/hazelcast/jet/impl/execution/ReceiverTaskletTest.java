@@ -18,6 +18,7 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.impl.util.Lz4Codec;
 import com.hazelcast.logging.LoggingService;
 import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.test.HazelcastSerialClassRunner;
@@ -27,8 +28,12 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 
+import static com.hazelcast.jet.impl.execution.ReceiverTasklet.COMPRESSED_SEQ_UNIT_LOG2;
+import static com.hazelcast.jet.impl.execution.SenderTasklet.PAYLOAD_COMPRESSED;
+import static com.hazelcast.jet.impl.execution.SenderTasklet.PAYLOAD_RAW;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 @RunWith(HazelcastSerialClassRunner.class)
@@ -40,9 +45,10 @@ public class ReceiverTaskletTest {
 
     @Before
     public void before() {
-        collector = new MockOutboundCollector(2);
-        t = new ReceiverTasklet(collector, 3, 100, mock(LoggingService.class), "");
+        collector = new MockOutboundCollector(4);
         serService = new DefaultSerializationServiceBuilder().build();
+        t = new ReceiverTasklet(collector, serService.createObjectDataInput(new byte[0]), 3, 100, false,
+                mock(LoggingService.class), "");
     }
 
     @Test
@@ -52,13 +58,70 @@ public class ReceiverTaskletTest {
         assertEquals(asList(1, 2), collector.getBuffer());
     }
 
+    @Test
+    public void when_receiveTwoPackets_then_emitItemsFromBoth() throws IOException {
+        pushObjects("a", "b");
+        pushObjects("c");
+        t.call();
+        assertEquals(asList("a", "b", "c"), collector.getBuffer());
+        assertEquals(2, t.getPacketsInCounter().get());
+        assertEquals(3, t.getItemsInCounter().get());
+    }
+
+    @Test
+    public void when_receiveCompressedPacket_then_emitItems() throws IOException {
+        // Given
+        String item = "a string that repeats, a string that repeats, a string that repeats";
+
+        // When
+        pushObjects(true, item, item);
+        t.call();
+
+        // Then
+        assertEquals(asList(item, item), collector.getBuffer());
+        assertTrue(t.getCompressedBytesInCounter().get() < t.getBytesInCounter().get());
+    }
+
+    @Test
+    public void when_dataBeyondPreviousLimitReceived_then_ackLatencyMeasured() throws IOException {
+        // Given
+        t.updateAndGetSendSeqLimitCompressed();
+
+        // When
+        pushObjects(new byte[1 << COMPRESSED_SEQ_UNIT_LOG2]);
+        t.call();
+
+        // Then
+        assertTrue(t.getAckLatencyNanos().get() > 0);
+    }
+
     private void pushObjects(Object... objs) throws IOException {
+        pushObjects(false, objs);
+    }
+
+    private void pushObjects(boolean compress, Object... objs) throws IOException {
         final BufferObjectDataOutput out = serService.createObjectDataOutput();
-        out.writeInt(objs.length);
         for (Object obj : objs) {
             out.writeObject(obj);
             out.writeInt(Math.abs(obj.hashCode())); // partition id
         }
-        t.receiveStreamPacket(serService.createObjectDataInput(out.toByteArray()));
+        byte[] items = out.toByteArray();
+
+        final BufferObjectDataOutput packet = serService.createObjectDataOutput();
+        // header: executionId, vertexId, ordinal
+        packet.writeLong(0);
+        packet.writeInt(0);
+        packet.writeInt(0);
+        packet.writeByte(compress ? PAYLOAD_COMPRESSED : PAYLOAD_RAW);
+        packet.writeInt(objs.length);
+        if (compress) {
+            byte[] compressed = new byte[Lz4Codec.maxCompressedLength(items.length)];
+            int length = new Lz4Codec().compress(items, 0, items.length, compressed, 0);
+            packet.writeInt(items.length);
+            packet.write(compressed, 0, length);
+        } else {
+            packet.write(items);
+        }
+        t.receiveStreamPacket(packet.toByteArray());
     }
 }
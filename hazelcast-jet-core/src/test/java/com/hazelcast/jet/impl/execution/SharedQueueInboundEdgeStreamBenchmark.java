@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.ManyToOneConcurrentArrayQueue;
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
+import com.hazelcast.internal.util.concurrent.QueuedPipe;
+import com.hazelcast.jet.impl.util.ArrayDequeInbox;
+import com.hazelcast.jet.impl.util.ProgressTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of an edge with one queue per producer ({@link
+ * ConcurrentInboundEdgeStream}) and of an edge with a shared queue ({@link
+ * SharedQueueInboundEdgeStream}), in items per second. In each invocation,
+ * a few producers add a small batch of items and the consumer drains
+ * them, while the other producers are idle. This is the typical traffic of
+ * an edge into a vertex with a low parallelism.
+ * <p>
+ * Run using the {@code main()} method or through the JMH runner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedQueueInboundEdgeStreamBenchmark {
+
+    private static final int QUEUE_SIZE = 1024;
+    private static final int ACTIVE_PRODUCERS = 2;
+    private static final int BATCH_SIZE = 16;
+    private static final int ITEMS_PER_INVOCATION = ACTIVE_PRODUCERS * BATCH_SIZE;
+
+    @Param({"8", "32", "128"})
+    public int producerCount;
+
+    @Param({"perProducer", "shared"})
+    public String mode;
+
+    private OutboundCollector[] collectors;
+    private InboundEdgeStream stream;
+    private ArrayDequeInbox inbox;
+    private Object[] items;
+    private int nextProducer;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        collectors = new OutboundCollector[producerCount];
+        if ("shared".equals(mode)) {
+            ManyToOneConcurrentArrayQueue<Object> queue =
+                    new ManyToOneConcurrentArrayQueue<>(producerCount * QUEUE_SIZE);
+            ConcurrentConveyor<Object> conveyor = ConcurrentConveyor.concurrentConveyor(null, queue);
+            for (int i = 0; i < producerCount; i++) {
+                collectors[i] = new SharedQueueCollector(conveyor, i, new int[0], null);
+            }
+            stream = new SharedQueueInboundEdgeStream(queue, producerCount, 0, 0, "benchmark");
+        } else {
+            QueuedPipe<Object>[] queues = new QueuedPipe[producerCount];
+            for (int i = 0; i < producerCount; i++) {
+                queues[i] = new OneToOneConcurrentArrayQueue<>(QUEUE_SIZE);
+            }
+            ConcurrentConveyor<Object> conveyor = ConcurrentConveyor.concurrentConveyor(null, queues);
+            for (int i = 0; i < producerCount; i++) {
+                collectors[i] = new ConveyorCollector(conveyor, i, new int[0], null);
+            }
+            stream = new ConcurrentInboundEdgeStream(conveyor, 0, 0, false, "benchmark");
+        }
+        inbox = new ArrayDequeInbox(new ProgressTracker());
+        items = new Object[BATCH_SIZE];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS_PER_INVOCATION)
+    public int drain() {
+        for (int i = 0; i < ACTIVE_PRODUCERS; i++) {
+            OutboundCollector collector = collectors[nextProducer];
+            nextProducer = (nextProducer + 1) % producerCount;
+            for (Object item : items) {
+                collector.offer(item);
+            }
+        }
+        stream.drainTo(inbox::add);
+        int drained = inbox.size();
+        inbox.clear();
+        return drained;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SharedQueueInboundEdgeStreamBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
+import com.hazelcast.internal.util.concurrent.ManyToOneConcurrentArrayQueue;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
+import static com.hazelcast.jet.impl.util.ProgressState.DONE;
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
+import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
+import static com.hazelcast.jet.impl.util.ProgressState.WAS_ALREADY_DONE;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SharedQueueInboundEdgeStreamTest {
+
+    private SharedQueueCollector producer0;
+    private SharedQueueCollector producer1;
+    private SharedQueueInboundEdgeStream stream;
+
+    @Before
+    public void setUp() {
+        ManyToOneConcurrentArrayQueue<Object> queue = new ManyToOneConcurrentArrayQueue<>(128);
+        ConcurrentConveyor<Object> conveyor = ConcurrentConveyor.concurrentConveyor(null, queue);
+        producer0 = new SharedQueueCollector(conveyor, 0, new int[0], null);
+        producer1 = new SharedQueueCollector(conveyor, 1, new int[0], null);
+
+        stream = new SharedQueueInboundEdgeStream(queue, 2, 0, 0, "sqies");
+    }
+
+    @Test
+    public void when_twoProducersOneDoneFirst_then_madeProgress() {
+        add(producer0, 1, 2, DONE_ITEM);
+        add(producer1, 6);
+        drainAndAssert(MADE_PROGRESS, 1, 2, 6);
+
+        add(producer1, 7, DONE_ITEM);
+        drainAndAssert(DONE, 7);
+
+        drainAndAssert(WAS_ALREADY_DONE);
+    }
+
+    @Test
+    public void when_noItems_then_noProgress() {
+        drainAndAssert(NO_PROGRESS);
+    }
+
+    @Test
+    public void when_receivingWatermarks_then_coalesce() {
+        add(producer0, wm(1));
+        add(producer1, wm(2));
+        drainAndAssert(MADE_PROGRESS, wm(1));
+
+        add(producer0, wm(3));
+        add(producer1, wm(3));
+        drainAndAssert(MADE_PROGRESS, wm(2));
+        drainAndAssert(MADE_PROGRESS, wm(3));
+    }
+
+    @Test
+    public void when_receivingBarriers_then_coalesce() {
+        add(producer0, barrier(0, false));
+        add(producer1, 1);
+        drainAndAssert(MADE_PROGRESS, 1);
+
+        add(producer0, 2);
+        add(producer1, barrier(0, false));
+        drainAndAssert(MADE_PROGRESS, 2, barrier(0, false));
+    }
+
+    @Test
+    public void when_idleProducerSendsItem_then_activeAgain() {
+        add(producer0, IDLE_MESSAGE);
+        add(producer1, wm(5));
+        drainAndAssert(MADE_PROGRESS, wm(5));
+
+        // producer0 has no watermark yet, the item makes it hold the coalesced watermark back
+        add(producer0, 10);
+        add(producer1, wm(6));
+        drainAndAssert(MADE_PROGRESS, 10);
+    }
+
+    @Test
+    public void when_terminalBarrier_then_doneItemHeldBackUntilBarrierForwarded() {
+        add(producer0, barrier(0, true), DONE_ITEM);
+        drainAndAssert(MADE_PROGRESS);
+
+        add(producer1, 1, barrier(0, true));
+        drainAndAssert(MADE_PROGRESS, 1, barrier(0, true));
+
+        add(producer1, DONE_ITEM);
+        drainAndAssert(DONE);
+    }
+
+    @Test
+    public void when_destRejectsItem_then_restKeptForNextCall() {
+        // Given
+        add(producer0, 1, 2, 3);
+        List<Object> list = new ArrayList<>();
+
+        // When
+        ProgressState state = stream.drainTo(o -> list.add(o) && !o.equals(2));
+
+        // Then
+        assertEquals(MADE_PROGRESS, state);
+        assertEquals(Arrays.asList(1, 2), list);
+        drainAndAssert(MADE_PROGRESS, 3);
+    }
+
+    private void drainAndAssert(ProgressState expectedState, Object... expectedItems) {
+        List<Object> list = new ArrayList<>();
+        assertEquals("progressState", expectedState, stream.drainTo(list::add));
+        assertEquals(Arrays.asList(expectedItems), list);
+    }
+
+    private static void add(SharedQueueCollector producer, Object... items) {
+        for (Object item : items) {
+            ProgressState result = item instanceof BroadcastItem
+                    ? producer.offerBroadcast((BroadcastItem) item)
+                    : producer.offer(item);
+            assertEquals(DONE, result);
+        }
+    }
+
+    private static SnapshotBarrier barrier(long snapshotId, boolean isTerminal) {
+        return new SnapshotBarrier(snapshotId, isTerminal);
+    }
+}
@@ -19,12 +19,16 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.impl.MetricsRegistryImpl;
+import com.hazelcast.jet.config.CooperativeIdleStrategy;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.impl.util.LatencyHistogram;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.logging.LoggingService;
 import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.spi.properties.HazelcastProperties;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import org.junit.After;
 import org.junit.Before;
@@ -35,26 +39,41 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Stream;
 
 import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_BLOCKING_VIRTUAL_THREADS_ENABLED;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_CALL_DURATION_HISTOGRAMS_ENABLED;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_MINIMUM_IDLE_MICROSECONDS;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_TASKLET_REBALANCE_PERIOD_MILLIS;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_WORK_STEALING_ENABLED;
 import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
@@ -70,10 +89,11 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
 
     private TaskletExecutionService es;
     private ClassLoader classLoaderMock;
+    private NodeEngineImpl neMock;
 
     @Before
     public void before() {
-        NodeEngineImpl neMock = mock(NodeEngineImpl.class);
+        neMock = mock(NodeEngineImpl.class);
         HazelcastInstance hzMock = mock(HazelcastInstance.class);
         LoggingService loggingService = mock(LoggingService.class);
         Mockito.when(hzMock.getName()).thenReturn("test-hz-instance");
@@ -83,10 +103,19 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         Mockito.when(neMock.getMetricsRegistry()).thenReturn(metricsRegistry);
         Mockito.when(loggingService.getLogger(TaskletExecutionService.class))
                .thenReturn(Logger.getLogger(TaskletExecutionService.class));
-        es = new TaskletExecutionService(neMock, THREAD_COUNT, 10_000);
+        es = new TaskletExecutionService(neMock, instanceConfig(), properties(new Properties()));
         classLoaderMock = mock(ClassLoader.class);
     }
 
+    private static InstanceConfig instanceConfig() {
+        return new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT);
+    }
+
+    private static HazelcastProperties properties(Properties props) {
+        props.setProperty(JET_MINIMUM_IDLE_MICROSECONDS.getName(), "10");
+        return new HazelcastProperties(props);
+    }
+
     @After
     public void after() {
         es.shutdown();
@@ -183,6 +212,32 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         tasklets.forEach(MockTasklet::assertDone);
     }
 
+    @Test
+    public void when_busySpinIdleStrategy_then_allComplete() {
+        assertCompletesWithIdleStrategy(CooperativeIdleStrategy.BUSY_SPIN);
+    }
+
+    @Test
+    public void when_adaptiveIdleStrategy_then_allComplete() {
+        assertCompletesWithIdleStrategy(CooperativeIdleStrategy.ADAPTIVE);
+    }
+
+    private void assertCompletesWithIdleStrategy(CooperativeIdleStrategy strategy) {
+        // Given
+        es.shutdown();
+        es = new TaskletExecutionService(neMock, instanceConfig().setCooperativeIdleStrategy(strategy),
+                properties(new Properties()));
+        final List<MockTasklet> tasklets =
+                Stream.generate(() -> new MockTasklet().callsBeforeDone(1000))
+                      .limit(100).collect(toList());
+
+        // When
+        executeAndJoin(tasklets);
+
+        // Then
+        tasklets.forEach(MockTasklet::assertDone);
+    }
+
     @Test
     public void when_nonBlockingTaskletIsCancelled_then_completesEarly() throws Exception {
         // Given
@@ -281,6 +336,148 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         // -- assertions are inside TaskletAssertingThreadLocal and will fail, if t1 and t2 are running on the same thread
     }
 
+    @Test
+    public void when_workStealingEnabledAndTwoBusyTaskletsOnOneWorker_then_oneIsStolen() {
+        Properties props = new Properties();
+        props.setProperty(JET_WORK_STEALING_ENABLED.getName(), "true");
+        assertBusyTaskletsSeparated(props);
+    }
+
+    @Test
+    public void when_rebalanceEnabledAndTwoBusyTaskletsOnOneWorker_then_oneIsMoved() {
+        Properties props = new Properties();
+        props.setProperty(JET_TASKLET_REBALANCE_PERIOD_MILLIS.getName(), "50");
+        assertBusyTaskletsSeparated(props);
+    }
+
+    private void assertBusyTaskletsSeparated(Properties props) {
+        // Given
+        es.shutdown();
+        es = new TaskletExecutionService(neMock, instanceConfig(), properties(props));
+        // Initially there's no load, the tasklets are assigned round-robin: the busy ones land
+        // on the same worker, the remaining workers will be idle after their tasklet completes
+        BusyTasklet busy1 = new BusyTasklet();
+        BusyTasklet busy2 = new BusyTasklet();
+        List<Tasklet> tasklets = new ArrayList<>();
+        tasklets.add(busy1);
+        for (int i = 1; i < THREAD_COUNT; i++) {
+            tasklets.add(new MockTasklet().callsBeforeDone(10));
+        }
+        tasklets.add(busy2);
+
+        // When
+        CompletableFuture<Void> f = es.beginExecute(tasklets, cancellationFuture, classLoaderMock);
+
+        // Then
+        assertTrueEventually(() -> {
+            assertNotNull(busy1.lastThread);
+            assertNotNull(busy2.lastThread);
+            assertNotEquals("busy tasklets still share a thread", busy1.lastThread, busy2.lastThread);
+        });
+        busy1.done = true;
+        busy2.done = true;
+        f.join();
+    }
+
+    @Test
+    public void when_wakerSignalled_then_idleWorkerWokenUpBeforeParkTimeElapses() {
+        // Given
+        es.shutdown();
+        Properties props = new Properties();
+        props.setProperty(JET_MINIMUM_IDLE_MICROSECONDS.getName(), String.valueOf(MINUTES.toMicros(1)));
+        es = new TaskletExecutionService(neMock, instanceConfig(), new HazelcastProperties(props));
+        WakeableTasklet t = new WakeableTasklet();
+        CompletableFuture<Void> f = es.beginExecute(singletonList(t), cancellationFuture, classLoaderMock);
+        assertTrueEventually(() -> assertTrue(t.called));
+
+        // When
+        t.ready = true;
+
+        // Then
+        // the worker parks for a minute after the first call, only the waker can make it see the ready flag.
+        // We signal repeatedly because the worker might not have marked itself as idle yet.
+        assertTrueEventually(() -> {
+            t.waker.wakeUp();
+            assertTrue(f.isDone());
+        }, 10);
+        f.join();
+    }
+
+    @Test
+    public void when_virtualThreadsEnabled_then_blockingTaskletsComplete() {
+        // Given
+        es.shutdown();
+        Properties props = new Properties();
+        props.setProperty(JET_BLOCKING_VIRTUAL_THREADS_ENABLED.getName(), "true");
+        es = new TaskletExecutionService(neMock, instanceConfig(), properties(props));
+        // on JVMs without virtual threads this falls back to platform threads
+        List<MockTasklet> tasklets = Stream.generate(() -> new MockTasklet().blocking().callsBeforeDone(10))
+                                           .limit(100)
+                                           .collect(toList());
+
+        // When
+        executeAndJoin(tasklets);
+
+        // Then
+        tasklets.forEach(MockTasklet::assertDone);
+    }
+
+    @Test
+    public void when_callDurationHistogramsEnabled_then_callsRecorded() {
+        // Given
+        es.shutdown();
+        Properties props = new Properties();
+        props.setProperty(JET_CALL_DURATION_HISTOGRAMS_ENABLED.getName(), "true");
+        es = new TaskletExecutionService(neMock, instanceConfig(), properties(props));
+        MockTasklet cooperative = new MockTasklet().callsBeforeDone(10);
+        MockTasklet blocking = new MockTasklet().blocking().callsBeforeDone(10);
+
+        // When
+        executeAndJoin(asList(cooperative, blocking));
+
+        // Then
+        assertEquals(11, cooperative.callDurations.count());
+        assertEquals(11, blocking.callDurations.count());
+    }
+
+    @Test
+    public void when_nothingConsumesCallDurations_then_callsNotTimed() {
+        // Given
+        MockTasklet cooperative = new MockTasklet().callsBeforeDone(10);
+        MockTasklet blocking = new MockTasklet().blocking().callsBeforeDone(10);
+
+        // When
+        executeAndJoin(asList(cooperative, blocking));
+
+        // Then
+        assertEquals(0, cooperative.callDurations.count());
+        assertEquals(0, cooperative.busyTimeNanos.get());
+        assertEquals(0, blocking.callDurations.count());
+        assertEquals(0, blocking.busyTimeNanos.get());
+    }
+
+    @Test
+    public void when_workersPinnedToTwoNumaNodes_then_groupedByNode() {
+        // Given
+        Map<Integer, Integer> nodeOfCpu = new HashMap<>();
+        for (int cpu = 0; cpu < 8; cpu++) {
+            nodeOfCpu.put(cpu, cpu < 4 ? 0 : 1);
+        }
+
+        // When
+        int[][] byNode = TaskletExecutionService.workersByNumaNode(new int[]{0, 4, 1, 5, 2}, nodeOfCpu);
+
+        // Then
+        assertNotNull(byNode);
+        assertArrayEquals(new int[]{0, 2, 4}, byNode[0]);
+        assertArrayEquals(new int[]{1, 3}, byNode[1]);
+    }
+
+    @Test
+    public void when_workersPinnedToOneNumaNode_then_notGrouped() {
+        assertNull(TaskletExecutionService.workersByNumaNode(new int[]{0, 1, 2}, emptyMap()));
+    }
+
     @Test
     public void when_tryCompleteOnReturnedFuture_then_fails() {
         // Given
@@ -343,6 +540,8 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         boolean initFails;
         boolean callFails;
         int callsBeforeDone;
+        final AtomicLong busyTimeNanos = new AtomicLong();
+        final LatencyHistogram callDurations = new LatencyHistogram();
 
         private boolean willMakeProgress = true;
         private boolean isSleeping;
@@ -379,6 +578,16 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
                     : NO_PROGRESS;
         }
 
+        @Nonnull @Override
+        public AtomicLong busyTimeNanos() {
+            return busyTimeNanos;
+        }
+
+        @Nonnull @Override
+        public LatencyHistogram callDurations() {
+            return callDurations;
+        }
+
         @Override
         public void init() {
             if (initFails) {
@@ -426,6 +635,39 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         }
     }
 
+    private static class BusyTasklet implements Tasklet {
+
+        volatile boolean done;
+        volatile Thread lastThread;
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            lastThread = Thread.currentThread();
+            return done ? DONE : MADE_PROGRESS;
+        }
+    }
+
+    private static class WakeableTasklet implements Tasklet {
+
+        final TaskletWaker waker = new TaskletWaker();
+        volatile boolean called;
+        volatile boolean ready;
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            called = true;
+            return ready ? DONE : NO_PROGRESS;
+        }
+
+        @Nonnull
+        @Override
+        public TaskletWaker waker() {
+            return waker;
+        }
+    }
+
     private static class TaskletAssertingThreadLocal implements Tasklet {
 
         private static ThreadLocal<Integer> threadLocal = ThreadLocal.withInitial(() -> 0);
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link WatermarkCoalescer#observeWm}, in
+ * watermarks per second, depending on the number of queues. The queues
+ * receive the watermarks in turns, each one a bit higher than the previous
+ * one on the same queue, so that most watermarks advance the coalesced
+ * watermark. This is the pattern of a vertex with a high fan-in, such as
+ * the receiving side of a distributed edge.
+ * <p>
+ * Run using the {@code main()} method or through the JMH runner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WatermarkCoalescerBenchmark {
+
+    private static final int WMS_PER_INVOCATION = 1024;
+
+    @Param({"2", "16", "256", "1024"})
+    public int queueCount;
+
+    private WatermarkCoalescer coalescer;
+    private long[] queueWms;
+    private int nextQueue;
+
+    @Setup
+    public void setup() {
+        coalescer = WatermarkCoalescer.create(queueCount);
+        queueWms = new long[queueCount];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WMS_PER_INVOCATION)
+    public long observeWm() {
+        long forwarded = 0;
+        for (int i = 0; i < WMS_PER_INVOCATION; i++) {
+            forwarded += coalescer.observeWm(nextQueue, ++queueWms[nextQueue]);
+            if (++nextQueue == queueCount) {
+                nextQueue = 0;
+            }
+        }
+        return forwarded;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WatermarkCoalescerBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -20,6 +20,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.NO_NEW_WM;
 import static org.junit.Assert.assertEquals;
@@ -254,4 +257,47 @@ public class WatermarkCoalescerTest {
         assertEquals(12, wc.observeWm(0, 12));
         assertEquals(NO_NEW_WM, wc.queueDone(0));
     }
+
+    @Test
+    public void when_manyInputs_then_minimumOfActiveInputsForwarded() {
+        // Given
+        int queueCount = 100;
+        wc = WatermarkCoalescer.create(queueCount);
+        long[] wms = new long[queueCount];
+        boolean[] idle = new boolean[queueCount];
+        Arrays.fill(wms, Long.MIN_VALUE);
+        Random random = new Random(42);
+        long lastEmitted = Long.MIN_VALUE;
+
+        for (int i = 0; i < 10_000; i++) {
+            // When
+            // queue 0 is never idle, so that not all queues are idle at the same time
+            int queue = random.nextInt(queueCount);
+            long result;
+            if (queue > 0 && random.nextInt(10) == 0) {
+                idle[queue] = !idle[queue];
+                if (idle[queue]) {
+                    result = wc.observeWm(queue, IDLE_MESSAGE.timestamp());
+                } else {
+                    wc.observeEvent(queue);
+                    result = wc.checkWmHistory();
+                }
+            } else {
+                wms[queue] = wms[queue] == Long.MIN_VALUE ? 0 : wms[queue] + 1 + random.nextInt(3);
+                idle[queue] = false;
+                result = wc.observeWm(queue, wms[queue]);
+            }
+
+            // Then
+            long min = Long.MAX_VALUE;
+            for (int j = 0; j < queueCount; j++) {
+                if (!idle[j]) {
+                    min = Math.min(min, wms[j]);
+                }
+            }
+            long expected = min > lastEmitted ? min : NO_NEW_WM;
+            assertEquals("step " + i, expected, result);
+            lastEmitted = Math.max(lastEmitted, min);
+        }
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline;
+
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.impl.processor.FusedProcessorMetaSupplier;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.Sinks;
+import com.hazelcast.jet.pipeline.Sources;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.impl.pipeline.transform.AggregateTransform.FIRST_STAGE_VERTEX_NAME_SUFFIX;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_PIPELINE_VERTEX_FUSION_ENABLED;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class PlannerTest {
+
+    @After
+    public void after() {
+        System.clearProperty(JET_PIPELINE_VERTEX_FUSION_ENABLED.getName());
+    }
+
+    @Test
+    public void when_mapBeforeAggregate_then_fusedWithAccumulateVertex() {
+        // Given
+        System.setProperty(JET_PIPELINE_VERTEX_FUSION_ENABLED.getName(), "true");
+
+        // When
+        DAG dag = mapAndAggregateDag();
+
+        // Then
+        assertNull(dag.getVertex("map"));
+        Vertex accumulate = accumulateVertex(dag);
+        assertTrue(accumulate.getMetaSupplier() instanceof FusedProcessorMetaSupplier);
+        assertTrue(dag.getInboundEdges(accumulate.getName()).get(0).getSource().getName().contains("source"));
+    }
+
+    @Test
+    public void when_fusionDisabled_then_mapNotFused() {
+        // When
+        DAG dag = mapAndAggregateDag();
+
+        // Then
+        assertNotNull(dag.getVertex("map"));
+        assertFalse(accumulateVertex(dag).getMetaSupplier() instanceof FusedProcessorMetaSupplier);
+    }
+
+    private static DAG mapAndAggregateDag() {
+        Pipeline p = Pipeline.create();
+        p.drawFrom(Sources.<Integer>list("source"))
+         .map(i -> i + 1)
+         .aggregate(counting())
+         .drainTo(Sinks.list("sink"));
+        return p.toDag();
+    }
+
+    private static Vertex accumulateVertex(DAG dag) {
+        Vertex accumulate = null;
+        for (Vertex v : dag) {
+            if (v.getName().endsWith(FIRST_STAGE_VERTEX_NAME_SUFFIX)) {
+                accumulate = v;
+            }
+        }
+        assertNotNull("no accumulate vertex in " + dag, accumulate);
+        return accumulate;
+    }
+}
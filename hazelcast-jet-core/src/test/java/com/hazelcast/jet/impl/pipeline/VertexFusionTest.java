@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline;
+
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.impl.processor.FusedProcessorMetaSupplier;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.processor.Processors.noopP;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class VertexFusionTest {
+
+    private final DAG dag = new DAG();
+
+    @Test
+    public void when_localUnicastChain_then_fusedIntoLastVertex() {
+        // Given
+        Vertex source = dag.newVertex("source", noopP()).localParallelism(2);
+        Vertex a = dag.newVertex("a", noopP()).localParallelism(2);
+        Vertex b = dag.newVertex("b", noopP()).localParallelism(2);
+        Vertex c = dag.newVertex("c", noopP()).localParallelism(2);
+        Vertex sink = dag.newVertex("sink", noopP()).localParallelism(2);
+        dag.edge(between(source, a).partitioned(FunctionEx.identity()))
+           .edge(between(a, b))
+           .edge(between(b, c).isolated())
+           .edge(between(c, sink).distributed());
+
+        // When
+        DAG fused = VertexFusion.fuseChains(dag, v -> true);
+
+        // Then
+        assertEquals(asList("source", "c", "sink"), vertexNames(fused));
+        assertTrue(fused.getVertex("c").getMetaSupplier() instanceof FusedProcessorMetaSupplier);
+        List<Edge> inbound = fused.getInboundEdges("c");
+        assertEquals(1, inbound.size());
+        assertSame(source, inbound.get(0).getSource());
+        assertEquals(Edge.RoutingPolicy.PARTITIONED, inbound.get(0).getRoutingPolicy());
+        assertEquals(1, fused.getOutboundEdges("c").size());
+        assertTrue(fused.getOutboundEdges("c").get(0).isDistributed());
+    }
+
+    @Test
+    public void when_localParallelismDifferent_then_notFused() {
+        // Given
+        Vertex a = dag.newVertex("a", noopP()).localParallelism(1);
+        Vertex b = dag.newVertex("b", noopP()).localParallelism(2);
+        dag.edge(between(a, b));
+
+        // When
+        DAG fused = VertexFusion.fuseChains(dag, v -> true);
+
+        // Then
+        assertEquals(asList("a", "b"), vertexNames(fused));
+    }
+
+    @Test
+    public void when_branchAndMerge_then_onlyChainBetweenFused() {
+        // Given
+        Vertex a = dag.newVertex("a", noopP());
+        Vertex b = dag.newVertex("b", noopP());
+        Vertex c = dag.newVertex("c", noopP());
+        Vertex d = dag.newVertex("d", noopP());
+        Vertex e = dag.newVertex("e", noopP());
+        dag.edge(between(a, b))
+           .edge(Edge.from(a, 1).to(c))
+           .edge(between(b, d))
+           .edge(between(c, e))
+           .edge(Edge.from(d).to(e, 1));
+
+        // When
+        DAG fused = VertexFusion.fuseChains(dag, v -> true);
+
+        // Then
+        assertEquals(asList("a", "c", "d", "e"), vertexNames(fused));
+        assertSame(a, fused.getInboundEdges("d").get(0).getSource());
+        assertEquals(1, fused.getOutboundEdges("d").get(0).getDestOrdinal());
+    }
+
+    @Test
+    public void when_broadcastEdge_then_notFused() {
+        // Given
+        Vertex a = dag.newVertex("a", noopP());
+        Vertex b = dag.newVertex("b", noopP());
+        dag.edge(between(a, b).broadcast());
+
+        // When
+        DAG fused = VertexFusion.fuseChains(dag, v -> true);
+
+        // Then
+        assertFalse(fused.getVertex("b").getMetaSupplier() instanceof FusedProcessorMetaSupplier);
+        assertEquals(asList("a", "b"), vertexNames(fused));
+    }
+
+    @Test
+    public void when_notCooperative_then_notFused() {
+        // Given
+        Vertex a = dag.newVertex("a", noopP());
+        Vertex b = dag.newVertex("b", noopP());
+        Vertex c = dag.newVertex("c", noopP());
+        dag.edge(between(a, b))
+           .edge(between(b, c));
+
+        // When
+        DAG fused = VertexFusion.fuseChains(dag, v -> v != c);
+
+        // Then
+        assertEquals(asList("b", "c"), vertexNames(fused));
+        assertTrue(fused.getVertex("b").getMetaSupplier() instanceof FusedProcessorMetaSupplier);
+        assertFalse(fused.getVertex("c").getMetaSupplier() instanceof FusedProcessorMetaSupplier);
+    }
+
+    private static List<String> vertexNames(DAG dag) {
+        List<String> names = new ArrayList<>();
+        dag.forEach(v -> names.add(v.getName()));
+        names.sort(null);
+        return names;
+    }
+}
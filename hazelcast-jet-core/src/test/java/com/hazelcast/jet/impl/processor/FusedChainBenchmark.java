@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.core.processor.Processors.mapP;
+import static java.util.Arrays.asList;
+
+/**
+ * Compares two processors connected the way the tasklets of a local edge
+ * connect them, through the outbox, a queue and the inbox, with the same
+ * processors fused into a {@link FusedChainP}. The {@code fused=false} case
+ * is the former.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedChainBenchmark {
+
+    private static final int INBOX_SIZE = 1024;
+
+    @Param({"false", "true"})
+    public boolean fused;
+
+    private Processor upstream;
+    private Processor downstream;
+    private TestInbox inbox;
+    private TestOutbox upstreamOutbox;
+    private OneToOneConcurrentArrayQueue<Object> edgeQueue;
+    private TestInbox downstreamInbox;
+    private TestOutbox outbox;
+    private Queue<Object> output;
+    private Long[] input;
+
+    @Setup
+    public void setup() throws Exception {
+        upstream = mapP((Long t) -> t + 1).get();
+        downstream = mapP((Long t) -> t * 3).get();
+        outbox = new TestOutbox(INBOX_SIZE);
+        output = outbox.queue(0);
+        if (fused) {
+            upstream = new FusedChainP(asList(upstream, downstream));
+        } else {
+            upstreamOutbox = new TestOutbox(INBOX_SIZE);
+            edgeQueue = new OneToOneConcurrentArrayQueue<>(INBOX_SIZE);
+            downstreamInbox = new TestInbox();
+            downstream.init(outbox, new TestProcessorContext());
+        }
+        upstream.init(fused ? outbox : upstreamOutbox, new TestProcessorContext());
+        inbox = new TestInbox();
+        input = new Long[INBOX_SIZE];
+        for (int i = 0; i < INBOX_SIZE; i++) {
+            input[i] = (long) i;
+        }
+    }
+
+    /**
+     * Processes an inbox full of items by both processors.
+     */
+    @Benchmark
+    @OperationsPerInvocation(INBOX_SIZE)
+    public int process() {
+        inbox.addAll(asList(input));
+        upstream.process(0, inbox);
+        if (!fused) {
+            Queue<Object> upstreamOutput = upstreamOutbox.queue(0);
+            for (Object item; (item = upstreamOutput.poll()) != null; ) {
+                edgeQueue.offer(item);
+            }
+            upstreamOutbox.reset();
+            edgeQueue.drain(downstreamInbox.queue()::add);
+            downstream.process(0, downstreamInbox);
+        }
+        int count = output.size();
+        output.clear();
+        outbox.reset();
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FusedChainBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
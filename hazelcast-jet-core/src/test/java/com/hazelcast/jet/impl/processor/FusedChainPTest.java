@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.core.test.TestSupport;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.Traversers.traverseItems;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.summingLong;
+import static com.hazelcast.jet.core.EventTimePolicy.eventTimePolicy;
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static com.hazelcast.jet.core.WatermarkPolicy.limitingLag;
+import static com.hazelcast.jet.core.processor.Processors.aggregateP;
+import static com.hazelcast.jet.core.processor.Processors.flatMapP;
+import static com.hazelcast.jet.core.processor.Processors.insertWatermarksP;
+import static com.hazelcast.jet.core.processor.Processors.mapP;
+import static com.hazelcast.jet.core.processor.Processors.rollingAggregateP;
+import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
+import static com.hazelcast.test.HazelcastTestSupport.assertTrueEventually;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class FusedChainPTest {
+
+    @Test
+    public void when_statelessChain_then_itemsAndWatermarksPassedThrough() {
+        TestSupport.verifyProcessor(() -> new FusedChainP(asList(
+                        flatMapP((Integer i) -> traverseItems(i, -i)).get(),
+                        mapP((Integer i) -> i > 0 ? "v" + i : null).get())))
+                   .input(asList(1, 2, wm(5), 3))
+                   .expectOutput(asList("v1", "v2", wm(5), "v3"));
+    }
+
+    @Test
+    public void when_lastProcessorStateful_then_stateSavedAndRestored() {
+        TestSupport.verifyProcessor(() -> new FusedChainP(asList(
+                        mapP((Long i) -> i * 10).get(),
+                        rollingAggregateP((Long i) -> i % 20, summingLong((Long i) -> i),
+                                (i, key, sum) -> entry(key, sum)).get())))
+                   .input(asList(1L, 2L, 3L))
+                   .expectOutput(asList(entry(10L, 10L), entry(0L, 20L), entry(10L, 40L)));
+    }
+
+    @Test
+    public void when_lastProcessorEmitsOnComplete_then_emittedAfterFirstCompleted() {
+        TestSupport.verifyProcessor(() -> new FusedChainP(asList(
+                        mapP((Long i) -> i * 10).get(),
+                        aggregateP(summingLong((Long i) -> i)).get())))
+                   .input(asList(1L, 2L, 3L))
+                   .expectOutput(singletonList(60L));
+    }
+
+    @Test
+    public void when_sourceNeverCompletes_then_downstreamTryProcessCalled() throws Exception {
+        // Given
+        Processor neverCompletingSource = new AbstractProcessor() {
+            @Override
+            public boolean complete() {
+                return false;
+            }
+        };
+        FusedChainP p = new FusedChainP(asList(
+                neverCompletingSource,
+                insertWatermarksP(eventTimePolicy((Integer i) -> (long) i, limitingLag(0), 0, 0, 1)).get()));
+        TestOutbox outbox = new TestOutbox(128);
+        p.init(outbox, new TestProcessorContext());
+
+        // When-Then
+        assertTrueEventually(() -> {
+            assertFalse(p.complete());
+            assertTrue(outbox.queue(0).contains(IDLE_MESSAGE));
+        }, 10);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.processor.SinkProcessors.writeListP;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class FusedChainP_IntegrationTest extends JetTestSupport {
+
+    private JetInstance instance;
+
+    @Before
+    public void before() {
+        instance = super.createJetMember();
+    }
+
+    @Test
+    public void when_fused_then_eachProcessorGetsContextOfItsVertex() {
+        // Given
+        DAG dag = new DAG();
+        Vertex fused = dag.newVertex("fused", new FusedProcessorMetaSupplier(
+                asList(ProcessorMetaSupplier.of(VertexNameP::new), ProcessorMetaSupplier.of(VertexNameP::new)),
+                asList("first", "second")))
+                .localParallelism(1);
+        Vertex sink = dag.newVertex("sink", writeListP("list")).localParallelism(1);
+        dag.edge(between(fused, sink));
+
+        // When
+        instance.newJob(dag).join();
+
+        // Then
+        List<Object> actual = new ArrayList<>(instance.getList("list"));
+        assertEquals(asList("first", "second"), actual);
+    }
+
+    /**
+     * Forwards the input items and emits the vertex name from its context on
+     * completion.
+     */
+    private static final class VertexNameP extends AbstractProcessor {
+        private String vertexName;
+
+        @Override
+        protected void init(@Nonnull Context context) {
+            vertexName = context.vertexName();
+        }
+
+        @Override
+        protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+            return tryEmit(item);
+        }
+
+        @Override
+        public boolean complete() {
+            return tryEmit(vertexName);
+        }
+    }
+}
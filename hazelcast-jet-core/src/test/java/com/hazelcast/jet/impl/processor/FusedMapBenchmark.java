@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.function.FunctionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.core.processor.Processors.mapP;
+import static java.util.Arrays.asList;
+
+/**
+ * Compares the processor of a fused chain of map and filter stages which
+ * passes each item through all the stages, as created without the {@link
+ * com.hazelcast.jet.impl.util.JetProperties#JET_FUSED_MAP_BATCH_SIZE batch
+ * size}, with the {@link FusedMapP} processing the items in batches. The
+ * {@code batchSize=0} case is the former.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusedMapBenchmark {
+
+    private static final int INBOX_SIZE = 1024;
+
+    @Param({"0", "64", "1024"})
+    public int batchSize;
+
+    private Processor processor;
+    private TestInbox inbox;
+    private TestOutbox outbox;
+    private Queue<Object> output;
+    private Long[] input;
+
+    @Setup
+    public void setup() throws Exception {
+        List<FunctionEx<Object, Object>> stages = asList(
+                t -> (Long) t + 1,
+                t -> (Long) t % 4 != 0 ? t : null,
+                t -> (Long) t * 3,
+                t -> (Long) t % 3 == 0 ? t : null,
+                t -> (Long) t >> 1
+        );
+        FunctionEx<Object, Object> mergedFn = t -> {
+            Object result = t;
+            for (int i = 0; i < stages.size() && result != null; i++) {
+                result = stages.get(i).apply(result);
+            }
+            return result;
+        };
+        processor = batchSize > 0 ? new FusedMapP(stages, batchSize) : mapP(mergedFn).get();
+        outbox = new TestOutbox(INBOX_SIZE);
+        processor.init(outbox, new TestProcessorContext());
+        output = outbox.queue(0);
+        inbox = new TestInbox();
+        input = new Long[INBOX_SIZE];
+        for (int i = 0; i < INBOX_SIZE; i++) {
+            input[i] = (long) i;
+        }
+    }
+
+    /**
+     * Processes an inbox full of items.
+     */
+    @Benchmark
+    @OperationsPerInvocation(INBOX_SIZE)
+    public int process() {
+        inbox.addAll(asList(input));
+        processor.process(0, inbox);
+        int count = output.size();
+        output.clear();
+        outbox.reset();
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FusedMapBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.core.test.TestSupport;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class FusedMapPTest {
+
+    private final List<FunctionEx<Object, Object>> stages = asList(
+            i -> (int) i + 1,
+            i -> (int) i % 2 == 0 ? i : null,
+            i -> "v" + i
+    );
+
+    @Test
+    public void when_batchSmallerThanInput_then_allItemsMappedInOrder() {
+        TestSupport.verifyProcessor(() -> new FusedMapP(stages, 2))
+                   .input(asList(1, 2, 3, 4, 5, 6, 7))
+                   .expectOutput(asList("v2", "v4", "v6", "v8"));
+    }
+
+    @Test
+    public void when_allItemsFilteredOut_then_noOutput() {
+        TestSupport.verifyProcessor(() -> new FusedMapP(stages, 4))
+                   .input(asList(2, 4, 6))
+                   .expectOutput(emptyList());
+    }
+
+    @Test
+    public void when_outboxFullAndWatermark_then_batchEmittedBeforeWatermark() {
+        // Given
+        FusedMapP p = new FusedMapP(stages, 4);
+        TestOutbox outbox = new TestOutbox(1);
+        p.init(outbox, new TestProcessorContext());
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(asList(1, 3, 5));
+
+        // When
+        p.process(0, inbox);
+
+        // Then
+        assertTrue("items not taken from the inbox", inbox.isEmpty());
+        List<Object> output = new ArrayList<>();
+        outbox.drainQueueAndReset(0, output, false);
+        assertFalse(p.tryProcessWatermark(wm(10)));
+        outbox.drainQueueAndReset(0, output, false);
+        assertFalse(p.tryProcessWatermark(wm(10)));
+        outbox.drainQueueAndReset(0, output, false);
+        assertTrue(p.tryProcessWatermark(wm(10)));
+        outbox.drainQueueAndReset(0, output, false);
+        assertEquals(asList("v2", "v4", "v6", wm(10)), output);
+    }
+}
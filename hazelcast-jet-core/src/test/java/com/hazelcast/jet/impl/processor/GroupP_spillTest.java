@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.test.TestSupport.SAME_ITEMS_ANY_ORDER;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class GroupP_spillTest {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private Path directory;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("group-p-spill-test");
+    }
+
+    @After
+    public void after() throws IOException {
+        assertEquals("spill stores not deleted", 0, storeCount());
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void when_groupsSpilled_then_sameResultAsInMemory() {
+        // Given
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(i);
+        }
+        FunctionEx<Integer, Integer> keyFn = i -> i % 100;
+
+        // When-Then
+        verifyProcessor(() -> groupP(keyFn, 10))
+                .disableSnapshots()
+                .outputChecker(SAME_ITEMS_ANY_ORDER)
+                .input(items)
+                .expectOutput(expectedOutput(items, keyFn));
+    }
+
+    @Test
+    public void when_partitionLargerThanThreshold_then_spilledToNextLevel() throws Exception {
+        // Given
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(i);
+            items.add(i);
+        }
+        FunctionEx<Integer, Integer> keyFn = i -> i;
+        GroupP<Integer, LongAccumulator, Long, Entry<Integer, Long>> p = groupP(keyFn, 10);
+        TestOutbox outbox = new TestOutbox(1);
+        p.init(outbox, new TestProcessorContext());
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(items);
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+        assertEquals(1, storeCount());
+
+        // When
+        assertFalse(p.complete());
+
+        // Then
+        // a level-0 partition has more keys than the threshold, it was spilled to level 1
+        assertTrue("storeCount=" + storeCount(), storeCount() >= 2);
+        List<Object> output = new ArrayList<>();
+        do {
+            output.add(outbox.queue(0).poll());
+        } while (!p.complete());
+        output.addAll(outbox.queue(0));
+        p.close();
+        assertTrue(SAME_ITEMS_ANY_ORDER.test(expectedOutput(items, keyFn), output));
+    }
+
+    @Test
+    public void when_keysHaveSameHash_then_loadedAtMaxLevel() {
+        // Given
+        // two keys with the same hash can't be split by any level
+        Map<Integer, Long> hashToKey = new HashMap<>();
+        Long key1 = null;
+        long key2 = 0;
+        while (key1 == null) {
+            key2++;
+            key1 = hashToKey.put(serializationService.toData(key2).hashCode(), key2);
+        }
+        List<Long> items = asList(key1, key2, key1, key2, key1, key1 + 1, key2 + 1);
+        FunctionEx<Long, Long> keyFn = l -> l;
+
+        // When-Then
+        verifyProcessor(() -> groupP(keyFn, 1))
+                .disableSnapshots()
+                .outputChecker(SAME_ITEMS_ANY_ORDER)
+                .input(items)
+                .expectOutput(expectedOutput(items, keyFn));
+    }
+
+    private <T, K> GroupP<K, LongAccumulator, Long, Entry<K, Long>> groupP(FunctionEx<T, K> keyFn, int threshold) {
+        GroupP<K, LongAccumulator, Long, Entry<K, Long>> p =
+                new GroupP<>(keyFn, counting(), (k, count) -> entry(k, count));
+        p.spillFactory = new SpillStore.Factory(serializationService, directory, threshold);
+        return p;
+    }
+
+    private static <T, K> List<Entry<K, Long>> expectedOutput(List<T> items, FunctionEx<T, K> keyFn) {
+        return items.stream()
+                    .collect(groupingBy(keyFn, Collectors.counting()))
+                    .entrySet().stream()
+                    .map(e -> entry(e.getKey(), e.getValue()))
+                    .collect(toList());
+    }
+
+    private long storeCount() throws IOException {
+        try (Stream<Path> stores = Files.list(directory)) {
+            return stores.count();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.ProcessorSupplier;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.core.test.TestProcessorSupplierContext;
+import com.hazelcast.jet.datamodel.Tuple3;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.TriFunction;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Stream;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.test.TestSupport.SAME_ITEMS_ANY_ORDER;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class HashJoinP_spillTest {
+
+    private static final TriFunction mapToOutputTriFn = Tuple3::tuple3;
+
+    private Path directory;
+    private SpillStore.Factory factory;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("hash-join-p-spill-test");
+        factory = new SpillStore.Factory(new DefaultSerializationServiceBuilder().build(), directory, 2);
+    }
+
+    @After
+    public void after() throws IOException {
+        assertEquals("spill stores not deleted", 0, storeCount());
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void when_lookupTableSpilled_then_collectPEmitsSpillStore() throws Exception {
+        // Given
+        List<Entry<Integer, String>> table = table1();
+
+        // When
+        Object collected = collect(table, factory);
+
+        // Then
+        assertTrue(collected instanceof SpillStore);
+        SpillStore store = (SpillStore) collected;
+        List<Entry<Object, Object>> pairs = new ArrayList<>();
+        for (int p = 0; p < SpillStore.PARTITION_COUNT; p++) {
+            SpillStore.Reader reader = store.reader(p);
+            while (reader.advance()) {
+                pairs.add(entry(reader.key(), reader.value()));
+            }
+        }
+        assertTrue(SAME_ITEMS_ANY_ORDER.test(table, pairs));
+        store.delete();
+    }
+
+    @Test
+    public void when_lookupTableNotSpilled_then_collectPEmitsMap() throws Exception {
+        // When
+        Object collected = collect(table1(), factory(Integer.MAX_VALUE));
+
+        // Then
+        assertTrue(collected instanceof Map);
+        assertEquals(0, storeCount());
+    }
+
+    @Test
+    public void when_bothTablesSpilled_then_sameOutputAsInMemory() throws Exception {
+        // Given
+        List<String> expected = join(collect(table1(), null), collect(table2(), null));
+
+        // When
+        List<String> output = join(collect(table1(), factory), collect(table2(), factory));
+
+        // Then
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, output);
+    }
+
+    @Test
+    public void when_oneTableSpilled_then_sameOutputAsInMemory() throws Exception {
+        // Given
+        List<String> expected = join(collect(table1(), null), collect(table2(), null));
+
+        // When
+        List<String> output = join(collect(table1(), null), collect(table2(), factory));
+
+        // Then
+        assertEquals(expected, output);
+    }
+
+    private SpillStore.Factory factory(int threshold) {
+        return new SpillStore.Factory(new DefaultSerializationServiceBuilder().build(), directory, threshold);
+    }
+
+    private static List<Entry<Integer, String>> table1() {
+        List<Entry<Integer, String>> table = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            if (i != 3) {
+                table.add(entry(i, "a" + i));
+            }
+        }
+        table.add(entry(5, "b5"));
+        return table;
+    }
+
+    private static List<Entry<Integer, String>> table2() {
+        List<Entry<Integer, String>> table = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            if (i != 2) {
+                table.add(entry(i, "x" + i));
+            }
+        }
+        table.add(entry(4, "y4"));
+        return table;
+    }
+
+    /**
+     * Runs a {@link HashJoinCollectP} and returns the collected lookup
+     * table or its spill store.
+     */
+    private static Object collect(List<Entry<Integer, String>> table, @Nullable SpillStore.Factory spillFactory)
+            throws Exception {
+        HashJoinCollectP<Integer, Entry<Integer, String>, String> p =
+                new HashJoinCollectP<>(Entry::getKey, Entry::getValue, true);
+        p.spillFactory = spillFactory;
+        TestOutbox outbox = new TestOutbox(1);
+        p.init(outbox, new TestProcessorContext());
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(table);
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+        assertTrue(p.complete());
+        p.close();
+        return outbox.queue(0).poll();
+    }
+
+    /**
+     * Joins the numbers from 0 to 99 with the given lookup tables and
+     * returns the sorted output. Checks that the spilled lookup tables are
+     * deleted when the processor supplier is closed.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> join(Object table1, Object table2) throws Exception {
+        List<FunctionEx<?, Object>> keyFns = asList(e -> (Integer) e % 10, e -> (Integer) e % 7);
+        ProcessorSupplier supplier = HashJoinP.hashJoinP(keyFns, emptyList(), null, mapToOutputTriFn);
+        supplier.init(new TestProcessorSupplierContext());
+        HashJoinP<Object> p = (HashJoinP<Object>) supplier.get(1).iterator().next();
+        p.spillFactory = factory;
+        TestOutbox outbox = new TestOutbox(1024);
+        p.init(outbox, new TestProcessorContext());
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+        List<String> output = new ArrayList<>();
+        process(p, 1, singletonList(table1), outbox, output);
+        process(p, 2, singletonList(table2), outbox, output);
+        process(p, 0, items, outbox, output);
+        boolean done;
+        do {
+            done = p.complete();
+            drain(outbox, output);
+        } while (!done);
+        p.close();
+
+        long spilledTables = Stream.of(table1, table2).filter(t -> t instanceof SpillStore).count();
+        assertEquals("spilled tables deleted before the supplier was closed", spilledTables, storeCount());
+        supplier.close(null);
+        assertEquals(0, storeCount());
+        output.sort(null);
+        return output;
+    }
+
+    private static void process(Processor p, int ordinal, List<Object> items, TestOutbox outbox, List<String> output) {
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(items);
+        while (!inbox.isEmpty()) {
+            p.process(ordinal, inbox);
+            drain(outbox, output);
+        }
+    }
+
+    private static void drain(TestOutbox outbox, List<String> output) {
+        for (Object item; (item = outbox.queue(0).poll()) != null; ) {
+            output.add(item.toString());
+        }
+    }
+
+    private long storeCount() throws IOException {
+        try (Stream<Path> stores = Files.list(directory)) {
+            return stores.count();
+        }
+    }
+}
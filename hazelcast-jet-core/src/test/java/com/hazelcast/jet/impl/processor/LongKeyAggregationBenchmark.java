@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.TimestampKind;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.tumblingWinPolicy;
+import static com.hazelcast.jet.core.processor.Processors.aggregateByKeyP;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Compares the keyed aggregation with the keys boxed into {@code Long}s,
+ * as extracted by a plain {@code FunctionEx}, with the keys kept unboxed,
+ * as extracted by a {@link LongKeyFunctionEx}. Run with {@code -prof gc}
+ * to see the difference in allocation. The {@code SlidingWindowP} keeps
+ * the {@code counting()} state in a {@link PrimitiveAccumulatorMap},
+ * which is long-keyed with a {@code LongKeyFunctionEx}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongKeyAggregationBenchmark {
+
+    private static final int INBOX_SIZE = 1024;
+    // more keys than the Long.valueOf() cache has
+    private static final int KEY_COUNT = 10_000;
+
+    @Param({"false", "true"})
+    public boolean longKey;
+
+    @Param({"GroupP", "SlidingWindowP"})
+    public String processorType;
+
+    private Processor processor;
+    private TestInbox inbox;
+    private Long[] input;
+
+    @Setup
+    public void setup() throws Exception {
+        FunctionEx<Object, Long> keyFn = longKey
+                ? new LongKeyFunctionEx<>(t -> (Long) t % KEY_COUNT)
+                : t -> (Long) t % KEY_COUNT;
+        AggregateOperation1<Object, ?, Long> aggrOp = counting();
+        processor = processorType.equals("GroupP")
+                ? aggregateByKeyP(singletonList(keyFn), aggrOp, (k, r) -> r).get()
+                : aggregateToSlidingWindowP(
+                        singletonList(keyFn),
+                        singletonList((ToLongFunctionEx<Object>) t -> 0L),
+                        TimestampKind.FRAME,
+                        tumblingWinPolicy(1),
+                        0L,
+                        aggrOp,
+                        (start, end, k, r, isEarly) -> r
+                ).get();
+        processor.init(new TestOutbox(INBOX_SIZE), new TestProcessorContext());
+        inbox = new TestInbox();
+        input = new Long[INBOX_SIZE];
+        Random random = new Random(1);
+        for (int i = 0; i < INBOX_SIZE; i++) {
+            input[i] = (long) random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Accumulates an inbox full of items.
+     */
+    @Benchmark
+    @OperationsPerInvocation(INBOX_SIZE)
+    public int process() {
+        inbox.addAll(asList(input));
+        processor.process(0, inbox);
+        return inbox.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LongKeyAggregationBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
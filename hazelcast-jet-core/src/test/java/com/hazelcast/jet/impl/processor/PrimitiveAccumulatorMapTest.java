@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.LongLongAccumulator;
+import com.hazelcast.jet.accumulator.MutableReference;
+import com.hazelcast.jet.impl.aggregate.LongArithmeticFn;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PrimitiveAccumulatorMapTest {
+
+    @Test
+    public void when_accumulate_then_stateKeptPerKey() {
+        // Given
+        PrimitiveAccumulatorMap<Integer, LongLongAccumulator> map = newMap(new LongLongAccumulator());
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            map.accumulate(i % 1000, (LongLongAccumulator acc, Integer item) -> {
+                acc.set1(acc.get1() + 1);
+                acc.set2(acc.get2() + item);
+            }, i);
+        }
+
+        // Then
+        assertEquals(1000, map.size());
+        for (int key = 0; key < 1000; key++) {
+            LongLongAccumulator acc = map.get(key);
+            assertEquals(10, acc.get1());
+            assertEquals(10 * key + 1000 * 45, acc.get2());
+        }
+        assertNull(map.get(1000));
+        assertFalse(map.containsKey(1000));
+    }
+
+    @Test
+    public void when_patchWithRemoveEmpty_then_emptyAccumulatorsRemoved() {
+        // Given
+        PrimitiveAccumulatorMap<Integer, LongAccumulator> window = newMap(new LongAccumulator());
+        PrimitiveAccumulatorMap<Integer, LongAccumulator> frame1 = newMap(new LongAccumulator());
+        PrimitiveAccumulatorMap<Integer, LongAccumulator> frame2 = newMap(new LongAccumulator());
+        for (int i = 0; i < 100; i++) {
+            frame1.put(i, new LongAccumulator(i + 1));
+            if (i % 2 == 0) {
+                frame2.put(i, new LongAccumulator(1));
+            }
+        }
+        window.patch(frame1, LongAccumulator::add, false);
+        window.patch(frame2, LongAccumulator::add, false);
+
+        // When
+        window.patch(frame1, LongAccumulator::subtract, true);
+
+        // Then
+        assertEquals(50, window.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0, window.containsKey(i));
+        }
+        for (Entry<Integer, LongAccumulator> e : window.entrySet()) {
+            assertEquals(new LongAccumulator(1), e.getValue());
+        }
+    }
+
+    @Test
+    public void when_putAndRemove_then_behavesLikeHashMap() {
+        // Given
+        PrimitiveAccumulatorMap<Integer, LongAccumulator> map = newMap(new LongAccumulator());
+        Map<Integer, LongAccumulator> expected = new HashMap<>();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            int key = (i * 31) % 997;
+            if (i % 3 == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, new LongAccumulator(i)), map.put(key, new LongAccumulator(i)));
+            }
+        }
+
+        // Then
+        assertEquals(expected, new HashMap<>(map));
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void when_returnedAccumulatorMutated_then_stateUnchanged() {
+        // Given
+        PrimitiveAccumulatorMap<String, LongAccumulator> map = newMap(new LongAccumulator());
+        map.put("key", new LongAccumulator(1));
+
+        // When
+        map.get("key").set(2);
+        map.entrySet().iterator().next().getValue().set(3);
+
+        // Then
+        assertEquals(new LongAccumulator(1), map.get("key"));
+    }
+
+    @Test
+    public void when_longKeyedAccumulate_then_stateKeptPerKey() {
+        // Given
+        PrimitiveAccumulatorMap<Long, LongAccumulator> map = newMap(new LongAccumulator(), true);
+
+        // When
+        for (long i = 0; i < 10_000; i++) {
+            map.accumulateLong(i % 1000 - 500, (LongAccumulator acc, Long item) -> acc.add(item), i);
+        }
+
+        // Then
+        assertEquals(1000, map.size());
+        for (long key = -500; key < 500; key++) {
+            assertEquals(new LongAccumulator(10 * (key + 500) + 1000 * 45), map.get(key));
+        }
+        assertNull(map.get(500L));
+        assertNull(map.get(0));
+        assertFalse(map.containsKey("0"));
+    }
+
+    @Test
+    public void when_longKeyedPutAndRemove_then_behavesLikeHashMap() {
+        // Given
+        PrimitiveAccumulatorMap<Long, LongAccumulator> map = newMap(new LongAccumulator(), true);
+        Map<Long, LongAccumulator> expected = new HashMap<>();
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            long key = ((i * 31) % 997) * (long) Integer.MAX_VALUE;
+            if (i % 3 == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, new LongAccumulator(i)), map.put(key, new LongAccumulator(i)));
+            }
+        }
+
+        // Then
+        assertEquals(expected, new HashMap<>(map));
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void when_patchWithArithmeticFn_then_sameAsWithLambda() {
+        for (boolean longKeyed : new boolean[]{false, true}) {
+            // Given
+            PrimitiveAccumulatorMap<Long, LongLongAccumulator> frame1 = newMap(new LongLongAccumulator(), longKeyed);
+            PrimitiveAccumulatorMap<Long, LongLongAccumulator> frame2 = newMap(new LongLongAccumulator(), longKeyed);
+            for (long i = 0; i < 100; i++) {
+                frame1.put(i, new LongLongAccumulator(1, i));
+                if (i % 2 == 0) {
+                    frame2.put(i, new LongLongAccumulator(1, 1));
+                }
+            }
+            PrimitiveAccumulatorMap<Long, LongLongAccumulator> window = newMap(new LongLongAccumulator(), longKeyed);
+            PrimitiveAccumulatorMap<Long, LongLongAccumulator> expected = newMap(new LongLongAccumulator(), longKeyed);
+
+            // When
+            window.patch(frame1, LongArithmeticFn.ADD_EXACT, false);
+            window.patch(frame2, LongArithmeticFn.ADD_EXACT, false);
+            window.patch(frame1, LongArithmeticFn.SUBTRACT_EXACT, true);
+            expected.patch(frame1, (a1, a2) -> LongArithmeticFn.ADD_EXACT.accept(a1, a2), false);
+            expected.patch(frame2, (a1, a2) -> LongArithmeticFn.ADD_EXACT.accept(a1, a2), false);
+            expected.patch(frame1, (a1, a2) -> LongArithmeticFn.SUBTRACT_EXACT.accept(a1, a2), true);
+
+            // Then
+            assertEquals(50, window.size());
+            assertEquals(new HashMap<>(expected), new HashMap<>(window));
+            assertEquals(new LongLongAccumulator(1, 1), window.get(0L));
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void when_patchWithArithmeticFnOverflows_then_throws() {
+        PrimitiveAccumulatorMap<Long, LongAccumulator> window = newMap(new LongAccumulator(), true);
+        PrimitiveAccumulatorMap<Long, LongAccumulator> frame = newMap(new LongAccumulator(), true);
+        window.put(1L, new LongAccumulator(Long.MAX_VALUE));
+        frame.put(1L, new LongAccumulator(1));
+
+        window.patch(frame, LongArithmeticFn.ADD_EXACT, false);
+    }
+
+    @Test
+    public void when_accumulatorNotPrimitive_then_noSupplier() {
+        assertNull(PrimitiveAccumulatorMap.supplierFor(new MutableReference<>(), false));
+        assertNull(PrimitiveAccumulatorMap.supplierFor(new MutableReference<>(), true));
+    }
+
+    private static <K, A> PrimitiveAccumulatorMap<K, A> newMap(A emptyAcc) {
+        return newMap(emptyAcc, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, A> PrimitiveAccumulatorMap<K, A> newMap(A emptyAcc, boolean longKeyed) {
+        return (PrimitiveAccumulatorMap<K, A>) PrimitiveAccumulatorMap.<K, A>supplierFor(emptyAcc, longKeyed).get();
+    }
+}
@@ -17,18 +17,24 @@
 package com.hazelcast.jet.impl.processor;
 
 import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.MutableReference;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.SlidingWindowPolicy;
 import com.hazelcast.jet.core.TimestampKind;
 import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
 import com.hazelcast.jet.datamodel.KeyedWindowResult;
 import com.hazelcast.jet.function.FunctionEx;
 import com.hazelcast.jet.function.SupplierEx;
 import com.hazelcast.jet.function.ToLongFunctionEx;
+import com.hazelcast.jet.impl.util.LongKeyFunctionEx;
 import com.hazelcast.test.HazelcastParametersRunnerFactory;
 import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -43,7 +49,9 @@ import org.junit.runners.Parameterized.Parameters;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.stream.LongStream;
 
@@ -53,11 +61,16 @@ import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
 import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
 import static com.hazelcast.jet.core.processor.Processors.combineToSlidingWindowP;
 import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static com.hazelcast.jet.impl.aggregate.LongArithmeticFn.ADD_EXACT;
+import static com.hazelcast.jet.impl.aggregate.LongArithmeticFn.SUBTRACT_EXACT;
 import static java.util.Arrays.asList;
 import static java.util.Collections.shuffle;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
+import static com.hazelcast.test.HazelcastTestSupport.assertInstanceOf;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 @RunWith(Parameterized.class)
 @Category(ParallelTest.class)
@@ -75,16 +88,28 @@ public class SlidingWindowPTest {
     @Parameter(1)
     public boolean singleStageProcessor;
 
+    @Parameter(2)
+    public boolean longKey;
+
+    // whether the state is kept in a PrimitiveAccumulatorMap
+    @Parameter(3)
+    public boolean primitiveAcc;
+
     private SupplierEx<Processor> supplier;
     private SlidingWindowP lastSuppliedProcessor;
 
-    @Parameters(name = "hasDeduct={0}, singleStageProcessor={1}")
+    @Parameters(name = "hasDeduct={0}, singleStageProcessor={1}, longKey={2}, primitiveAcc={3}")
     public static Collection<Object[]> parameters() {
         return Arrays.asList(
-                new Object[]{true, true},
-                new Object[]{true, false},
-                new Object[]{false, true},
-                new Object[]{false, false}
+                new Object[]{true, true, false, true},
+                new Object[]{true, true, false, false},
+                new Object[]{true, true, true, true},
+                new Object[]{true, true, true, false},
+                new Object[]{true, false, false, true},
+                new Object[]{false, true, false, true},
+                new Object[]{false, true, true, true},
+                new Object[]{false, true, true, false},
+                new Object[]{false, false, false, true}
         );
     }
 
@@ -92,14 +117,27 @@ public class SlidingWindowPTest {
     public void before() {
         SlidingWindowPolicy winPolicy = slidingWinPolicy(4, 1);
 
-        AggregateOperation1<Entry<?, Long>, LongAccumulator, Long> operation = AggregateOperation
-                .withCreate(LongAccumulator::new)
-                .andAccumulate((LongAccumulator acc, Entry<?, Long> item) -> acc.add(item.getValue()))
-                .andCombine(LongAccumulator::add)
-                .andDeduct(hasDeduct ? LongAccumulator::subtract : null)
-                .andExportFinish(LongAccumulator::get);
+        AggregateOperation1<Entry<?, Long>, ?, Long> operation;
+        if (primitiveAcc) {
+            // the combine and deduct functions of summingLong(), applied to the state arrays directly
+            operation = AggregateOperation
+                    .withCreate(LongAccumulator::new)
+                    .andAccumulate((LongAccumulator acc, Entry<?, Long> item) -> acc.add(item.getValue()))
+                    .andCombine(ADD_EXACT)
+                    .andDeduct(hasDeduct ? SUBTRACT_EXACT : null)
+                    .andExportFinish(LongAccumulator::get);
+        } else {
+            // an accumulator PrimitiveAccumulatorMap doesn't support, kept in a Long2ObjectHashMap if longKey
+            operation = AggregateOperation
+                    .withCreate(() -> new MutableReference<>(0L))
+                    .andAccumulate((MutableReference<Long> acc, Entry<?, Long> item) ->
+                            acc.set(acc.get() + item.getValue()))
+                    .andCombine((acc1, acc2) -> acc1.set(acc1.get() + acc2.get()))
+                    .andDeduct(hasDeduct ? (acc1, acc2) -> acc1.set(acc1.get() - acc2.get()) : null)
+                    .andExportFinish(MutableReference::get);
+        }
 
-        FunctionEx<?, Long> keyFn = t -> KEY;
+        FunctionEx<?, Long> keyFn = longKey ? new LongKeyFunctionEx<Object>(t -> KEY) : t -> KEY;
         ToLongFunctionEx<Entry<Long, Long>> timestampFn = Entry::getKey;
         SupplierEx<Processor> procSupplier = singleStageProcessor
                 ? aggregateToSlidingWindowP(
@@ -289,6 +327,31 @@ public class SlidingWindowPTest {
                 ));
     }
 
+    @Test
+    public void when_eventProcessed_then_stateKeptInMapForParameters() {
+        assumeTrue(singleStageProcessor);
+
+        // Given
+        SlidingWindowP p = (SlidingWindowP) supplier.get();
+        TestOutbox outbox = new TestOutbox(128);
+        p.init(outbox, new TestProcessorContext());
+        TestInbox inbox = new TestInbox();
+        inbox.add(event(0, 1));
+
+        // When
+        p.process(0, inbox);
+
+        // Then
+        Map<?, ?> keyToAcc = (Map<?, ?>) p.tsToKeyToAcc.values().iterator().next();
+        if (primitiveAcc) {
+            assertInstanceOf(PrimitiveAccumulatorMap.class, keyToAcc);
+            assertEquals(longKey, ((PrimitiveAccumulatorMap<?, ?>) keyToAcc).longKeyed);
+        } else {
+            assertInstanceOf(longKey ? Long2ObjectHashMap.class : HashMap.class, keyToAcc);
+        }
+        assertTrue(p.complete());
+    }
+
     @Test
     public void when_lateEvent_then_ignored() {
         verifyProcessor(supplier)
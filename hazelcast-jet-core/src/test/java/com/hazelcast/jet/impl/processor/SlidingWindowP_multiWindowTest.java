@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.SlidingWindowPolicy;
+import com.hazelcast.jet.core.TimestampKind;
+import com.hazelcast.jet.datamodel.KeyedWindowResult;
+import com.hazelcast.jet.function.FunctionEx;
+import com.hazelcast.jet.function.SupplierEx;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+import com.hazelcast.test.HazelcastParametersRunnerFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+@Category(ParallelTest.class)
+@Parameterized.UseParametersRunnerFactory(HazelcastParametersRunnerFactory.class)
+public class SlidingWindowP_multiWindowTest {
+
+    private static final Long KEY = 77L;
+
+    @Parameter
+    public boolean hasDeduct;
+
+    private SupplierEx<Processor> supplier;
+    private SlidingWindowP lastSuppliedProcessor;
+
+    @Parameters(name = "hasDeduct={0}")
+    public static Collection<Object> parameters() {
+        return asList(true, false);
+    }
+
+    @Before
+    public void before() {
+        // the frames are shared by both windows, their size is 1
+        List<SlidingWindowPolicy> winPolicies = asList(slidingWinPolicy(4, 2), slidingWinPolicy(9, 3));
+
+        AggregateOperation1<Entry<?, Long>, LongAccumulator, Long> operation = AggregateOperation
+                .withCreate(LongAccumulator::new)
+                .andAccumulate((LongAccumulator acc, Entry<?, Long> item) -> acc.add(item.getValue()))
+                .andCombine(LongAccumulator::add)
+                .andDeduct(hasDeduct ? LongAccumulator::subtract : null)
+                .andExportFinish(LongAccumulator::get);
+
+        FunctionEx<?, Long> keyFn = t -> KEY;
+        ToLongFunctionEx<Entry<Long, Long>> timestampFn = Entry::getKey;
+        SupplierEx<Processor> procSupplier = aggregateToSlidingWindowP(
+                singletonList(keyFn),
+                singletonList(timestampFn),
+                TimestampKind.EVENT,
+                winPolicies,
+                0L,
+                operation,
+                KeyedWindowResult::new);
+
+        // new supplier to save the last supplied instance
+        supplier = () -> lastSuppliedProcessor = (SlidingWindowP) procSupplier.get();
+    }
+
+    @After
+    public void after() {
+        assertTrue("tsToKeyToFrame is not empty: " + lastSuppliedProcessor.tsToKeyToAcc,
+                lastSuppliedProcessor.tsToKeyToAcc.isEmpty());
+    }
+
+    @Test
+    public void when_eventsReceived_then_allWindowsEmitted() {
+        verifyProcessor(supplier)
+                .input(asList(
+                        entry(0L, 1L),
+                        entry(1L, 2L),
+                        entry(4L, 3L)))
+                .expectOutput(asList(
+                        outboxFrame(2, 4, 3),
+                        outboxFrame(3, 9, 3),
+                        outboxFrame(4, 4, 3),
+                        outboxFrame(6, 4, 3),
+                        outboxFrame(6, 9, 6),
+                        outboxFrame(8, 4, 3),
+                        outboxFrame(9, 9, 6),
+                        outboxFrame(12, 9, 3)
+                ));
+    }
+
+    @Test
+    public void when_watermarksReceived_then_windowsEmittedUpToWatermark() {
+        verifyProcessor(supplier)
+                .disableCompleteCall()
+                .input(asList(
+                        entry(0L, 1L),
+                        wm(2),
+                        entry(2L, 2L),
+                        wm(6),
+                        // late event
+                        entry(5L, 100L),
+                        entry(6L, 4L),
+                        wm(8),
+                        wm(18)))
+                .expectOutput(asList(
+                        outboxFrame(2, 4, 1),
+                        wm(2),
+                        outboxFrame(3, 9, 3),
+                        outboxFrame(4, 4, 3),
+                        outboxFrame(6, 4, 2),
+                        outboxFrame(6, 9, 3),
+                        wm(6),
+                        outboxFrame(8, 4, 4),
+                        wm(8),
+                        outboxFrame(9, 9, 7),
+                        outboxFrame(10, 4, 4),
+                        outboxFrame(12, 9, 4),
+                        outboxFrame(15, 9, 4),
+                        wm(18)
+                ));
+    }
+
+    @Test
+    public void when_windowsSlideByDifferentSteps_then_frameSizeIsGreatestCommonDivisor() {
+        // When
+        SlidingWindowPolicy framePolicy = SlidingWindowP.framePolicy(
+                asList(slidingWinPolicy(12, 4), slidingWinPolicy(60, 6).withOffset(2)));
+
+        // Then
+        assertEquals(2, framePolicy.frameSize());
+        assertEquals(0, framePolicy.frameOffset());
+        assertTrue(framePolicy.isTumbling());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_frameOffsetsDontMatch_then_fail() {
+        SlidingWindowP.framePolicy(asList(slidingWinPolicy(12, 4), slidingWinPolicy(60, 6).withOffset(1)));
+    }
+
+    private static KeyedWindowResult<Long, ?> outboxFrame(long end, long size, long value) {
+        return new KeyedWindowResult<>(end - size, end, KEY, value);
+    }
+}
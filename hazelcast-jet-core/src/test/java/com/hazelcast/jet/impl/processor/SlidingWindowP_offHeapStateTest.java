@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.TimestampKind;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.datamodel.KeyedWindowResult;
+import com.hazelcast.jet.function.ToLongFunctionEx;
+import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
+import com.hazelcast.jet.impl.util.OffHeapStateMap;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.config.ProcessingGuarantee.NONE;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_KEYED_STATE_HEAP_CACHE_SIZE;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class SlidingWindowP_offHeapStateTest extends JetTestSupport {
+
+    private static final int HEAP_CACHE_SIZE = 10;
+    private static final int FRAME_COUNT = 4;
+    private static final int KEY_COUNT = 50;
+
+    private JetInstance instance;
+
+    @Before
+    public void before() {
+        JetConfig config = new JetConfig();
+        config.getProperties().setProperty(JET_KEYED_STATE_HEAP_CACHE_SIZE.getName(), String.valueOf(HEAP_CACHE_SIZE));
+        instance = createJetMember(config);
+    }
+
+    @Test
+    public void when_slidingWindowWithDeduct_then_heapCacheSharedByFrames() throws Exception {
+        test(true);
+    }
+
+    @Test
+    public void when_slidingWindowWithoutDeduct_then_heapCacheSharedByFrames() throws Exception {
+        test(false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void test(boolean hasDeduct) throws Exception {
+        // Given
+        AggregateOperation1<Entry<Long, String>, LongAccumulator, Long> aggrOp = AggregateOperation
+                .withCreate(LongAccumulator::new)
+                .<Entry<Long, String>>andAccumulate((acc, item) -> acc.add(1))
+                .andCombine(LongAccumulator::add)
+                .andDeduct(hasDeduct ? LongAccumulator::subtract : null)
+                .andExportFinish(LongAccumulator::get);
+        ToLongFunctionEx<Entry<Long, String>> timestampFn = Entry::getKey;
+        SlidingWindowP<Entry<Long, String>, LongAccumulator, Long, KeyedWindowResult<String, Long>> p =
+                (SlidingWindowP<Entry<Long, String>, LongAccumulator, Long, KeyedWindowResult<String, Long>>)
+                aggregateToSlidingWindowP(
+                        singletonList(Entry::getValue),
+                        singletonList(timestampFn),
+                        TimestampKind.EVENT,
+                        slidingWinPolicy(FRAME_COUNT, 1),
+                        0L,
+                        aggrOp,
+                        KeyedWindowResult::new
+                ).get();
+        TestOutbox outbox = new TestOutbox(1024);
+        p.init(outbox, new ProcCtx(instance, 0, 0, new JobConfig(), Logger.getLogger(SlidingWindowP.class), "vertex",
+                0, 0, NONE, 1, 0, 1));
+        TestInbox inbox = new TestInbox();
+        for (long ts = 0; ts < FRAME_COUNT; ts++) {
+            for (int key = 0; key < KEY_COUNT; key++) {
+                inbox.add(entry(ts, "key" + key));
+            }
+        }
+
+        // When
+        p.process(0, inbox);
+
+        // Then
+        assertTrue(inbox.isEmpty());
+        int size = 0;
+        int serializedCount = 0;
+        for (Map<String, LongAccumulator> frame : p.tsToKeyToAcc.values()) {
+            size += frame.size();
+            serializedCount += ((OffHeapStateMap<String, LongAccumulator>) frame).serializedCount();
+        }
+        assertEquals(FRAME_COUNT * KEY_COUNT, size);
+        assertEquals(FRAME_COUNT * KEY_COUNT - HEAP_CACHE_SIZE, serializedCount);
+
+        // When
+        while (!p.tryProcessWatermark(wm(2 * FRAME_COUNT))) {
+            assertTrue("outbox full", outbox.queue(0).size() < 1024);
+        }
+
+        // Then
+        Map<Long, Map<String, Long>> windows = new HashMap<>();
+        for (Object item; (item = outbox.queue(0).poll()) != null; ) {
+            if (item instanceof KeyedWindowResult) {
+                KeyedWindowResult<String, Long> result = (KeyedWindowResult<String, Long>) item;
+                windows.computeIfAbsent(result.end(), x -> new HashMap<>()).put(result.key(), result.result());
+            }
+        }
+        // the window ending at `end` covers the frames from `end - FRAME_COUNT` to `end - 1`
+        for (long end = 1; end < 2 * FRAME_COUNT; end++) {
+            long expectedCount = Math.min(end, 2 * FRAME_COUNT - end);
+            expectedCount = Math.min(expectedCount, FRAME_COUNT);
+            Map<String, Long> window = windows.get(end);
+            assertEquals("window end=" + end, KEY_COUNT, window.size());
+            for (Long count : window.values()) {
+                assertEquals("window end=" + end, expectedCount, (long) count);
+            }
+        }
+        assertTrue(p.tsToKeyToAcc.isEmpty());
+    }
+}
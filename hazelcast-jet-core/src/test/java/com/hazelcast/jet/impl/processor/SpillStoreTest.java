@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SpillStoreTest {
+
+    private Path directory;
+    private SpillStore.Factory factory;
+
+    @Before
+    public void before() throws IOException {
+        directory = Files.createTempDirectory("spill-store-test");
+        factory = new SpillStore.Factory(new DefaultSerializationServiceBuilder().build(), directory, 1);
+    }
+
+    @After
+    public void after() throws IOException {
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void when_pairsWritten_then_eachKeyReadFromOnePartition() {
+        // Given
+        SpillStore store = factory.newStore(0);
+        for (int i = 0; i < 1000; i++) {
+            store.write("key" + (i % 100), i);
+        }
+
+        // When
+        store.finishWriting();
+
+        // Then
+        Map<Object, Integer> keyToPartition = new HashMap<>();
+        int count = 0;
+        for (int p = 0; p < SpillStore.PARTITION_COUNT; p++) {
+            SpillStore.Reader reader = store.reader(p);
+            while (reader.advance()) {
+                Integer previous = keyToPartition.put(reader.key(), p);
+                assertTrue(previous == null || previous == p);
+                assertEquals(reader.key(), "key" + ((Integer) reader.value() % 100));
+                count++;
+            }
+        }
+        assertEquals(1000, count);
+        assertEquals(100, keyToPartition.size());
+        assertTrue(store.bytesWritten() > 0);
+        store.delete();
+    }
+
+    @Test
+    public void when_partitionSpilledToNextLevel_then_keysSplitFurther() {
+        // Given
+        SpillStore store = factory.newStore(0);
+        for (int i = 0; i < 10_000; i++) {
+            store.write(i, i);
+        }
+        store.finishWriting();
+
+        // When
+        SpillStore next = factory.newStore(store.level() + 1);
+        SpillStore.Reader reader = store.reader(0);
+        Set<Object> keys = new HashSet<>();
+        while (reader.advance()) {
+            keys.add(reader.key());
+            next.write(reader.key(), reader.value());
+        }
+        next.finishWriting();
+
+        // Then
+        int nonEmptyPartitions = 0;
+        Set<Object> nextKeys = new HashSet<>();
+        for (int p = 0; p < SpillStore.PARTITION_COUNT; p++) {
+            SpillStore.Reader nextReader = next.reader(p);
+            boolean empty = true;
+            while (nextReader.advance()) {
+                assertTrue(nextKeys.add(nextReader.key()));
+                assertEquals(nextReader.key(), nextReader.value());
+                empty = false;
+            }
+            nonEmptyPartitions += empty ? 0 : 1;
+        }
+        assertEquals(keys, nextKeys);
+        assertTrue("nonEmptyPartitions=" + nonEmptyPartitions, nonEmptyPartitions > 1);
+        store.delete();
+        next.delete();
+    }
+
+    @Test
+    public void when_partitionEmpty_then_readerHasNoPairs() {
+        // Given
+        SpillStore store = factory.newStore(0);
+        store.finishWriting();
+
+        // When
+        SpillStore.Reader reader = store.reader(3);
+
+        // Then
+        assertFalse(reader.advance());
+        assertNull(reader.key());
+        store.delete();
+    }
+}
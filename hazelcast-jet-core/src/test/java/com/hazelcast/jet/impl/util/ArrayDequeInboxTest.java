@@ -16,14 +16,17 @@
 
 package com.hazelcast.jet.impl.util;
 
+import com.hazelcast.jet.impl.execution.ItemPool;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
@@ -38,7 +41,7 @@ public class ArrayDequeInboxTest {
 
     @Before
     public void before() {
-        inbox.queue().add(ITEM);
+        inbox.add(ITEM);
     }
 
     @Test
@@ -48,7 +51,7 @@ public class ArrayDequeInboxTest {
 
     @Test
     public void when_pollEmpty_then_getNull() {
-        inbox.queue().clear();
+        inbox.clear();
         assertNull(inbox.poll());
     }
 
@@ -60,7 +63,7 @@ public class ArrayDequeInboxTest {
 
     @Test(expected = NoSuchElementException.class)
     public void when_removeEmpty_then_getException() {
-        inbox.queue().clear();
+        inbox.clear();
         inbox.remove();
     }
 
@@ -77,4 +80,88 @@ public class ArrayDequeInboxTest {
         inbox.drain(sink::add);
         assertEquals(singletonList(ITEM), sink);
     }
+
+    @Test
+    public void when_trackingTakenItems_then_takenItemsRecycled() {
+        // Given
+        ItemPool pool = new ItemPool(10);
+        inbox.add(2);
+        inbox.add(3);
+        inbox.trackTakenItems(pool);
+
+        // When
+        inbox.poll();
+        inbox.remove();
+        inbox.recycleTakenItems();
+
+        // Then
+        Object[] recycled = new Object[10];
+        assertEquals(2, pool.take(recycled));
+        assertEquals(asList(ITEM, 2), asList(recycled).subList(0, 2));
+        assertEquals(3, inbox.peek());
+    }
+
+    @Test
+    public void when_addAllAcrossEndOfBuffer_then_itemsInOrder() {
+        // Given
+        Object[] run = new Object[40];
+        for (int i = 0; i < run.length; i++) {
+            run[i] = i + 2;
+        }
+        // move the head so that the runs wrap around the end of the ring buffer
+        inbox.clear();
+        for (int i = 0; i < 10; i++) {
+            inbox.add(0);
+            inbox.poll();
+        }
+        inbox.add(ITEM);
+
+        // When
+        inbox.addAll(run, 0, 10);
+        inbox.addAll(run, 10, 40);
+
+        // Then
+        assertEquals(41, inbox.size());
+        assertEquals(41, inbox.peekLast());
+        List<Object> drained = new ArrayList<>();
+        inbox.drainTo(drained);
+        assertEquals(ITEM, drained.get(0));
+        assertEquals(asList(run), drained.subList(1, 41));
+        assertNull(inbox.peekLast());
+    }
+
+    @Test
+    public void when_removeLast_then_tailRemoved() {
+        // Given
+        inbox.add(2);
+
+        // When
+        Object removed = inbox.removeLast();
+
+        // Then
+        assertEquals(2, removed);
+        assertEquals(ITEM, inbox.peekLast());
+        assertEquals(1, inbox.size());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void when_removeLastEmpty_then_getException() {
+        inbox.clear();
+        inbox.removeLast();
+    }
+
+    @Test
+    public void when_notTrackingTakenItems_then_nothingRecycled() {
+        // Given
+        ItemPool pool = new ItemPool(10);
+        inbox.trackTakenItems(pool);
+        inbox.recycleTakenItems();
+
+        // When
+        inbox.poll();
+        inbox.recycleTakenItems();
+
+        // Then
+        assertEquals(0, pool.size());
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class CpuAffinityTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void when_rangesAndSingleCpus_then_expanded() {
+        assertEquals(asList(0, 1, 2, 3, 8, 10, 11), CpuAffinity.parseCpuList("0-3,8, 10-11"));
+    }
+
+    @Test
+    public void when_singleCpu_then_parsed() {
+        assertEquals(singletonList(5), CpuAffinity.parseCpuList(" 5 "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_reversedRange_then_fails() {
+        CpuAffinity.parseCpuList("3-1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_notANumber_then_fails() {
+        CpuAffinity.parseCpuList("0-a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_empty_then_fails() {
+        CpuAffinity.parseCpuList(",");
+    }
+
+    @Test
+    public void when_numaNodeDirectories_then_cpusMappedToNodes() throws Exception {
+        // Given
+        writeCpuList("node0", "0-1,4");
+        writeCpuList("node1", "2-3,5");
+        assertTrue(new File(folder.getRoot(), "possible").createNewFile());
+
+        // When
+        Map<Integer, Integer> nodeOfCpu = CpuAffinity.numaNodeOfCpus(folder.getRoot().toPath());
+
+        // Then
+        assertEquals(6, nodeOfCpu.size());
+        assertEquals(0, (int) nodeOfCpu.get(4));
+        assertEquals(1, (int) nodeOfCpu.get(2));
+        assertEquals(1, (int) nodeOfCpu.get(5));
+    }
+
+    @Test
+    public void when_noNumaDirectory_then_empty() {
+        assertTrue(CpuAffinity.numaNodeOfCpus(new File(folder.getRoot(), "missing").toPath()).isEmpty());
+    }
+
+    private void writeCpuList(String nodeDir, String cpuList) throws Exception {
+        File dir = folder.newFolder(nodeDir);
+        Files.write(new File(dir, "cpulist").toPath(), (cpuList + '\n').getBytes(US_ASCII));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class LatencyHistogramTest {
+
+    private static final long WINDOW = 4000;
+    private static final long NOW = 1_000_000;
+
+    private LatencyHistogram histogram = new LatencyHistogram(WINDOW);
+
+    @Test
+    public void when_empty_then_zeros() {
+        assertEquals(0, histogram.count(NOW));
+        assertEquals(0, histogram.max(NOW));
+        assertEquals(0, histogram.valueAtPercentile(99, NOW));
+    }
+
+    @Test
+    public void when_smallValues_then_exact() {
+        for (int i = 0; i < 8; i++) {
+            histogram.record(i, NOW);
+        }
+        assertEquals(8, histogram.count(NOW));
+        assertEquals(3, histogram.valueAtPercentile(50, NOW));
+        assertEquals(7, histogram.valueAtPercentile(100, NOW));
+    }
+
+    @Test
+    public void when_uniformValues_then_percentilesWithinError() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L, NOW);
+        }
+        assertEquals(1000, histogram.count(NOW));
+        assertWithinError(500_000, histogram.valueAtPercentile(50, NOW));
+        assertWithinError(990_000, histogram.valueAtPercentile(99, NOW));
+        assertEquals(1_000_000, histogram.max(NOW));
+        assertEquals(1_000_000, histogram.valueAtPercentile(100, NOW));
+    }
+
+    @Test
+    public void when_hugeOrNegativeValue_then_recorded() {
+        histogram.record(Long.MAX_VALUE, NOW);
+        histogram.record(-1, NOW);
+        assertEquals(2, histogram.count(NOW));
+        assertEquals(0, histogram.valueAtPercentile(50, NOW));
+        assertEquals(Long.MAX_VALUE, histogram.max(NOW));
+    }
+
+    @Test
+    public void when_valuesOlderThanWindow_then_notReported() {
+        histogram.record(1_000_000, NOW);
+        histogram.record(10, NOW + WINDOW / 2);
+
+        assertEquals(2, histogram.count(NOW + WINDOW / 2));
+        assertEquals(1, histogram.count(NOW + WINDOW));
+        assertEquals(10, histogram.max(NOW + WINDOW));
+        assertEquals(10, histogram.valueAtPercentile(99, NOW + WINDOW));
+        assertEquals(0, histogram.count(NOW + 2 * WINDOW));
+    }
+
+    @Test
+    public void when_slotReused_then_oldValuesCleared() {
+        histogram.record(1_000_000, NOW);
+        histogram.record(10, NOW + WINDOW);
+
+        assertEquals(1, histogram.count(NOW + WINDOW));
+        assertEquals(10, histogram.max(NOW + WINDOW));
+    }
+
+    @Test
+    public void test_bucketBoundaries() {
+        for (long value = 1; value < 1L << 41; value = value * 3 / 2 + 1) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index));
+            assertTrue(index == 0 || value > LatencyHistogram.bucketUpperBound(index - 1));
+        }
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue("expected=" + expected + ", actual=" + actual,
+                actual >= expected && actual <= expected * 1.125);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class Lz4CodecTest {
+
+    private final Lz4Codec codec = new Lz4Codec();
+    private final Random random = new Random(42);
+
+    @Test
+    public void when_empty_then_roundTrips() {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    public void when_shorterThanMinimumMatch_then_roundTrips() {
+        assertRoundTrip("abcabcabc".getBytes(UTF_8));
+    }
+
+    @Test
+    public void when_randomBytes_then_roundTrips() {
+        byte[] data = new byte[100_000];
+        random.nextBytes(data);
+        assertRoundTrip(data);
+    }
+
+    @Test
+    public void when_singleRepeatedByte_then_overlappingMatchesRoundTrip() {
+        byte[] data = new byte[10_000];
+        Arrays.fill(data, (byte) 7);
+        int compressedLength = assertRoundTrip(data);
+        assertTrue("compressedLength=" + compressedLength, compressedLength < 100);
+    }
+
+    @Test
+    public void when_text_then_compressed() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i % 10).append("\"}");
+        }
+        byte[] data = sb.toString().getBytes(UTF_8);
+        int compressedLength = assertRoundTrip(data);
+        assertTrue("compressedLength=" + compressedLength, compressedLength < data.length / 2);
+    }
+
+    @Test
+    public void when_manyRandomInputs_then_allRoundTrip() {
+        for (int i = 0; i < 1000; i++) {
+            byte[] data = new byte[random.nextInt(2000)];
+            // a small alphabet makes for many short matches
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) random.nextInt(4);
+            }
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_wrongLength_then_fails() {
+        byte[] data = "hello hello hello hello hello".getBytes(UTF_8);
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(data.length)];
+        int length = codec.compress(data, 0, data.length, compressed, 0);
+        Lz4Codec.decompress(compressed, 0, length, new byte[data.length + 1], 0, data.length + 1);
+    }
+
+    private int assertRoundTrip(byte[] data) {
+        // use non-zero offsets to check the offset handling
+        byte[] src = new byte[data.length + 3];
+        System.arraycopy(data, 0, src, 3, data.length);
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength(data.length) + 5];
+        int length = codec.compress(src, 3, data.length, compressed, 5);
+
+        byte[] decompressed = new byte[data.length + 2];
+        Lz4Codec.decompress(compressed, 5, length, decompressed, 2, data.length);
+        assertArrayEquals(data, Arrays.copyOfRange(decompressed, 2, decompressed.length));
+        return length;
+    }
+}
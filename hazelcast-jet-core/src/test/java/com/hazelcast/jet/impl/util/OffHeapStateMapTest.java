@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.impl.util.OffHeapStateMap.HeapCache;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class OffHeapStateMapTest {
+
+    private static final InternalSerializationService SERIALIZATION_SERVICE =
+            new DefaultSerializationServiceBuilder().build();
+
+    private OffHeapStateMap<Integer, long[]> map;
+
+    @Test
+    public void when_moreEntriesThanCacheCapacity_then_restSerialized() {
+        // Given
+        map = newMap(2);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            map.computeIfAbsent(i, k -> new long[] {k});
+        }
+
+        // Then
+        assertEquals(100, map.size());
+        assertEquals(98, map.serializedCount());
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(new long[] {i}, map.get(i));
+        }
+        assertNull(map.get(100));
+        assertFalse(map.containsKey(100));
+        assertEquals(100, map.size());
+    }
+
+    @Test
+    public void when_valueMutatedInCache_then_mutationSerialized() {
+        // Given
+        map = newMap(1);
+        long[] acc = map.computeIfAbsent(1, k -> new long[1]);
+
+        // When
+        acc[0] = 5;
+        map.computeIfAbsent(2, k -> new long[1]);
+
+        // Then
+        assertEquals(1, map.serializedCount());
+        assertArrayEquals(new long[] {5}, map.get(1));
+    }
+
+    @Test
+    public void when_putAndRemoveSerializedKey_then_oldValueReturned() {
+        // Given
+        map = newMap(1);
+        map.put(1, new long[] {1});
+        map.put(2, new long[] {2});
+
+        // When
+        long[] replaced = map.put(1, new long[] {3});
+        long[] removed = map.remove(2);
+
+        // Then
+        assertArrayEquals(new long[] {1}, replaced);
+        assertArrayEquals(new long[] {2}, removed);
+        assertEquals(1, map.size());
+        assertArrayEquals(new long[] {3}, map.get(1));
+    }
+
+    @Test
+    public void when_iterateAndRemove_then_allEntriesIteratedAndMapEmpty() {
+        // Given
+        map = newMap(10);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, new long[] {i});
+        }
+
+        // When
+        Map<Integer, Long> iterated = new HashMap<>();
+        for (Iterator<Entry<Integer, long[]>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            Entry<Integer, long[]> e = it.next();
+            assertNull("duplicate key: " + e.getKey(), iterated.put(e.getKey(), e.getValue()[0]));
+            it.remove();
+        }
+
+        // Then
+        assertEquals(1000, iterated.size());
+        iterated.forEach((k, v) -> assertEquals((long) k, (long) v));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void when_entriesRepeatedlyEvicted_then_directMemoryCompacted() {
+        // Given
+        map = newMap(1);
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            map.computeIfAbsent(i % 2, k -> new long[1])[0]++;
+        }
+
+        // Then
+        assertEquals(50_000, map.get(0)[0]);
+        assertEquals(50_000, map.get(1)[0]);
+        assertTrue("allocatedBytes=" + map.allocatedBytes(),
+                map.allocatedBytes() < 4 * OffHeapStateMap.MIN_CHUNK_SIZE);
+    }
+
+    @Test
+    public void when_cacheShared_then_capacityLimitsAllMaps() {
+        // Given
+        HeapCache heapCache = new HeapCache(10);
+        OffHeapStateMap<Integer, long[]> map1 = new OffHeapStateMap<>(SERIALIZATION_SERVICE, heapCache);
+        OffHeapStateMap<Integer, long[]> map2 = new OffHeapStateMap<>(SERIALIZATION_SERVICE, heapCache);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            map1.computeIfAbsent(i, k -> new long[] {k});
+            map2.computeIfAbsent(i, k -> new long[] {-k});
+        }
+
+        // Then
+        assertEquals(10, heapCache.size());
+        assertEquals(190, map1.serializedCount() + map2.serializedCount());
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(new long[] {i}, map1.get(i));
+            assertArrayEquals(new long[] {-i}, map2.get(i));
+        }
+    }
+
+    @Test
+    public void when_iteratedWhileOtherMapWritten_then_iterationNotDisturbed() {
+        // Given
+        HeapCache heapCache = new HeapCache(10);
+        OffHeapStateMap<Integer, long[]> iterated = new OffHeapStateMap<>(SERIALIZATION_SERVICE, heapCache);
+        OffHeapStateMap<Integer, long[]> written = new OffHeapStateMap<>(SERIALIZATION_SERVICE, heapCache);
+        for (int i = 0; i < 100; i++) {
+            iterated.put(i, new long[] {i});
+        }
+
+        // When
+        Map<Integer, Long> iteratedEntries = new HashMap<>();
+        for (Entry<Integer, long[]> e : iterated.entrySet()) {
+            assertNull("duplicate key: " + e.getKey(), iteratedEntries.put(e.getKey(), e.getValue()[0]));
+            written.computeIfAbsent(e.getKey(), k -> new long[1])[0] += e.getValue()[0];
+        }
+
+        // Then
+        assertEquals(100, iteratedEntries.size());
+        iteratedEntries.forEach((k, v) -> assertEquals((long) k, (long) v));
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(new long[] {i}, written.get(i));
+        }
+        assertTrue("heapCache.size=" + heapCache.size(), heapCache.size() <= 10);
+    }
+
+    private static OffHeapStateMap<Integer, long[]> newMap(int cacheCapacity) {
+        return new OffHeapStateMap<>(SERIALIZATION_SERVICE, cacheCapacity);
+    }
+}
@@ -149,6 +149,71 @@ public class SkewReductionPolicyTest {
         assertTrue(srp.shouldStopDraining(0, true));
     }
 
+    @Test
+    public void when_laggingQueueIdle_then_doesNotHoldBackOthers() {
+        // Given
+        srp = new SkewReductionPolicy(2, 20, 10, false);
+        srp.observeWm(0, 10);
+        srp.observeWm(1, 100);
+        assertTrue(srp.shouldStopDraining(1, false));
+
+        // When
+        srp.observeIdle(0);
+
+        // Then
+        assertEquals(100, srp.bottomObservedWm());
+        assertFalse(srp.shouldStopDraining(1, false));
+        assertFalse(srp.shouldStopDraining(0, false));
+    }
+
+    @Test
+    public void when_idleQueueReceivesEvent_then_holdsBackOthersAgain() {
+        // Given
+        srp = new SkewReductionPolicy(2, 20, 10, false);
+        srp.observeWm(0, 10);
+        srp.observeWm(1, 100);
+        srp.observeIdle(0);
+
+        // When
+        srp.observeEvent(0);
+
+        // Then
+        assertEquals(10, srp.bottomObservedWm());
+        assertTrue(srp.shouldStopDraining(1, false));
+    }
+
+    @Test
+    public void when_queueDone_then_doesNotHoldBackOthers() {
+        // Given
+        srp = new SkewReductionPolicy(3, 20, 10, false);
+        srp.observeWm(1, 50);
+        srp.observeWm(2, 100);
+
+        // When
+        srp.queueDone(0);
+
+        // Then
+        assertEquals(50, srp.bottomObservedWm());
+        assertTrue(srp.shouldStopDraining(2, false));
+        assertFalse(srp.shouldStopDraining(1, false));
+    }
+
+    @Test
+    public void when_allQueuesIdle_then_noneStopped() {
+        // Given
+        srp = new SkewReductionPolicy(2, 20, 10, false);
+        srp.observeWm(0, 10);
+        srp.observeWm(1, 100);
+
+        // When
+        srp.observeIdle(0);
+        srp.observeIdle(1);
+
+        // Then
+        assertEquals(Long.MAX_VALUE, srp.bottomObservedWm());
+        assertFalse(srp.shouldStopDraining(0, true));
+        assertFalse(srp.shouldStopDraining(1, true));
+    }
 
     private void assertQueuesOrdered() {
         long lastValue = Long.MIN_VALUE;
@@ -325,6 +325,27 @@ public class BatchAggregateTest extends PipelineTestSupport {
                 streamToString(sinkStreamOfEntry(), FORMAT_FN));
     }
 
+    @Test
+    public void groupAggregate_withLongKey() {
+        // Given
+        FunctionEx<Integer, Long> keyFn = i -> (long) i % 5;
+
+        // When
+        BatchStage<Entry<Long, Long>> aggregated = sourceStageFromInput()
+                .groupingLongKey(i -> i % 5)
+                .aggregate(SUMMING);
+
+        // Then
+        aggregated.drainTo(sink);
+        execute();
+        Map<Long, Long> expected = input.stream().collect(groupingBy(keyFn, summingLong(i -> i)));
+        FunctionEx<Entry<Long, Long>, String> formatFn =
+                e -> String.format("(%04d: %04d)", e.getKey(), e.getValue());
+        assertEquals(
+                streamToString(expected.entrySet().stream(), formatFn),
+                streamToString(this.<Long, Long>sinkStreamOfEntry(), formatFn));
+    }
+
     private class GroupAggregateFixture {
         final FunctionEx<Integer, Integer> keyFn;
         final FunctionEx<Integer, Integer> mapFn1;
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.pipeline;
+
+import com.hazelcast.core.IList;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.datamodel.Tuple2;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
+import static com.hazelcast.jet.function.Functions.wholeItem;
+import static com.hazelcast.jet.impl.util.JetProperties.JET_SPILL_THRESHOLD_KEYS;
+import static com.hazelcast.jet.pipeline.JoinClause.joinMapEntries;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class HashJoinSpillTest extends JetTestSupport {
+
+    private static final int ITEM_COUNT = 100;
+
+    private JetInstance instance;
+    private Pipeline p;
+    private IList<Tuple2<Integer, String>> sinkList;
+
+    @Before
+    public void before() {
+        JetConfig config = new JetConfig();
+        config.getProperties().setProperty(JET_SPILL_THRESHOLD_KEYS.getName(), "5");
+        instance = createJetMember(config);
+        p = Pipeline.create();
+        sinkList = instance.getList(randomName());
+    }
+
+    @Test
+    public void when_streamJoinedWithBuildSideOverThreshold_then_resultsEmitted() {
+        // Given
+        StreamSource<Integer> source = SourceBuilder
+                .stream("sequence", ctx -> new int[1])
+                .<Integer>fillBufferFn((counter, buf) -> {
+                    if (counter[0] < ITEM_COUNT) {
+                        buf.add(counter[0]++);
+                    }
+                })
+                .build();
+
+        // When
+        p.drawFrom(source)
+         .withoutTimestamps()
+         .hashJoin(buildSide(), joinMapEntries(wholeItem()), (i, value) -> tuple2(i, value))
+         .drainTo(Sinks.list(sinkList.getName()));
+        Job job = instance.newJob(p);
+
+        // Then
+        // the primary stream never completes, the results are emitted only if the build side isn't spilled
+        assertTrueEventually(() -> assertEquals(ITEM_COUNT, sinkList.size()));
+        assertEquals(expected(), new HashSet<>(sinkList));
+        job.cancel();
+    }
+
+    @Test
+    public void when_batchJoinedWithBuildSideOverThreshold_then_sameResultAsInMemory() {
+        // Given
+        IList<Integer> input = instance.getList(randomName());
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            input.add(i);
+        }
+
+        // When
+        p.drawFrom(Sources.<Integer>list(input.getName()))
+         .hashJoin(buildSide(), joinMapEntries(wholeItem()), (i, value) -> tuple2(i, value))
+         .drainTo(Sinks.list(sinkList.getName()));
+        instance.newJob(p).join();
+
+        // Then
+        assertEquals(ITEM_COUNT, sinkList.size());
+        assertEquals(expected(), new HashSet<>(sinkList));
+    }
+
+    private BatchStage<Entry<Integer, String>> buildSide() {
+        IList<Entry<Integer, String>> entries = instance.getList(randomName());
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            entries.add(entry(i, "value-" + i));
+        }
+        return p.drawFrom(Sources.<Entry<Integer, String>>list(entries.getName()));
+    }
+
+    private static HashSet<Tuple2<Integer, String>> expected() {
+        HashSet<Tuple2<Integer, String>> expected = new HashSet<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            expected.add(tuple2(i, "value-" + i));
+        }
+        return expected;
+    }
+}
@@ -38,12 +38,14 @@ import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
 import static com.hazelcast.jet.aggregate.AggregateOperations.summingLong;
 import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
 import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
+import static com.hazelcast.jet.pipeline.WindowDefinition.multiWindow;
 import static com.hazelcast.jet.pipeline.WindowDefinition.session;
 import static com.hazelcast.jet.pipeline.WindowDefinition.sliding;
 import static com.hazelcast.jet.pipeline.WindowDefinition.tumbling;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 
@@ -185,6 +187,35 @@ public class WindowAggregateTest extends PipelineStreamTestSupport {
         );
     }
 
+    @Test
+    public void multiWindow() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+        // window size, window end, result
+        String format = "(%04d, %04d, %04d)";
+        StreamStage<Integer> stage = streamStageFromList(input);
+
+        // When
+        MultiWindowDefinition wDef = multiWindow(tumbling(2), sliding(4, 2), sliding(9, 3));
+        StreamStage<WindowResult<Long>> aggregated = stage.window(wDef)
+                                                             .aggregate(summingLong(i -> i));
+
+        // Then
+        aggregated.drainTo(sink);
+        execute();
+        assertEquals(
+                wDef.windowDefinitions().stream()
+                    .flatMap(slidingDef -> new SlidingWindowSimulator(slidingDef)
+                            .acceptStream(input.stream())
+                            .windowSums.entrySet().stream()
+                            .map(e -> String.format(format, slidingDef.windowSize(), e.getKey(), e.getValue())))
+                    .sorted()
+                    .collect(joining("\n")),
+                streamToString(this.<Long>sinkStreamOfWinResult(),
+                        wr -> String.format(format, wr.end() - wr.start(), wr.end(), wr.result()))
+        );
+    }
+
     @Test
     public void slidingWindow_withEarlyResults() {
         // Given